@@ -24,8 +24,14 @@
     
 package sonia.scm;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static sonia.scm.util.Util.createSubCollection;
@@ -48,6 +54,66 @@ public class PageResult<T extends ModelObject> {
     return new PageResult<>(pagedEntities, allEntities.size());
   }
 
+  /**
+   * Creates a page from candidates, that have neither been filtered nor sorted. The candidates are
+   * scanned once. Only the entities up to the end of the requested page are kept (in a bounded heap,
+   * if a comparator is given), so the effort for sorting depends on the page and not on the number
+   * of candidates. The transformer (for example to clone the entities) is applied to the entities of
+   * the requested page only. Entities which are equal according to the comparator keep the order of
+   * the candidates, just like a stable sort of all entities.
+   *
+   * @param candidates  all entities which may be part of the result
+   * @param filter      filter for the candidates; counts to the overall count
+   * @param comparator  sort order of the result; may be {@code null} to keep the order of the candidates
+   * @param pageNumber  number of the requested page (zero based)
+   * @param pageSize    size of the requested page
+   * @param transformer is applied to the entities of the page
+   * @since 2.46.0
+   */
+  public static <T extends ModelObject> PageResult<T> createPage(Iterable<T> candidates, Predicate<? super T> filter, Comparator<? super T> comparator, int pageNumber, int pageSize, UnaryOperator<T> transformer) {
+    checkArgument(pageSize > 0, "pageSize must be at least 1");
+    checkArgument(pageNumber >= 0, "pageNumber must be non-negative");
+
+    long start = (long) pageNumber * pageSize;
+    int limit = (int) Math.min(start + pageSize, Integer.MAX_VALUE);
+
+    int overallCount = 0;
+    List<T> selected;
+    if (comparator == null) {
+      selected = new ArrayList<>();
+      for (T candidate : candidates) {
+        if (filter.test(candidate) && overallCount++ < limit) {
+          selected.add(candidate);
+        }
+      }
+    } else {
+      Comparator<Candidate<T>> order = Comparator
+        .comparing((Candidate<T> candidate) -> candidate.entity, comparator)
+        .thenComparingInt(candidate -> candidate.index);
+      PriorityQueue<Candidate<T>> heap = new PriorityQueue<>(Math.min(limit, 1024) + 1, order.reversed());
+      for (T entity : candidates) {
+        if (filter.test(entity)) {
+          heap.add(new Candidate<>(overallCount++, entity));
+          if (heap.size() > limit) {
+            heap.poll();
+          }
+        }
+      }
+      List<Candidate<T>> sorted = new ArrayList<>(heap);
+      sorted.sort(order);
+      selected = new ArrayList<>(sorted.size());
+      for (Candidate<T> candidate : sorted) {
+        selected.add(candidate.entity);
+      }
+    }
+
+    List<T> pagedEntities = new ArrayList<>(pageSize);
+    for (long i = start; i < selected.size(); ++i) {
+      pagedEntities.add(transformer.apply(selected.get((int) i)));
+    }
+    return new PageResult<>(pagedEntities, overallCount);
+  }
+
   public PageResult(Collection<T> entities, int overallCount) {
     this.entities = entities;
     this.overallCount = overallCount;
@@ -66,4 +132,15 @@ public class PageResult<T extends ModelObject> {
   public int getOverallCount() {
     return overallCount;
   }
+
+  private static final class Candidate<T> {
+
+    private final int index;
+    private final T entity;
+
+    private Candidate(int index, T entity) {
+      this.index = index;
+      this.entity = entity;
+    }
+  }
 }
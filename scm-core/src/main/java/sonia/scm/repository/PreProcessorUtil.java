@@ -31,7 +31,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import sonia.scm.util.Util;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Set;
 
 //~--- JDK imports ------------------------------------------------------------
@@ -187,6 +190,135 @@ public class PreProcessorUtil
     handlePreProcessForIterable(repository,result,changesetPreProcessorFactorySet, changesetPreProcessorSet);
   }
 
+  /**
+   * Prepares the given blame result for return without modifying it, so that the result can be
+   * shared (e.g. with a cache). The pre processors are applied to a copy of the blame lines. If
+   * there are no pre processors for blame lines, the given result is returned as it is.
+   *
+   * @param repository repository of the result
+   * @param result     result, which is not modified
+   * @return prepared result
+   * @since 2.46.0
+   */
+  public BlameResult prepareCopyForReturn(Repository repository, BlameResult result) {
+    if (isEmpty(blameLinePreProcessorFactorySet, blameLinePreProcessorSet)) {
+      return result;
+    }
+    List<BlameLine> lines = new ArrayList<>(result.getBlameLines().size());
+    for (BlameLine line : result.getBlameLines()) {
+      lines.add(copy(line));
+    }
+    BlameResult copy = new BlameResult(result.getTotal(), lines);
+    prepareForReturn(repository, copy);
+    return copy;
+  }
+
+  /**
+   * Prepares the given changeset for return without modifying it, so that the changeset can be
+   * shared (e.g. with a cache). The pre processors are applied to a copy of the changeset. If
+   * there are no pre processors for changesets, the given changeset is returned as it is.
+   *
+   * @param repository repository of the changeset
+   * @param changeset  changeset, which is not modified
+   * @return prepared changeset
+   * @since 2.46.0
+   */
+  public Changeset prepareCopyForReturn(Repository repository, Changeset changeset) {
+    if (isEmpty(changesetPreProcessorFactorySet, changesetPreProcessorSet)) {
+      return changeset;
+    }
+    Changeset copy = copy(changeset);
+    prepareForReturn(repository, copy);
+    return copy;
+  }
+
+  /**
+   * Prepares the given browser result for return without modifying it, so that the result can be
+   * shared (e.g. with a cache). The pre processors are applied to a copy of the file objects. If
+   * there are no pre processors for file objects, the given result is returned as it is.
+   *
+   * @param repository repository of the result
+   * @param result     result, which is not modified
+   * @return prepared result
+   * @since 2.46.0
+   */
+  public BrowserResult prepareCopyForReturn(Repository repository, BrowserResult result) {
+    if (isEmpty(fileObjectPreProcessorFactorySet, fileObjectPreProcessorSet) || result.getFile() == null) {
+      return result;
+    }
+    BrowserResult copy = new BrowserResult(result.getRevision(), result.getRequestedRevision(), copy(result.getFile()));
+    prepareForReturn(repository, copy);
+    return copy;
+  }
+
+  /**
+   * Prepares the given changesets for return without modifying them, so that the result can be
+   * shared (e.g. with a cache). The pre processors are applied to copies of the changesets. If
+   * there are no pre processors for changesets, the given result is returned as it is.
+   *
+   * @param repository repository of the changesets
+   * @param result     result, which is not modified
+   * @return prepared result
+   * @since 2.46.0
+   */
+  public ChangesetPagingResult prepareCopyForReturn(Repository repository, ChangesetPagingResult result) {
+    if (isEmpty(changesetPreProcessorFactorySet, changesetPreProcessorSet) || result.getChangesets() == null) {
+      return result;
+    }
+    List<Changeset> changesets = new ArrayList<>(result.getChangesets().size());
+    for (Changeset changeset : result.getChangesets()) {
+      changesets.add(copy(changeset));
+    }
+    ChangesetPagingResult copy = new ChangesetPagingResult(result.getTotal(), changesets, result.getBranchName());
+    prepareForReturn(repository, copy);
+    return copy;
+  }
+
+  private static boolean isEmpty(Collection<?> factories, Collection<?> preProcessors) {
+    return Util.isEmpty(factories) && Util.isEmpty(preProcessors);
+  }
+
+  /**
+   * Copies the objects which are passed to pre processors. Immutable values like strings or persons
+   * are shared with the original, so the copy is much cheaper than a serialization round trip.
+   */
+  private static Changeset copy(Changeset changeset) {
+    Changeset copy = new Changeset(changeset.getId(), changeset.getDate(), changeset.getAuthor(), changeset.getDescription());
+    copy.setBranches(new ArrayList<>(changeset.getBranches()));
+    copy.setParents(new ArrayList<>(changeset.getParents()));
+    copy.setTags(new ArrayList<>(changeset.getTags()));
+    if (!changeset.getContributors().isEmpty()) {
+      copy.setContributors(changeset.getContributors());
+    }
+    copy.setSignatures(changeset.getSignatures());
+    copy.setProperties(new HashMap<>(changeset.getProperties()));
+    return copy;
+  }
+
+  private static FileObject copy(FileObject fileObject) {
+    FileObject copy = new FileObject();
+    copy.setName(fileObject.getName());
+    copy.setPath(fileObject.getPath());
+    copy.setDirectory(fileObject.isDirectory());
+    copy.setDescription(fileObject.getDescription().orElse(null));
+    fileObject.getCommitDate().ifPresent(commitDate -> copy.setCommitDate(commitDate));
+    fileObject.getLength().ifPresent(length -> copy.setLength(length));
+    copy.setSubRepository(fileObject.getSubRepository());
+    copy.setPartialResult(fileObject.isPartialResult());
+    copy.setComputationAborted(fileObject.isComputationAborted());
+    copy.setTruncated(fileObject.isTruncated());
+    if (fileObject.getChildren() != null) {
+      for (FileObject child : fileObject.getChildren()) {
+        copy.addChild(copy(child));
+      }
+    }
+    return copy;
+  }
+
+  private static BlameLine copy(BlameLine line) {
+    return new BlameLine(line.getLineNumber(), line.getRevision(), line.getWhen(), line.getAuthor(), line.getDescription(), line.getCode());
+  }
+
   private <T, F extends PreProcessorFactory<T>, P extends PreProcessor<T>> void handlePreProcess(Repository repository, T processedObject,
                                                                                                  Collection<F> factories,
                                                                                                  Collection<P> preProcessors) {
@@ -66,6 +66,17 @@ public class RepositoryCacheKeyPredicate<T extends RepositoryCacheKey>
     return repositoryId.equals(item.getRepositoryId());
   }
 
+  /**
+   * Returns the id of the repository, whose keys are matched by this predicate.
+   *
+   * @return id of the repository
+   * @since 2.46.0
+   */
+  public String getRepositoryId()
+  {
+    return repositoryId;
+  }
+
   //~--- fields ---------------------------------------------------------------
 
   /** Field description */
@@ -176,7 +176,7 @@ public final class BlameCommandBuilder
 
     if (!disablePreProcessors && (result != null))
     {
-      preProcessorUtil.prepareForReturn(repository, result);
+      result = preProcessorUtil.prepareCopyForReturn(repository, result);
     }
 
     return result;
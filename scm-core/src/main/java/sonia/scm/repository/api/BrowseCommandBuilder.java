@@ -168,7 +168,7 @@ public final class BrowseCommandBuilder
 
     if (!disablePreProcessors && (result != null))
     {
-      preProcessorUtil.prepareForReturn(repository, result);
+      result = preProcessorUtil.prepareCopyForReturn(repository, result);
     }
 
     return result;
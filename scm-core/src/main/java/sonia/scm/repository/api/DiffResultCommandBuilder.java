@@ -36,6 +36,14 @@ import java.util.Set;
 
 public class DiffResultCommandBuilder extends AbstractDiffCommandBuilder<DiffResultCommandBuilder, DiffResultCommandRequest> {
 
+  /**
+   * Name of the cache, which can be used by implementations to cache the computed diff entries of a diff. The cache is
+   * cleared together with the other repository caches.
+   *
+   * @since 2.46.0
+   */
+  public static final String CACHE_NAME = "sonia.cache.cmd.diff-entries";
+
   private static final Logger LOG = LoggerFactory.getLogger(DiffResultCommandBuilder.class);
 
   private final DiffResultCommand diffResultCommand;
@@ -204,7 +204,7 @@ public final class LogCommandBuilder
 
     if (!disablePreProcessors && (changeset != null))
     {
-      preProcessorUtil.prepareForReturn(repository, changeset);
+      changeset = preProcessorUtil.prepareCopyForReturn(repository, changeset);
     }
 
     return changeset;
@@ -258,7 +258,7 @@ public final class LogCommandBuilder
 
     if (!disablePreProcessors && (cpr != null))
     {
-      preProcessorUtil.prepareForReturn(repository, cpr);
+      cpr = preProcessorUtil.prepareCopyForReturn(repository, cpr);
     }
 
     return cpr;
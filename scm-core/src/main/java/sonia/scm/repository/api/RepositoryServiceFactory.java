@@ -326,6 +326,7 @@ public final class RepositoryServiceFactory {
       this.caches.add(cacheManager.getCache(TagsCommandBuilder.CACHE_NAME));
       this.caches.add(cacheManager.getCache(BranchesCommandBuilder.CACHE_NAME));
       this.caches.add(cacheManager.getCache(BranchDetailsCommandBuilder.CACHE_NAME));
+      this.caches.add(cacheManager.getCache(DiffResultCommandBuilder.CACHE_NAME));
     }
 
     /**
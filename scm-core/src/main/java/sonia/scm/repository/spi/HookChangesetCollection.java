@@ -0,0 +1,270 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.repository.spi;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sonia.scm.repository.Changeset;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collection of {@link Changeset}s for hooks, which keeps only a limited number of changesets in memory. All further
+ * changesets are spilled to a temporary file and are read back one by one, whenever the collection is iterated. The
+ * collection can be iterated multiple times. The temporary file is removed, as soon as the collection is no longer
+ * reachable. The file is read with one stream per iterator. The stream is closed after the last changeset, or when
+ * the iterator is no longer reachable, e.g. if a hook stops iterating early.
+ *
+ * @since 2.46.0
+ */
+public final class HookChangesetCollection implements Iterable<Changeset> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(HookChangesetCollection.class);
+
+  private static final String PROPERTY_MEMORY_LIMIT = "scm.hook.changesets.memoryLimit";
+  private static final int DEFAULT_MEMORY_LIMIT = 1000;
+
+  /**
+   * Number of changesets after which the serialization handles are reset, to keep the memory of the object streams
+   * bounded.
+   */
+  private static final int RESET_INTERVAL = 100;
+
+  private static final Cleaner CLEANER = Cleaner.create();
+
+  private final int memoryLimit;
+  private final List<Changeset> inMemory = new ArrayList<>();
+
+  private SpillFile spillFile;
+  private int spilled = 0;
+
+  public HookChangesetCollection() {
+    this(Integer.getInteger(PROPERTY_MEMORY_LIMIT, DEFAULT_MEMORY_LIMIT));
+  }
+
+  HookChangesetCollection(int memoryLimit) {
+    this.memoryLimit = memoryLimit;
+  }
+
+  /**
+   * Appends the given changeset to the collection.
+   *
+   * @param changeset changeset to append
+   */
+  public synchronized void add(Changeset changeset) {
+    if (inMemory.size() < memoryLimit) {
+      inMemory.add(changeset);
+    } else {
+      spill(changeset);
+    }
+  }
+
+  /**
+   * Returns the number of changesets in the collection.
+   *
+   * @return number of changesets
+   */
+  public synchronized int size() {
+    return inMemory.size() + spilled;
+  }
+
+  /**
+   * Returns {@code true} if changesets had to be written to disk.
+   *
+   * @return {@code true} if changesets were spilled
+   */
+  public synchronized boolean isSpilled() {
+    return spilled > 0;
+  }
+
+  @Override
+  public synchronized Iterator<Changeset> iterator() {
+    Iterator<Changeset> memoryIterator = new ArrayList<>(inMemory).iterator();
+    if (spilled == 0) {
+      return memoryIterator;
+    }
+    try {
+      spillFile.output.flush();
+    } catch (IOException ex) {
+      throw new UncheckedIOException("failed to flush spilled hook changesets", ex);
+    }
+    return new SpilledIterator(memoryIterator, spillFile, spilled);
+  }
+
+  @VisibleForTesting
+  synchronized int getOpenReaders() {
+    return spillFile != null ? spillFile.readers.size() : 0;
+  }
+
+  private void spill(Changeset changeset) {
+    try {
+      if (spillFile == null) {
+        spillFile = new SpillFile(Files.createTempFile("scm-hook-changesets-", ".ser"));
+        CLEANER.register(this, spillFile);
+        LOG.debug("more than {} changesets received, spilling further changesets to {}", memoryLimit, spillFile.path);
+      }
+      spillFile.output.writeObject(changeset);
+      spilled++;
+      if (spilled % RESET_INTERVAL == 0) {
+        spillFile.output.reset();
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException("failed to spill hook changeset to disk", ex);
+    }
+  }
+
+  /**
+   * The state of the temporary file. It must not reference the collection, otherwise the cleaner would never run.
+   */
+  private static final class SpillFile implements Runnable {
+
+    private final Path path;
+    private final ObjectOutputStream output;
+    private final Set<SpillReader> readers = ConcurrentHashMap.newKeySet();
+
+    private SpillFile(Path path) throws IOException {
+      this.path = path;
+      this.output = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+    }
+
+    @Override
+    public void run() {
+      // readers which are not yet cleaned would prevent the deletion on some platforms
+      readers.forEach(SpillReader::run);
+      try {
+        output.close();
+        Files.deleteIfExists(path);
+      } catch (IOException ex) {
+        LOG.warn("failed to remove spilled hook changesets {}", path, ex);
+      }
+    }
+  }
+
+  /**
+   * Stream of a single iterator. It must not reference the iterator, otherwise the cleaner would never run.
+   */
+  private static final class SpillReader implements Runnable {
+
+    private final SpillFile spillFile;
+    private final ObjectInputStream input;
+
+    private SpillReader(SpillFile spillFile) throws IOException {
+      this.spillFile = spillFile;
+      InputStream stream = new BufferedInputStream(Files.newInputStream(spillFile.path));
+      try {
+        this.input = new ObjectInputStream(stream);
+      } catch (IOException ex) {
+        stream.close();
+        throw ex;
+      }
+      spillFile.readers.add(this);
+    }
+
+    @Override
+    public void run() {
+      spillFile.readers.remove(this);
+      try {
+        input.close();
+      } catch (IOException ex) {
+        LOG.warn("failed to close spilled hook changesets {}", spillFile.path, ex);
+      }
+    }
+  }
+
+  /**
+   * Not static on purpose: the iterator keeps the collection and with it the temporary file alive.
+   */
+  private final class SpilledIterator implements Iterator<Changeset> {
+
+    private final Iterator<Changeset> memoryIterator;
+    private final SpillFile spillFile;
+    private final int count;
+
+    private SpillReader reader;
+    private Cleaner.Cleanable cleanable;
+    private int read = 0;
+
+    private SpilledIterator(Iterator<Changeset> memoryIterator, SpillFile spillFile, int count) {
+      this.memoryIterator = memoryIterator;
+      this.spillFile = spillFile;
+      this.count = count;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return memoryIterator.hasNext() || read < count;
+    }
+
+    @Override
+    public Changeset next() {
+      if (memoryIterator.hasNext()) {
+        return memoryIterator.next();
+      }
+      if (read >= count) {
+        throw new NoSuchElementException();
+      }
+      try {
+        if (reader == null) {
+          reader = new SpillReader(spillFile);
+          cleanable = CLEANER.register(this, reader);
+        }
+        Changeset changeset = (Changeset) reader.input.readObject();
+        read++;
+        if (read == count) {
+          cleanable.clean();
+        }
+        return changeset;
+      } catch (IOException ex) {
+        close();
+        throw new UncheckedIOException("failed to read spilled hook changeset", ex);
+      } catch (ClassNotFoundException ex) {
+        close();
+        throw new IllegalStateException("failed to read spilled hook changeset", ex);
+      }
+    }
+
+    private void close() {
+      if (cleanable != null) {
+        cleanable.clean();
+      }
+    }
+  }
+}
@@ -26,7 +26,10 @@ package sonia.scm.repository.work;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Stopwatch;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
@@ -36,34 +39,60 @@ import sonia.scm.util.IOUtil;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 import static java.lang.Integer.getInteger;
+import static java.lang.Long.getLong;
 import static java.util.Optional.empty;
 import static java.util.Optional.of;
 
 /**
- * This class is a simple implementation of the {@link WorkingCopyPool} to demonstrate,
- * how caching can work in an LRU style. For the first time a {@link WorkingCopy} is
- * requested for a repository with {@link #getWorkingCopy(SimpleWorkingCopyFactory.WorkingCopyContext)},
- * this implementation fetches a new directory from the {@link WorkdirProvider}.
- * On {@link #contextClosed(SimpleWorkingCopyFactory.WorkingCopyContext, File)},
- * the directory is not deleted, but put into a cache with the repository id as key.
+ * This class is an implementation of the {@link WorkingCopyPool}, which caches working copies in an LRU style.
+ * For the first time a {@link WorkingCopy} is requested for a repository with
+ * {@link #getWorkingCopy(SimpleWorkingCopyFactory.WorkingCopyContext)}, this implementation fetches a new directory
+ * from the {@link WorkdirProvider}. On {@link #contextClosed(SimpleWorkingCopyFactory.WorkingCopyContext, File)},
+ * the directory is not deleted, but put into the cache for the repository.
  * When a working copy is requested with {@link #getWorkingCopy(SimpleWorkingCopyFactory.WorkingCopyContext)}
- * for a repository with such an existing directory, it is taken from the map, reclaimed and
+ * for a repository with such an existing directory, it is taken from the cache, reclaimed and
  * returned as {@link WorkingCopy}.
- * If for one repository a working copy is requested, while another is in use already,
- * the process will wait until the other process has finished.
- * The number of directories cached is limited. By default, directories are cached for
- * {@value DEFAULT_WORKING_COPY_POOL_SIZE} repositories. This can be changes with the system
- * property '{@value WORKING_COPY_POOL_SIZE_PROPERTY}' (if this is set to zero, no caching will
- * take place; to cache the directories for each repository without eviction simply set this to a
- * high enough value).
+ * <br>
+ * Each repository has a number of slots (by default {@value DEFAULT_WORKING_COPY_POOL_SLOTS}, this can be changed with
+ * the system property '{@value WORKING_COPY_POOL_SLOTS_PROPERTY}'). Up to this number of working copies can be used
+ * in parallel for one repository, each one with its own directory. If all slots of a repository are in use, further
+ * requests wait until a working copy is closed.
+ * <br>
+ * The number of directories cached is limited. By default, {@value DEFAULT_WORKING_COPY_POOL_SIZE} directories
+ * are cached over all repositories. This can be changed with the system property
+ * '{@value WORKING_COPY_POOL_SIZE_PROPERTY}' (if this is set to zero, no caching will take place). Additionally, the
+ * disk space of all cached directories can be limited with the system property
+ * '{@value WORKING_COPY_POOL_DISK_BUDGET_PROPERTY}' (in megabytes, by default there is no limit). If one of these
+ * limits is exceeded, the least recently used directories are deleted.
+ * <br>
+ * Repositories, for which working copies are requested often (by default {@value DEFAULT_PREWARM_THRESHOLD} times,
+ * this can be changed with the system property '{@value PREWARM_THRESHOLD_PROPERTY}', zero disables pre-warming)
+ * within a time window (by default {@value DEFAULT_PREWARM_WINDOW} minutes, this can be changed with the system
+ * property '{@value PREWARM_WINDOW_PROPERTY}'), get a further cached directory in the background, as long as not all
+ * of their slots are covered. The new directory is a copy of a cached one, so the next parallel request does not have
+ * to create a new clone. Repositories which are no longer requested that often cool down again.
  * <br>
  * The usage of this pool has to be enabled by setting the system property `scm.workingCopyPoolStrategy`
  * to 'sonia.scm.repository.work.SimpleCachingWorkingCopyPool'.
@@ -72,15 +101,6 @@ import static java.util.Optional.of;
  * the editor plugin or the review plugin, but one has to take into
  * account, that the space needed for repositories is multiplied. So you have to make sure, that
  * there is enough space for clones of the repository.
- * <br>
- * Possible enhancements:
- * <ul>
- *   <li>Monitoring of times</li>
- *   <li>Allow multiple cached directories for busy repositories (possibly taking initial branches into account)</li>
- *   <li>Measure allocated disk space and set a limit</li>
- *   <li>Remove directories not used for a longer time</li>
- *   <li>Wait for a cached directory on parallel requests</li>
- * </ul>
  */
 @Singleton
 public class SimpleCachingWorkingCopyPool implements WorkingCopyPool {
@@ -88,32 +108,103 @@ public class SimpleCachingWorkingCopyPool implements WorkingCopyPool {
   public static final int DEFAULT_WORKING_COPY_POOL_SIZE = 5;
   public static final String WORKING_COPY_POOL_SIZE_PROPERTY = "scm.workingCopyPoolSize";
 
+  /**
+   * @since 2.46.0
+   */
+  public static final int DEFAULT_WORKING_COPY_POOL_SLOTS = 2;
+  /**
+   * @since 2.46.0
+   */
+  public static final String WORKING_COPY_POOL_SLOTS_PROPERTY = "scm.workingCopyPoolSlots";
+  /**
+   * @since 2.46.0
+   */
+  public static final String WORKING_COPY_POOL_DISK_BUDGET_PROPERTY = "scm.workingCopyPoolDiskBudget";
+  /**
+   * @since 2.46.0
+   */
+  public static final int DEFAULT_PREWARM_THRESHOLD = 10;
+  /**
+   * @since 2.46.0
+   */
+  public static final String PREWARM_THRESHOLD_PROPERTY = "scm.workingCopyPoolPrewarmThreshold";
+  /**
+   * @since 2.46.0
+   */
+  public static final int DEFAULT_PREWARM_WINDOW = 10;
+  /**
+   * @since 2.46.0
+   */
+  public static final String PREWARM_WINDOW_PROPERTY = "scm.workingCopyPoolPrewarmWindow";
+
   private static final Logger LOG = LoggerFactory.getLogger(SimpleCachingWorkingCopyPool.class);
 
   private final WorkdirProvider workdirProvider;
-  private final LinkedHashMap<String, File> workdirs;
-  private final Map<String, Lock> locks;
+  private final int size;
+  private final int slotsPerRepository;
+  private final long diskBudget;
+  private final int prewarmThreshold;
+  private final Duration prewarmWindow;
+  private final Executor prewarmExecutor;
+  private final Clock clock;
   private final boolean cacheEnabled;
 
+  /**
+   * Cached directories, the least recently returned first. Guarded by itself.
+   */
+  private final LinkedHashMap<File, CachedWorkdir> workdirs = new LinkedHashMap<>();
+  private final Map<String, Slots> slots = new ConcurrentHashMap<>();
+  private final AtomicInteger usedSlots = new AtomicInteger();
+  private long diskUsage = 0;
+
   private final Counter cacheHitCounter;
   private final Counter cacheMissCounter;
   private final Counter reclaimFailureCounter;
   private final Counter overflowCounter;
+  private final Counter prewarmCounter;
   private final Timer parallelWaitTimer;
   private final Timer reclaimTimer;
   private final Timer initializeTimer;
   private final Timer deleteTimer;
+  private final DistributionSummary slotUtilisation;
 
   @Inject
   public SimpleCachingWorkingCopyPool(WorkdirProvider workdirProvider, MeterRegistry meterRegistry) {
-    this(getInteger(WORKING_COPY_POOL_SIZE_PROPERTY, DEFAULT_WORKING_COPY_POOL_SIZE), workdirProvider, meterRegistry);
+    this(
+      getInteger(WORKING_COPY_POOL_SIZE_PROPERTY, DEFAULT_WORKING_COPY_POOL_SIZE),
+      getInteger(WORKING_COPY_POOL_SLOTS_PROPERTY, DEFAULT_WORKING_COPY_POOL_SLOTS),
+      getLong(WORKING_COPY_POOL_DISK_BUDGET_PROPERTY, 0L) * 1024 * 1024,
+      getInteger(PREWARM_THRESHOLD_PROPERTY, DEFAULT_PREWARM_THRESHOLD),
+      Duration.ofMinutes(getInteger(PREWARM_WINDOW_PROPERTY, DEFAULT_PREWARM_WINDOW)),
+      createPrewarmExecutor(),
+      Clock.systemUTC(),
+      workdirProvider,
+      meterRegistry
+    );
   }
 
   @VisibleForTesting
   SimpleCachingWorkingCopyPool(int size, WorkdirProvider workdirProvider, MeterRegistry meterRegistry) {
+    this(size, DEFAULT_WORKING_COPY_POOL_SLOTS, 0L, 0, Runnable::run, workdirProvider, meterRegistry);
+  }
+
+  @VisibleForTesting
+  @SuppressWarnings("java:S107") // all of these are tuning parameters
+  SimpleCachingWorkingCopyPool(int size, int slotsPerRepository, long diskBudget, int prewarmThreshold, Executor prewarmExecutor, WorkdirProvider workdirProvider, MeterRegistry meterRegistry) {
+    this(size, slotsPerRepository, diskBudget, prewarmThreshold, Duration.ofMinutes(DEFAULT_PREWARM_WINDOW), prewarmExecutor, Clock.systemUTC(), workdirProvider, meterRegistry);
+  }
+
+  @VisibleForTesting
+  @SuppressWarnings("java:S107") // all of these are tuning parameters
+  SimpleCachingWorkingCopyPool(int size, int slotsPerRepository, long diskBudget, int prewarmThreshold, Duration prewarmWindow, Executor prewarmExecutor, Clock clock, WorkdirProvider workdirProvider, MeterRegistry meterRegistry) {
     this.workdirProvider = workdirProvider;
-    this.workdirs = new LruMap(size);
-    this.locks = new ConcurrentHashMap<>();
+    this.size = size;
+    this.slotsPerRepository = Math.max(1, slotsPerRepository);
+    this.diskBudget = diskBudget;
+    this.prewarmThreshold = prewarmThreshold;
+    this.prewarmWindow = prewarmWindow;
+    this.prewarmExecutor = prewarmExecutor;
+    this.clock = clock;
     cacheEnabled = size > 0;
     cacheHitCounter = Counter
       .builder("scm.workingcopy.pool.cache.hit")
@@ -131,6 +222,10 @@ public class SimpleCachingWorkingCopyPool implements WorkingCopyPool {
       .builder("scm.workingcopy.pool.cache.overflow")
       .description("The amount of discarded working copies from pool due to cache overflow")
       .register(meterRegistry);
+    prewarmCounter = Counter
+      .builder("scm.workingcopy.pool.prewarm")
+      .description("The amount of working copies created in advance for frequently used repositories")
+      .register(meterRegistry);
     parallelWaitTimer = Timer
       .builder("scm.workingcopy.pool.parallel")
       .description("Duration of blocking waits for available working copies in pool")
@@ -147,26 +242,46 @@ public class SimpleCachingWorkingCopyPool implements WorkingCopyPool {
       .builder("scm.workingcopy.pool.delete.duration")
       .description("Duration of deletes of working copies from pool")
       .register(meterRegistry);
+    slotUtilisation = DistributionSummary
+      .builder("scm.workingcopy.pool.slots.utilisation")
+      .description("Share of the slots of a repository in use, whenever a working copy is handed out")
+      .register(meterRegistry);
+    Gauge.builder("scm.workingcopy.pool.slots.used", usedSlots, AtomicInteger::get)
+      .description("The amount of working copies currently in use")
+      .register(meterRegistry);
+    Gauge.builder("scm.workingcopy.pool.cache.size", this, SimpleCachingWorkingCopyPool::getCachedCount)
+      .description("The amount of cached working copies")
+      .register(meterRegistry);
+    Gauge.builder("scm.workingcopy.pool.cache.disk", this, SimpleCachingWorkingCopyPool::getDiskUsage)
+      .description("The disk space used by cached working copies")
+      .baseUnit("bytes")
+      .register(meterRegistry);
+  }
+
+  private static ExecutorService createPrewarmExecutor() {
+    return Executors.newSingleThreadExecutor(
+      new ThreadFactoryBuilder()
+        .setNameFormat("WorkingCopyPoolPrewarm-%d")
+        .setDaemon(true)
+        .build()
+    );
   }
 
   @Override
   public <R, W> WorkingCopy<R, W> getWorkingCopy(SimpleWorkingCopyFactory<R, W, ?>.WorkingCopyContext context) {
-    Lock lock = getLock(context);
-    parallelWaitTimer.record(lock::lock);
+    Slots repositorySlots = getSlots(context);
+    parallelWaitTimer.record(repositorySlots::acquire);
     try {
       return getWorkingCopyFromPoolOrCreate(context);
     } catch (RuntimeException e) {
-      lock.unlock();
+      repositorySlots.release();
       throw e;
     }
   }
 
   private <R, W> WorkingCopy<R, W> getWorkingCopyFromPoolOrCreate(SimpleWorkingCopyFactory<R, W, ?>.WorkingCopyContext workingCopyContext) {
     String id = workingCopyContext.getScmRepository().getId();
-    File existingWorkdir;
-    synchronized (workdirs) {
-      existingWorkdir = workdirs.remove(id);
-    }
+    File existingWorkdir = takeCachedWorkdir(id);
     if (existingWorkdir != null) {
       Optional<WorkingCopy<R, W>> reclaimedWorkingCopy = tryToReclaim(workingCopyContext, existingWorkdir);
       if (reclaimedWorkingCopy.isPresent()) {
@@ -179,6 +294,23 @@ public class SimpleCachingWorkingCopyPool implements WorkingCopyPool {
     return createNewWorkingCopy(workingCopyContext);
   }
 
+  private File takeCachedWorkdir(String repositoryId) {
+    synchronized (workdirs) {
+      // take the most recently returned directory of the repository, because it is the most up-to-date one
+      CachedWorkdir found = null;
+      for (CachedWorkdir cached : workdirs.values()) {
+        if (cached.repositoryId.equals(repositoryId)) {
+          found = cached;
+        }
+      }
+      if (found == null) {
+        return null;
+      }
+      removeCached(found);
+      return found.directory;
+    }
+  }
+
   private <R, W> Optional<WorkingCopy<R, W>> tryToReclaim(SimpleWorkingCopyFactory<R, W, ?>.WorkingCopyContext workingCopyContext, File existingWorkdir) {
     return reclaimTimer.record(() -> {
       Stopwatch stopwatch = Stopwatch.createStarted();
@@ -207,10 +339,14 @@ public class SimpleCachingWorkingCopyPool implements WorkingCopyPool {
 
   @Override
   public void contextClosed(SimpleWorkingCopyFactory<?, ?, ?>.WorkingCopyContext workingCopyContext, File workdir) {
+    Slots repositorySlots = getSlots(workingCopyContext);
     try {
       putWorkingCopyToCache(workingCopyContext, workdir);
     } finally {
-      getLock(workingCopyContext).unlock();
+      repositorySlots.release();
+    }
+    if (cacheEnabled && repositorySlots.isHot()) {
+      prewarmExecutor.execute(() -> prewarm(workingCopyContext.getScmRepository().getId(), repositorySlots));
     }
   }
 
@@ -219,15 +355,86 @@ public class SimpleCachingWorkingCopyPool implements WorkingCopyPool {
       deleteWorkdir(workdir);
       return;
     }
+    addCached(new CachedWorkdir(workingCopyContext.getScmRepository().getId(), workdir, measure(workdir)));
+  }
+
+  private void prewarm(String repositoryId, Slots repositorySlots) {
+    File source;
+    synchronized (workdirs) {
+      long cached = workdirs.values().stream().filter(w -> w.repositoryId.equals(repositoryId)).count();
+      if (cached + repositorySlots.inUse() >= slotsPerRepository) {
+        return;
+      }
+      source = takeCachedWorkdir(repositoryId);
+    }
+    if (source == null) {
+      return;
+    }
+    File copy = null;
+    try {
+      copy = workdirProvider.createNewWorkdir(repositoryId);
+      IOUtil.copy(source, copy);
+      addCached(new CachedWorkdir(repositoryId, copy, measure(copy)));
+      prewarmCounter.increment();
+      LOG.debug("pre-warmed workdir for repository {} in path {}", repositoryId, copy);
+    } catch (IOException | RuntimeException e) {
+      LOG.debug("failed to pre-warm workdir for repository {}", repositoryId, e);
+      if (copy != null) {
+        deleteWorkdir(copy);
+      }
+    } finally {
+      addCached(new CachedWorkdir(repositoryId, source, measure(source)));
+    }
+  }
+
+  private void addCached(CachedWorkdir cachedWorkdir) {
+    List<CachedWorkdir> evicted = new ArrayList<>();
     synchronized (workdirs) {
-      workdirs.put(workingCopyContext.getScmRepository().getId(), workdir);
+      workdirs.put(cachedWorkdir.directory, cachedWorkdir);
+      diskUsage += cachedWorkdir.size;
+      Iterator<CachedWorkdir> iterator = workdirs.values().iterator();
+      while (iterator.hasNext() && (workdirs.size() > size || (diskBudget > 0 && diskUsage > diskBudget))) {
+        CachedWorkdir eldest = iterator.next();
+        iterator.remove();
+        diskUsage -= eldest.size;
+        evicted.add(eldest);
+      }
+    }
+    for (CachedWorkdir eldest : evicted) {
+      overflowCounter.increment();
+      deleteWorkdir(eldest.directory);
+    }
+  }
+
+  private void removeCached(CachedWorkdir cachedWorkdir) {
+    workdirs.remove(cachedWorkdir.directory);
+    diskUsage -= cachedWorkdir.size;
+  }
+
+  private long measure(File workdir) {
+    if (diskBudget <= 0) {
+      return 0;
+    }
+    try (Stream<Path> files = Files.walk(workdir.toPath())) {
+      return files.mapToLong(file -> file.toFile().length()).sum();
+    } catch (IOException | RuntimeException e) {
+      LOG.debug("failed to measure size of workdir {}", workdir, e);
+      return 0;
     }
   }
 
   @Override
   public void shutdown() {
-    workdirs.values().parallelStream().forEach(this::deleteWorkdir);
-    workdirs.clear();
+    List<CachedWorkdir> cached;
+    synchronized (workdirs) {
+      cached = new ArrayList<>(workdirs.values());
+      workdirs.clear();
+      diskUsage = 0;
+    }
+    cached.parallelStream().map(c -> c.directory).forEach(this::deleteWorkdir);
+    if (prewarmExecutor instanceof ExecutorService) {
+      ((ExecutorService) prewarmExecutor).shutdownNow();
+    }
   }
 
   private void deleteWorkdir(File workdir) {
@@ -237,27 +444,93 @@ public class SimpleCachingWorkingCopyPool implements WorkingCopyPool {
     }
   }
 
-  private <R, W> Lock getLock(SimpleWorkingCopyFactory<R, W, ?>.WorkingCopyContext context) {
-    return locks.computeIfAbsent(context.getScmRepository().getId(), id -> new ReentrantLock(true));
+  private int getCachedCount() {
+    synchronized (workdirs) {
+      return workdirs.size();
+    }
+  }
+
+  private long getDiskUsage() {
+    synchronized (workdirs) {
+      return diskUsage;
+    }
+  }
+
+  private Slots getSlots(SimpleWorkingCopyFactory<?, ?, ?>.WorkingCopyContext context) {
+    return slots.computeIfAbsent(context.getScmRepository().getId(), id -> new Slots());
+  }
+
+  private static final class CachedWorkdir {
+    private final String repositoryId;
+    private final File directory;
+    private final long size;
+
+    private CachedWorkdir(String repositoryId, File directory, long size) {
+      this.repositoryId = repositoryId;
+      this.directory = directory;
+      this.size = size;
+    }
   }
 
-  @SuppressWarnings("java:S2160") // no need for equals here
-  private class LruMap extends LinkedHashMap<String, File> {
-    private final int maxSize;
+  /**
+   * The slots of one repository. A thread, which already holds a slot of the repository, does not need a further
+   * one for nested working copies, so that it cannot block itself.
+   */
+  private final class Slots {
+
+    private final Semaphore semaphore = new Semaphore(slotsPerRepository, true);
+    private final Map<Thread, Integer> holders = new ConcurrentHashMap<>();
+    /**
+     * Times of the latest requests, at most as many as the pre-warm threshold, the oldest first. Guarded by itself.
+     */
+    private final ArrayDeque<Instant> requests = new ArrayDeque<>();
 
-    public LruMap(int maxSize) {
-      super(maxSize);
-      this.maxSize = maxSize;
+    void acquire() {
+      Thread current = Thread.currentThread();
+      if (holders.computeIfPresent(current, (thread, count) -> count + 1) == null) {
+        semaphore.acquireUninterruptibly();
+        holders.put(current, 1);
+      }
+      usedSlots.incrementAndGet();
+      recordRequest();
+      slotUtilisation.record((double) inUse() / slotsPerRepository);
     }
 
-    @Override
-    protected boolean removeEldestEntry(Map.Entry<String, File> eldest) {
-      if (size() > maxSize) {
-        overflowCounter.increment();
-        deleteWorkdir(eldest.getValue());
-        return true;
+    void release() {
+      usedSlots.decrementAndGet();
+      Integer remaining = holders.computeIfPresent(Thread.currentThread(), (thread, count) -> count > 1 ? count - 1 : null);
+      if (remaining == null) {
+        semaphore.release();
+      }
+    }
+
+    int inUse() {
+      return slotsPerRepository - semaphore.availablePermits();
+    }
+
+    /**
+     * A repository is hot, if the pre-warm threshold of requests has been reached within the pre-warm window.
+     */
+    boolean isHot() {
+      if (prewarmThreshold <= 0 || slotsPerRepository <= 1) {
+        return false;
+      }
+      synchronized (requests) {
+        return requests.size() >= prewarmThreshold
+          && !requests.getFirst().isBefore(clock.instant().minus(prewarmWindow));
+      }
+    }
+
+    private void recordRequest() {
+      if (prewarmThreshold <= 0) {
+        return;
+      }
+      synchronized (requests) {
+        requests.addLast(clock.instant());
+        if (requests.size() > prewarmThreshold) {
+          requests.removeFirst();
+        }
       }
-      return false;
     }
   }
 }
@@ -26,6 +26,7 @@ package sonia.scm.search;
 
 import com.google.common.annotations.Beta;
 import sonia.scm.HandlerEventType;
+import sonia.scm.ModelObject;
 import sonia.scm.event.HandlerEvent;
 
 /**
@@ -53,8 +54,13 @@ public final class HandlerEventIndexSyncer<T> {
   public void handleEvent(HandlerEvent<T> event) {
     HandlerEventType type = event.getEventType();
     if (type.isPost()) {
-      SerializableIndexTask<T> task = createTask(type, event.getItem());
-      searchEngine.forType(indexer.getType()).update(task);
+      T item = event.getItem();
+      SerializableIndexTask<T> task = createTask(type, item);
+      if (item instanceof ModelObject) {
+        searchEngine.forType(indexer.getType()).update(((ModelObject) item).getId(), task);
+      } else {
+        searchEngine.forType(indexer.getType()).update(task);
+      }
     }
   }
 
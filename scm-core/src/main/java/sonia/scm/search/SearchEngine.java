@@ -176,6 +176,20 @@ public interface SearchEngine {
      */
     void update(SerializableIndexTask<T> task);
 
+    /**
+     * Submits a task to update the index entry of the item with the given id.
+     * The task must write the complete state of the item (e.g. store or delete it), because pending updates of the
+     * same item may be replaced by this one. Updates may be collected for a short time and applied together with
+     * other updates of the same index.
+     *
+     * @param id id of the updated item
+     * @param task serializable task for updating the index
+     * @since 2.46.0
+     */
+    default void update(String id, SerializableIndexTask<T> task) {
+      update(task);
+    }
+
     /**
      * Submits a task to update the index.
      * The task is executed asynchronous and will be finished some time in the future.
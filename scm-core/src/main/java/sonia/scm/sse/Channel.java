@@ -28,6 +28,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import sonia.scm.security.SessionId;
 
+import javax.ws.rs.sse.OutboundSseEvent;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
@@ -48,14 +49,16 @@ public class Channel {
 
   private final Object channelId;
   private final Function<Registration, Client> clientFactory;
+  private final EventDispatcher dispatcher;
 
-  Channel(Object channelId) {
-    this(channelId, Client::new);
+  Channel(Object channelId, EventDispatcher dispatcher) {
+    this(channelId, Client::new, dispatcher);
   }
 
-  Channel(Object channelId, Function<Registration, Client> clientFactory) {
+  Channel(Object channelId, Function<Registration, Client> clientFactory, EventDispatcher dispatcher) {
     this.channelId = channelId;
     this.clientFactory = clientFactory;
+    this.dispatcher = dispatcher;
   }
 
   public void register(Registration registration) {
@@ -73,16 +76,32 @@ public class Channel {
 
   public void broadcast(Message message) {
     LOG.trace("broadcast message {} to clients of channel {}", message, channelId);
+    Predicate<? super Client> isNotSender = isNotSender(message);
     lock.readLock().lock();
     try {
-      clients.stream()
-        .filter(isNotSender(message))
-        .forEach(client -> client.send(message));
+      // the event is created and serialized once and shared between all clients
+      OutboundSseEvent event = null;
+      for (Client client : clients) {
+        if (isNotSender.test(client)) {
+          if (event == null) {
+            event = client.createEvent(message);
+          }
+          enqueue(client, event);
+        }
+      }
     } finally {
       lock.readLock().unlock();
     }
   }
 
+  private void enqueue(Client client, OutboundSseEvent event) {
+    if (!client.enqueue(event, dispatcher)) {
+      LOG.debug("client with session {} could not keep up, drop message and close connection", client.getSessionId());
+      dispatcher.dropped();
+      client.close();
+    }
+  }
+
   private Predicate<? super Client> isNotSender(Message message) {
     return client -> {
       Optional<SessionId> senderSessionId = message.getSender();
@@ -25,7 +25,10 @@
 package sonia.scm.sse;
 
 import com.google.common.annotations.VisibleForTesting;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
+import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -38,7 +41,19 @@ public class ChannelRegistry {
   private final Function<Object, Channel> channelFactory;
 
   public ChannelRegistry() {
-    this(Channel::new);
+    this(new SimpleMeterRegistry());
+  }
+
+  /**
+   * @since 2.46.0
+   */
+  @Inject
+  public ChannelRegistry(MeterRegistry meterRegistry) {
+    this(new EventDispatcher(meterRegistry));
+  }
+
+  private ChannelRegistry(EventDispatcher dispatcher) {
+    this(channelId -> new Channel(channelId, dispatcher));
   }
 
   @VisibleForTesting
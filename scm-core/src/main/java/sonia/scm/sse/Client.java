@@ -32,6 +32,9 @@ import javax.ws.rs.sse.OutboundSseEvent;
 import javax.ws.rs.sse.SseEventSink;
 import java.io.Closeable;
 import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletionStage;
 import java.util.function.Function;
 
 class Client implements Closeable {
@@ -42,8 +45,11 @@ class Client implements Closeable {
   private final SseEventAdapter adapter;
   private final SseEventSink eventSink;
 
-  private Instant lastUsed;
-  private boolean exceptionallyClosed = false;
+  private final Queue<Delivery> queue = new ArrayDeque<>();
+  private boolean sending = false;
+
+  private volatile Instant lastUsed;
+  private volatile boolean exceptionallyClosed = false;
 
   Client(Registration registration) {
     this(registration, reg -> new SseEventAdapter(reg.getSse()));
@@ -68,26 +74,74 @@ class Client implements Closeable {
     return exceptionallyClosed;
   }
 
+  OutboundSseEvent createEvent(Message message) {
+    return adapter.createShared(message);
+  }
+
   void send(Message message) {
     if (!isClosed()) {
-      OutboundSseEvent event = adapter.create(message);
-      LOG.debug("send message to client with session id {}", sessionId);
-      lastUsed = Instant.now();
-      eventSink.send(event).exceptionally(e -> {
-        if (LOG.isTraceEnabled()) {
-          LOG.trace("failed to send event to client with session id {}:", sessionId, e);
-        } else {
-          LOG.debug("failed to send event to client with session id {}: {}", sessionId, e.getMessage());
-        }
-        exceptionallyClosed = true;
-        close();
-        return null;
-      });
+      write(adapter.create(message));
     } else {
       LOG.debug("client has closed the connection, before we could send the message");
     }
   }
 
+  /**
+   * Queues the event and writes it asynchronously with the executor of the dispatcher.
+   * Returns {@code false}, if the queue of the client is full.
+   */
+  boolean enqueue(OutboundSseEvent event, EventDispatcher dispatcher) {
+    if (isClosed()) {
+      LOG.debug("client has closed the connection, before we could send the message");
+      return true;
+    }
+    synchronized (queue) {
+      if (queue.size() >= dispatcher.getQueueSize()) {
+        return false;
+      }
+      queue.add(new Delivery(event, System.nanoTime()));
+      if (sending) {
+        return true;
+      }
+      sending = true;
+    }
+    dispatcher.execute(() -> sendNext(dispatcher));
+    return true;
+  }
+
+  private void sendNext(EventDispatcher dispatcher) {
+    Delivery delivery;
+    synchronized (queue) {
+      delivery = queue.poll();
+      if (delivery == null || isClosed()) {
+        queue.clear();
+        sending = false;
+        return;
+      }
+    }
+    write(delivery.event).whenComplete((result, e) -> {
+      if (!exceptionallyClosed) {
+        dispatcher.delivered(delivery.enqueuedAt);
+      }
+      dispatcher.execute(() -> sendNext(dispatcher));
+    });
+  }
+
+  private CompletionStage<?> write(OutboundSseEvent event) {
+    LOG.debug("send message to client with session id {}", sessionId);
+    lastUsed = Instant.now();
+    return eventSink.send(event).exceptionally(e -> {
+      if (LOG.isTraceEnabled()) {
+        LOG.trace("failed to send event to client with session id {}:", sessionId, e);
+      } else {
+        LOG.debug("failed to send event to client with session id {}: {}", sessionId, e.getMessage());
+      }
+      exceptionallyClosed = true;
+      close();
+      return null;
+    });
+  }
+
   boolean isClosed() {
     return exceptionallyClosed || eventSink.isClosed();
   }
@@ -97,4 +151,15 @@ class Client implements Closeable {
     LOG.trace("close sse session of client with session id: {}", sessionId);
     eventSink.close();
   }
+
+  private static class Delivery {
+
+    private final OutboundSseEvent event;
+    private final long enqueuedAt;
+
+    private Delivery(OutboundSseEvent event, long enqueuedAt) {
+      this.event = event;
+      this.enqueuedAt = enqueuedAt;
+    }
+  }
 }
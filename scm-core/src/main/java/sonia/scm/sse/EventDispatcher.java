@@ -0,0 +1,118 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.sse;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import sonia.scm.metrics.Metrics;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes queued events of the clients on a shared executor, so that a broadcast never has to wait for the network.
+ * Every client owns a bounded queue; the dispatcher defines its size and collects the metrics of all clients.
+ * The executor uses a bounded number of threads and a bounded queue, if both are exhausted the write is started by
+ * the calling thread.
+ */
+class EventDispatcher {
+
+  private static final String QUEUE_SIZE_PROPERTY = "scm.sse.client.queueSize";
+  private static final int DEFAULT_QUEUE_SIZE = 100;
+
+  private static final String THREADS_PROPERTY = "scm.sse.dispatcher.threads";
+  private static final int DEFAULT_THREADS = 8;
+
+  private static final String PENDING_PROPERTY = "scm.sse.dispatcher.pending";
+  private static final int DEFAULT_PENDING = 1000;
+
+  private final Executor executor;
+  private final int queueSize;
+  private final Timer latency;
+  private final Counter dropped;
+
+  EventDispatcher(MeterRegistry registry) {
+    this(
+      createExecutor(
+        registry,
+        Integer.getInteger(THREADS_PROPERTY, DEFAULT_THREADS),
+        Integer.getInteger(PENDING_PROPERTY, DEFAULT_PENDING)
+      ),
+      Integer.getInteger(QUEUE_SIZE_PROPERTY, DEFAULT_QUEUE_SIZE),
+      registry
+    );
+  }
+
+  @VisibleForTesting
+  EventDispatcher(Executor executor, int queueSize, MeterRegistry registry) {
+    this.executor = executor;
+    this.queueSize = queueSize;
+    this.latency = Timer.builder("scm.sse.broadcast.latency")
+      .description("Time from broadcasting a server sent event until it was written to a client")
+      .register(registry);
+    this.dropped = Counter.builder("scm.sse.broadcast.dropped")
+      .description("Server sent events which were dropped, because the client could not keep up")
+      .register(registry);
+  }
+
+  @VisibleForTesting
+  static ExecutorService createExecutor(MeterRegistry registry, int threads, int pending) {
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(
+      threads, threads, 60L, TimeUnit.SECONDS,
+      new LinkedBlockingQueue<>(pending),
+      new ThreadFactoryBuilder()
+        .setNameFormat("SseEventDispatcher-%d")
+        .setDaemon(true)
+        .build(),
+      // every client has at most one pending write, so running it in the caller slows down only the broadcast
+      new ThreadPoolExecutor.CallerRunsPolicy()
+    );
+    executor.allowCoreThreadTimeOut(true);
+    Metrics.executor(registry, executor, "SseEventDispatcher", "fixed");
+    return executor;
+  }
+
+  int getQueueSize() {
+    return queueSize;
+  }
+
+  void execute(Runnable runnable) {
+    executor.execute(runnable);
+  }
+
+  void delivered(long enqueuedAt) {
+    latency.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+  }
+
+  void dropped() {
+    dropped.increment();
+  }
+}
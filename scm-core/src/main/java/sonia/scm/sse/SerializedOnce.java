@@ -0,0 +1,82 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.sse;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+/**
+ * Wraps the data of a broadcast message, so that it is serialized only once for all clients. The first client
+ * serializes the data with the configured mapper of the rest layer, all further clients receive the cached json.
+ */
+final class SerializedOnce implements JsonSerializable {
+
+  private final Object data;
+  private volatile String json;
+
+  SerializedOnce(Object data) {
+    this.data = data;
+  }
+
+  @Override
+  public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+    String value = json;
+    if (value == null) {
+      value = render(gen, serializers);
+    }
+    gen.writeRawValue(value);
+  }
+
+  @Override
+  public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer) throws IOException {
+    serialize(gen, serializers);
+  }
+
+  private synchronized String render(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+    if (json == null) {
+      StringWriter writer = new StringWriter();
+      try (JsonGenerator buffer = factory(gen).createGenerator(writer)) {
+        serializers.defaultSerializeValue(data, buffer);
+      }
+      json = writer.toString();
+    }
+    return json;
+  }
+
+  private JsonFactory factory(JsonGenerator gen) {
+    ObjectCodec codec = gen.getCodec();
+    if (codec != null) {
+      return codec.getFactory();
+    }
+    return new JsonFactory();
+  }
+}
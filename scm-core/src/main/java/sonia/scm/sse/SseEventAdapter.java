@@ -44,4 +44,19 @@ class SseEventAdapter {
       .build();
   }
 
+  /**
+   * Creates an event which is shared between all clients of a broadcast.
+   * The data of the message is serialized only once, regardless of how many clients receive the event.
+   */
+  OutboundSseEvent createShared(Message message) {
+    if (message.getType() == String.class) {
+      return create(message);
+    }
+    return sse.newEventBuilder()
+      .name(message.getName())
+      .mediaType(MediaType.APPLICATION_JSON_TYPE)
+      .data(SerializedOnce.class, new SerializedOnce(message.getData()))
+      .build();
+  }
+
 }
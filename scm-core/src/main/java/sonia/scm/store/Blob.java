@@ -24,11 +24,17 @@
     
 package sonia.scm.store;
 
+//~--- non-JDK imports --------------------------------------------------------
+
+import com.google.common.io.ByteStreams;
+
 //~--- JDK imports ------------------------------------------------------------
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * A blob is binary object. A blob can be used to store any unstructured data.
@@ -85,5 +91,22 @@ public interface Blob
    */
   public long getSize();
 
-
+  /**
+   * Writes a part of the content of the blob to the given channel. Implementations
+   * which are backed by files should override this method, to let the operating
+   * system copy the content without passing it through the heap.
+   *
+   * @param position position of the first byte to write
+   * @param count    number of bytes to write
+   * @param target   channel to write the content to
+   * @return number of bytes written
+   * @throws IOException
+   * @since 2.46.0
+   */
+  default long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+    try (InputStream input = getInputStream()) {
+      ByteStreams.skipFully(input, position);
+      return ByteStreams.copy(ByteStreams.limit(input, count), Channels.newOutputStream(target));
+    }
+  }
 }
@@ -41,4 +41,14 @@ public interface StoreParameters {
    * @since 2.44.0
    */
   String getNamespace();
+
+  /**
+   * Returns <code>true</code> if the ids of the blobs in the store are hashes of their content.
+   * Stores with content addressed blobs may share identical blobs with other stores of the same name.
+   * @return <code>true</code> for content addressed blobs
+   * @since 2.46.0
+   */
+  default boolean isContentAddressed() {
+    return false;
+  }
 }
@@ -54,6 +54,7 @@ public final class StoreParametersBuilder<S> {
     private final String name;
     private String repositoryId;
     private String namespace;
+    private boolean contentAddressed;
   }
 
 
@@ -81,6 +82,20 @@ public final class StoreParametersBuilder<S> {
     return this;
   }
 
+  /**
+   * Use this, if the id of every blob in the store is the hash of its content (like the oid of git lfs objects).
+   * The store implementation may then share identical blobs with stores of the same name of other
+   * repositories. The caller is responsible to ensure, that the content matches the id, before the blob
+   * is committed. This step is optional.
+   *
+   * @return Floating API to finish the call.
+   * @since 2.46.0
+   */
+  public StoreParametersBuilder<S> contentAddressed() {
+    parameters.contentAddressed = true;
+    return this;
+  }
+
   /**
    * Creates or gets the store with the given name and (if specified) the given repository. If no
    * repository is given, the store will be global.
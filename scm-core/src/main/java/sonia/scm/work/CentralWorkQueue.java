@@ -87,6 +87,14 @@ import javax.annotation.Nullable;
  *
  * The {@link CentralWorkQueue} will inject the requested members before the {@code run} method of the task is executed.
  *
+ * If more tasks are runnable than threads are available, tasks with a higher {@link Priority} are executed first.
+ * Long-running background work like the indexing of all repositories should use {@link Priority#LOW},
+ * so that tasks a user is waiting for can overtake it:
+ *
+ * <pre>{@code
+ *   queue.append().priority(Priority.LOW).enqueue(MyTask.class)
+ * }</pre>
+ *
  * @since 2.23.0
  */
 @Beta
@@ -147,6 +155,17 @@ public interface CentralWorkQueue {
       return locks(resourceType, object.getId());
     }
 
+    /**
+     * Configure the priority of the task. The default is {@link Priority#NORMAL}.
+     * For more information on priorities see the class documentation ({@link CentralWorkQueue}).
+     *
+     * @param priority priority of the task
+     * @return {@code this}
+     * @see CentralWorkQueue
+     * @since 2.46.0
+     */
+    Enqueue priority(Priority priority);
+
     /**
      * Run the enqueued task with administrator permission.
      *
@@ -171,4 +190,28 @@ public interface CentralWorkQueue {
      */
     void enqueue(Class<? extends Runnable> task);
   }
+
+  /**
+   * Priority of a task. Tasks with a higher priority are executed before runnable tasks with a lower priority.
+   * Tasks with the same priority are executed in the order they were enqueued.
+   *
+   * @since 2.46.0
+   */
+  enum Priority {
+
+    /**
+     * For tasks a user is waiting for.
+     */
+    HIGH,
+
+    /**
+     * The default priority.
+     */
+    NORMAL,
+
+    /**
+     * For long-running background work, e.g. the indexing of all repositories.
+     */
+    LOW
+  }
 }
@@ -0,0 +1,112 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm;
+
+import org.junit.jupiter.api.Test;
+import sonia.scm.user.User;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PageResultTest {
+
+  private final List<User> users = asList(
+    new User("trillian", "Tricia McMillan", "tricia@hitchhiker.com"),
+    new User("dent", "Arthur Dent", "arthur@hitchhiker.com"),
+    new User("zaphod", "Zaphod Beeblebrox", "zaphod@hitchhiker.com"),
+    new User("marvin", "Marvin", "marvin@hitchhiker.com"),
+    new User("slarti", "Arthur Dent", "slarti@hitchhiker.com")
+  );
+
+  private final List<User> transformed = new ArrayList<>();
+  private final UnaryOperator<User> transformer = user -> {
+    transformed.add(user);
+    return user.clone();
+  };
+
+  @Test
+  void shouldCreateSortedPage() {
+    PageResult<User> page = PageResult.createPage(users, user -> true, Comparator.comparing(User::getName), 1, 2, transformer);
+
+    assertThat(page.getEntities()).extracting("name").containsExactly("slarti", "trillian");
+    assertThat(page.getOverallCount()).isEqualTo(5);
+  }
+
+  @Test
+  void shouldTransformEntitiesOfPageOnly() {
+    PageResult<User> page = PageResult.createPage(users, user -> true, Comparator.comparing(User::getName), 0, 2, transformer);
+
+    assertThat(transformed).extracting("name").containsExactly("dent", "marvin");
+    assertThat(page.getEntities()).doesNotContainAnyElementsOf(users);
+  }
+
+  @Test
+  void shouldKeepOrderOfCandidatesForEqualEntities() {
+    Comparator<User> byDisplayName = Comparator.comparing(User::getDisplayName);
+
+    PageResult<User> first = PageResult.createPage(users, user -> true, byDisplayName, 0, 1, transformer);
+    PageResult<User> second = PageResult.createPage(users, user -> true, byDisplayName, 1, 1, transformer);
+
+    assertThat(first.getEntities()).extracting("name").containsExactly("dent");
+    assertThat(second.getEntities()).extracting("name").containsExactly("slarti");
+  }
+
+  @Test
+  void shouldKeepOrderOfCandidatesWithoutComparator() {
+    PageResult<User> page = PageResult.createPage(users, user -> !user.getName().equals("dent"), null, 1, 2, transformer);
+
+    assertThat(page.getEntities()).extracting("name").containsExactly("marvin", "slarti");
+    assertThat(page.getOverallCount()).isEqualTo(4);
+  }
+
+  @Test
+  void shouldCountFilteredEntities() {
+    PageResult<User> page = PageResult.createPage(users, user -> user.getDisplayName().startsWith("Arthur"), Comparator.comparing(User::getName), 0, 10, transformer);
+
+    assertThat(page.getEntities()).extracting("name").containsExactly("dent", "slarti");
+    assertThat(page.getOverallCount()).isEqualTo(2);
+  }
+
+  @Test
+  void shouldReturnEmptyPageBehindLastEntity() {
+    PageResult<User> page = PageResult.createPage(users, user -> true, Comparator.comparing(User::getName), 3, 2, transformer);
+
+    assertThat(page.getEntities()).isEmpty();
+    assertThat(page.getOverallCount()).isEqualTo(5);
+    assertThat(transformed).isEmpty();
+  }
+
+  @Test
+  void shouldValidatePageParameters() {
+    assertThrows(IllegalArgumentException.class, () -> PageResult.createPage(users, user -> true, null, -1, 2, transformer));
+    assertThrows(IllegalArgumentException.class, () -> PageResult.createPage(users, user -> true, null, 0, 0, transformer));
+  }
+}
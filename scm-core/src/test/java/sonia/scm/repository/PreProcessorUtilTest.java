@@ -0,0 +1,187 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.repository;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PreProcessorUtilTest {
+
+  private final Repository repository = new Repository("1", "git", "hitchhiker", "HeartOfGold");
+
+  @Nested
+  class WithoutPreProcessors {
+
+    private final PreProcessorUtil preProcessorUtil = create(emptySet(), emptySet(), emptySet());
+
+    @Test
+    void shouldReturnChangesetsWithoutCopy() {
+      ChangesetPagingResult result = new ChangesetPagingResult(1, List.of(createChangeset()));
+
+      assertThat(preProcessorUtil.prepareCopyForReturn(repository, result)).isSameAs(result);
+    }
+
+    @Test
+    void shouldReturnBrowserResultWithoutCopy() {
+      BrowserResult result = new BrowserResult("42", createDirectory());
+
+      assertThat(preProcessorUtil.prepareCopyForReturn(repository, result)).isSameAs(result);
+    }
+
+    @Test
+    void shouldReturnBlameResultWithoutCopy() {
+      BlameResult result = new BlameResult(List.of(createBlameLine()));
+
+      assertThat(preProcessorUtil.prepareCopyForReturn(repository, result)).isSameAs(result);
+    }
+  }
+
+  @Nested
+  class WithPreProcessors {
+
+    private final PreProcessorUtil preProcessorUtil = create(
+      singleton(changeset -> {
+        changeset.setDescription("processed");
+        changeset.getBranches().add("processed");
+        changeset.setProperty("processed", "true");
+      }),
+      singleton(fileObject -> fileObject.setDescription("processed")),
+      singleton(line -> line.setDescription("processed"))
+    );
+
+    @Test
+    void shouldPrepareCopyOfChangesets() {
+      Changeset changeset = createChangeset();
+      ChangesetPagingResult result = new ChangesetPagingResult(1, List.of(changeset), "main");
+
+      ChangesetPagingResult prepared = preProcessorUtil.prepareCopyForReturn(repository, result);
+
+      assertThat(prepared.getTotal()).isEqualTo(1);
+      assertThat(prepared.getBranchName()).isEqualTo("main");
+      Changeset preparedChangeset = prepared.getChangesets().get(0);
+      assertThat(preparedChangeset.getId()).isEqualTo("42");
+      assertThat(preparedChangeset.getDescription()).isEqualTo("processed");
+      assertThat(preparedChangeset.getAuthor()).isEqualTo(changeset.getAuthor());
+      assertThat(preparedChangeset.getBranches()).containsExactly("main", "processed");
+      assertThat(preparedChangeset.getContributors()).isEqualTo(changeset.getContributors());
+      assertThat(preparedChangeset.getProperty("processed")).isEqualTo("true");
+      assertUnmodified(changeset);
+    }
+
+    @Test
+    void shouldPrepareCopyOfSingleChangeset() {
+      Changeset changeset = createChangeset();
+
+      Changeset prepared = preProcessorUtil.prepareCopyForReturn(repository, changeset);
+
+      assertThat(prepared.getDescription()).isEqualTo("processed");
+      assertUnmodified(changeset);
+    }
+
+    @Test
+    void shouldPrepareCopyOfBrowserResult() {
+      FileObject directory = createDirectory();
+      BrowserResult result = new BrowserResult("42", "main", directory);
+
+      BrowserResult prepared = preProcessorUtil.prepareCopyForReturn(repository, result);
+
+      assertThat(prepared.getRevision()).isEqualTo("42");
+      assertThat(prepared.getRequestedRevision()).isEqualTo("main");
+      assertThat(prepared.getFile().getDescription()).contains("processed");
+      FileObject preparedChild = prepared.getFile().getChildren().iterator().next();
+      assertThat(preparedChild.getName()).isEqualTo("README.md");
+      assertThat(preparedChild.getLength()).hasValue(42L);
+      assertThat(preparedChild.getDescription()).contains("processed");
+
+      assertThat(directory.getDescription()).contains("initial commit");
+      assertThat(directory.getChildren().iterator().next().getDescription()).contains("initial commit");
+    }
+
+    @Test
+    void shouldPrepareCopyOfBlameResult() {
+      BlameLine line = createBlameLine();
+      BlameResult result = new BlameResult(1, List.of(line));
+
+      BlameResult prepared = preProcessorUtil.prepareCopyForReturn(repository, result);
+
+      assertThat(prepared.getTotal()).isEqualTo(1);
+      assertThat(prepared.getLine(0).getCode()).isEqualTo("# Heart of Gold");
+      assertThat(prepared.getLine(0).getDescription()).isEqualTo("processed");
+      assertThat(line.getDescription()).isEqualTo("initial commit");
+    }
+
+    private void assertUnmodified(Changeset changeset) {
+      assertThat(changeset.getDescription()).isEqualTo("initial commit");
+      assertThat(changeset.getBranches()).containsExactly("main");
+      assertThat(changeset.getProperties()).isEmpty();
+    }
+  }
+
+  private PreProcessorUtil create(Set<ChangesetPreProcessor> changesetPreProcessors,
+                                  Set<FileObjectPreProcessor> fileObjectPreProcessors,
+                                  Set<BlameLinePreProcessor> blameLinePreProcessors) {
+    return new PreProcessorUtil(
+      changesetPreProcessors, emptySet(),
+      fileObjectPreProcessors, emptySet(),
+      blameLinePreProcessors, emptySet(),
+      emptySet(), emptySet()
+    );
+  }
+
+  private Changeset createChangeset() {
+    Changeset changeset = new Changeset("42", 1L, new Person("Trillian", "trillian@hitchhiker.com"), "initial commit");
+    changeset.setBranches(Collections.singletonList("main"));
+    changeset.addContributor(new Contributor(Contributor.CO_AUTHORED_BY, new Person("Arthur Dent", "dent@hitchhiker.com")));
+    return changeset;
+  }
+
+  private FileObject createDirectory() {
+    FileObject file = new FileObject();
+    file.setName("README.md");
+    file.setPath("README.md");
+    file.setLength(42L);
+    file.setDescription("initial commit");
+
+    FileObject directory = new FileObject();
+    directory.setName("");
+    directory.setPath("");
+    directory.setDirectory(true);
+    directory.setDescription("initial commit");
+    directory.addChild(file);
+    return directory;
+  }
+
+  private BlameLine createBlameLine() {
+    return new BlameLine(1, "42", 1L, new Person("Trillian"), "initial commit", "# Heart of Gold");
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.repository.spi;
+
+import org.junit.jupiter.api.Test;
+import sonia.scm.repository.Changeset;
+import sonia.scm.repository.Person;
+
+import java.util.Iterator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HookChangesetCollectionTest {
+
+  @Test
+  void shouldKeepChangesetsInMemoryBelowLimit() {
+    HookChangesetCollection collection = new HookChangesetCollection(3);
+    collection.add(changeset("1"));
+    collection.add(changeset("2"));
+
+    assertThat(collection.isSpilled()).isFalse();
+    assertThat(collection).extracting("id").containsExactly("1", "2");
+  }
+
+  @Test
+  void shouldReadSpilledChangesetsInOrder() {
+    HookChangesetCollection collection = new HookChangesetCollection(2);
+    for (int i = 0; i < 250; i++) {
+      collection.add(changeset(String.valueOf(i)));
+    }
+
+    assertThat(collection.isSpilled()).isTrue();
+    assertThat(collection.size()).isEqualTo(250);
+    assertThat(collection).hasSize(250);
+    assertThat(collection).first().extracting("id").isEqualTo("0");
+    assertThat(collection).last().satisfies(changeset -> {
+      assertThat(changeset.getId()).isEqualTo("249");
+      assertThat(changeset.getAuthor().getName()).isEqualTo("Trillian");
+      assertThat(changeset.getBranches()).containsExactly("main");
+    });
+  }
+
+  @Test
+  void shouldIterateMultipleTimes() {
+    HookChangesetCollection collection = new HookChangesetCollection(1);
+    collection.add(changeset("1"));
+    collection.add(changeset("2"));
+
+    assertThat(collection).extracting("id").containsExactly("1", "2");
+
+    collection.add(changeset("3"));
+
+    assertThat(collection).extracting("id").containsExactly("1", "2", "3");
+  }
+
+  @Test
+  void shouldCloseReaderAfterLastChangeset() {
+    HookChangesetCollection collection = new HookChangesetCollection(1);
+    collection.add(changeset("1"));
+    collection.add(changeset("2"));
+    collection.add(changeset("3"));
+
+    Iterator<Changeset> iterator = collection.iterator();
+    iterator.next();
+    iterator.next();
+    assertThat(collection.getOpenReaders()).isEqualTo(1);
+
+    iterator.next();
+    assertThat(collection.getOpenReaders()).isZero();
+  }
+
+  private Changeset changeset(String id) {
+    Changeset changeset = new Changeset(id, 42L, new Person("Trillian", "trillian@hitchhiker.com"));
+    changeset.getBranches().add("main");
+    return changeset;
+  }
+}
@@ -37,12 +37,19 @@ import sonia.scm.repository.Repository;
 import sonia.scm.repository.work.SimpleWorkingCopyFactory.ReclaimFailedException;
 
 import java.io.File;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -136,6 +143,73 @@ class SimpleCachingWorkingCopyPoolTest {
     }
   }
 
+  @Nested
+  class WithMultipleSlots {
+
+    @Test
+    void shouldUseSeparateWorkdirsInParallel(@TempDir Path temp) {
+      simpleCachingWorkingCopyPool = new SimpleCachingWorkingCopyPool(5, workdirProvider, meterRegistry);
+      when(workingCopyContext.getScmRepository()).thenReturn(REPOSITORY);
+      when(workdirProvider.createNewWorkdir(anyString())).thenReturn(temp.resolve("1").toFile(), temp.resolve("2").toFile());
+
+      WorkingCopy<?, ?> firstWorkdir = simpleCachingWorkingCopyPool.getWorkingCopy(workingCopyContext);
+      WorkingCopy<?, ?> secondWorkdir = simpleCachingWorkingCopyPool.getWorkingCopy(workingCopyContext);
+
+      assertThat(firstWorkdir.getDirectory()).isNotEqualTo(secondWorkdir.getDirectory());
+      assertThat(meterRegistry.get("scm.workingcopy.pool.slots.used").gauge().value()).isEqualTo(2d);
+
+      simpleCachingWorkingCopyPool.contextClosed(workingCopyContext, firstWorkdir.getDirectory());
+      simpleCachingWorkingCopyPool.contextClosed(workingCopyContext, secondWorkdir.getDirectory());
+
+      assertThat(meterRegistry.get("scm.workingcopy.pool.slots.used").gauge().value()).isZero();
+      assertThat(meterRegistry.get("scm.workingcopy.pool.cache.size").gauge().value()).isEqualTo(2d);
+    }
+
+    @Test
+    void shouldEvictWorkdirsExceedingDiskBudget(@TempDir Path temp) {
+      simpleCachingWorkingCopyPool = new SimpleCachingWorkingCopyPool(5, 2, 15L, 0, Runnable::run, workdirProvider, meterRegistry);
+
+      queryAndCloseWorkdir(temp, 0, 10);
+      queryAndCloseWorkdir(temp, 1, 10);
+
+      assertThat(temp.resolve("path-0")).doesNotExist();
+      assertThat(temp.resolve("path-1")).exists();
+      assertThat(meterRegistry.get("scm.workingcopy.pool.cache.disk").gauge().value()).isEqualTo(10d);
+    }
+
+    @Test
+    void shouldPrewarmFrequentlyUsedRepositories(@TempDir Path temp) {
+      simpleCachingWorkingCopyPool = new SimpleCachingWorkingCopyPool(5, 2, 0L, 1, Runnable::run, workdirProvider, meterRegistry);
+
+      queryAndCloseWorkdir(temp, 0, 10);
+
+      assertThat(temp.resolve("path-0-copy").resolve("content")).hasSize(10);
+      assertThat(meterRegistry.get("scm.workingcopy.pool.prewarm").counter().count()).isEqualTo(1d);
+      assertThat(meterRegistry.get("scm.workingcopy.pool.cache.size").gauge().value()).isEqualTo(2d);
+    }
+
+    @Test
+    void shouldNotPrewarmRepositoriesRequestedOutsideOfWindow(@TempDir Path temp) {
+      AtomicReference<Instant> now = new AtomicReference<>(Instant.parse("2026-10-17T10:00:00Z"));
+      Clock clock = mock(Clock.class);
+      when(clock.instant()).thenAnswer(invocation -> now.get());
+      simpleCachingWorkingCopyPool = new SimpleCachingWorkingCopyPool(5, 2, 0L, 2, Duration.ofMinutes(10), Runnable::run, clock, workdirProvider, meterRegistry);
+
+      queryAndCloseWorkdir(temp, 0);
+      now.set(now.get().plus(11, ChronoUnit.MINUTES));
+      queryAndCloseWorkdir(temp, 0);
+
+      assertThat(temp.resolve("path-0-copy")).doesNotExist();
+      assertThat(meterRegistry.get("scm.workingcopy.pool.prewarm").counter().count()).isZero();
+
+      now.set(now.get().plus(1, ChronoUnit.MINUTES));
+      queryAndCloseWorkdir(temp, 0);
+
+      assertThat(temp.resolve("path-0-copy")).exists();
+      assertThat(meterRegistry.get("scm.workingcopy.pool.prewarm").counter().count()).isEqualTo(1d);
+    }
+  }
+
   @Nested
   class WithoutCaching {
 
@@ -159,12 +233,20 @@ class SimpleCachingWorkingCopyPoolTest {
   }
 
   private void queryAndCloseWorkdir(Path temp, int index) {
+    queryAndCloseWorkdir(temp, index, 0);
+  }
+
+  private void queryAndCloseWorkdir(Path temp, int index, int contentSize) {
     Repository repository = new Repository("repo-" + index, "git", "space", "X" + index);
     when(workingCopyContext.getScmRepository()).thenReturn(repository);
     String workdirName = "path-" + index;
     lenient().doAnswer(invocation -> {
       File newWorkdir = temp.resolve(workdirName).toFile();
+      if (newWorkdir.exists()) {
+        newWorkdir = temp.resolve(workdirName + "-copy").toFile();
+      }
       newWorkdir.mkdirs();
+      Files.write(newWorkdir.toPath().resolve("content"), new byte[contentSize]);
       return newWorkdir;
     }).when(workdirProvider).createNewWorkdir(anyString());
     WorkingCopy<Object, Path> workingCopy = simpleCachingWorkingCopyPool.getWorkingCopy(workingCopyContext);
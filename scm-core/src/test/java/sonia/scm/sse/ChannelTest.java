@@ -28,14 +28,18 @@ package sonia.scm.sse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import sonia.scm.security.SessionId;
 
+import javax.ws.rs.sse.OutboundSseEvent;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
 import java.util.Map;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -45,22 +49,55 @@ import static org.mockito.Mockito.when;
 @ExtendWith(MockitoExtension.class)
 class ChannelTest {
 
+  @Mock
+  private EventDispatcher dispatcher;
+
+  @Mock
+  private OutboundSseEvent event;
+
   private Map<Registration,Client> clients;
   private Channel channel;
 
   @BeforeEach
   void setUp()  {
     this.clients = new HashMap<>();
-    channel = new Channel("one", registration -> clients.get(registration));
+    channel = new Channel("one", registration -> clients.get(registration), dispatcher);
   }
 
   @Test
   void shouldRegisterAndSend() {
     Client client = register();
 
-    Message message = broadcast("Hello World");
+    broadcast("Hello World");
+
+    verify(client).enqueue(event, dispatcher);
+  }
+
+  @Test
+  void shouldCreateEventOnlyOnce() {
+    Client clientOne = register();
+    Client clientTwo = register();
+
+    Message message = broadcast("Hello all");
+
+    verify(clientOne).enqueue(event, dispatcher);
+    verify(clientTwo).enqueue(event, dispatcher);
+    verify(clientOne).createEvent(message);
+    verify(clientTwo, never()).createEvent(message);
+  }
+
+  @Test
+  void shouldDropMessageAndCloseSlowClient() {
+    Client slowClient = register();
+    when(slowClient.enqueue(event, dispatcher)).thenReturn(false);
+    Client client = register();
+
+    broadcast("Hello slow one");
 
-    verify(client).send(message);
+    verify(slowClient).close();
+    verify(dispatcher).dropped();
+    verify(client).enqueue(event, dispatcher);
+    verify(client, never()).close();
   }
 
   @Test
@@ -72,10 +109,10 @@ class ChannelTest {
     Client clientTwo = register();
     when(clientTwo.getSessionId()).thenReturn(SessionId.valueOf("two"));
 
-    Message message = broadcast("Hello Two", sessionOne);
+    broadcast("Hello Two", sessionOne);
 
-    verify(clientOne, never()).send(message);
-    verify(clientTwo).send(message);
+    verify(clientOne, never()).enqueue(any(), any());
+    verify(clientTwo).enqueue(event, dispatcher);
   }
 
   @Test
@@ -87,10 +124,10 @@ class ChannelTest {
 
     channel.removeClosedOrTimeoutClients();
 
-    Message message = broadcast("Hello active ones");
+    broadcast("Hello active ones");
 
-    verify(closedClient, never()).send(message);
-    verify(activeClient).send(message);
+    verify(closedClient, never()).enqueue(any(), any());
+    verify(activeClient).enqueue(event, dispatcher);
   }
 
   @Test
@@ -102,16 +139,18 @@ class ChannelTest {
 
     channel.removeClosedOrTimeoutClients();
 
-    Message message = broadcast("Hello active ones");
-    verify(timedOutClient, never()).send(message);
+    broadcast("Hello active ones");
+    verify(timedOutClient, never()).enqueue(any(), any());
     verify(timedOutClient).close();
-    verify(activeClient).send(message);
+    verify(activeClient).enqueue(event, dispatcher);
     verify(activeClient, never()).close();
   }
 
   private Client register() {
     Registration registration = mock(Registration.class);
     Client client = mock(Client.class);
+    lenient().when(client.createEvent(any())).thenReturn(event);
+    lenient().when(client.enqueue(event, dispatcher)).thenReturn(true);
     clients.put(registration, client);
     channel.register(registration);
     return client;
@@ -24,8 +24,10 @@
 
 package sonia.scm.sse;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import sonia.scm.security.SessionId;
@@ -33,11 +35,16 @@ import sonia.scm.security.SessionId;
 import javax.ws.rs.sse.OutboundSseEvent;
 import javax.ws.rs.sse.Sse;
 import javax.ws.rs.sse.SseEventSink;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -126,6 +133,59 @@ class ClientTest {
     assertThat(client.isExceptionallyClosed()).isTrue();
   }
 
+  @Test
+  void shouldWriteQueuedEvent() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    EventDispatcher dispatcher = new EventDispatcher(Runnable::run, 10, registry);
+    doReturnCompleted(sseEvent);
+
+    Client client = client("one");
+    boolean queued = client.enqueue(sseEvent, dispatcher);
+
+    assertThat(queued).isTrue();
+    verify(eventSink).send(sseEvent);
+    assertThat(registry.get("scm.sse.broadcast.latency").timer().count()).isOne();
+  }
+
+  @Test
+  void shouldWriteQueuedEventsInOrderWithOneTaskPerClient() {
+    Queue<Runnable> tasks = new ArrayDeque<>();
+    EventDispatcher dispatcher = new EventDispatcher(tasks::add, 10, new SimpleMeterRegistry());
+    OutboundSseEvent secondEvent = mock(OutboundSseEvent.class);
+    doReturnCompleted(sseEvent);
+    doReturnCompleted(secondEvent);
+
+    Client client = client("one");
+    client.enqueue(sseEvent, dispatcher);
+    client.enqueue(secondEvent, dispatcher);
+
+    assertThat(tasks).hasSize(1);
+    verify(eventSink, never()).send(any(OutboundSseEvent.class));
+
+    while (!tasks.isEmpty()) {
+      tasks.poll().run();
+    }
+
+    InOrder inOrder = inOrder(eventSink);
+    inOrder.verify(eventSink).send(sseEvent);
+    inOrder.verify(eventSink).send(secondEvent);
+  }
+
+  @Test
+  void shouldRejectEventIfQueueIsFull() {
+    Queue<Runnable> tasks = new ArrayDeque<>();
+    EventDispatcher dispatcher = new EventDispatcher(tasks::add, 1, new SimpleMeterRegistry());
+
+    Client client = client("one");
+
+    assertThat(client.enqueue(sseEvent, dispatcher)).isTrue();
+    assertThat(client.enqueue(sseEvent, dispatcher)).isFalse();
+  }
+
+  private void doReturnCompleted(OutboundSseEvent event) {
+    when(eventSink.send(event)).thenReturn(CompletableFuture.completedFuture(null));
+  }
+
   private Message message(int i) {
     return new Message("count", Integer.class, i);
   }
@@ -0,0 +1,75 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.sse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SerializedOnceTest {
+
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  @Test
+  void shouldSerializeData() throws IOException {
+    SerializedOnce serializedOnce = new SerializedOnce(new Data());
+
+    String json = mapper.writeValueAsString(serializedOnce);
+
+    assertThat(json).isEqualTo("{\"value\":\"hello\"}");
+  }
+
+  @Test
+  void shouldSerializeDataOnlyOnce() throws IOException {
+    Data data = new Data();
+    SerializedOnce serializedOnce = new SerializedOnce(data);
+
+    String first = mapper.writeValueAsString(serializedOnce);
+    String second = mapper.writeValueAsString(serializedOnce);
+
+    assertThat(second).isEqualTo(first);
+    assertThat(data.calls).isOne();
+  }
+
+  @Test
+  void shouldSerializeNull() throws IOException {
+    String json = mapper.writeValueAsString(new SerializedOnce(null));
+
+    assertThat(json).isEqualTo("null");
+  }
+
+  public static class Data {
+
+    private int calls = 0;
+
+    public String getValue() {
+      calls++;
+      return "hello";
+    }
+  }
+}
@@ -29,11 +29,16 @@ package sonia.scm.group.xml;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
+import sonia.scm.SCMContextProvider;
 import sonia.scm.group.Group;
 import sonia.scm.group.GroupDAO;
 import sonia.scm.xml.AbstractXmlDAO;
 
 import sonia.scm.store.ConfigurationStoreFactory;
+import sonia.scm.store.StoreConstants;
+import sonia.scm.xml.XmlDatabaseJournal;
+
+import java.nio.file.Paths;
 
 /**
  *
@@ -47,6 +52,8 @@ public class XmlGroupDAO extends AbstractXmlDAO<Group, XmlGroupDatabase>
   /** Field description */
   public static final String STORE_NAME = "groups";
 
+  private static final String JOURNAL_EXTENSION = ".journal";
+
   //~--- constructors ---------------------------------------------------------
 
   /**
@@ -55,7 +62,6 @@ public class XmlGroupDAO extends AbstractXmlDAO<Group, XmlGroupDatabase>
    *
    * @param storeFactory
    */
-  @Inject
   public XmlGroupDAO(ConfigurationStoreFactory storeFactory) {
     super(storeFactory
       .withType(XmlGroupDatabase.class)
@@ -63,6 +69,26 @@ public class XmlGroupDAO extends AbstractXmlDAO<Group, XmlGroupDatabase>
       .build());
   }
 
+  /**
+   * Creates a dao which appends its modifications to a journal in the configuration directory.
+   *
+   * @param storeFactory factory for the store of the database
+   * @param contextProvider context provider to resolve the journal
+   *
+   * @since 2.46.0
+   */
+  @Inject
+  public XmlGroupDAO(ConfigurationStoreFactory storeFactory, SCMContextProvider contextProvider) {
+    super(storeFactory
+      .withType(XmlGroupDatabase.class)
+      .withName(STORE_NAME)
+      .build(),
+      new XmlDatabaseJournal<>(
+        contextProvider.resolve(Paths.get(StoreConstants.CONFIG_DIRECTORY_NAME, STORE_NAME + JOURNAL_EXTENSION)),
+        Group.class
+      ));
+  }
+
   //~--- methods --------------------------------------------------------------
 
   /**
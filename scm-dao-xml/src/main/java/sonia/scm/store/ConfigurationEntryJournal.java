@@ -0,0 +1,380 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static sonia.scm.store.CopyOnWrite.execute;
+import static sonia.scm.store.JAXBConfigurationEntryStore.TAG_CONFIGURATION;
+import static sonia.scm.store.JAXBConfigurationEntryStore.TAG_ENTRY;
+import static sonia.scm.store.JAXBConfigurationEntryStore.TAG_KEY;
+
+/**
+ * Append-only journal of the changes to a configuration entry file. Every change is written as a single line next to
+ * the file ({@code <name>.xml.journal}); keys and values are base64 encoded, values as xml fragments. A trailing line
+ * without line break is the remainder of an interrupted write and is ignored on replay.
+ * <p>
+ * Because the values are stored as xml, the journal can be merged into the file without knowing the type of the
+ * entries. This is used for compaction and for exports.
+ */
+final class ConfigurationEntryJournal {
+
+  static final String SUFFIX = ".journal";
+
+  private static final Logger LOG = LoggerFactory.getLogger(ConfigurationEntryJournal.class);
+
+  private static final char PUT = 'P';
+  private static final char REMOVE = 'R';
+  private static final char CLEAR = 'C';
+  private static final byte LINE_BREAK = '\n';
+
+  private final File file;
+  private final Path journal;
+
+  ConfigurationEntryJournal(File file) {
+    this.file = file;
+    this.journal = journalOf(file.toPath());
+  }
+
+  static Path journalOf(Path file) {
+    return file.resolveSibling(file.getFileName().toString().concat(SUFFIX));
+  }
+
+  boolean exists() {
+    return Files.exists(journal);
+  }
+
+  /**
+   * Appends a put record. The caller has to hold the write lock for the configuration file.
+   */
+  void put(String key, String value) {
+    append(PUT + " " + encode(key) + " " + encode(value));
+  }
+
+  /**
+   * Appends a remove record. The caller has to hold the write lock for the configuration file.
+   */
+  void remove(String key) {
+    append(REMOVE + " " + encode(key));
+  }
+
+  /**
+   * Appends a record which removes all entries. The caller has to hold the write lock for the configuration file.
+   */
+  void clear() {
+    append(String.valueOf(CLEAR));
+  }
+
+  /**
+   * Replays all complete records of the journal to the given listener and returns the number of replayed records.
+   * The caller has to hold a lock for the configuration file.
+   */
+  int replay(Listener listener) {
+    byte[] content;
+    try {
+      content = Files.readAllBytes(journal);
+    } catch (NoSuchFileException e) {
+      return 0;
+    } catch (IOException e) {
+      throw new StoreException("could not read journal " + journal, e);
+    }
+
+    int records = 0;
+    int start = 0;
+    for (int i = 0; i < content.length; i++) {
+      if (content[i] == LINE_BREAK) {
+        if (replay(new String(content, start, i - start, UTF_8), listener)) {
+          records++;
+        }
+        start = i + 1;
+      }
+    }
+    if (start < content.length) {
+      LOG.warn("ignoring incomplete record at the end of journal {}", journal);
+    }
+    return records;
+  }
+
+  private boolean replay(String line, Listener listener) {
+    String[] parts = line.split(" ");
+    try {
+      if (parts.length == 3 && parts[0].equals(String.valueOf(PUT))) {
+        listener.put(decode(parts[1]), decode(parts[2]));
+        return true;
+      } else if (parts.length == 2 && parts[0].equals(String.valueOf(REMOVE))) {
+        listener.remove(decode(parts[1]));
+        return true;
+      } else if (parts.length == 1 && parts[0].equals(String.valueOf(CLEAR))) {
+        listener.clear();
+        return true;
+      }
+    } catch (IllegalArgumentException e) {
+      LOG.debug("could not decode journal record", e);
+    }
+    LOG.warn("ignoring malformed record in journal {}", journal);
+    return false;
+  }
+
+  /**
+   * Merges the journal into the configuration file and removes the journal afterwards.
+   */
+  void compact() {
+    execute(() -> {
+      if (exists()) {
+        LOG.debug("compact journal {}", journal);
+        Document document = merge();
+        CopyOnWrite.withTemporaryFile(
+          temp -> {
+            try (OutputStream output = Files.newOutputStream(temp)) {
+              write(document, output);
+            }
+          },
+          file.toPath(),
+          this::delete
+        );
+      }
+    }).withLockedFileForWrite(file);
+  }
+
+  /**
+   * Writes the content of the configuration file with all changes of the journal applied to the given stream. The
+   * caller has to hold a lock for the configuration file.
+   */
+  void writeMerged(OutputStream output) {
+    write(merge(), output);
+  }
+
+  private void delete() {
+    try {
+      Files.deleteIfExists(journal);
+    } catch (IOException e) {
+      throw new StoreException("could not delete journal " + journal, e);
+    }
+  }
+
+  private void append(String record) {
+    byte[] bytes = (record + (char) LINE_BREAK).getBytes(UTF_8);
+    try (FileChannel channel = FileChannel.open(journal, CREATE, READ, WRITE)) {
+      long position = truncateIncompleteRecord(channel);
+      ByteBuffer buffer = ByteBuffer.wrap(bytes);
+      while (buffer.hasRemaining()) {
+        position += channel.write(buffer, position);
+      }
+    } catch (IOException e) {
+      throw new StoreException("could not append record to journal " + journal, e);
+    }
+  }
+
+  /**
+   * Removes the remainder of an interrupted write, so that the next record starts on its own line.
+   */
+  private long truncateIncompleteRecord(FileChannel channel) throws IOException {
+    long size = channel.size();
+    long end = size;
+    ByteBuffer single = ByteBuffer.allocate(1);
+    while (end > 0) {
+      single.clear();
+      channel.read(single, end - 1);
+      if (single.get(0) == LINE_BREAK) {
+        break;
+      }
+      end--;
+    }
+    if (end < size) {
+      LOG.warn("removing incomplete record from journal {}", journal);
+      channel.truncate(end);
+    }
+    return end;
+  }
+
+  private Document merge() {
+    DocumentBuilder builder = createDocumentBuilder();
+    Document document = parse(builder);
+    Element root = document.getDocumentElement();
+
+    Map<String, Element> entries = new LinkedHashMap<>();
+    for (Node child : children(root)) {
+      if (child.getNodeType() == Node.ELEMENT_NODE && TAG_ENTRY.equals(child.getNodeName())) {
+        entries.put(keyOf((Element) child), (Element) child);
+      } else if (child.getNodeType() == Node.TEXT_NODE) {
+        root.removeChild(child);
+      }
+    }
+
+    replay(new Listener() {
+      @Override
+      public void put(String key, String value) {
+        Element entry = createEntry(builder, document, key, value);
+        Element previous = entries.put(key, entry);
+        if (previous != null) {
+          root.replaceChild(entry, previous);
+        } else {
+          root.appendChild(entry);
+        }
+      }
+
+      @Override
+      public void remove(String key) {
+        Element previous = entries.remove(key);
+        if (previous != null) {
+          root.removeChild(previous);
+        }
+      }
+
+      @Override
+      public void clear() {
+        entries.values().forEach(root::removeChild);
+        entries.clear();
+      }
+    });
+    return document;
+  }
+
+  private Document parse(DocumentBuilder builder) {
+    if (file.exists() && file.length() > 0) {
+      try {
+        return builder.parse(file);
+      } catch (SAXException | IOException e) {
+        throw new StoreException("could not parse configuration file " + file, e);
+      }
+    }
+    Document document = builder.newDocument();
+    Element root = document.createElement(TAG_CONFIGURATION);
+    root.setAttribute("type", "config-entry");
+    document.appendChild(root);
+    return document;
+  }
+
+  private Element createEntry(DocumentBuilder builder, Document document, String key, String value) {
+    Element entry = document.createElement(TAG_ENTRY);
+    Element keyElement = document.createElement(TAG_KEY);
+    keyElement.setTextContent(key);
+    entry.appendChild(keyElement);
+    try {
+      Document valueDocument = builder.parse(new InputSource(new StringReader(value)));
+      entry.appendChild(document.importNode(valueDocument.getDocumentElement(), true));
+    } catch (SAXException | IOException e) {
+      throw new StoreException("could not parse value of journal " + journal, e);
+    }
+    return entry;
+  }
+
+  private static String keyOf(Element entry) {
+    for (Node child : children(entry)) {
+      if (child.getNodeType() == Node.ELEMENT_NODE && TAG_KEY.equals(child.getNodeName())) {
+        return child.getTextContent();
+      }
+    }
+    return "";
+  }
+
+  private static List<Node> children(Node node) {
+    NodeList nodes = node.getChildNodes();
+    List<Node> children = new ArrayList<>(nodes.getLength());
+    for (int i = 0; i < nodes.getLength(); i++) {
+      children.add(nodes.item(i));
+    }
+    return children;
+  }
+
+  private static void write(Document document, OutputStream output) {
+    try {
+      TransformerFactory factory = TransformerFactory.newInstance();
+      factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+      factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_STYLESHEET, "");
+      Transformer transformer = factory.newTransformer();
+      transformer.setOutputProperty(OutputKeys.ENCODING, UTF_8.name());
+      transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+      transformer.transform(new DOMSource(document), new StreamResult(output));
+    } catch (TransformerException e) {
+      throw new StoreException("could not write merged configuration", e);
+    }
+  }
+
+  private static DocumentBuilder createDocumentBuilder() {
+    try {
+      DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+      factory.setNamespaceAware(true);
+      factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+      factory.setExpandEntityReferences(false);
+      return factory.newDocumentBuilder();
+    } catch (ParserConfigurationException e) {
+      throw new StoreException("could not create document builder", e);
+    }
+  }
+
+  private static String encode(String value) {
+    return Base64.getEncoder().encodeToString(value.getBytes(UTF_8));
+  }
+
+  private static String decode(String value) {
+    return new String(Base64.getDecoder().decode(value), UTF_8);
+  }
+
+  interface Listener {
+
+    void put(String key, String value);
+
+    void remove(String key);
+
+    void clear();
+  }
+}
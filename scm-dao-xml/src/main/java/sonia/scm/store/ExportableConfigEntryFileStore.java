@@ -24,7 +24,9 @@
 
 package sonia.scm.store;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Path;
 import java.util.Optional;
 import java.util.function.Function;
@@ -51,6 +53,22 @@ class ExportableConfigEntryFileStore implements ExportableStore {
 
   @Override
   public void export(Exporter exporter) throws IOException {
-    putFileContentIntoStream(exporter, file);
+    ConfigurationEntryJournal journal = new ConfigurationEntryJournal(file.toFile());
+    byte[] merged = CopyOnWrite.compute(() -> {
+      if (!journal.exists()) {
+        return null;
+      }
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      journal.writeMerged(output);
+      return output.toByteArray();
+    }).withLockedFileForRead(file.toFile());
+
+    if (merged == null) {
+      putFileContentIntoStream(exporter, file);
+    } else {
+      try (OutputStream stream = exporter.put(file.getFileName().toString(), merged.length)) {
+        stream.write(merged);
+      }
+    }
   }
 }
@@ -53,6 +53,8 @@ class FileBasedStoreEntryImporter implements StoreEntryImporter {
     Path filePath = directory.resolve(name);
     try {
       Files.copy(stream, filePath, REPLACE_EXISTING);
+      // a journal of a previous configuration entry store must not be applied to the imported file
+      Files.deleteIfExists(ConfigurationEntryJournal.journalOf(filePath));
     } catch (IOException e) {
       throw new ImportFailedException(
         ContextEntry.ContextBuilder.noContext(),
@@ -32,6 +32,10 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 
 /**
  * File base implementation of {@link Blob}.
@@ -42,16 +46,23 @@ public final class FileBlob implements Blob {
 
   private final String id;
   private final File file;
+  private final FileBlobPool pool;
 
   FileBlob(String id, File file) {
+    this(id, file, null);
+  }
+
+  FileBlob(String id, File file, FileBlobPool pool) {
     this.id = id;
     this.file = file;
+    this.pool = pool;
   }
 
   @Override
   public void commit() throws IOException {
-
-    // nothing todo
+    if (pool != null) {
+      pool.share(id, file);
+    }
   }
 
   @Override
@@ -66,6 +77,10 @@ public final class FileBlob implements Blob {
 
   @Override
   public OutputStream getOutputStream() throws IOException {
+    if (pool != null) {
+      // the file may be shared with other stores, so we must not write into it
+      Files.deleteIfExists(file.toPath());
+    }
     return new FileOutputStream(file);
   }
 
@@ -78,4 +93,19 @@ public final class FileBlob implements Blob {
       return -1;
     }
   }
+
+  @Override
+  public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long transferred = 0;
+      while (transferred < count) {
+        long written = channel.transferTo(position + transferred, count - transferred, target);
+        if (written <= 0) {
+          break;
+        }
+        transferred += written;
+      }
+      return transferred;
+    }
+  }
 }
@@ -0,0 +1,119 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Shares identical content addressed blobs between stores using hard links.
+ * <p>
+ * For every blob id the pool keeps a symbolic link to one stored copy of the blob. If a blob with
+ * the same id is committed to another store, its file is replaced by a hard link to the known copy.
+ * Removing a blob from a store removes only its own link, so the content stays available for the
+ * other stores. Pool entries pointing to deleted copies are replaced with the next committed blob.
+ * <p>
+ * If the file system does not support links (or the stores are located on different file systems),
+ * the blobs are stored without sharing.
+ */
+class FileBlobPool {
+
+  private static final Logger LOG = LoggerFactory.getLogger(FileBlobPool.class);
+
+  private static final Pattern VALID_ID = Pattern.compile("[a-zA-Z0-9_-]+");
+
+  private final Path directory;
+
+  FileBlobPool(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Shares the content of the committed blob file with the other blobs of the pool.
+   */
+  void share(String id, File file) {
+    if (!VALID_ID.matcher(id).matches()) {
+      LOG.debug("blob id {} cannot be used as pool entry", id);
+      return;
+    }
+    Path blob = file.toPath();
+    Path entry = directory.resolve(id);
+    try {
+      Path knownCopy = findKnownCopy(entry, blob);
+      if (knownCopy == null) {
+        register(entry, blob);
+      } else if (!Files.isSameFile(knownCopy, blob)) {
+        replaceWithLink(blob, knownCopy);
+      }
+    } catch (IOException | UnsupportedOperationException | SecurityException e) {
+      LOG.debug("could not share blob {}; keeping separate copy", id, e);
+    }
+  }
+
+  private Path findKnownCopy(Path entry, Path blob) throws IOException {
+    if (!Files.isSymbolicLink(entry)) {
+      return null;
+    }
+    Path knownCopy = Files.readSymbolicLink(entry);
+    if (Files.isRegularFile(knownCopy) && Files.size(knownCopy) == Files.size(blob)) {
+      return knownCopy;
+    }
+    LOG.trace("pool entry {} points to missing or different blob {}", entry, knownCopy);
+    return null;
+  }
+
+  private void register(Path entry, Path blob) throws IOException {
+    Files.createDirectories(directory);
+    Path temp = entry.resolveSibling(entry.getFileName() + "." + UUID.randomUUID());
+    Files.createSymbolicLink(temp, blob.toAbsolutePath());
+    try {
+      Files.move(temp, entry, REPLACE_EXISTING, ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+    LOG.trace("registered blob {} in pool", blob);
+  }
+
+  private void replaceWithLink(Path blob, Path knownCopy) throws IOException {
+    Path temp = blob.resolveSibling(blob.getFileName() + "." + UUID.randomUUID());
+    Files.createLink(temp, knownCopy);
+    try {
+      Files.move(temp, blob, REPLACE_EXISTING, ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+    LOG.debug("replaced blob {} with link to identical blob {}", blob, knownCopy);
+  }
+}
@@ -57,10 +57,16 @@ public class FileBlobStore extends FileBasedStore<Blob> implements BlobStore {
   private static final String SUFFIX = ".blob";
 
   private final KeyGenerator keyGenerator;
+  private final FileBlobPool pool;
 
   FileBlobStore(KeyGenerator keyGenerator, File directory, boolean readOnly) {
+    this(keyGenerator, directory, readOnly, null);
+  }
+
+  FileBlobStore(KeyGenerator keyGenerator, File directory, boolean readOnly, FileBlobPool pool) {
     super(directory, SUFFIX, readOnly);
     this.keyGenerator = keyGenerator;
+    this.pool = pool;
   }
 
   @Override
@@ -91,7 +97,7 @@ public class FileBlobStore extends FileBasedStore<Blob> implements BlobStore {
       throw new StoreException("could not create blob for id ".concat(id), ex);
     }
 
-    return new FileBlob(id, file);
+    return new FileBlob(id, file, pool);
   }
 
   @Override
@@ -121,7 +127,7 @@ public class FileBlobStore extends FileBasedStore<Blob> implements BlobStore {
     if (file.exists()) {
       String id = getId(file);
 
-      blob = new FileBlob(id, file);
+      blob = new FileBlob(id, file, pool);
     }
 
     return blob;
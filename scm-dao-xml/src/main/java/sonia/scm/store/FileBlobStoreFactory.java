@@ -35,6 +35,7 @@ import sonia.scm.security.KeyGenerator;
 import sonia.scm.util.IOUtil;
 
 import java.io.File;
+import java.nio.file.Paths;
 
 /**
  * File based store factory.
@@ -44,6 +45,9 @@ import java.io.File;
 @Singleton
 public class FileBlobStoreFactory extends FileBasedStoreFactory implements BlobStoreFactory {
 
+  private static final String POOL_DIRECTORY = "blob-pool";
+
+  private final SCMContextProvider contextProvider;
   private final KeyGenerator keyGenerator;
 
   /**
@@ -55,6 +59,7 @@ public class FileBlobStoreFactory extends FileBasedStoreFactory implements BlobS
   @Inject
   public FileBlobStoreFactory(SCMContextProvider contextProvider , RepositoryLocationResolver repositoryLocationResolver, KeyGenerator keyGenerator, RepositoryReadOnlyChecker readOnlyChecker) {
     super(contextProvider, repositoryLocationResolver, Store.BLOB, readOnlyChecker);
+    this.contextProvider = contextProvider;
     this.keyGenerator = keyGenerator;
   }
 
@@ -63,6 +68,15 @@ public class FileBlobStoreFactory extends FileBasedStoreFactory implements BlobS
   public BlobStore getStore(StoreParameters storeParameters) {
     File storeLocation = getStoreLocation(storeParameters);
     IOUtil.mkdirs(storeLocation);
-    return new FileBlobStore(keyGenerator, storeLocation, mustBeReadOnly(storeParameters));
+    return new FileBlobStore(keyGenerator, storeLocation, mustBeReadOnly(storeParameters), createPool(storeParameters));
+  }
+
+  private FileBlobPool createPool(StoreParameters storeParameters) {
+    if (storeParameters.isContentAddressed()) {
+      return new FileBlobPool(
+        contextProvider.resolve(Paths.get("var", POOL_DIRECTORY, storeParameters.getName()))
+      );
+    }
+    return null;
   }
 }
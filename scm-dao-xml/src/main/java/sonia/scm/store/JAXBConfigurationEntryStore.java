@@ -24,7 +24,6 @@
 
 package sonia.scm.store;
 
-import com.google.common.collect.Collections2;
 import com.google.common.collect.Maps;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,17 +40,17 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.function.Predicate;
+import java.util.function.BiConsumer;
 
 import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
 import static sonia.scm.store.CopyOnWrite.execute;
 
 public class JAXBConfigurationEntryStore<V> implements ConfigurationEntryStore<V> {
 
-  private static final String TAG_CONFIGURATION = "configuration";
-  private static final String TAG_ENTRY = "entry";
-  private static final String TAG_KEY = "key";
-  private static final String TAG_VALUE = "value";
+  static final String TAG_CONFIGURATION = "configuration";
+  static final String TAG_ENTRY = "entry";
+  static final String TAG_KEY = "key";
+  static final String TAG_VALUE = "value";
 
   /**
    * the logger for JAXBConfigurationEntryStore
@@ -70,6 +69,12 @@ public class JAXBConfigurationEntryStore<V> implements ConfigurationEntryStore<V
     this.keyGenerator = keyGenerator;
     this.type = type;
     this.context = context;
+    // changes of a previously used journaled store would otherwise be lost or replayed later over newer entries
+    ConfigurationEntryJournal journal = new ConfigurationEntryJournal(file);
+    if (journal.exists()) {
+      LOG.info("merge pending journal of configuration store {}", file);
+      journal.compact();
+    }
     // initial load
     execute(() -> {
       if (file.exists()) {
@@ -133,52 +138,64 @@ public class JAXBConfigurationEntryStore<V> implements ConfigurationEntryStore<V
 
   private void load() {
     LOG.debug("load configuration from {}", file);
-    execute(() ->
-      context.withUnmarshaller(u -> {
-        try (AutoCloseableXMLReader reader = XmlStreams.createReader(file)) {
+    execute(() -> readEntries(file, type, context, entries::put)).withLockedFileForRead(file);
+  }
 
-          // configuration
-          reader.nextTag();
+  private void store() {
+    LOG.debug("store configuration to {}", file);
+    writeEntries(file, type, context, entries);
+  }
 
-          // entry start
-          reader.nextTag();
+  /**
+   * Reads all entries of a configuration entry file. The caller is responsible for locking the file.
+   */
+  static <V> void readEntries(File file, Class<V> type, TypedStoreContext<V> context, BiConsumer<String, V> consumer) {
+    context.withUnmarshaller(u -> {
+      try (AutoCloseableXMLReader reader = XmlStreams.createReader(file)) {
 
-          while (reader.isStartElement() && reader.getLocalName().equals(TAG_ENTRY)) {
+        // configuration
+        reader.nextTag();
 
-            // read key
-            reader.nextTag();
+        // entry start
+        reader.nextTag();
 
-            String key = reader.getElementText();
+        while (reader.isStartElement() && reader.getLocalName().equals(TAG_ENTRY)) {
 
-            // read value
-            reader.nextTag();
+          // read key
+          reader.nextTag();
 
-            JAXBElement<V> element = u.unmarshal(reader, type);
+          String key = reader.getElementText();
 
-            if (!element.isNil()) {
-              V v = element.getValue();
+          // read value
+          reader.nextTag();
 
-              LOG.trace("add element {} to configuration entry store", v);
+          JAXBElement<V> element = u.unmarshal(reader, type);
 
-              entries.put(key, v);
-            } else {
-              LOG.warn("could not unmarshall object of entry store");
-            }
+          if (!element.isNil()) {
+            V v = element.getValue();
 
-            // closed or new entry tag
-            if (reader.nextTag() == END_ELEMENT) {
+            LOG.trace("add element {} to configuration entry store", v);
 
-              // fixed format, start new entry
-              reader.nextTag();
-            }
+            consumer.accept(key, v);
+          } else {
+            LOG.warn("could not unmarshall object of entry store");
+          }
+
+          // closed or new entry tag
+          if (reader.nextTag() == END_ELEMENT) {
+
+            // fixed format, start new entry
+            reader.nextTag();
           }
         }
-      })).withLockedFileForRead(file);
+      }
+    });
   }
 
-  private void store() {
-    LOG.debug("store configuration to {}", file);
-
+  /**
+   * Replaces the configuration entry file with the given entries.
+   */
+  static <V> void writeEntries(File file, Class<V> type, TypedStoreContext<V> context, Map<String, V> entries) {
     context.withMarshaller(m -> {
       m.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
 
@@ -0,0 +1,198 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.store;
+
+import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sonia.scm.security.KeyGenerator;
+import sonia.scm.xml.XmlStreams;
+import sonia.scm.xml.XmlStreams.AutoCloseableXMLReader;
+import sonia.scm.xml.XmlStreams.AutoCloseableXMLWriter;
+
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static sonia.scm.store.CopyOnWrite.execute;
+import static sonia.scm.store.JAXBConfigurationEntryStore.TAG_VALUE;
+
+/**
+ * {@link ConfigurationEntryStore} which appends every change to a {@link ConfigurationEntryJournal} instead of
+ * rewriting the whole file. The journal is merged into the file, once it has reached the compaction threshold.
+ * A journal which is left from a previous run is merged into the file, before the store is loaded.
+ *
+ * @since 2.46.0
+ */
+public class JournaledConfigurationEntryStore<V> implements ConfigurationEntryStore<V> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(JournaledConfigurationEntryStore.class);
+
+  private final File file;
+  private final KeyGenerator keyGenerator;
+  private final Class<V> type;
+  private final TypedStoreContext<V> context;
+  private final ConfigurationEntryJournal journal;
+  private final int compactionThreshold;
+  private final Consumer<ConfigurationEntryJournal> compaction;
+  private final Map<String, V> entries = Maps.newHashMap();
+
+  private int records;
+
+  JournaledConfigurationEntryStore(File file, KeyGenerator keyGenerator, Class<V> type, TypedStoreContext<V> context,
+                                   int compactionThreshold, Consumer<ConfigurationEntryJournal> compaction) {
+    this.file = file;
+    this.keyGenerator = keyGenerator;
+    this.type = type;
+    this.context = context;
+    this.journal = new ConfigurationEntryJournal(file);
+    this.compactionThreshold = compactionThreshold;
+    this.compaction = compaction;
+    if (journal.exists()) {
+      journal.compact();
+    }
+    // initial load
+    execute(this::load).withLockedFileForRead(file);
+  }
+
+  @Override
+  public void clear() {
+    LOG.debug("clear configuration store");
+
+    execute(() -> {
+      journal.clear();
+      entries.clear();
+      appended();
+    }).withLockedFileForWrite(file);
+  }
+
+  @Override
+  public String put(V item) {
+    String id = keyGenerator.createKey();
+
+    put(id, item);
+
+    return id;
+  }
+
+  @Override
+  public void put(String id, V item) {
+    LOG.debug("put item {} to configuration store", id);
+
+    String value = marshal(item);
+    execute(() -> {
+      journal.put(id, value);
+      entries.put(id, item);
+      appended();
+    }).withLockedFileForWrite(file);
+  }
+
+  @Override
+  public void remove(String id) {
+    LOG.debug("remove item {} from configuration store", id);
+
+    execute(() -> {
+      journal.remove(id);
+      entries.remove(id);
+      appended();
+    }).withLockedFileForWrite(file);
+  }
+
+  @Override
+  public V get(String id) {
+    LOG.trace("get item {} from configuration store", id);
+
+    return entries.get(id);
+  }
+
+  @Override
+  public Map<String, V> getAll() {
+    LOG.trace("get all items from configuration store");
+
+    return Collections.unmodifiableMap(entries);
+  }
+
+  private void load() {
+    if (file.exists()) {
+      LOG.debug("load configuration from {}", file);
+      JAXBConfigurationEntryStore.readEntries(file, type, context, entries::put);
+    }
+    context.withUnmarshaller(u -> records = journal.replay(new ConfigurationEntryJournal.Listener() {
+      @Override
+      public void put(String key, String value) {
+        entries.put(key, unmarshal(u, value));
+      }
+
+      @Override
+      public void remove(String key) {
+        entries.remove(key);
+      }
+
+      @Override
+      public void clear() {
+        entries.clear();
+      }
+    }));
+    LOG.debug("replayed {} records from journal of {}", records, file);
+  }
+
+  private void appended() {
+    records++;
+    if (records >= compactionThreshold) {
+      LOG.debug("journal of {} reached compaction threshold", file);
+      records = 0;
+      compaction.accept(journal);
+    }
+  }
+
+  private String marshal(V item) {
+    StringWriter value = new StringWriter();
+    context.withMarshaller(m -> {
+      m.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+      try (AutoCloseableXMLWriter writer = XmlStreams.createWriter(value)) {
+        m.marshal(new JAXBElement<>(QName.valueOf(TAG_VALUE), type, item), writer);
+      }
+    });
+    return value.toString();
+  }
+
+  private V unmarshal(Unmarshaller unmarshaller, String value) {
+    try (AutoCloseableXMLReader reader = XmlStreams.createReader(new StringReader(value))) {
+      reader.nextTag();
+      return unmarshaller.unmarshal(reader, type).getValue();
+    } catch (JAXBException | XMLStreamException e) {
+      throw new StoreException("could not unmarshal journal record of " + file, e);
+    }
+  }
+}
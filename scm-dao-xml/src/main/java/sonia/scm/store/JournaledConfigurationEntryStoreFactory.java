@@ -0,0 +1,151 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.store;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sonia.scm.SCMContextProvider;
+import sonia.scm.repository.RepositoryLocationResolver;
+import sonia.scm.repository.RepositoryReadOnlyChecker;
+import sonia.scm.security.KeyGenerator;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ConfigurationEntryStoreFactory} which creates {@link JournaledConfigurationEntryStore}s. The stores append
+ * their changes to a journal, which is merged into the store file in the background, when a store is opened and when
+ * the factory is closed. The {@link JAXBConfigurationEntryStore} merges a pending journal before it loads the file,
+ * too. So the factory can be activated and deactivated with a class override of the
+ * {@link ConfigurationEntryStoreFactory} without losing changes.
+ * <p>
+ * The number of journal records after which a compaction is started can be configured with the system property
+ * {@code scm.store.journal.compactionThreshold} (default 1000).
+ *
+ * @since 2.46.0
+ */
+@Singleton
+public class JournaledConfigurationEntryStoreFactory extends FileBasedStoreFactory
+  implements ConfigurationEntryStoreFactory, Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(JournaledConfigurationEntryStoreFactory.class);
+
+  static final String PROPERTY_COMPACTION_THRESHOLD = "scm.store.journal.compactionThreshold";
+  private static final int DEFAULT_COMPACTION_THRESHOLD = 1000;
+
+  private final KeyGenerator keyGenerator;
+  private final int compactionThreshold;
+  private final StoreCache<ConfigurationEntryStore<?>> storeCache;
+
+  private final ExecutorService compactionExecutor = Executors.newSingleThreadExecutor(
+    new ThreadFactoryBuilder()
+      .setNameFormat("ConfigurationEntryJournalCompaction-%d")
+      .setDaemon(true)
+      .build()
+  );
+  private final Set<File> pendingCompactions = ConcurrentHashMap.newKeySet();
+  private final Set<File> storeFiles = ConcurrentHashMap.newKeySet();
+
+  @Inject
+  public JournaledConfigurationEntryStoreFactory(SCMContextProvider contextProvider, RepositoryLocationResolver repositoryLocationResolver, KeyGenerator keyGenerator, RepositoryReadOnlyChecker readOnlyChecker) {
+    this(contextProvider, repositoryLocationResolver, keyGenerator, readOnlyChecker,
+      Integer.getInteger(PROPERTY_COMPACTION_THRESHOLD, DEFAULT_COMPACTION_THRESHOLD));
+  }
+
+  JournaledConfigurationEntryStoreFactory(SCMContextProvider contextProvider, RepositoryLocationResolver repositoryLocationResolver, KeyGenerator keyGenerator, RepositoryReadOnlyChecker readOnlyChecker, int compactionThreshold) {
+    super(contextProvider, repositoryLocationResolver, Store.CONFIG, readOnlyChecker);
+    this.keyGenerator = keyGenerator;
+    this.compactionThreshold = compactionThreshold;
+    this.storeCache = new StoreCache<>(this::createStore);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> ConfigurationEntryStore<T> getStore(TypedStoreParameters<T> storeParameters) {
+    return (ConfigurationEntryStore<T>) storeCache.getStore(storeParameters);
+  }
+
+  private <T> ConfigurationEntryStore<T> createStore(TypedStoreParameters<T> storeParameters) {
+    File file = getStoreLocation(storeParameters.getName().concat(StoreConstants.FILE_EXTENSION),
+      storeParameters.getType(),
+      storeParameters.getRepositoryId(),
+      storeParameters.getNamespace());
+    storeFiles.add(file);
+    return new JournaledConfigurationEntryStore<>(
+      file,
+      keyGenerator,
+      storeParameters.getType(),
+      TypedStoreContext.of(storeParameters),
+      compactionThreshold,
+      journal -> scheduleCompaction(file, journal)
+    );
+  }
+
+  private void scheduleCompaction(File file, ConfigurationEntryJournal journal) {
+    if (pendingCompactions.add(file)) {
+      try {
+        compactionExecutor.execute(() -> {
+          pendingCompactions.remove(file);
+          try {
+            journal.compact();
+          } catch (Exception e) {
+            LOG.warn("failed to compact journal of {}", file, e);
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        LOG.debug("skipping compaction of {}, factory is closed", file);
+        pendingCompactions.remove(file);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    compactionExecutor.shutdown();
+    try {
+      if (!compactionExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+        LOG.warn("pending compactions did not finish in time");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    for (File file : storeFiles) {
+      try {
+        new ConfigurationEntryJournal(file).compact();
+      } catch (Exception e) {
+        LOG.warn("failed to compact journal of {}, it is merged when the store is opened again", file, e);
+      }
+    }
+  }
+}
@@ -28,10 +28,15 @@ package sonia.scm.user.xml;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import sonia.scm.SCMContextProvider;
 import sonia.scm.store.ConfigurationStoreFactory;
+import sonia.scm.store.StoreConstants;
 import sonia.scm.user.User;
 import sonia.scm.user.UserDAO;
 import sonia.scm.xml.AbstractXmlDAO;
+import sonia.scm.xml.XmlDatabaseJournal;
+
+import java.nio.file.Paths;
 
 /**
  *
@@ -45,6 +50,8 @@ public class XmlUserDAO extends AbstractXmlDAO<User, XmlUserDatabase>
   /** Field description */
   public static final String STORE_NAME = "users";
 
+  private static final String JOURNAL_EXTENSION = ".journal";
+
   //~--- constructors ---------------------------------------------------------
 
   /**
@@ -53,7 +60,6 @@ public class XmlUserDAO extends AbstractXmlDAO<User, XmlUserDatabase>
    *
    * @param storeFactory
    */
-  @Inject
   public XmlUserDAO(ConfigurationStoreFactory storeFactory)
   {
     super(storeFactory
@@ -62,6 +68,27 @@ public class XmlUserDAO extends AbstractXmlDAO<User, XmlUserDatabase>
       .build());
   }
 
+  /**
+   * Creates a dao which appends its modifications to a journal in the configuration directory.
+   *
+   * @param storeFactory factory for the store of the database
+   * @param contextProvider context provider to resolve the journal
+   *
+   * @since 2.46.0
+   */
+  @Inject
+  public XmlUserDAO(ConfigurationStoreFactory storeFactory, SCMContextProvider contextProvider)
+  {
+    super(storeFactory
+      .withType(XmlUserDatabase.class)
+      .withName(STORE_NAME)
+      .build(),
+      new XmlDatabaseJournal<>(
+        contextProvider.resolve(Paths.get(StoreConstants.CONFIG_DIRECTORY_NAME, STORE_NAME + JOURNAL_EXTENSION)),
+        User.class
+      ));
+  }
+
   //~--- methods --------------------------------------------------------------
 
   /**
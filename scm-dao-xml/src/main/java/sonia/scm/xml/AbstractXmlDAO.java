@@ -33,11 +33,18 @@ import sonia.scm.GenericDAO;
 import sonia.scm.ModelObject;
 import sonia.scm.store.ConfigurationStore;
 
+import java.io.Closeable;
 import java.util.Collection;
+import java.util.function.Consumer;
 
 //~--- JDK imports ------------------------------------------------------------
 
 /**
+ * Base class for daos which store all items in a single xml database. Without a journal every modification writes
+ * the whole database. With a {@link XmlDatabaseJournal} modifications are appended to the journal and the database is
+ * only written, when the journal has reached the compaction threshold, when the dao is created with a pending journal
+ * and when the dao is closed. The threshold can be configured with the system property
+ * {@code scm.xml.journal.compactionThreshold} (default 1000).
  *
  * @author Sebastian Sdorra
  *
@@ -45,12 +52,15 @@ import java.util.Collection;
  * @param <T>
  */
 public abstract class AbstractXmlDAO<I extends ModelObject,
-      T extends XmlDatabase<I>> implements GenericDAO<I>
+      T extends XmlDatabase<I>> implements GenericDAO<I>, Closeable
 {
 
   /** Field description */
   public static final String TYPE = "xml";
 
+  static final String COMPACTION_THRESHOLD_PROPERTY = "scm.xml.journal.compactionThreshold";
+  private static final int DEFAULT_COMPACTION_THRESHOLD = 1000;
+
   /**
    * the logger for XmlGroupDAO
    */
@@ -67,14 +77,40 @@ public abstract class AbstractXmlDAO<I extends ModelObject,
    * @param store
    */
   public AbstractXmlDAO(ConfigurationStore<T> store)
+  {
+    this(store, null);
+  }
+
+  /**
+   * Creates a dao which appends its modifications to the given journal. A journal which is left from a previous run
+   * is merged into the store.
+   *
+   * @param store store of the database
+   * @param journal journal of the modifications
+   *
+   * @since 2.46.0
+   */
+  protected AbstractXmlDAO(ConfigurationStore<T> store, XmlDatabaseJournal<I> journal)
+  {
+    this(store, journal, Integer.getInteger(COMPACTION_THRESHOLD_PROPERTY, DEFAULT_COMPACTION_THRESHOLD));
+  }
+
+  AbstractXmlDAO(ConfigurationStore<T> store, XmlDatabaseJournal<I> journal, int compactionThreshold)
   {
     this.store = store;
+    this.journal = journal;
+    this.compactionThreshold = compactionThreshold;
     db = store.get();
 
     if (db == null)
     {
       db = createNewDatabase();
     }
+
+    if (journal != null && journal.exists())
+    {
+      replayJournal();
+    }
   }
 
   //~--- methods --------------------------------------------------------------
@@ -112,11 +148,9 @@ public abstract class AbstractXmlDAO<I extends ModelObject,
       logger.trace("add item {} to xml backend", item.getId());
     }
 
-    synchronized (store)
-    {
-      db.add(clone(item));
-      storeDB();
-    }
+    I copy = clone(item);
+
+    apply(j -> j.put(copy.getId(), copy), () -> db.add(copy));
   }
 
   /**
@@ -164,11 +198,7 @@ public abstract class AbstractXmlDAO<I extends ModelObject,
       logger.trace("delete item {} from xml backend", item.getId());
     }
 
-    synchronized (store)
-    {
-      db.remove(item.getId());
-      storeDB();
-    }
+    apply(j -> j.remove(item.getId()), () -> db.remove(item.getId()));
   }
 
   /**
@@ -187,12 +217,12 @@ public abstract class AbstractXmlDAO<I extends ModelObject,
       logger.trace("modify xml backend item {}", item.getId());
     }
 
-    synchronized (store)
-    {
-      db.remove(item.getId());
-      db.add(clone(item));
-      storeDB();
-    }
+    I copy = clone(item);
+
+    apply(j -> j.put(copy.getId(), copy), () -> {
+      db.remove(copy.getId());
+      db.add(copy);
+    });
   }
 
   //~--- get methods ----------------------------------------------------------
@@ -265,8 +295,25 @@ public abstract class AbstractXmlDAO<I extends ModelObject,
   //~--- methods --------------------------------------------------------------
 
   /**
-   * Method description
-   *
+   * Merges pending modifications of the journal into the store.
+   */
+  @Override
+  public void close()
+  {
+    synchronized (store)
+    {
+      if (records > 0)
+      {
+        logger.debug("merge journal into xml database on close");
+        storeDB();
+      }
+    }
+  }
+
+  /**
+   * Writes the database directly to the store and removes the journal, which is contained in the written database.
+   * The caller must hold the lock of the store and should not mix this with the modification methods of this class
+   * without a journal, which write copies of the database outside of the lock.
    */
   protected void storeDB()
   {
@@ -277,6 +324,121 @@ public abstract class AbstractXmlDAO<I extends ModelObject,
 
     db.setLastModified(System.currentTimeMillis());
     store.set(db);
+
+    if (journal != null)
+    {
+      journal.delete();
+      records = 0;
+    }
+  }
+
+  /**
+   * Applies a modification to the database. With a journal the modification is appended to the journal, before it is
+   * applied. Without a journal the database is written afterwards.
+   */
+  private void apply(Consumer<XmlDatabaseJournal<I>> record, Runnable modification)
+  {
+    long number;
+
+    synchronized (store)
+    {
+      if (journal != null)
+      {
+        record.accept(journal);
+      }
+
+      modification.run();
+      number = modified();
+
+      if (journal != null)
+      {
+        if (++records >= compactionThreshold)
+        {
+          logger.debug("journal reached compaction threshold, store xml database");
+          storeDB();
+        }
+
+        return;
+      }
+    }
+
+    commit(number);
+  }
+
+  private void replayJournal()
+  {
+    int replayed = journal.replay(new XmlDatabaseJournal.Listener<I>()
+    {
+      @Override
+      public void put(String id, I item)
+      {
+        db.remove(id);
+        db.add(item);
+      }
+
+      @Override
+      public void remove(String id)
+      {
+        db.remove(id);
+      }
+    });
+
+    logger.info("merge {} records of pending journal into xml database", replayed);
+    storeDB();
+  }
+
+  private long modified()
+  {
+    db.setLastModified(System.currentTimeMillis());
+
+    return ++modifications;
+  }
+
+  /**
+   * Writes the database including the given modification to the store. The database is copied under the lock of the
+   * store and written outside of it, so reads and further modifications are not blocked by the write. Modifications
+   * which are made while another thread writes are committed together by the next writer (group commit).
+   */
+  private void commit(long modification)
+  {
+    synchronized (commitLock)
+    {
+      if (committed >= modification)
+      {
+        logger.trace("modification {} was already stored by another commit", modification);
+
+        return;
+      }
+
+      T copy;
+      long copiedModification;
+
+      synchronized (store)
+      {
+        copy = copyDB();
+        copiedModification = modifications;
+      }
+
+      logger.trace("store xml database with modifications {} to {}", committed + 1, copiedModification);
+      store.set(copy);
+      committed = copiedModification;
+    }
+  }
+
+  private T copyDB()
+  {
+    T copy = createNewDatabase();
+
+    copy.setCreationTime(db.getCreationTime());
+    copy.setLastModified(db.getLastModified());
+
+    // items returned by get can be modified by the caller, so the copy must not share them
+    for (I item : db.values())
+    {
+      copy.add(clone(item));
+    }
+
+    return copy;
   }
 
   //~--- fields ---------------------------------------------------------------
@@ -286,4 +448,22 @@ public abstract class AbstractXmlDAO<I extends ModelObject,
 
   /** Field description */
   protected T db;
+
+  /** journal of the modifications, or null if every modification writes the database */
+  private final XmlDatabaseJournal<I> journal;
+
+  /** number of journal records after which the database is written */
+  private final int compactionThreshold;
+
+  /** number of records in the journal, guarded by the store */
+  private int records;
+
+  /** lock which serializes writes of database copies */
+  private final Object commitLock = new Object();
+
+  /** number of modifications, guarded by the store */
+  private long modifications;
+
+  /** number of stored modifications, guarded by the commit lock */
+  private long committed;
 }
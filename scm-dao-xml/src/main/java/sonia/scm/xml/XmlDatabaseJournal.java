@@ -0,0 +1,201 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.xml;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sonia.scm.store.StoreException;
+import sonia.scm.xml.XmlStreams.AutoCloseableXMLReader;
+import sonia.scm.xml.XmlStreams.AutoCloseableXMLWriter;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Base64;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+
+/**
+ * Write-ahead journal for the modifications of an {@link AbstractXmlDAO}. Every added, modified or removed item is
+ * appended as a single line, so that a modification does not have to rewrite the whole database. Ids and items are
+ * base64 encoded, items as xml. A trailing line without line break is the remainder of an interrupted write and is
+ * ignored on replay.
+ * <p>
+ * The journal is not thread safe, the dao synchronizes all access.
+ *
+ * @param <I> type of the journaled items
+ * @since 2.46.0
+ */
+public class XmlDatabaseJournal<I> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(XmlDatabaseJournal.class);
+
+  private static final String TAG_ITEM = "item";
+  private static final char PUT = 'P';
+  private static final char REMOVE = 'R';
+  private static final byte LINE_BREAK = '\n';
+
+  private final Path journal;
+  private final Class<I> type;
+  private final JAXBContext context;
+
+  public XmlDatabaseJournal(Path journal, Class<I> type) {
+    this.journal = journal;
+    this.type = type;
+    try {
+      this.context = JAXBContext.newInstance(type);
+    } catch (JAXBException e) {
+      throw new StoreException("could not create jaxb context for " + type, e);
+    }
+  }
+
+  boolean exists() {
+    return Files.exists(journal);
+  }
+
+  void put(String id, I item) {
+    append(PUT + " " + encode(id) + " " + encode(marshal(item)));
+  }
+
+  void remove(String id) {
+    append(REMOVE + " " + encode(id));
+  }
+
+  /**
+   * Replays all complete records of the journal to the given listener and returns the number of replayed records.
+   */
+  int replay(Listener<I> listener) {
+    byte[] content;
+    try {
+      content = Files.readAllBytes(journal);
+    } catch (NoSuchFileException e) {
+      return 0;
+    } catch (IOException e) {
+      throw new StoreException("could not read journal " + journal, e);
+    }
+
+    int records = 0;
+    int start = 0;
+    for (int i = 0; i < content.length; i++) {
+      if (content[i] == LINE_BREAK) {
+        if (replay(new String(content, start, i - start, UTF_8), listener)) {
+          records++;
+        }
+        start = i + 1;
+      }
+    }
+    if (start < content.length) {
+      LOG.warn("ignoring incomplete record at the end of journal {}", journal);
+    }
+    return records;
+  }
+
+  void delete() {
+    try {
+      Files.deleteIfExists(journal);
+    } catch (IOException e) {
+      throw new StoreException("could not delete journal " + journal, e);
+    }
+  }
+
+  private boolean replay(String line, Listener<I> listener) {
+    String[] parts = line.split(" ");
+    try {
+      if (parts.length == 3 && parts[0].equals(String.valueOf(PUT))) {
+        listener.put(decode(parts[1]), unmarshal(decode(parts[2])));
+        return true;
+      } else if (parts.length == 2 && parts[0].equals(String.valueOf(REMOVE))) {
+        listener.remove(decode(parts[1]));
+        return true;
+      }
+    } catch (IllegalArgumentException e) {
+      LOG.debug("could not decode journal record", e);
+    }
+    LOG.warn("ignoring malformed record in journal {}", journal);
+    return false;
+  }
+
+  private void append(String record) {
+    byte[] bytes = (record + (char) LINE_BREAK).getBytes(UTF_8);
+    try {
+      Files.createDirectories(journal.getParent());
+      try (OutputStream output = Files.newOutputStream(journal, CREATE, APPEND)) {
+        output.write(bytes);
+      }
+    } catch (IOException e) {
+      throw new StoreException("could not append record to journal " + journal, e);
+    }
+  }
+
+  private String marshal(I item) {
+    StringWriter value = new StringWriter();
+    try {
+      Marshaller marshaller = context.createMarshaller();
+      marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+      try (AutoCloseableXMLWriter writer = XmlStreams.createWriter(value)) {
+        marshaller.marshal(new JAXBElement<>(QName.valueOf(TAG_ITEM), type, item), writer);
+      }
+    } catch (JAXBException | XMLStreamException e) {
+      throw new StoreException("could not marshal journal record for " + journal, e);
+    }
+    return value.toString();
+  }
+
+  private I unmarshal(String value) {
+    try (AutoCloseableXMLReader reader = XmlStreams.createReader(new StringReader(value))) {
+      reader.nextTag();
+      return context.createUnmarshaller().unmarshal(reader, type).getValue();
+    } catch (JAXBException | XMLStreamException e) {
+      throw new StoreException("could not unmarshal journal record of " + journal, e);
+    }
+  }
+
+  private static String encode(String value) {
+    return Base64.getEncoder().encodeToString(value.getBytes(UTF_8));
+  }
+
+  private static String decode(String value) {
+    return new String(Base64.getDecoder().decode(value), UTF_8);
+  }
+
+  interface Listener<I> {
+
+    void put(String id, I item);
+
+    void remove(String id);
+  }
+}
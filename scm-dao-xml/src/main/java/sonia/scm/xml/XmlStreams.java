@@ -78,7 +78,7 @@ public final class XmlStreams {
     return createReader(file.toPath());
   }
 
-  private static AutoCloseableXMLReader createReader(Reader reader) throws XMLStreamException {
+  public static AutoCloseableXMLReader createReader(Reader reader) throws XMLStreamException {
     XMLInputFactory factory = XMLInputFactory.newInstance();
     factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
     XMLStreamReader xmlStreamReader = factory.createXMLStreamReader(reader);
@@ -93,7 +93,7 @@ public final class XmlStreams {
     return createWriter(file.toPath());
   }
 
-  private static AutoCloseableXMLWriter createWriter(Writer writer) throws XMLStreamException {
+  public static AutoCloseableXMLWriter createWriter(Writer writer) throws XMLStreamException {
     IndentXMLStreamWriter indentXMLStreamWriter = new IndentXMLStreamWriter(XMLOutputFactory.newFactory().createXMLStreamWriter(writer));
     FilterInvalidCharXMLStreamWriter filterInvalidCharXMLStreamWriter = new FilterInvalidCharXMLStreamWriter(indentXMLStreamWriter);
     return new AutoCloseableXMLWriter(filterInvalidCharXMLStreamWriter, writer);
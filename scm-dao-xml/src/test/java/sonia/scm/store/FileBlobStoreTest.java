@@ -30,14 +30,21 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import sonia.scm.AbstractTestBase;
 import sonia.scm.repository.Repository;
+import sonia.scm.repository.RepositoryLocationResolver;
 import sonia.scm.repository.RepositoryReadOnlyChecker;
 import sonia.scm.repository.RepositoryTestData;
 import sonia.scm.security.UUIDKeyGenerator;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.function.BiConsumer;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -206,6 +213,146 @@ class FileBlobStoreTest extends AbstractTestBase
     }
   }
 
+  @Test
+  void shouldTransferPartOfContent() throws IOException
+  {
+    Blob blob = store.create();
+    write(blob, "Hello World");
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    long transferred = blob.transferTo(6, 5, Channels.newChannel(output));
+
+    assertEquals(5, transferred);
+    assertEquals("World", output.toString());
+  }
+
+  @Test
+  void shouldStopTransferAtEndOfContent() throws IOException
+  {
+    Blob blob = store.create();
+    write(blob, "Hello");
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    long transferred = blob.transferTo(3, 100, Channels.newChannel(output));
+
+    assertEquals(2, transferred);
+    assertEquals("lo", output.toString());
+  }
+
+  @Nested
+  class WithContentAddressedStores {
+
+    private final Repository otherRepository = RepositoryTestData.create42Puzzle();
+
+    private RepositoryLocationResolver locationResolver;
+    private BlobStore store;
+    private BlobStore otherStore;
+
+    @BeforeEach
+    void createContentAddressedStores() {
+      locationResolver = new PerRepositoryLocationResolver(contextProvider.getBaseDirectory().toPath());
+      store = createContentAddressedStore(repository);
+      otherStore = createContentAddressedStore(otherRepository);
+    }
+
+    @Test
+    void shouldShareIdenticalBlobs() throws IOException {
+      write(store.create("abc"), "Hello");
+      write(otherStore.create("abc"), "Hello");
+
+      assertTrue(Files.isSameFile(blobFile(repository), blobFile(otherRepository)));
+      assertEquals("Hello", read(store.get("abc")));
+      assertEquals("Hello", read(otherStore.get("abc")));
+    }
+
+    @Test
+    void shouldNotWriteIntoSharedBlob() throws IOException {
+      write(store.create("abc"), "Hello");
+      write(otherStore.create("abc"), "Hello");
+
+      write(otherStore.get("abc"), "Other Text");
+
+      assertEquals("Hello", read(store.get("abc")));
+      assertEquals("Other Text", read(otherStore.get("abc")));
+    }
+
+    @Test
+    void shouldKeepSharedBlobIfRemovedFromOneStore() throws IOException {
+      write(store.create("abc"), "Hello");
+      write(otherStore.create("abc"), "Hello");
+
+      store.remove("abc");
+
+      assertNull(store.get("abc"));
+      assertEquals("Hello", read(otherStore.get("abc")));
+    }
+
+    @Test
+    void shouldShareWithRemainingBlob() throws IOException {
+      write(store.create("abc"), "Hello");
+      store.remove("abc");
+
+      write(otherStore.create("abc"), "Hello");
+      write(store.create("abc"), "Hello");
+
+      assertTrue(Files.isSameFile(blobFile(repository), blobFile(otherRepository)));
+    }
+
+    private BlobStore createContentAddressedStore(Repository repository) {
+      return new FileBlobStoreFactory(contextProvider, locationResolver, new UUIDKeyGenerator(), readOnlyChecker)
+        .withName("test")
+        .forRepository(repository)
+        .contentAddressed()
+        .build();
+    }
+
+    private Path blobFile(Repository repository) {
+      return locationResolver.forClass(Path.class)
+        .getLocation(repository.getId())
+        .resolve(Paths.get("store", "blob", "test", "abc.blob"));
+    }
+  }
+
+  private static class PerRepositoryLocationResolver extends RepositoryLocationResolver {
+
+    private final Path baseDirectory;
+
+    PerRepositoryLocationResolver(Path baseDirectory) {
+      this.baseDirectory = baseDirectory;
+    }
+
+    @Override
+    public boolean supportsLocationType(Class<?> type) {
+      return type == Path.class;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected <T> RepositoryLocationResolverInstance<T> create(Class<T> type) {
+      return new RepositoryLocationResolverInstance<T>() {
+        @Override
+        public T getLocation(String repositoryId) {
+          return (T) baseDirectory.resolve(repositoryId);
+        }
+
+        @Override
+        public T createLocation(String repositoryId) {
+          return getLocation(repositoryId);
+        }
+
+        @Override
+        public void setLocation(String repositoryId, T location) {
+          throw new UnsupportedOperationException("not implemented for tests");
+        }
+
+        @Override
+        public void forAllLocations(BiConsumer<String, T> consumer) {
+          throw new UnsupportedOperationException("not implemented for tests");
+        }
+      };
+    }
+  }
+
   private String read(Blob blob) throws IOException
   {
     InputStream input = blob.getInputStream();
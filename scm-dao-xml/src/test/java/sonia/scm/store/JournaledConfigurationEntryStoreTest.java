@@ -0,0 +1,220 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.store;
+
+import org.junit.Test;
+import sonia.scm.security.UUIDKeyGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JournaledConfigurationEntryStoreTest extends ConfigurationEntryStoreTestBase {
+
+  @Override
+  protected ConfigurationEntryStoreFactory createConfigurationStoreFactory() {
+    return new JournaledConfigurationEntryStoreFactory(contextProvider, repositoryLocationResolver, new UUIDKeyGenerator(), null, 1000);
+  }
+
+  @Test
+  public void shouldAppendChangesToJournal() {
+    String name = UUID.randomUUID().toString();
+    ConfigurationEntryStore<StoreObject> store = createStore(name);
+
+    store.put("a", new StoreObject("a_value"));
+    store.put("b", new StoreObject("b_value"));
+    store.put("a", new StoreObject("a_value_2"));
+    store.remove("b");
+
+    assertThat(file(name)).doesNotExist();
+    assertThat(journal(name)).exists();
+
+    ConfigurationEntryStore<StoreObject> reloaded = createStore(name);
+    assertThat(reloaded.getAll()).containsOnlyKeys("a");
+    assertThat(reloaded.get("a").getValue()).isEqualTo("a_value_2");
+  }
+
+  @Test
+  public void shouldReplayClear() {
+    String name = UUID.randomUUID().toString();
+    ConfigurationEntryStore<StoreObject> store = createStore(name);
+
+    store.put("a", new StoreObject("a_value"));
+    store.clear();
+    store.put("b", new StoreObject("b_value"));
+
+    assertThat(createStore(name).getAll()).containsOnlyKeys("b");
+  }
+
+  @Test
+  public void shouldIgnoreIncompleteRecord() throws IOException {
+    String name = UUID.randomUUID().toString();
+    ConfigurationEntryStore<StoreObject> store = createStore(name);
+    store.put("a", new StoreObject("a_value"));
+
+    Files.write(journal(name), "P YWJj PHZhbH".getBytes(UTF_8), StandardOpenOption.APPEND);
+
+    ConfigurationEntryStore<StoreObject> reloaded = createStore(name);
+    assertThat(reloaded.getAll()).containsOnlyKeys("a");
+
+    reloaded.put("b", new StoreObject("b_value"));
+    assertThat(createStore(name).getAll()).containsOnlyKeys("a", "b");
+  }
+
+  @Test
+  public void shouldCompactJournalIntoCompatibleFile() {
+    String name = UUID.randomUUID().toString();
+    ConfigurationEntryStore<StoreObject> store = createStore(name);
+    store.put("a", new StoreObject("a_value"));
+    store.put("b", new StoreObject("b_value"));
+    new ConfigurationEntryJournal(file(name).toFile()).compact();
+    store.remove("a");
+    store.put("c", new StoreObject("c_value"));
+
+    new ConfigurationEntryJournal(file(name).toFile()).compact();
+
+    assertThat(journal(name)).doesNotExist();
+    ConfigurationEntryStore<StoreObject> jaxbStore = new JAXBConfigurationEntryStoreFactory(contextProvider, repositoryLocationResolver, new UUIDKeyGenerator(), null)
+      .withType(StoreObject.class)
+      .withName(name)
+      .build();
+    assertThat(jaxbStore.getAll()).containsOnlyKeys("b", "c");
+    assertThat(jaxbStore.get("c").getValue()).isEqualTo("c_value");
+  }
+
+  @Test
+  public void shouldMergePendingJournalWhenOpened() {
+    String name = UUID.randomUUID().toString();
+    ConfigurationEntryStore<StoreObject> store = createStore(name);
+    store.put("a", new StoreObject("a_value"));
+
+    assertThat(createStore(name).getAll()).containsOnlyKeys("a");
+    assertThat(journal(name)).doesNotExist();
+    assertThat(file(name)).exists();
+  }
+
+  @Test
+  public void shouldMergePendingJournalIntoJaxbStore() {
+    String name = UUID.randomUUID().toString();
+    ConfigurationEntryStore<StoreObject> store = createStore(name);
+    store.put("a", new StoreObject("a_value"));
+    store.put("b", new StoreObject("b_value"));
+    store.remove("a");
+
+    ConfigurationEntryStore<StoreObject> jaxbStore = jaxbStore(name);
+    assertThat(jaxbStore.getAll()).containsOnlyKeys("b");
+    assertThat(journal(name)).doesNotExist();
+
+    // the journal must not be replayed over newer changes of the jaxb store
+    jaxbStore.put("c", new StoreObject("c_value"));
+    jaxbStore.remove("b");
+    assertThat(createStore(name).getAll()).containsOnlyKeys("c");
+  }
+
+  @Test
+  public void shouldMergeJournalsOnClose() {
+    String name = UUID.randomUUID().toString();
+    JournaledConfigurationEntryStoreFactory factory = new JournaledConfigurationEntryStoreFactory(contextProvider, repositoryLocationResolver, new UUIDKeyGenerator(), null, 1000);
+    ConfigurationEntryStore<StoreObject> store = factory.withType(StoreObject.class).withName(name).build();
+    store.put("a", new StoreObject("a_value"));
+
+    factory.close();
+
+    assertThat(journal(name)).doesNotExist();
+    assertThat(jaxbStore(name).getAll()).containsOnlyKeys("a");
+  }
+
+  private ConfigurationEntryStore<StoreObject> jaxbStore(String name) {
+    return new JAXBConfigurationEntryStoreFactory(contextProvider, repositoryLocationResolver, new UUIDKeyGenerator(), null)
+      .withType(StoreObject.class)
+      .withName(name)
+      .build();
+  }
+
+  @Test
+  public void shouldScheduleCompactionAfterThreshold() throws InterruptedException {
+    String name = UUID.randomUUID().toString();
+    JournaledConfigurationEntryStoreFactory factory = new JournaledConfigurationEntryStoreFactory(contextProvider, repositoryLocationResolver, new UUIDKeyGenerator(), null, 2);
+    ConfigurationEntryStore<StoreObject> store = factory.withType(StoreObject.class).withName(name).build();
+
+    store.put("a", new StoreObject("a_value"));
+    store.put("b", new StoreObject("b_value"));
+
+    for (int i = 0; i < 100 && Files.exists(journal(name)); i++) {
+      Thread.sleep(50);
+    }
+    factory.close();
+
+    assertThat(journal(name)).doesNotExist();
+    assertThat(file(name)).exists();
+    assertThat(createStore(name).getAll()).containsOnlyKeys("a", "b");
+  }
+
+  @Test
+  public void shouldExportMergedContent() throws IOException {
+    String name = UUID.randomUUID().toString();
+    ConfigurationEntryStore<StoreObject> store = createStore(name);
+    store.put("a", new StoreObject("a_value"));
+    store.put("b", new StoreObject("b_value"));
+    store.remove("a");
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    new ExportableConfigEntryFileStore(file(name)).export((entryName, size) -> {
+      assertThat(entryName).isEqualTo(name + ".xml");
+      return output;
+    });
+
+    String imported = UUID.randomUUID().toString();
+    Files.write(file(imported), output.toByteArray());
+    ConfigurationEntryStore<StoreObject> importedStore = new JAXBConfigurationEntryStoreFactory(contextProvider, repositoryLocationResolver, new UUIDKeyGenerator(), null)
+      .withType(StoreObject.class)
+      .withName(imported)
+      .build();
+    assertThat(importedStore.getAll()).containsOnlyKeys("b");
+    assertThat(importedStore.get("b").getValue()).isEqualTo("b_value");
+  }
+
+  private ConfigurationEntryStore<StoreObject> createStore(String name) {
+    return createConfigurationStoreFactory()
+      .withType(StoreObject.class)
+      .withName(name)
+      .build();
+  }
+
+  private Path file(String name) {
+    return new File(new File(contextProvider.getBaseDirectory(), "config"), name + ".xml").toPath();
+  }
+
+  private Path journal(String name) {
+    return ConfigurationEntryJournal.journalOf(file(name));
+  }
+}
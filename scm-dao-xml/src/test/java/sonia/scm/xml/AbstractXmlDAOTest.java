@@ -0,0 +1,215 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.xml;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sonia.scm.store.ConfigurationStore;
+import sonia.scm.user.User;
+import sonia.scm.user.xml.XmlUserDatabase;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AbstractXmlDAOTest {
+
+  @Test
+  void shouldStoreCopyOfDatabase() {
+    RecordingStore store = new RecordingStore();
+    TestDAO dao = new TestDAO(store);
+
+    dao.add(new User("trillian"));
+    dao.add(new User("dent"));
+    dao.delete(new User("trillian"));
+
+    assertThat(store.writes).hasSize(3);
+    assertThat(store.writes.get(1).values()).extracting("name").containsOnly("trillian", "dent");
+    assertThat(store.get().values()).extracting("name").containsOnly("dent");
+    assertThat(store.get()).isNotSameAs(store.writes.get(1));
+  }
+
+  @Test
+  void shouldCommitConcurrentModificationsTogether() throws Exception {
+    RecordingStore store = new RecordingStore();
+    store.block();
+    TestDAO dao = new TestDAO(store);
+
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      Future<?> first = executor.submit(() -> dao.add(new User("trillian")));
+      assertThat(store.entered.await(10, TimeUnit.SECONDS)).isTrue();
+
+      Future<?> second = executor.submit(() -> dao.add(new User("dent")));
+      Future<?> third = executor.submit(() -> dao.add(new User("zaphod")));
+
+      // reads and modifications are not blocked by the running write
+      for (int i = 0; i < 200 && dao.getAll().size() < 3; i++) {
+        Thread.sleep(10);
+      }
+      assertThat(dao.getAll()).hasSize(3);
+
+      store.release.countDown();
+      first.get(10, TimeUnit.SECONDS);
+      second.get(10, TimeUnit.SECONDS);
+      third.get(10, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(store.writes).hasSize(2);
+    assertThat(store.get().values()).extracting("name").containsOnly("trillian", "dent", "zaphod");
+  }
+
+  @Test
+  void shouldAppendModificationsToJournal(@TempDir Path temp) {
+    RecordingStore store = new RecordingStore();
+    XmlDatabaseJournal<User> journal = journal(temp);
+    TestDAO dao = new TestDAO(store, journal, 1000);
+
+    for (int i = 0; i < 100; i++) {
+      dao.add(new User("user" + i));
+    }
+    dao.modify(new User("user1", "Arthur Dent", "arthur@hitchhiker.com"));
+    dao.delete(new User("user2"));
+
+    assertThat(store.writes).isEmpty();
+    assertThat(journal.exists()).isTrue();
+    assertThat(dao.getAll()).hasSize(99);
+    assertThat(dao.get("user1").getDisplayName()).isEqualTo("Arthur Dent");
+  }
+
+  @Test
+  void shouldMergePendingJournalWhenCreated(@TempDir Path temp) {
+    RecordingStore store = new RecordingStore();
+    TestDAO dao = new TestDAO(store, journal(temp), 1000);
+    dao.add(new User("trillian"));
+    dao.add(new User("dent"));
+    dao.modify(new User("dent", "Arthur Dent", "arthur@hitchhiker.com"));
+    dao.delete(new User("trillian"));
+
+    XmlDatabaseJournal<User> journal = journal(temp);
+    TestDAO reopened = new TestDAO(store, journal, 1000);
+
+    assertThat(journal.exists()).isFalse();
+    assertThat(store.writes).hasSize(1);
+    assertThat(store.get().values()).extracting("name").containsOnly("dent");
+    assertThat(reopened.get("dent").getDisplayName()).isEqualTo("Arthur Dent");
+  }
+
+  @Test
+  void shouldStoreDatabaseWhenJournalReachesThreshold(@TempDir Path temp) {
+    RecordingStore store = new RecordingStore();
+    XmlDatabaseJournal<User> journal = journal(temp);
+    TestDAO dao = new TestDAO(store, journal, 2);
+
+    dao.add(new User("trillian"));
+    assertThat(store.writes).isEmpty();
+
+    dao.add(new User("dent"));
+    assertThat(store.writes).hasSize(1);
+    assertThat(store.get().values()).extracting("name").containsOnly("trillian", "dent");
+    assertThat(journal.exists()).isFalse();
+
+    dao.add(new User("zaphod"));
+    assertThat(store.writes).hasSize(1);
+    assertThat(journal.exists()).isTrue();
+  }
+
+  @Test
+  void shouldMergeJournalOnClose(@TempDir Path temp) {
+    RecordingStore store = new RecordingStore();
+    XmlDatabaseJournal<User> journal = journal(temp);
+    TestDAO dao = new TestDAO(store, journal, 1000);
+    dao.add(new User("trillian"));
+
+    dao.close();
+
+    assertThat(journal.exists()).isFalse();
+    assertThat(store.get().values()).extracting("name").containsOnly("trillian");
+  }
+
+  private XmlDatabaseJournal<User> journal(Path temp) {
+    return new XmlDatabaseJournal<>(temp.resolve("users.journal"), User.class);
+  }
+
+  private static class TestDAO extends AbstractXmlDAO<User, XmlUserDatabase> {
+
+    TestDAO(ConfigurationStore<XmlUserDatabase> store) {
+      super(store);
+    }
+
+    TestDAO(ConfigurationStore<XmlUserDatabase> store, XmlDatabaseJournal<User> journal, int compactionThreshold) {
+      super(store, journal, compactionThreshold);
+    }
+
+    @Override
+    protected User clone(User item) {
+      return item.clone();
+    }
+
+    @Override
+    protected XmlUserDatabase createNewDatabase() {
+      return new XmlUserDatabase();
+    }
+  }
+
+  private static class RecordingStore implements ConfigurationStore<XmlUserDatabase> {
+
+    private final List<XmlUserDatabase> writes = new CopyOnWriteArrayList<>();
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private boolean blocking;
+
+    void block() {
+      blocking = true;
+    }
+
+    @Override
+    public XmlUserDatabase get() {
+      return writes.isEmpty() ? null : writes.get(writes.size() - 1);
+    }
+
+    @Override
+    public void set(XmlUserDatabase database) {
+      if (blocking && entered.getCount() > 0) {
+        entered.countDown();
+        try {
+          release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      writes.add(database);
+    }
+  }
+}
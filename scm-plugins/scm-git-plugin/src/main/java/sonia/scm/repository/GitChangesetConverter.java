@@ -56,11 +56,13 @@ import java.util.Optional;
 public class GitChangesetConverter implements Closeable {
 
   private final GPGSignatureResolver gpg;
+  private final GitSignatureVerificationCache verificationCache;
   private final Multimap<ObjectId, String> tags;
   private final TreeWalk treeWalk;
 
-  GitChangesetConverter(GPGSignatureResolver gpg, org.eclipse.jgit.lib.Repository repository, RevWalk revWalk) {
+  GitChangesetConverter(GPGSignatureResolver gpg, GitSignatureVerificationCache verificationCache, org.eclipse.jgit.lib.Repository repository, RevWalk revWalk) {
     this.gpg = gpg;
+    this.verificationCache = verificationCache;
     this.tags = GitUtil.createTagMap(repository, revWalk);
     this.treeWalk = new TreeWalk(repository);
   }
@@ -145,6 +147,19 @@ public class GitChangesetConverter implements Closeable {
 
     PublicKey publicKey = publicKeyById.get();
 
+    boolean verified = verificationCache.verify(
+      commit.getId(), publicKeyId, publicKey, () -> withoutSignature(raw, start, end), signature
+    );
+    return new Signature(
+      publicKeyId,
+      "gpg",
+      verified ? SignatureStatus.VERIFIED : SignatureStatus.INVALID,
+      publicKey.getOwner().orElse(null),
+      publicKey.getContacts()
+    );
+  }
+
+  private byte[] withoutSignature(byte[] raw, int start, int end) {
     ByteArrayOutputStream baos = new ByteArrayOutputStream();
     try {
       byte[] headerPrefix = Arrays.copyOfRange(raw, 0, start - GPG_HEADER.length - 1);
@@ -156,15 +171,7 @@ public class GitChangesetConverter implements Closeable {
       // this will never happen, because we are writing into memory
       throw new IllegalStateException("failed to write into memory", ex);
     }
-
-    boolean verified = publicKey.verify(baos.toByteArray(), signature);
-    return new Signature(
-      publicKeyId,
-      "gpg",
-      verified ? SignatureStatus.VERIFIED : SignatureStatus.INVALID,
-      publicKey.getOwner().orElse(null),
-      publicKey.getContacts()
-    );
+    return baos.toByteArray();
   }
 
   public Person createPersonFor(PersonIdent personIndent) {
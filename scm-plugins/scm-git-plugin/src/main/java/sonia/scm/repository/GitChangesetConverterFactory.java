@@ -38,10 +38,16 @@ import java.util.List;
 public class GitChangesetConverterFactory {
 
   private final GPG gpg;
+  private final GitSignatureVerificationCache verificationCache;
 
-  @Inject
   public GitChangesetConverterFactory(GPG gpg) {
+    this(gpg, GitSignatureVerificationCache.disabled());
+  }
+
+  @Inject
+  public GitChangesetConverterFactory(GPG gpg, GitSignatureVerificationCache verificationCache) {
     this.gpg = gpg;
+    this.verificationCache = verificationCache;
   }
 
   public GitChangesetConverter create(Repository repository) {
@@ -53,18 +59,20 @@ public class GitChangesetConverterFactory {
   }
 
   public Builder builder(Repository repository) {
-    return new Builder(gpg, repository);
+    return new Builder(gpg, verificationCache, repository);
   }
 
   public static class Builder {
 
     private final GPG gpg;
+    private final GitSignatureVerificationCache verificationCache;
     private final Repository repository;
     private RevWalk revWalk;
     private final List<PublicKey> additionalPublicKeys = new ArrayList<>();
 
-    private Builder(GPG gpg, Repository repository) {
+    private Builder(GPG gpg, GitSignatureVerificationCache verificationCache, Repository repository) {
       this.gpg = gpg;
+      this.verificationCache = verificationCache;
       this.repository = repository;
     }
 
@@ -86,6 +94,7 @@ public class GitChangesetConverterFactory {
     public GitChangesetConverter create() {
       return new GitChangesetConverter(
         new GPGSignatureResolver(gpg, additionalPublicKeys),
+        verificationCache,
         repository,
         revWalk != null ? revWalk : new RevWalk(repository)
       );
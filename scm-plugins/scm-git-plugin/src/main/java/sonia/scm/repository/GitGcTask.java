@@ -25,21 +25,43 @@
 package sonia.scm.repository;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.base.Stopwatch;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
-import java.io.File;
-import java.io.IOException;
-import java.util.Map;
-import java.util.Properties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.eclipse.jgit.api.GarbageCollectCommand;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.storage.pack.PackConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.DoubleSupplier;
+
 /**
- * Executes git gc on every git repository. Statistics of the gc process are logged to the info level. The task is
- * disabled by default and must be enabled through the global git configuration.
+ * Executes git gc on those git repositories, which need it. Every valid and healthy git repository gets a score
+ * from its number of loose objects, its number of pack files and the number of pushes since its last gc. Only
+ * repositories with a score of at least one are collected, the ones with the highest score first. The gc runs on a
+ * bounded pool and is postponed, if the load of the system is too high. Every gc writes reachability bitmaps.
+ * Statistics of the gc process are logged to the info level. The task is disabled by default and must be enabled
+ * through the global git configuration.
  *
  * @author Sebastian Sdorra
  * @since 1.47
@@ -50,44 +72,194 @@ public class GitGcTask implements Runnable {
 
   private static final Logger logger = LoggerFactory.getLogger(GitGcTask.class);
 
+  private static final int LOOSE_OBJECT_LIMIT = Integer.getInteger("scm.git.gc.looseObjectLimit", 6700);
+  private static final int PACK_LIMIT = Integer.getInteger("scm.git.gc.packLimit", 50);
+  private static final int PUSH_LIMIT = Integer.getInteger("scm.git.gc.pushLimit", 100);
+  private static final int BITMAP_OBJECT_LIMIT = Integer.getInteger("scm.git.gc.bitmapObjectLimit", 10000);
+
   private final RepositoryManager repositoryManager;
   private final RepositoryDirectoryHandler repositoryHandler;
+  private final GitPushActivity pushActivity;
+  private final DoubleSupplier systemLoad;
+  private final double maxLoad;
+  private final int threads;
+
+  private final Timer duration;
+  private final DistributionSummary reclaimed;
+  private final Counter postponed;
 
   @Inject
-  public GitGcTask(RepositoryManager repositoryManager)
-  {
+  public GitGcTask(RepositoryManager repositoryManager, GitPushActivity pushActivity, MeterRegistry meterRegistry) {
+    this(
+      repositoryManager,
+      pushActivity,
+      meterRegistry,
+      GitGcTask::systemLoadPerProcessor,
+      Double.parseDouble(System.getProperty("scm.git.gc.maxLoad", "0.7")),
+      Integer.getInteger("scm.git.gc.threads", Math.max(1, Runtime.getRuntime().availableProcessors() / 4))
+    );
+  }
+
+  @VisibleForTesting
+  GitGcTask(RepositoryManager repositoryManager, GitPushActivity pushActivity, MeterRegistry meterRegistry,
+            DoubleSupplier systemLoad, double maxLoad, int threads) {
     this.repositoryManager = repositoryManager;
     this.repositoryHandler = (RepositoryDirectoryHandler) repositoryManager.getHandler(GitRepositoryHandler.TYPE_NAME);
+    this.pushActivity = pushActivity;
+    this.systemLoad = systemLoad;
+    this.maxLoad = maxLoad;
+    this.threads = threads;
+    this.duration = Timer.builder("scm.git.gc.duration")
+      .description("Duration of git gc for a single repository")
+      .register(meterRegistry);
+    this.reclaimed = DistributionSummary.builder("scm.git.gc.reclaimed")
+      .description("Bytes reclaimed by git gc for a single repository")
+      .baseUnit("bytes")
+      .register(meterRegistry);
+    this.postponed = Counter.builder("scm.git.gc.postponed")
+      .description("Number of git gc executions postponed because of high system load")
+      .register(meterRegistry);
   }
 
   @Override
-  public void run()
-  {
-    for (Repository repository : repositoryManager.getAll())
-    {
-      handle(repository);
+  public void run() {
+    ExecutorService executor = Executors.newFixedThreadPool(
+      threads, new ThreadFactoryBuilder().setNameFormat("GitGc-%d").setDaemon(true).build()
+    );
+    try {
+      List<Candidate> candidates = score(executor);
+      candidates.sort(Comparator.comparingDouble((Candidate candidate) -> candidate.score).reversed());
+      logger.info("{} git repositories need gc", candidates.size());
+
+      List<Callable<Void>> collectors = new ArrayList<>();
+      for (Candidate candidate : candidates) {
+        collectors.add(() -> {
+          collect(candidate);
+          return null;
+        });
+      }
+      executor.invokeAll(collectors);
+    } catch (InterruptedException ex) {
+      logger.warn("git gc was interrupted");
+      Thread.currentThread().interrupt();
+    } finally {
+      executor.shutdownNow();
     }
   }
 
-  private void handle(Repository repository){
-    if (GitRepositoryHandler.TYPE_NAME.equals(repository.getType()))
-    {
-      if (repository.isValid() && repository.isHealthy())
-      {
-        logger.info("start git gc for repository {}", repository);
-        Stopwatch sw = Stopwatch.createStarted();
-        gc(repository);
-        logger.debug("gc of repository {} has finished after {}", repository, sw.stop());
+  private List<Candidate> score(ExecutorService executor) throws InterruptedException {
+    List<Callable<Optional<Candidate>>> scorers = new ArrayList<>();
+    for (Repository repository : repositoryManager.getAll()) {
+      if (isCollectable(repository)) {
+        scorers.add(() -> score(repository));
       }
-      else
-      {
-        logger.debug("skip non valid/healthy repository {}", repository);
+    }
+
+    List<Candidate> candidates = new ArrayList<>();
+    for (Future<Optional<Candidate>> future : executor.invokeAll(scorers)) {
+      try {
+        future.get().ifPresent(candidates::add);
+      } catch (ExecutionException ex) {
+        logger.warn("failed to compute gc score", ex.getCause());
       }
     }
-    else
-    {
+    return candidates;
+  }
+
+  private boolean isCollectable(Repository repository) {
+    if (!GitRepositoryHandler.TYPE_NAME.equals(repository.getType())) {
       logger.trace("skip non git repository {}", repository);
+      return false;
     }
+    if (!repository.isValid() || !repository.isHealthy()) {
+      logger.debug("skip non valid/healthy repository {}", repository);
+      return false;
+    }
+    return true;
+  }
+
+  private Optional<Candidate> score(Repository repository) {
+    try (Git git = open(directory(repository))) {
+      // print statistics before execution, because it looks like
+      // jgit returns the statistics after gc has finished
+      Properties statistics = git.gc().getStatistics();
+      double score = score(repository, statistics);
+      if (score >= 1.0) {
+        logger.info(message(repository, statistics, "before"));
+        return Optional.of(new Candidate(repository, statistics, score));
+      }
+      logger.trace("skip git gc for repository {}, because it has a score of {}", repository, score);
+    } catch (IOException ex) {
+      logger.warn("failed to open git repository", ex);
+    } catch (GitAPIException ex) {
+      logger.warn("failed to read statistics of git repository", ex);
+    }
+    return Optional.empty();
+  }
+
+  private double score(Repository repository, Properties statistics) {
+    double score = (double) value(statistics, "numberOfLooseObjects") / LOOSE_OBJECT_LIMIT
+      + (double) value(statistics, "numberOfPackFiles") / PACK_LIMIT
+      + (double) pushActivity.getPushCount(repository.getId()) / PUSH_LIMIT;
+    if (value(statistics, "numberOfBitmaps") == 0 && value(statistics, "numberOfPackedObjects") >= BITMAP_OBJECT_LIMIT) {
+      // large repositories without reachability bitmaps are expensive to clone and fetch
+      score += 1.0;
+    }
+    return score;
+  }
+
+  private void collect(Candidate candidate) {
+    Repository repository = candidate.repository;
+    double load = systemLoad.getAsDouble();
+    if (load > maxLoad) {
+      logger.info("postpone git gc for repository {}, because the system load of {} is too high", repository, load);
+      postponed.increment();
+      return;
+    }
+
+    logger.info("start git gc for repository {}", repository);
+    try (Git git = open(directory(repository))) {
+      GarbageCollectCommand gcc = git.gc();
+      gcc.setPackConfig(packConfig(git));
+
+      Timer.Sample sample = Timer.start();
+      Properties statistics = gcc.call();
+      long nanos = sample.stop(duration);
+      logger.info(message(repository, statistics, "after"));
+
+      long bytes = Math.max(0, size(candidate.statistics) - size(statistics));
+      reclaimed.record(bytes);
+      pushActivity.reset(repository.getId());
+      logger.debug("gc of repository {} has finished after {}ms and reclaimed {} bytes", repository, nanos / 1_000_000, bytes);
+    } catch (IOException ex) {
+      logger.warn("failed to open git repository", ex);
+    } catch (GitAPIException ex) {
+      logger.warn("failed running git gc command", ex);
+    }
+  }
+
+  private PackConfig packConfig(Git git) {
+    PackConfig packConfig = new PackConfig(git.getRepository());
+    packConfig.setBuildBitmaps(true);
+    return packConfig;
+  }
+
+  private File directory(Repository repository) {
+    return repositoryHandler.getDirectory(repository.getId());
+  }
+
+  private long size(Properties statistics) {
+    return value(statistics, "sizeOfLooseObjects") + value(statistics, "sizeOfPackedObjects");
+  }
+
+  private long value(Properties statistics, String key) {
+    Object value = statistics.get(key);
+    if (value instanceof Number) {
+      return ((Number) value).longValue();
+    } else if (value != null) {
+      return Long.parseLong(value.toString());
+    }
+    return 0;
   }
 
   private void appendProperties(StringBuilder buffer, Properties properties){
@@ -103,41 +275,14 @@ public class GitGcTask implements Runnable {
     return buffer.toString();
   }
 
-  private void statistics(Repository repository, GarbageCollectCommand gcc) throws GitAPIException {
-    Properties properties = gcc.getStatistics();
-    logger.info(message(repository, properties, "before"));
-  }
-
-  private void execute(Repository repository, GarbageCollectCommand gcc) throws GitAPIException {
-    Properties properties = gcc.call();
-    logger.info(message(repository, properties, "after"));
-  }
-
-  private void gc(Repository repository){
-    File file = repositoryHandler.getDirectory(repository.getId());
-    Git git = null;
-    try {
-      git = open(file);
-      GarbageCollectCommand gcc = git.gc();
-      // print statistics before execution, because it looks like
-      // jgit returns the statistics after gc has finished
-      statistics(repository, gcc);
-      execute(repository, gcc);
-    }
-    catch (IOException ex)
-    {
-      logger.warn("failed to open git repository", ex);
-    }
-    catch (GitAPIException ex)
-    {
-      logger.warn("failed running git gc command", ex);
-    }
-    finally
-    {
-      if (git != null){
-        git.close();
-      }
+  private static double systemLoadPerProcessor() {
+    OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+    double load = os.getSystemLoadAverage();
+    if (load < 0) {
+      // load average is not available on this platform
+      return 0;
     }
+    return load / os.getAvailableProcessors();
   }
 
   /**
@@ -154,4 +299,16 @@ public class GitGcTask implements Runnable {
     return Git.open(file);
   }
 
+  private static class Candidate {
+
+    private final Repository repository;
+    private final Properties statistics;
+    private final double score;
+
+    private Candidate(Repository repository, Properties statistics, double score) {
+      this.repository = repository;
+      this.statistics = statistics;
+      this.score = score;
+    }
+  }
 }
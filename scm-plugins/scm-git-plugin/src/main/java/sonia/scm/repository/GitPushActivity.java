@@ -0,0 +1,80 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.repository;
+
+import com.github.legman.Subscribe;
+import sonia.scm.EagerSingleton;
+import sonia.scm.HandlerEventType;
+import sonia.scm.plugin.Extension;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts the pushes to git repositories since their last garbage collection. The counts are used by the
+ * {@link GitGcTask} to find repositories, which are modified frequently.
+ *
+ * @since 2.46.0
+ */
+@Extension
+@EagerSingleton
+public class GitPushActivity {
+
+  private final Map<String, Integer> pushes = new ConcurrentHashMap<>();
+
+  @Subscribe
+  public void onEvent(PostReceiveRepositoryHookEvent event) {
+    Repository repository = event.getRepository();
+    if (repository != null && GitRepositoryHandler.TYPE_NAME.equals(repository.getType())) {
+      pushes.merge(repository.getId(), 1, Integer::sum);
+    }
+  }
+
+  @Subscribe
+  public void onEvent(RepositoryEvent event) {
+    if (event.getEventType() == HandlerEventType.DELETE) {
+      pushes.remove(event.getItem().getId());
+    }
+  }
+
+  /**
+   * Returns the number of pushes since the last garbage collection of the repository.
+   *
+   * @param repositoryId id of the repository
+   * @return number of pushes
+   */
+  int getPushCount(String repositoryId) {
+    return pushes.getOrDefault(repositoryId, 0);
+  }
+
+  /**
+   * Resets the push counter of the repository, after it was garbage collected.
+   *
+   * @param repositoryId id of the repository
+   */
+  void reset(String repositoryId) {
+    pushes.remove(repositoryId);
+  }
+}
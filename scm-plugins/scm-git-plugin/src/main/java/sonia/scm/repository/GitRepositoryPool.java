@@ -0,0 +1,153 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.repository;
+
+import com.github.legman.Subscribe;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sonia.scm.HandlerEventType;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool of shared jgit repository handles. Opening a jgit repository reads the config, the packed refs and the
+ * list of pack files, all of which can be reused by subsequent requests for the same repository. The pool keeps
+ * a bounded number of handles and hands them out with an incremented use count, so callers have to
+ * {@link org.eclipse.jgit.lib.Repository#close() close} the repository as before. A handle is only really closed,
+ * if it was evicted from the pool and every caller has closed it.
+ *
+ * @since 2.46.0
+ */
+@Singleton
+public class GitRepositoryPool implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(GitRepositoryPool.class);
+
+  @VisibleForTesting
+  static final String MAXIMUM_SIZE_PROPERTY = "scm.git.repositoryPool.maximumSize";
+  @VisibleForTesting
+  static final String IDLE_TIMEOUT_PROPERTY = "scm.git.repositoryPool.idleTimeoutSeconds";
+
+  private static final String METRIC_NAME = "scm.git.repositories";
+
+  private final GitRepositoryHandler handler;
+  private final Cache<File, org.eclipse.jgit.lib.Repository> handles;
+
+  @Inject
+  public GitRepositoryPool(GitRepositoryHandler handler, MeterRegistry meterRegistry) {
+    this(
+      handler,
+      meterRegistry,
+      Integer.getInteger(MAXIMUM_SIZE_PROPERTY, 200),
+      Long.getLong(IDLE_TIMEOUT_PROPERTY, 300L)
+    );
+  }
+
+  @VisibleForTesting
+  GitRepositoryPool(GitRepositoryHandler handler, MeterRegistry meterRegistry, int maximumSize, long idleTimeoutSeconds) {
+    this.handler = handler;
+    this.handles = CacheBuilder.newBuilder()
+      .maximumSize(maximumSize)
+      .expireAfterAccess(idleTimeoutSeconds, TimeUnit.SECONDS)
+      .removalListener(this::release)
+      .recordStats()
+      .build();
+    GuavaCacheMetrics.monitor(meterRegistry, handles, METRIC_NAME);
+  }
+
+  /**
+   * Returns a shared jgit repository for the given directory. The returned repository must be closed after usage.
+   * Directories which are not bare git repositories, like working copies, are not pooled.
+   *
+   * @param directory git directory of the repository
+   * @return jgit repository
+   * @throws IOException if the repository could not be opened
+   */
+  public synchronized org.eclipse.jgit.lib.Repository open(File directory) throws IOException {
+    if (!GitUtil.isGitDirectory(directory)) {
+      return GitUtil.open(directory);
+    }
+    File key = directory.getAbsoluteFile();
+    org.eclipse.jgit.lib.Repository repository = handles.getIfPresent(key);
+    if (repository == null) {
+      LOG.trace("open shared git repository {}", key);
+      // the initial use count of the repository is owned by the pool
+      repository = GitUtil.open(key);
+      handles.put(key, repository);
+    }
+    repository.incrementOpen();
+    return repository;
+  }
+
+  /**
+   * Removes the handle of the given directory from the pool. Callers which are still using the handle are not
+   * affected, the handle is closed when the last caller has closed it.
+   *
+   * @param directory git directory of the repository
+   */
+  public synchronized void invalidate(File directory) {
+    handles.invalidate(directory.getAbsoluteFile());
+  }
+
+  @Subscribe(async = false)
+  public void onEvent(RepositoryEvent event) {
+    // the location of the repository is already gone after the delete event, so we have to resolve it before
+    if (event.getEventType() == HandlerEventType.BEFORE_DELETE
+      && GitRepositoryHandler.TYPE_NAME.equals(event.getItem().getType())) {
+      File directory = handler.getDirectory(event.getItem().getId());
+      if (directory != null) {
+        LOG.debug("invalidate shared git repository {}, because the repository is deleted", directory);
+        invalidate(directory);
+      }
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    handles.invalidateAll();
+    handles.cleanUp();
+  }
+
+  @VisibleForTesting
+  long size() {
+    return handles.size();
+  }
+
+  private void release(RemovalNotification<File, org.eclipse.jgit.lib.Repository> notification) {
+    LOG.trace("release shared git repository {}, because of {}", notification.getKey(), notification.getCause());
+    GitUtil.close(notification.getValue());
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.repository;
+
+import com.github.legman.Subscribe;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import org.eclipse.jgit.lib.ObjectId;
+import sonia.scm.EagerSingleton;
+import sonia.scm.cache.Cache;
+import sonia.scm.cache.CacheManager;
+import sonia.scm.plugin.Extension;
+import sonia.scm.security.PublicKey;
+import sonia.scm.security.PublicKeyCreatedEvent;
+import sonia.scm.security.PublicKeyDeletedEvent;
+
+import javax.inject.Inject;
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Caches the results of gpg signature verifications of commits and tags, keyed by the id of the signed object and the
+ * id of the public key. Verifying signatures is expensive and the result never changes for the same object and the
+ * same key, so the cache is only invalidated if a public key is created or deleted.
+ *
+ * @since 2.46.0
+ */
+@Extension
+@EagerSingleton
+public class GitSignatureVerificationCache {
+
+  static final String CACHE_NAME = "sonia.cache.git.signatures";
+
+  private final Cache<CacheKey, Boolean> cache;
+
+  @Inject
+  public GitSignatureVerificationCache(CacheManager cacheManager) {
+    this(cacheManager.getCache(CACHE_NAME));
+  }
+
+  private GitSignatureVerificationCache(Cache<CacheKey, Boolean> cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * Returns an instance which does not cache at all and verifies every signature.
+   *
+   * @return non caching instance
+   */
+  public static GitSignatureVerificationCache disabled() {
+    return new GitSignatureVerificationCache((Cache<CacheKey, Boolean>) null);
+  }
+
+  /**
+   * Verifies the signature with the given public key, or returns the result of a former verification of the same
+   * object and key.
+   *
+   * @param objectId id of the signed commit or tag
+   * @param publicKeyId id of the key, which was used to create the signature
+   * @param publicKey public key to verify the signature with
+   * @param data supplier of the signed data, only called if the signature has to be verified
+   * @param signature the signature
+   * @return {@code true} if the signature is valid
+   */
+  boolean verify(ObjectId objectId, String publicKeyId, PublicKey publicKey, Supplier<byte[]> data, byte[] signature) {
+    if (cache == null) {
+      return publicKey.verify(data.get(), signature);
+    }
+    CacheKey key = new CacheKey(objectId.name(), publicKeyId);
+    Boolean verified = cache.get(key);
+    if (verified == null) {
+      verified = publicKey.verify(data.get(), signature);
+      cache.put(key, verified);
+    }
+    return verified;
+  }
+
+  @Subscribe
+  public void onEvent(PublicKeyCreatedEvent event) {
+    invalidate(event.getKey());
+  }
+
+  @Subscribe
+  public void onEvent(PublicKeyDeletedEvent event) {
+    invalidate(event.getKey());
+  }
+
+  private void invalidate(PublicKey publicKey) {
+    if (cache == null) {
+      return;
+    }
+    Set<String> keyIds = new HashSet<>(publicKey.getSubkeys());
+    keyIds.add(publicKey.getId());
+    cache.removeAll(key -> keyIds.contains(key.publicKeyId));
+  }
+
+  @AllArgsConstructor
+  @EqualsAndHashCode
+  static class CacheKey implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String objectId;
+    private final String publicKeyId;
+  }
+}
@@ -543,6 +543,15 @@ public final class GitUtil {
   private static final String GPG_HEADER = "-----BEGIN PGP SIGNATURE-----";
 
   public static Optional<Signature> getTagSignature(RevObject revObject, GPG gpg, RevWalk revWalk) throws IOException {
+    return getTagSignature(revObject, gpg, revWalk, GitSignatureVerificationCache.disabled());
+  }
+
+  /**
+   * Returns the signature of the tag, if it is signed. Verification results are taken from the given cache.
+   *
+   * @since 2.46.0
+   */
+  public static Optional<Signature> getTagSignature(RevObject revObject, GPG gpg, RevWalk revWalk, GitSignatureVerificationCache verificationCache) throws IOException {
     if (revObject instanceof RevTag) {
       final byte[] messageBytes = revWalk.getObjectReader().open(revObject.getId()).getBytes();
       final String message = new String(messageBytes);
@@ -568,7 +577,9 @@ public final class GitUtil {
       PublicKey publicKey = publicKeyById.get();
 
       String rawMessage = message.substring(0, signatureStartIndex);
-      boolean verified = publicKey.verify(rawMessage.getBytes(), signature.getBytes());
+      boolean verified = verificationCache.verify(
+        revObject.getId(), publicKeyId, publicKey, rawMessage::getBytes, signature.getBytes()
+      );
       return Optional.of(new Signature(
         publicKeyId,
         "gpg",
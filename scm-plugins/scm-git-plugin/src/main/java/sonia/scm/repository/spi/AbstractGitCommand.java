@@ -65,6 +65,7 @@ import static java.util.stream.Collectors.toList;
 import static org.eclipse.jgit.transport.RemoteRefUpdate.Status.NON_EXISTING;
 import static org.eclipse.jgit.transport.RemoteRefUpdate.Status.OK;
 import static org.eclipse.jgit.transport.RemoteRefUpdate.Status.REJECTED_NONFASTFORWARD;
+import static org.eclipse.jgit.transport.RemoteRefUpdate.Status.REJECTED_REMOTE_CHANGED;
 import static org.eclipse.jgit.transport.RemoteRefUpdate.Status.UP_TO_DATE;
 import static sonia.scm.ContextEntry.ContextBuilder.entity;
 import static sonia.scm.NotFoundException.notFound;
@@ -83,6 +84,7 @@ class AbstractGitCommand {
    */
   private static final Logger logger = LoggerFactory.getLogger(AbstractGitCommand.class);
   private static final Collection<RemoteRefUpdate.Status> ACCEPTED_UPDATE_STATUS = asList(OK, UP_TO_DATE, NON_EXISTING);
+  private static final Collection<RemoteRefUpdate.Status> CONCURRENT_UPDATE_STATUS = asList(REJECTED_NONFASTFORWARD, REJECTED_REMOTE_CHANGED);
 
   /**
    * Constructs ...
@@ -158,6 +160,44 @@ class AbstractGitCommand {
     }
   }
 
+  static void checkPushResults(sonia.scm.repository.Repository repository, Iterable<PushResult> pushResults) {
+    Iterator<PushResult> pushResultIterator = pushResults.iterator();
+    if (!pushResultIterator.hasNext()) {
+      throw new InternalRepositoryException(repository, "got no result from push");
+    }
+    PushResult pushResult = pushResultIterator.next();
+    Collection<RemoteRefUpdate> remoteUpdates = pushResult.getRemoteUpdates();
+    if (remoteUpdates.isEmpty()) {
+      throw new InternalRepositoryException(repository, "push created no update");
+    }
+    remoteUpdates
+      .stream()
+      .filter(remoteRefUpdate -> !ACCEPTED_UPDATE_STATUS.contains(remoteRefUpdate.getStatus()))
+      .findAny()
+      .ifPresent(remoteRefUpdate -> {
+        if (CONCURRENT_UPDATE_STATUS.contains(remoteRefUpdate.getStatus())) {
+          logger.debug("non fast-forward change detected; probably the remote {} has been changed during the modification: {}", remoteRefUpdate.getRemoteName(), pushResult.getMessages());
+          throw new ConcurrentModificationException(ContextEntry.ContextBuilder.entity("Branch", remoteRefUpdate.getRemoteName()).in(repository).build());
+        } else {
+          logger.info("message for unexpected push result {} for remote {}: {}", remoteRefUpdate.getStatus(), remoteRefUpdate.getRemoteName(), pushResult.getMessages());
+          throw forMessage(repository, pushResult.getMessages());
+        }
+      });
+  }
+
+  static Person determineAuthor(Person author) {
+    if (author == null) {
+      Subject subject = SecurityUtils.getSubject();
+      User user = subject.getPrincipals().oneByType(User.class);
+      String name = user.getDisplayName();
+      String email = user.getMail();
+      logger.debug("no author set; using logged in user: {} <{}>", name, email);
+      return new Person(name, email);
+    } else {
+      return author;
+    }
+  }
+
   abstract static class GitCloneWorker<R> {
     private final Git clone;
     private final GitContext context;
@@ -266,28 +306,7 @@ class AbstractGitCommand {
             .setRefSpecs(stream(refSpecs).map(RefSpec::new).collect(toList()))
             .setForce(force)
             .call();
-        Iterator<PushResult> pushResultIterator = pushResults.iterator();
-        if (!pushResultIterator.hasNext()) {
-          throw new InternalRepositoryException(repository, "got no result from push");
-        }
-        PushResult pushResult = pushResultIterator.next();
-        Collection<RemoteRefUpdate> remoteUpdates = pushResult.getRemoteUpdates();
-        if (remoteUpdates.isEmpty()) {
-          throw new InternalRepositoryException(repository, "push created no update");
-        }
-        remoteUpdates
-          .stream()
-          .filter(remoteRefUpdate -> !ACCEPTED_UPDATE_STATUS.contains(remoteRefUpdate.getStatus()))
-          .findAny()
-          .ifPresent(remoteRefUpdate -> {
-            if (remoteRefUpdate.getStatus() == REJECTED_NONFASTFORWARD) {
-              logger.debug("non fast-forward change detected; probably the remote {} has been changed during the modification: {}", remoteRefUpdate.getRemoteName(), pushResult.getMessages());
-              throw new ConcurrentModificationException(ContextEntry.ContextBuilder.entity("Branch", remoteRefUpdate.getRemoteName()).in(repository).build());
-            } else {
-              logger.info("message for unexpected push result {} for remote {}: {}", remoteRefUpdate.getStatus(), remoteRefUpdate.getRemoteName(), pushResult.getMessages());
-              throw forMessage(repository, pushResult.getMessages());
-            }
-          });
+        checkPushResults(repository, pushResults);
       } catch (GitAPIException e) {
         throw new InternalRepositoryException(repository, "could not push changes into central repository", e);
       }
@@ -297,19 +316,6 @@ class AbstractGitCommand {
     ObjectId getCurrentObjectId() throws IOException {
       return getClone().getRepository().getRefDatabase().findRef("HEAD").getObjectId();
     }
-
-    private Person determineAuthor(Person author) {
-      if (author == null) {
-        Subject subject = SecurityUtils.getSubject();
-        User user = subject.getPrincipals().oneByType(User.class);
-        String name = user.getDisplayName();
-        String email = user.getMail();
-        logger.debug("no author set; using logged in user: {} <{}>", name, email);
-        return new Person(name, email);
-      } else {
-        return author;
-      }
-    }
   }
 
   //~--- fields ---------------------------------------------------------------
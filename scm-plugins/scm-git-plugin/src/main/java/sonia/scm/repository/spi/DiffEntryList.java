@@ -0,0 +1,159 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.repository.spi;
+
+import org.eclipse.jgit.attributes.Attribute;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.AbbreviatedObjectId;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.revwalk.RevCommit;
+import sonia.scm.repository.GitUtil;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compact and immutable form of the diff entries of a diff, which can be cached. The {@link DiffEntry} objects are only
+ * restored for the requested page of entries.
+ */
+final class DiffEntryList implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final String oldRevision;
+  private final String newRevision;
+  private final List<Entry> entries;
+
+  private DiffEntryList(String oldRevision, String newRevision, List<Entry> entries) {
+    this.oldRevision = oldRevision;
+    this.newRevision = newRevision;
+    this.entries = entries;
+  }
+
+  static DiffEntryList from(Differ.Diff diff) {
+    RevCommit commit = diff.getCommit();
+    String oldRevision = commit.getParentCount() > 0 ? GitUtil.getId(commit.getParent(0).getId()) : null;
+    List<Entry> entries = new ArrayList<>(diff.getEntries().size());
+    for (DiffEntry diffEntry : diff.getEntries()) {
+      entries.add(new Entry(diffEntry));
+    }
+    return new DiffEntryList(oldRevision, GitUtil.getId(commit.getId()), Collections.unmodifiableList(entries));
+  }
+
+  String getOldRevision() {
+    return oldRevision;
+  }
+
+  String getNewRevision() {
+    return newRevision;
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  /**
+   * Restores the diff entries of the given page.
+   *
+   * @param offset index of the first entry
+   * @param limit maximum number of entries or {@code null} for all remaining entries
+   * @return restored diff entries
+   */
+  List<DiffEntry> getEntries(int offset, Integer limit) {
+    int from = Math.min(offset, entries.size());
+    int to = limit == null ? entries.size() : (int) Math.min((long) from + limit, entries.size());
+    List<DiffEntry> page = new ArrayList<>(to - from);
+    for (Entry entry : entries.subList(from, to)) {
+      page.add(new RestoredDiffEntry(entry));
+    }
+    return page;
+  }
+
+  private static final class Entry implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final DiffEntry.ChangeType changeType;
+    private final String oldPath;
+    private final String newPath;
+    private final int oldMode;
+    private final int newMode;
+    private final String oldId;
+    private final String newId;
+    private final int score;
+    private final String diffAttributeKey;
+    private final Attribute.State diffAttributeState;
+    private final String diffAttributeValue;
+
+    private Entry(DiffEntry diffEntry) {
+      this.changeType = diffEntry.getChangeType();
+      this.oldPath = diffEntry.getOldPath();
+      this.newPath = diffEntry.getNewPath();
+      this.oldMode = diffEntry.getOldMode().getBits();
+      this.newMode = diffEntry.getNewMode().getBits();
+      this.oldId = diffEntry.getOldId().name();
+      this.newId = diffEntry.getNewId().name();
+      this.score = diffEntry.getScore();
+      Attribute diffAttribute = diffEntry.getDiffAttribute();
+      if (diffAttribute != null) {
+        this.diffAttributeKey = diffAttribute.getKey();
+        this.diffAttributeState = diffAttribute.getState();
+        this.diffAttributeValue = diffAttribute.getValue();
+      } else {
+        this.diffAttributeKey = null;
+        this.diffAttributeState = null;
+        this.diffAttributeValue = null;
+      }
+    }
+
+    private Attribute getDiffAttribute() {
+      if (diffAttributeKey == null) {
+        return null;
+      }
+      if (diffAttributeState == Attribute.State.CUSTOM) {
+        return new Attribute(diffAttributeKey, diffAttributeValue);
+      }
+      return new Attribute(diffAttributeKey, diffAttributeState);
+    }
+  }
+
+  private static final class RestoredDiffEntry extends DiffEntry {
+
+    private RestoredDiffEntry(Entry entry) {
+      this.changeType = entry.changeType;
+      this.oldPath = entry.oldPath;
+      this.newPath = entry.newPath;
+      this.oldMode = FileMode.fromBits(entry.oldMode);
+      this.newMode = FileMode.fromBits(entry.newMode);
+      this.oldId = AbbreviatedObjectId.fromString(entry.oldId);
+      this.newId = AbbreviatedObjectId.fromString(entry.newId);
+      this.score = entry.score;
+      // the diff formatter selects the diff driver for the hunk headers by the attribute
+      this.diffAttribute = entry.getDiffAttribute();
+    }
+  }
+}
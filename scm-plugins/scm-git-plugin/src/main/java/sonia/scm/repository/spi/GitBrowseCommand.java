@@ -37,9 +37,7 @@ import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevTree;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.treewalk.TreeWalk;
-import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
 import org.eclipse.jgit.treewalk.filter.PathFilter;
-import org.eclipse.jgit.treewalk.filter.TreeFilter;
 import org.eclipse.jgit.util.LfsFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -64,13 +62,12 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.Consumer;
 
-import static java.util.Optional.empty;
-import static java.util.Optional.of;
 import static sonia.scm.ContextEntry.ContextBuilder.entity;
 import static sonia.scm.NotFoundException.notFound;
 import static sonia.scm.repository.spi.SyncAsyncExecutor.ExecutionType.ASYNCHRONOUS;
@@ -91,6 +88,11 @@ public class GitBrowseCommand extends AbstractGitCommand
    */
   private static final Logger logger = LoggerFactory.getLogger(GitBrowseCommand.class);
 
+  /**
+   * maximum time in milliseconds for one chunk of the last commit computation
+   */
+  private static final long LAST_COMMIT_CHUNK_MILLIS = 500;
+
   /**
    * sub repository cache
    */
@@ -110,6 +112,10 @@ public class GitBrowseCommand extends AbstractGitCommand
 
   private ObjectId revId;
 
+  private RevCommit revCommit;
+
+  private final Map<String, FileObject> filesWithoutLastCommit = new LinkedHashMap<>();
+
   private int resultCount = 0;
 
   @Inject
@@ -129,6 +135,8 @@ public class GitBrowseCommand extends AbstractGitCommand
     logger.debug("try to create browse result for {}", request);
 
     resultCount = 0;
+    revCommit = null;
+    filesWithoutLastCommit.clear();
 
     this.request = request;
     repo = open();
@@ -136,6 +144,7 @@ public class GitBrowseCommand extends AbstractGitCommand
 
     if (revId != null) {
       browserResult = new BrowserResult(revId.getName(), request.getRevision(), getEntry());
+      completeFileInformation();
       return browserResult;
     } else {
       logger.warn("could not find head of repository {}, empty?", repository);
@@ -186,11 +195,7 @@ public class GitBrowseCommand extends AbstractGitCommand
       // don't show message and date for directories to improve performance
       if (!file.isDirectory() && !request.isDisableLastCommit()) {
         file.setPartialResult(true);
-        RevCommit commit;
-        try (RevWalk walk = new RevWalk(repo)) {
-          commit = walk.parseCommit(revId);
-        }
-        Optional<LfsPointer> lfsPointer = getLfsPointer(path, commit, treeEntry);
+        Optional<LfsPointer> lfsPointer = getLfsPointer(path, getRevCommit(), treeEntry);
 
         if (lfsPointer.isPresent()) {
           setFileLengthFromLfsBlob(lfsPointer.get(), file);
@@ -198,15 +203,28 @@ public class GitBrowseCommand extends AbstractGitCommand
           file.setLength(loader.getSize());
         }
 
-        executor.execute(
-          new CompleteFileInformation(path, file),
-          new AbortFileInformation()
-        );
+        filesWithoutLastCommit.put(path, file);
       }
     }
     return file;
   }
 
+  private RevCommit getRevCommit() throws IOException {
+    if (revCommit == null) {
+      try (RevWalk walk = new RevWalk(repo)) {
+        revCommit = walk.parseCommit(revId);
+      }
+    }
+    return revCommit;
+  }
+
+  private void completeFileInformation() {
+    if (!filesWithoutLastCommit.isEmpty()) {
+      CompleteFileInformation task = new CompleteFileInformation(new LinkedHashMap<>(filesWithoutLastCommit));
+      executor.execute(task, new AbortFileInformation(task));
+    }
+  }
+
   private void updateCache() {
     request.updateCache(browserResult);
     logger.info("updated browser result for repository {}", repository);
@@ -387,69 +405,83 @@ public class GitBrowseCommand extends AbstractGitCommand
   }
 
   private class CompleteFileInformation implements Consumer<SyncAsyncExecutor.ExecutionType> {
-    private final String path;
-    private final FileObject file;
+    private final Map<String, FileObject> files;
+    private GitLastCommitWalker walker;
 
-    public CompleteFileInformation(String path, FileObject file) {
-      this.path = path;
-      this.file = file;
+    public CompleteFileInformation(Map<String, FileObject> files) {
+      this.files = files;
     }
 
     @Override
     public void accept(SyncAsyncExecutor.ExecutionType executionType) {
-      logger.trace("fetch last commit for {} at {}", path, revId.getName());
+      logger.trace("fetch last commit for {} files at {}", files.size(), revId.getName());
 
       Stopwatch sw = Stopwatch.createStarted();
 
-      Optional<RevCommit> commit = getLatestCommit(repo, revId, path);
+      boolean finished;
+      try {
+        if (walker == null) {
+          walker = new GitLastCommitWalker(repo, revId, files.keySet());
+        }
+        finished = walker.walk(this::applyValuesFromCommit, LAST_COMMIT_CHUNK_MILLIS);
+      } catch (IOException ex) {
+        logger.error("could not find last commits for files", ex);
+        finished = true;
+      }
 
-      synchronized (asyncMonitor) {
-        file.setPartialResult(false);
-        if (commit.isPresent()) {
-          applyValuesFromCommit(executionType, commit.get());
-        } else {
-          logger.warn("could not find latest commit for {} on {}", path, revId);
+      if (finished) {
+        release();
+        synchronized (asyncMonitor) {
+          for (Map.Entry<String, FileObject> entry : files.entrySet()) {
+            logger.warn("could not find latest commit for {} on {}", entry.getKey(), revId);
+            entry.getValue().setPartialResult(false);
+          }
         }
       }
 
-      logger.trace("finished loading of last commit {} of {} in {}", revId.getName(), path, sw.stop());
-    }
+      if (executionType == ASYNCHRONOUS && browserResult != null) {
+        synchronized (asyncMonitor) {
+          updateCache();
+        }
+      }
 
-    private Optional<RevCommit> getLatestCommit(org.eclipse.jgit.lib.Repository repo, ObjectId revId, String path) {
-      // getLatestCommit can run async, which can lead to an open repository.
-      // Because if the RepositoryService is closed and getLatestCommit runs after that it will reopen the repository.
-      // So we increment the open counter and close after.
-      // The increment is required to not close the repository if the getLatestCommit runs before the RepositoryService
-      // is closed.
-      repo.incrementOpen();
-      try (RevWalk walk = new RevWalk(repo)) {
-        walk.setTreeFilter(AndTreeFilter.create(TreeFilter.ANY_DIFF, PathFilter.create(path)));
+      logger.trace("finished loading chunk of last commits {} in {}", revId.getName(), sw.stop());
 
-        RevCommit commit = walk.parseCommit(revId);
+      if (!finished) {
+        executor.execute(this, new AbortFileInformation(this));
+      }
+    }
 
-        walk.markStart(commit);
-        return of(Util.getFirst(walk));
-      } catch (IOException ex) {
-        logger.error("could not parse commit for file", ex);
-        return empty();
-      } finally {
-        repo.close();
+    private void applyValuesFromCommit(String path, RevCommit commit) {
+      FileObject file = files.remove(path);
+      if (file != null) {
+        synchronized (asyncMonitor) {
+          file.setPartialResult(false);
+          file.setCommitDate(GitUtil.getCommitTime(commit));
+          file.setDescription(commit.getShortMessage());
+        }
       }
     }
 
-    private void applyValuesFromCommit(SyncAsyncExecutor.ExecutionType executionType, RevCommit commit) {
-      file.setCommitDate(GitUtil.getCommitTime(commit));
-      file.setDescription(commit.getShortMessage());
-      if (executionType == ASYNCHRONOUS && browserResult != null) {
-        updateCache();
+    private void release() {
+      if (walker != null) {
+        walker.close();
+        walker = null;
       }
     }
   }
 
   private class AbortFileInformation implements Runnable {
 
+    private final CompleteFileInformation task;
+
+    private AbortFileInformation(CompleteFileInformation task) {
+      this.task = task;
+    }
+
     @Override
     public void run() {
+      task.release();
       synchronized (asyncMonitor) {
         if (markPartialAsAborted(browserResult.getFile())) {
           updateCache();
@@ -0,0 +1,224 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.repository.spi;
+
+import com.github.legman.Subscribe;
+import com.google.common.base.Objects;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sonia.scm.HandlerEventType;
+import sonia.scm.cache.Cache;
+import sonia.scm.cache.CacheManager;
+import sonia.scm.repository.RepositoryEvent;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Keeps the number of commits, which are reachable from a commit. Because the history of a commit never
+ * changes, the counts do not have to be invalidated on push. For unfiltered logs of a branch the count of a new
+ * head is computed incrementally from the count of the previously counted head, if the new head is a descendant
+ * of the previous one.
+ *
+ * @since 2.46.0
+ */
+@Singleton
+public class GitCommitCounter {
+
+  private static final Logger LOG = LoggerFactory.getLogger(GitCommitCounter.class);
+
+  static final String COUNT_CACHE_NAME = "sonia.cache.git.commitCount";
+  static final String HEAD_CACHE_NAME = "sonia.cache.git.commitCountHeads";
+
+  private final Cache<CountKey, Integer> counts;
+  private final Cache<HeadKey, CountedHead> heads;
+
+  @Inject
+  public GitCommitCounter(CacheManager cacheManager) {
+    this.counts = cacheManager.getCache(COUNT_CACHE_NAME);
+    this.heads = cacheManager.getCache(HEAD_CACHE_NAME);
+  }
+
+  /**
+   * Returns the stored count for the given key or computes it from the previously counted head of the branch.
+   *
+   * @param repository jgit repository
+   * @param key key of the count
+   * @param branch name of the branch, which is logged or {@code null}
+   * @return count of commits or empty if the count has to be computed with a full history walk
+   */
+  Optional<Integer> get(Repository repository, CountKey key, @Nullable String branch) {
+    Integer count = counts.get(key);
+    if (count == null && branch != null && key.isUnfiltered()) {
+      count = countFromPreviousHead(repository, key, branch);
+    }
+    return Optional.ofNullable(count);
+  }
+
+  /**
+   * Stores the count for the given key.
+   *
+   * @param key key of the count
+   * @param branch name of the branch, which is logged or {@code null}
+   * @param count number of commits
+   */
+  void put(CountKey key, @Nullable String branch, int count) {
+    counts.put(key, count);
+    if (branch != null && key.isUnfiltered()) {
+      heads.put(new HeadKey(key.repositoryId, branch), new CountedHead(key.commitId, count));
+    }
+  }
+
+  @Nullable
+  private Integer countFromPreviousHead(Repository repository, CountKey key, String branch) {
+    CountedHead previous = heads.get(new HeadKey(key.repositoryId, branch));
+    if (previous == null || previous.commitId.equals(key.commitId)) {
+      return null;
+    }
+    try (RevWalk walk = new RevWalk(repository)) {
+      RevCommit head = walk.parseCommit(ObjectId.fromString(key.commitId));
+      RevCommit previousHead = walk.parseCommit(ObjectId.fromString(previous.commitId));
+      if (!walk.isMergedInto(previousHead, head)) {
+        return null;
+      }
+      walk.reset();
+      walk.setRetainBody(false);
+      walk.markStart(head);
+      walk.markUninteresting(previousHead);
+      int count = previous.count;
+      while (walk.next() != null) {
+        count++;
+      }
+      LOG.trace("counted {} commits of {} incrementally from {}", count, key.commitId, previous.commitId);
+      put(key, branch, count);
+      return count;
+    } catch (MissingObjectException ex) {
+      LOG.debug("previous head {} of branch {} does no longer exist", previous.commitId, branch);
+      return null;
+    } catch (IOException ex) {
+      LOG.warn("failed to count commits incrementally, fallback to full history walk", ex);
+      return null;
+    }
+  }
+
+  @Subscribe(async = false)
+  public void onEvent(RepositoryEvent event) {
+    if (event.getEventType() == HandlerEventType.DELETE) {
+      String repositoryId = event.getItem().getId();
+      counts.removeAll(key -> key.repositoryId.equals(repositoryId));
+      heads.removeAll(key -> key.repositoryId.equals(repositoryId));
+    }
+  }
+
+  static final class CountKey {
+
+    private final String repositoryId;
+    private final String commitId;
+    private final String ancestorId;
+    private final String endId;
+    private final String path;
+
+    CountKey(String repositoryId, ObjectId commitId, @Nullable ObjectId ancestorId, @Nullable ObjectId endId, @Nullable String path) {
+      this.repositoryId = repositoryId;
+      this.commitId = commitId.name();
+      this.ancestorId = ancestorId != null ? ancestorId.name() : null;
+      this.endId = endId != null ? endId.name() : null;
+      this.path = path;
+    }
+
+    private boolean isUnfiltered() {
+      return ancestorId == null && endId == null && path == null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      CountKey other = (CountKey) o;
+      return Objects.equal(repositoryId, other.repositoryId)
+        && Objects.equal(commitId, other.commitId)
+        && Objects.equal(ancestorId, other.ancestorId)
+        && Objects.equal(endId, other.endId)
+        && Objects.equal(path, other.path);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(repositoryId, commitId, ancestorId, endId, path);
+    }
+  }
+
+  private static final class HeadKey {
+
+    private final String repositoryId;
+    private final String branch;
+
+    private HeadKey(String repositoryId, String branch) {
+      this.repositoryId = repositoryId;
+      this.branch = branch;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      HeadKey other = (HeadKey) o;
+      return Objects.equal(repositoryId, other.repositoryId)
+        && Objects.equal(branch, other.branch);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(repositoryId, branch);
+    }
+  }
+
+  private static final class CountedHead {
+
+    private final String commitId;
+    private final int count;
+
+    private CountedHead(String commitId, int count) {
+      this.commitId = commitId;
+      this.count = count;
+    }
+  }
+}
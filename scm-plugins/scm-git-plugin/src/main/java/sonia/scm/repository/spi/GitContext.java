@@ -30,6 +30,7 @@ import org.slf4j.LoggerFactory;
 import sonia.scm.api.v2.resources.GitRepositoryConfigStoreProvider;
 import sonia.scm.repository.GitConfig;
 import sonia.scm.repository.GitRepositoryConfig;
+import sonia.scm.repository.GitRepositoryPool;
 import sonia.scm.repository.GitUtil;
 import sonia.scm.repository.Repository;
 import sonia.scm.repository.RepositoryProvider;
@@ -52,11 +53,22 @@ public class GitContext implements Closeable, RepositoryProvider
     LoggerFactory.getLogger(GitContext.class);
 
   public GitContext(File directory, Repository repository, GitRepositoryConfigStoreProvider storeProvider, GitConfig config)
+  {
+    this(directory, repository, storeProvider, config, null);
+  }
+
+  /**
+   * Creates a new context, which uses shared repository handles from the given pool.
+   *
+   * @since 2.46.0
+   */
+  public GitContext(File directory, Repository repository, GitRepositoryConfigStoreProvider storeProvider, GitConfig config, GitRepositoryPool pool)
   {
     this.directory = directory;
     this.repository = repository;
     this.storeProvider = storeProvider;
     this.config = config;
+    this.pool = pool;
   }
 
   //~--- methods --------------------------------------------------------------
@@ -88,7 +100,11 @@ public class GitContext implements Closeable, RepositoryProvider
     {
       logger.trace("open git repository {}", directory);
 
-      gitRepository = GitUtil.open(directory);
+      if (pool != null) {
+        gitRepository = pool.open(directory);
+      } else {
+        gitRepository = GitUtil.open(directory);
+      }
     }
 
     return gitRepository;
@@ -136,6 +152,7 @@ public class GitContext implements Closeable, RepositoryProvider
   private final Repository repository;
   private final GitRepositoryConfigStoreProvider storeProvider;
   private final GitConfig config;
+  private final GitRepositoryPool pool;
 
   /** Field description */
   private org.eclipse.jgit.lib.Repository gitRepository;
@@ -26,6 +26,7 @@ package sonia.scm.repository.spi;
 
 import sonia.scm.api.v2.resources.GitRepositoryConfigStoreProvider;
 import sonia.scm.repository.GitRepositoryHandler;
+import sonia.scm.repository.GitRepositoryPool;
 import sonia.scm.repository.Repository;
 
 import javax.inject.Inject;
@@ -34,15 +35,17 @@ class GitContextFactory {
 
   private final GitRepositoryHandler handler;
   private final GitRepositoryConfigStoreProvider storeProvider;
+  private final GitRepositoryPool pool;
 
   @Inject
-  GitContextFactory(GitRepositoryHandler handler, GitRepositoryConfigStoreProvider storeProvider) {
+  GitContextFactory(GitRepositoryHandler handler, GitRepositoryConfigStoreProvider storeProvider, GitRepositoryPool pool) {
     this.handler = handler;
     this.storeProvider = storeProvider;
+    this.pool = pool;
   }
 
   GitContext create(Repository repository) {
-    return new GitContext(handler.getDirectory(repository.getId()), repository, storeProvider, handler.getConfig());
+    return new GitContext(handler.getDirectory(repository.getId()), repository, storeProvider, handler.getConfig(), pool);
   }
 
 }
@@ -24,38 +24,51 @@
 
 package sonia.scm.repository.spi;
 
+import com.google.common.base.Strings;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
 import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.diff.DiffFormatter;
 import org.eclipse.jgit.errors.AmbiguousObjectException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import sonia.scm.NotUniqueRevisionException;
-import sonia.scm.repository.GitUtil;
+import sonia.scm.cache.Cache;
+import sonia.scm.cache.CacheManager;
 import sonia.scm.repository.InternalRepositoryException;
 import sonia.scm.repository.Repository;
+import sonia.scm.repository.RepositoryCacheKey;
 import sonia.scm.repository.api.DiffFile;
 import sonia.scm.repository.api.DiffResult;
+import sonia.scm.repository.api.DiffResultCommandBuilder;
 import sonia.scm.repository.api.Hunk;
 
 import javax.inject.Inject;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Optional;
-import java.util.stream.Stream;
 
 import static java.util.Optional.ofNullable;
 
 public class GitDiffResultCommand extends AbstractGitCommand implements DiffResultCommand {
 
+  private static final Logger LOG = LoggerFactory.getLogger(GitDiffResultCommand.class);
+
+  private final Cache<CacheKey, DiffEntryList> cache;
+
   @Inject
-  GitDiffResultCommand(GitContext context) {
+  GitDiffResultCommand(GitContext context, CacheManager cacheManager) {
     super(context);
+    this.cache = cacheManager.getCache(DiffResultCommandBuilder.CACHE_NAME);
   }
 
   public DiffResult getDiffResult(DiffCommandRequest diffCommandRequest) throws IOException {
     org.eclipse.jgit.lib.Repository repository = open();
-    return new GitDiffResult(repository, Differ.diff(repository, diffCommandRequest), 0, null);
+    return new GitDiffResult(repository, DiffEntryList.from(Differ.diff(repository, diffCommandRequest)), 0, null);
   }
 
   @Override
@@ -63,37 +76,92 @@ public class GitDiffResultCommand extends AbstractGitCommand implements DiffResu
     org.eclipse.jgit.lib.Repository repository = open();
     int offset = request.getOffset() == null ? 0 : request.getOffset();
     try {
-      return new GitDiffResult(repository, Differ.diff(repository, request), offset, request.getLimit());
+      return new GitDiffResult(repository, getDiffEntries(repository, request), offset, request.getLimit());
     } catch (AmbiguousObjectException ex) {
       throw new NotUniqueRevisionException(Repository.class, context.getRepository().getId());
     }
   }
 
+  private DiffEntryList getDiffEntries(org.eclipse.jgit.lib.Repository repository, DiffResultCommandRequest request) throws IOException {
+    CacheKey key = createCacheKey(repository, request);
+    if (key == null) {
+      // let the differ report unknown revisions
+      return DiffEntryList.from(Differ.diff(repository, request));
+    }
+    DiffEntryList entries = cache.get(key);
+    if (entries == null) {
+      entries = DiffEntryList.from(Differ.diff(repository, request));
+      cache.put(key, entries);
+    } else {
+      LOG.debug("got diff entries for {} from cache", key);
+    }
+    return entries;
+  }
+
+  private CacheKey createCacheKey(org.eclipse.jgit.lib.Repository repository, DiffResultCommandRequest request) throws IOException {
+    if (Strings.isNullOrEmpty(request.getRevision())) {
+      return null;
+    }
+    ObjectId revision = repository.resolve(request.getRevision());
+    if (revision == null) {
+      return null;
+    }
+    String ancestor = null;
+    if (!Strings.isNullOrEmpty(request.getAncestorChangeset())) {
+      ObjectId ancestorId = repository.resolve(request.getAncestorChangeset());
+      if (ancestorId == null) {
+        return null;
+      }
+      ancestor = ancestorId.name();
+    }
+    return new CacheKey(context.getRepository().getId(), revision.name(), ancestor, Strings.nullToEmpty(request.getPath()));
+  }
+
+  @AllArgsConstructor
+  @EqualsAndHashCode
+  static class CacheKey implements RepositoryCacheKey, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String repositoryId;
+    private final String revision;
+    private final String ancestor;
+    private final String path;
+
+    @Override
+    public String getRepositoryId() {
+      return repositoryId;
+    }
+
+    @Override
+    public String toString() {
+      return repositoryId + ":" + revision + ":" + ancestor + ":" + path;
+    }
+  }
+
   private class GitDiffResult implements DiffResult {
 
     private final org.eclipse.jgit.lib.Repository repository;
-    private final Differ.Diff diff;
-    private final List<DiffEntry> diffEntries;
+    private final DiffEntryList diffEntries;
 
     private final int offset;
     private final Integer limit;
 
-    private GitDiffResult(org.eclipse.jgit.lib.Repository repository, Differ.Diff diff, int offset, Integer limit) {
+    private GitDiffResult(org.eclipse.jgit.lib.Repository repository, DiffEntryList diffEntries, int offset, Integer limit) {
       this.repository = repository;
-      this.diff = diff;
+      this.diffEntries = diffEntries;
       this.offset = offset;
       this.limit = limit;
-      this.diffEntries = diff.getEntries();
     }
 
     @Override
     public String getOldRevision() {
-      return diff.getCommit().getParentCount() > 0 ? GitUtil.getId(diff.getCommit().getParent(0).getId()) : null;
+      return diffEntries.getOldRevision();
     }
 
     @Override
     public String getNewRevision() {
-      return GitUtil.getId(diff.getCommit().getId());
+      return diffEntries.getNewRevision();
     }
 
     @Override
@@ -113,13 +181,8 @@ public class GitDiffResultCommand extends AbstractGitCommand implements DiffResu
 
     @Override
     public Iterator<DiffFile> iterator() {
-      Stream<DiffEntry> diffEntryStream = diffEntries
+      return diffEntries.getEntries(offset, limit)
         .stream()
-        .skip(offset);
-      if (limit != null) {
-        diffEntryStream = diffEntryStream.limit(limit);
-      }
-      return diffEntryStream
         .map(diffEntry -> new GitDiffFile(repository, diffEntry))
         .map(DiffFile.class::cast)
         .iterator();
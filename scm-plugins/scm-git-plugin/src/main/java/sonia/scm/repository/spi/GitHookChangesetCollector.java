@@ -24,10 +24,11 @@
 
 package sonia.scm.repository.spi;
 
-import com.google.common.collect.Maps;
+import com.google.common.collect.Iterables;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevFlag;
 import org.eclipse.jgit.revwalk.RevSort;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.transport.ReceiveCommand;
@@ -41,11 +42,12 @@ import sonia.scm.repository.GitUtil;
 import sonia.scm.web.CollectingPackParserListener;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
-import static java.util.Collections.unmodifiableCollection;
-
 /**
  * @author Sebastian Sdorra
  */
@@ -66,8 +68,20 @@ class GitHookChangesetCollector {
   private final Repository repository;
   private final RevWalk walk;
 
-  private final Map<String, Changeset> addedChangesets = Maps.newLinkedHashMap();
-  private final Map<String, Changeset> removedChangesets = Maps.newLinkedHashMap();
+  /**
+   * The collected changesets are kept in collections, which spill to disk for huge pushes. Whether a commit has already
+   * been collected is tracked with flags on the commits of the walk, so that no additional index is required.
+   */
+  private final HookChangesetCollection addedChangesets = new HookChangesetCollection();
+  private final HookChangesetCollection removedChangesets = new HookChangesetCollection();
+
+  /**
+   * Branches of commits, which were received for more than one ref during this push.
+   */
+  private final Map<String, List<String>> additionalBranches = new HashMap<>();
+
+  private final RevFlag added;
+  private final RevFlag removed;
 
   private GitHookChangesetCollector(GitChangesetConverterFactory converterFactory, Collection<ReceiveCommand> receiveCommands, NewCommitDetector newCommitDetector, Repository repository, RevWalk walk) {
     this.converterFactory = converterFactory;
@@ -75,6 +89,10 @@ class GitHookChangesetCollector {
     this.newCommitDetector = newCommitDetector;
     this.repository = repository;
     this.walk = walk;
+    this.added = walk.newFlag("SCM_HOOK_ADDED");
+    this.removed = walk.newFlag("SCM_HOOK_REMOVED");
+    walk.retainOnReset(added);
+    walk.retainOnReset(removed);
   }
 
   static GitHookChangesetCollector collectChangesets(GitChangesetConverterFactory converterFactory, Collection<ReceiveCommand> receiveCommands, ReceivePack rpack) {
@@ -108,15 +126,33 @@ class GitHookChangesetCollector {
       }
     } catch (Exception ex) {
       LOG.error("could not collect changesets", ex);
+    } finally {
+      walk.disposeFlag(added);
+      walk.disposeFlag(removed);
     }
   }
 
   Iterable<Changeset> getAddedChangesets() {
-    return unmodifiableCollection(addedChangesets.values());
+    if (additionalBranches.isEmpty()) {
+      return addedChangesets;
+    }
+    return Iterables.transform(addedChangesets, this::appendAdditionalBranches);
   }
 
   Iterable<Changeset> getRemovedChangesets() {
-    return unmodifiableCollection(removedChangesets.values());
+    return removedChangesets;
+  }
+
+  private Changeset appendAdditionalBranches(Changeset changeset) {
+    List<String> branches = additionalBranches.get(changeset.getId());
+    if (branches != null) {
+      for (String branch : branches) {
+        if (!changeset.getBranches().contains(branch)) {
+          changeset.getBranches().add(branch);
+        }
+      }
+    }
+    return changeset;
   }
 
   void handle(Repository repository, RevWalk walk, GitChangesetConverter converter, ReceiveCommand rc, String ref) {
@@ -171,19 +207,17 @@ class GitHookChangesetCollector {
     RevCommit commit = walk.next();
 
     while (commit != null) {
-      String id = commit.getId().name();
-      Changeset changeset = addedChangesets.get(id);
-
-      if (changeset != null) {
+      if (commit.has(added)) {
         if (GitUtil.isBranch(ref)) {
           LOG.trace(
             "commit {} already received during this push, add branch {} to the commit",
             commit, branch);
-          changeset.getBranches().add(branch);
+          additionalBranches.computeIfAbsent(commit.getId().name(), id -> new ArrayList<>()).add(branch);
         }
       } else if (newCommitDetector.isNew(commit)) {
         // only append new commits
-        addToCollection(addedChangesets, converter, walk, commit, id, branch);
+        commit.add(added);
+        addToCollection(addedChangesets, converter, walk, commit, branch);
       } else {
         LOG.trace("commit {} was already received", commit.getId());
       }
@@ -208,18 +242,16 @@ class GitHookChangesetCollector {
     RevCommit commit = walk.next();
 
     while (commit != null) {
-      String id = commit.getId().name();
-      Changeset changeset = removedChangesets.get(id);
-
-      if (changeset == null) {
-        addToCollection(removedChangesets, converter, walk, commit, id);
+      if (!commit.has(removed)) {
+        commit.add(removed);
+        addToCollection(removedChangesets, converter, walk, commit);
       }
 
       commit = walk.next();
     }
   }
 
-  private void addToCollection(Map<String, Changeset> changesets, GitChangesetConverter converter, RevWalk walk, RevCommit commit, String id, String... branches) throws IOException {
+  private void addToCollection(HookChangesetCollection changesets, GitChangesetConverter converter, RevWalk walk, RevCommit commit, String... branches) throws IOException {
     // parse commit body to avoid npe
     walk.parseBody(commit);
 
@@ -227,7 +259,10 @@ class GitHookChangesetCollector {
 
     LOG.trace("retrieve commit {} for hook", newChangeset.getId());
 
-    changesets.put(id, newChangeset);
+    changesets.add(newChangeset);
+
+    // the converted changeset holds everything we need, so the parsed message can be dropped
+    commit.disposeBody();
   }
 
   interface NewCommitDetector {
@@ -0,0 +1,212 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.repository.spi;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.CanceledException;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.GpgSigner;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.merge.ResolveMerger;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.transport.PushResult;
+import org.eclipse.jgit.transport.RefLeaseSpec;
+import org.eclipse.jgit.transport.RefSpec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sonia.scm.NoChangesMadeException;
+import sonia.scm.repository.InternalRepositoryException;
+import sonia.scm.repository.Person;
+import sonia.scm.repository.api.MergeCommandResult;
+import sonia.scm.repository.api.MergeStrategy;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Optional;
+
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static org.eclipse.jgit.merge.MergeStrategy.RECURSIVE;
+import static sonia.scm.repository.spi.AbstractGitCommand.checkPushResults;
+import static sonia.scm.repository.spi.AbstractGitCommand.determineAuthor;
+import static sonia.scm.repository.spi.AbstractGitCommand.resolveRevisionOrThrowNotFound;
+
+/**
+ * Merges branches directly in the object database of the central repository, without
+ * a working copy. Merged trees are created by an in-core merger and the resulting commit
+ * is pushed back to the repository with the scm transport, so that the same hooks are
+ * triggered as for merges done in a working copy.
+ * <p>
+ * If a merge cannot be done in core (for example because the target is no branch or no
+ * gpg signer is available), an empty result is returned and the caller has to fall back
+ * to a working copy.
+ */
+class GitInCoreMerge {
+
+  private static final Logger LOG = LoggerFactory.getLogger(GitInCoreMerge.class);
+
+  private static final String SIGNING_KEY = "SCM-MANAGER-DEFAULT-KEY";
+
+  private final GitContext context;
+  private final sonia.scm.repository.Repository repository;
+  private final MergeCommandRequest request;
+
+  GitInCoreMerge(GitContext context, MergeCommandRequest request) {
+    this.context = context;
+    this.repository = context.getRepository();
+    this.request = request;
+  }
+
+  static boolean supports(MergeStrategy strategy) {
+    return strategy == MergeStrategy.MERGE_COMMIT
+      || strategy == MergeStrategy.SQUASH
+      || strategy == MergeStrategy.FAST_FORWARD_IF_POSSIBLE;
+  }
+
+  Optional<MergeCommandResult> merge() throws IOException {
+    if (request.isSign() && GpgSigner.getDefault() == null) {
+      LOG.debug("no gpg signer available; merge of {} has to be done in a working copy", repository);
+      return empty();
+    }
+
+    Repository gitRepository = context.open();
+    Ref targetRef = gitRepository.exactRef(Constants.R_HEADS + request.getTargetBranch());
+    if (targetRef == null || targetRef.getObjectId() == null) {
+      LOG.debug("target {} is no branch; merge has to be done in a working copy", request.getTargetBranch());
+      resolveRevisionOrThrowNotFound(gitRepository, request.getTargetBranch(), repository);
+      return empty();
+    }
+    ObjectId revisionToMerge = resolveRevisionOrThrowNotFound(gitRepository, request.getBranchToMerge(), repository);
+
+    try (RevWalk revWalk = new RevWalk(gitRepository)) {
+      RevCommit target = revWalk.parseCommit(targetRef.getObjectId());
+      RevCommit toMerge = revWalk.parseCommit(revisionToMerge);
+
+      if (revWalk.isMergedInto(toMerge, target)) {
+        LOG.debug("branch {} is already merged into {}", request.getBranchToMerge(), request.getTargetBranch());
+        if (request.getMergeStrategy() == MergeStrategy.FAST_FORWARD_IF_POSSIBLE) {
+          return of(createSuccessResult(target, toMerge, target));
+        }
+        throw new NoChangesMadeException(repository);
+      }
+
+      if (request.getMergeStrategy() == MergeStrategy.FAST_FORWARD_IF_POSSIBLE && revWalk.isMergedInto(target, toMerge)) {
+        LOG.debug("fast forward branch {} to {}", request.getTargetBranch(), request.getBranchToMerge());
+        updateTarget(gitRepository, targetRef, toMerge);
+        return of(createSuccessResult(target, toMerge, toMerge));
+      }
+
+      return mergeTrees(gitRepository, targetRef, target, toMerge);
+    }
+  }
+
+  private Optional<MergeCommandResult> mergeTrees(Repository gitRepository, Ref targetRef, RevCommit target, RevCommit toMerge) throws IOException {
+    ResolveMerger merger = (ResolveMerger) RECURSIVE.newMerger(gitRepository, true);
+    if (!merger.merge(target, toMerge)) {
+      if (merger.getUnmergedPaths().isEmpty()) {
+        LOG.debug("in-core merge failed without conflicts; merge has to be done in a working copy");
+        return empty();
+      }
+      LOG.info("could not merge branch {} into {} due to conflicts: {}", request.getBranchToMerge(), request.getTargetBranch(), merger.getUnmergedPaths());
+      return of(MergeCommandResult.failure(target.name(), toMerge.name(), new HashSet<>(merger.getUnmergedPaths())));
+    }
+
+    ObjectId tree = merger.getResultTreeId();
+    ObjectId commit;
+    if (request.getMergeStrategy() == MergeStrategy.SQUASH) {
+      if (tree.equals(target.getTree())) {
+        throw new NoChangesMadeException(repository);
+      }
+      commit = createCommit(gitRepository, tree, target);
+    } else {
+      commit = createCommit(gitRepository, tree, target, toMerge);
+    }
+    LOG.debug("merged branch {} into {}", request.getBranchToMerge(), request.getTargetBranch());
+
+    updateTarget(gitRepository, targetRef, commit);
+    return of(createSuccessResult(target, toMerge, commit));
+  }
+
+  private ObjectId createCommit(Repository gitRepository, ObjectId tree, ObjectId... parents) throws IOException {
+    Person author = determineAuthor(request.getAuthor());
+    PersonIdent ident = new PersonIdent(author.getName(), author.getMail());
+
+    CommitBuilder commit = new CommitBuilder();
+    commit.setTreeId(tree);
+    commit.setParentIds(parents);
+    commit.setAuthor(ident);
+    commit.setCommitter(ident);
+    commit.setMessage(GitMergeStrategy.determineMessage(request));
+    if (request.isSign()) {
+      sign(commit, ident);
+    }
+
+    try (ObjectInserter inserter = gitRepository.newObjectInserter()) {
+      ObjectId id = inserter.insert(commit);
+      inserter.flush();
+      return id;
+    }
+  }
+
+  private void sign(CommitBuilder commit, PersonIdent committer) {
+    try {
+      GpgSigner.getDefault().sign(commit, SIGNING_KEY, committer, CredentialsProvider.getDefault());
+    } catch (CanceledException e) {
+      throw new InternalRepositoryException(repository, "could not sign merge commit", e);
+    }
+  }
+
+  /**
+   * Pushes the new revision from the repository into itself, so that the hooks are triggered
+   * and the update is rejected, if the target branch has been changed in the meantime.
+   */
+  private void updateTarget(Repository gitRepository, Ref targetRef, ObjectId newRevision) {
+    String uri = SimpleGitWorkingCopyFactory.createScmTransportProtocolUri(context.getDirectory());
+    LOG.trace("pushing in-core merge result {} to {} of repository {}", newRevision.name(), targetRef.getName(), repository);
+    try (Git git = new Git(gitRepository)) {
+      Iterable<PushResult> pushResults = git
+        .push()
+        .setRemote(uri)
+        .setRefSpecs(new RefSpec(newRevision.name() + ":" + targetRef.getName()))
+        .setRefLeaseSpecs(new RefLeaseSpec(targetRef.getName(), targetRef.getObjectId().name()))
+        .call();
+      checkPushResults(repository, pushResults);
+    } catch (GitAPIException e) {
+      throw new InternalRepositoryException(repository, "could not update branch " + targetRef.getName(), e);
+    }
+  }
+
+  private MergeCommandResult createSuccessResult(ObjectId target, ObjectId toMerge, ObjectId newHead) {
+    return MergeCommandResult.success(target.name(), toMerge.name(), newHead.name());
+  }
+}
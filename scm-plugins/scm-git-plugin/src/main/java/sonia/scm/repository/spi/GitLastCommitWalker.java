@@ -0,0 +1,157 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.repository.spi;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Finds the last commit which has modified each of a set of paths with a single history walk, instead of one
+ * walk per path. The walk can be continued in chunks, so that it can be split between synchronous and
+ * asynchronous execution.
+ * <p>
+ * A commit is taken as the last commit of a path, if the path differs from all parents of the commit and the
+ * content of the path is the same as in the start revision. The second condition skips changes on merged branches,
+ * which have been discarded by the merge.
+ */
+class GitLastCommitWalker implements Closeable {
+
+  private final Repository repository;
+  private final RevWalk walk;
+  private final Map<String, ObjectId> startIds = new HashMap<>();
+  private final Set<String> remaining = new HashSet<>();
+
+  private boolean exhausted = false;
+
+  GitLastCommitWalker(Repository repository, ObjectId revision, Collection<String> paths) throws IOException {
+    this.repository = repository;
+    this.walk = new RevWalk(repository);
+    // the walk could outlive the command, if it is continued asynchronously
+    repository.incrementOpen();
+    try {
+      RevCommit start = walk.parseCommit(revision);
+      readStartIds(start, paths);
+      remaining.addAll(startIds.keySet());
+      if (!remaining.isEmpty()) {
+        walk.setTreeFilter(AndTreeFilter.create(PathFilterGroup.createFromStrings(remaining), TreeFilter.ANY_DIFF));
+        walk.markStart(start);
+      }
+    } catch (IOException | RuntimeException ex) {
+      close();
+      throw ex;
+    }
+  }
+
+  private void readStartIds(RevCommit start, Collection<String> paths) throws IOException {
+    if (paths.isEmpty()) {
+      return;
+    }
+    try (TreeWalk treeWalk = new TreeWalk(repository)) {
+      treeWalk.setRecursive(true);
+      treeWalk.setFilter(PathFilterGroup.createFromStrings(paths));
+      treeWalk.addTree(start.getTree());
+      while (treeWalk.next()) {
+        startIds.put(treeWalk.getPathString(), treeWalk.getObjectId(0));
+      }
+    }
+  }
+
+  /**
+   * Continues the history walk until the last commit of every path is found, the history is exhausted or the
+   * given amount of time has elapsed.
+   *
+   * @param consumer receives each path together with its last commit
+   * @param maxMillis maximum time to walk in milliseconds
+   * @return {@code true} if the walk has finished
+   */
+  boolean walk(BiConsumer<String, RevCommit> consumer, long maxMillis) throws IOException {
+    long start = System.currentTimeMillis();
+    while (!isFinished()) {
+      RevCommit commit = walk.next();
+      if (commit == null) {
+        exhausted = true;
+      } else {
+        resolve(commit, consumer);
+        if (System.currentTimeMillis() - start > maxMillis) {
+          break;
+        }
+      }
+    }
+    return isFinished();
+  }
+
+  private void resolve(RevCommit commit, BiConsumer<String, RevCommit> consumer) throws IOException {
+    try (TreeWalk treeWalk = new TreeWalk(repository)) {
+      treeWalk.setRecursive(true);
+      treeWalk.setFilter(PathFilterGroup.createFromStrings(remaining));
+      treeWalk.addTree(commit.getTree());
+      for (RevCommit parent : commit.getParents()) {
+        walk.parseHeaders(parent);
+        treeWalk.addTree(parent.getTree());
+      }
+      while (treeWalk.next()) {
+        String path = treeWalk.getPathString();
+        if (treeWalk.getObjectId(0).equals(startIds.get(path)) && differsFromAllParents(treeWalk)) {
+          remaining.remove(path);
+          consumer.accept(path, commit);
+        }
+      }
+    }
+  }
+
+  private boolean differsFromAllParents(TreeWalk treeWalk) {
+    for (int i = 1; i < treeWalk.getTreeCount(); i++) {
+      if (treeWalk.idEqual(0, i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  boolean isFinished() {
+    return exhausted || remaining.isEmpty();
+  }
+
+  @Override
+  public void close() {
+    walk.close();
+    repository.close();
+  }
+}
@@ -63,6 +63,7 @@ public class GitLogCommand extends AbstractGitCommand implements LogCommand
     LoggerFactory.getLogger(GitLogCommand.class);
   public static final String REVISION = "Revision";
   private final GitChangesetConverterFactory converterFactory;
+  private final GitCommitCounter commitCounter;
 
   //~--- constructors ---------------------------------------------------------
 
@@ -73,11 +74,17 @@ public class GitLogCommand extends AbstractGitCommand implements LogCommand
    *  @param context
    *
    */
-  @Inject
   GitLogCommand(GitContext context, GitChangesetConverterFactory converterFactory)
+  {
+    this(context, converterFactory, null);
+  }
+
+  @Inject
+  GitLogCommand(GitContext context, GitChangesetConverterFactory converterFactory, GitCommitCounter commitCounter)
   {
     super(context);
     this.converterFactory = converterFactory;
+    this.commitCounter = commitCounter;
   }
 
   //~--- get methods ----------------------------------------------------------
@@ -182,7 +189,7 @@ public class GitLogCommand extends AbstractGitCommand implements LogCommand
       if (Strings.isNullOrEmpty(request.getBranch())) {
         request.setBranch(context.getConfig().getDefaultBranch());
       }
-      return new GitLogComputer(this.repository.getId(), open(), converterFactory).compute(request);
+      return new GitLogComputer(this.repository.getId(), open(), converterFactory, commitCounter).compute(request);
     } catch (IOException e) {
       throw new InternalRepositoryException(repository, "could not create change log", e);
     }
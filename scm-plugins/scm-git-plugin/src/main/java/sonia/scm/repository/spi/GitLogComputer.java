@@ -50,6 +50,7 @@ import sonia.scm.util.IOUtil;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 
 import static sonia.scm.ContextEntry.ContextBuilder.entity;
 import static sonia.scm.NotFoundException.notFound;
@@ -61,11 +62,22 @@ public class GitLogComputer {
   private final String repositoryId;
   private final Repository gitRepository;
   private final GitChangesetConverterFactory converterFactory;
+  private final GitCommitCounter commitCounter;
 
   public GitLogComputer(String repositoryId, Repository repository, GitChangesetConverterFactory converterFactory) {
+    this(repositoryId, repository, converterFactory, null);
+  }
+
+  /**
+   * Creates a log computer, which uses stored commit counts to stop the history walk after the requested page.
+   *
+   * @since 2.46.0
+   */
+  public GitLogComputer(String repositoryId, Repository repository, GitChangesetConverterFactory converterFactory, GitCommitCounter commitCounter) {
     this.repositoryId = repositoryId;
     this.gitRepository = repository;
     this.converterFactory = converterFactory;
+    this.commitCounter = commitCounter;
   }
 
   public ChangesetPagingResult compute(LogCommandRequest request) {
@@ -135,16 +147,24 @@ public class GitLogComputer {
         }
 
         if (branchId != null) {
+          RevCommit startCommit;
           if (startId != null) {
-            revWalk.markStart(revWalk.parseCommit(startId));
+            startCommit = revWalk.parseCommit(startId);
           } else {
-            revWalk.markStart(revWalk.parseCommit(branchId));
+            startCommit = revWalk.parseCommit(branchId);
           }
+          revWalk.markStart(startCommit);
 
           if (ancestorId != null) {
             revWalk.markUninteresting(revWalk.parseCommit(ancestorId));
           }
 
+          String countedBranch = startId == null && branch != null ? branch.getName() : null;
+          GitCommitCounter.CountKey countKey = new GitCommitCounter.CountKey(
+            repositoryId, startCommit, ancestorId, endId, Strings.emptyToNull(request.getPath())
+          );
+          Optional<Integer> total = getStoredCount(countKey, countedBranch);
+
           Iterator<RevCommit> iterator = revWalk.iterator();
 
           while (iterator.hasNext()) {
@@ -160,6 +180,17 @@ public class GitLogComputer {
             if (commit.getId().equals(endId)) {
               break;
             }
+
+            if (total.isPresent() && limit >= 0 && counter >= start + limit) {
+              LOG.trace("stop history walk after requested page, total count {} is known", total.get());
+              break;
+            }
+          }
+
+          if (total.isPresent()) {
+            counter = total.get();
+          } else if (commitCounter != null) {
+            commitCounter.put(countKey, countedBranch, counter);
           }
         } else if (ancestorId != null) {
           throw notFound(entity(GitLogCommand.REVISION, request.getBranch()).in(sonia.scm.repository.Repository.class, repositoryId));
@@ -186,4 +217,11 @@ public class GitLogComputer {
       GitUtil.release(revWalk);
     }
   }
+
+  private Optional<Integer> getStoredCount(GitCommitCounter.CountKey key, String branch) {
+    if (commitCounter == null) {
+      return Optional.empty();
+    }
+    return commitCounter.get(gitRepository, key, branch);
+  }
 }
@@ -34,8 +34,12 @@ import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.merge.ResolveMerger;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.treewalk.CanonicalTreeParser;
 import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import sonia.scm.repository.GitRepositoryHandler;
 import sonia.scm.repository.GitWorkingCopyFactory;
 import sonia.scm.repository.InternalRepositoryException;
@@ -47,6 +51,7 @@ import sonia.scm.repository.api.MergeStrategyNotSupportedException;
 import javax.inject.Inject;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Optional;
 import java.util.Set;
 
 import static org.eclipse.jgit.merge.MergeStrategy.RECURSIVE;
@@ -55,7 +60,15 @@ import static sonia.scm.NotFoundException.notFound;
 
 public class GitMergeCommand extends AbstractGitCommand implements MergeCommand {
 
+  private static final Logger LOG = LoggerFactory.getLogger(GitMergeCommand.class);
+
+  /**
+   * Set this system property to <code>false</code> to do all merges in working copies.
+   */
+  static final String IN_CORE_MERGE_PROPERTY = "scm.git.inCoreMerge";
+
   private final GitWorkingCopyFactory workingCopyFactory;
+  private final boolean inCoreMerge;
 
   private static final Set<MergeStrategy> STRATEGIES = ImmutableSet.of(
     MergeStrategy.MERGE_COMMIT,
@@ -70,8 +83,13 @@ public class GitMergeCommand extends AbstractGitCommand implements MergeCommand
   }
 
   GitMergeCommand(GitContext context, GitWorkingCopyFactory workingCopyFactory) {
+    this(context, workingCopyFactory, Boolean.parseBoolean(System.getProperty(IN_CORE_MERGE_PROPERTY, "true")));
+  }
+
+  GitMergeCommand(GitContext context, GitWorkingCopyFactory workingCopyFactory, boolean inCoreMerge) {
     super(context);
     this.workingCopyFactory = workingCopyFactory;
+    this.inCoreMerge = inCoreMerge;
   }
 
   @Override
@@ -85,6 +103,25 @@ public class GitMergeCommand extends AbstractGitCommand implements MergeCommand
   }
 
   private MergeCommandResult mergeWithStrategy(MergeCommandRequest request) {
+    if (inCoreMerge && GitInCoreMerge.supports(request.getMergeStrategy())) {
+      Optional<MergeCommandResult> result = mergeInCore(request);
+      if (result.isPresent()) {
+        return result.get();
+      }
+    }
+    return mergeInClone(request);
+  }
+
+  private Optional<MergeCommandResult> mergeInCore(MergeCommandRequest request) {
+    try {
+      return new GitInCoreMerge(context, request).merge();
+    } catch (IOException e) {
+      throw new InternalRepositoryException(repository, "could not merge in core", e);
+    }
+  }
+
+  private MergeCommandResult mergeInClone(MergeCommandRequest request) {
+    LOG.debug("merging {} into {} in working copy", request.getBranchToMerge(), request.getTargetBranch());
     switch(request.getMergeStrategy()) {
       case SQUASH:
         return inClone(clone -> new GitMergeWithSquash(clone, request, context, repository), workingCopyFactory, request.getTargetBranch());
@@ -107,16 +144,30 @@ public class GitMergeCommand extends AbstractGitCommand implements MergeCommand
   public MergeDryRunCommandResult dryRun(MergeCommandRequest request) {
     try {
       Repository repository = context.open();
+      ObjectId toMerge = resolveRevisionOrThrowNotFound(repository, request.getBranchToMerge());
+      ObjectId target = resolveRevisionOrThrowNotFound(repository, request.getTargetBranch());
+      if (isFastForwardOrAlreadyMerged(repository, toMerge, target)) {
+        return new MergeDryRunCommandResult(true);
+      }
       ResolveMerger merger = (ResolveMerger) RECURSIVE.newMerger(repository, true);
-      return new MergeDryRunCommandResult(
-        merger.merge(
-          resolveRevisionOrThrowNotFound(repository, request.getBranchToMerge()),
-          resolveRevisionOrThrowNotFound(repository, request.getTargetBranch())));
+      return new MergeDryRunCommandResult(merger.merge(toMerge, target));
     } catch (IOException e) {
       throw new InternalRepositoryException(context.getRepository(), "could not clone repository for merge", e);
     }
   }
 
+  /**
+   * Checks the commit graph only, so that no trees have to be merged if one revision is
+   * an ancestor of the other one.
+   */
+  private boolean isFastForwardOrAlreadyMerged(Repository repository, ObjectId toMerge, ObjectId target) throws IOException {
+    try (RevWalk revWalk = new RevWalk(repository)) {
+      RevCommit toMergeCommit = revWalk.parseCommit(toMerge);
+      RevCommit targetCommit = revWalk.parseCommit(target);
+      return revWalk.isMergedInto(toMergeCommit, targetCommit) || revWalk.isMergedInto(targetCommit, toMergeCommit);
+    }
+  }
+
   @Override
   public boolean isSupported(MergeStrategy strategy) {
     return STRATEGIES.contains(strategy);
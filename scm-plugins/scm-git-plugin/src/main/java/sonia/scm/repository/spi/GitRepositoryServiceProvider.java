@@ -115,7 +115,7 @@ public class GitRepositoryServiceProvider extends RepositoryServiceProvider {
 
   @Override
   public DiffResultCommand getDiffResultCommand() {
-    return new GitDiffResultCommand(context);
+    return commandInjector.getInstance(GitDiffResultCommand.class);
   }
 
   @Override
@@ -33,6 +33,7 @@ import org.eclipse.jgit.revwalk.RevTag;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import sonia.scm.repository.GitSignatureVerificationCache;
 import sonia.scm.repository.GitUtil;
 import sonia.scm.repository.Tag;
 import sonia.scm.security.GPG;
@@ -45,10 +46,16 @@ class GitTagConverter {
   private static final Logger LOG = LoggerFactory.getLogger(GitTagConverter.class);
 
   private final GPG gpg;
+  private final GitSignatureVerificationCache verificationCache;
 
-  @Inject
   GitTagConverter(GPG gpg) {
+    this(gpg, GitSignatureVerificationCache.disabled());
+  }
+
+  @Inject
+  GitTagConverter(GPG gpg, GitSignatureVerificationCache verificationCache) {
     this.gpg = gpg;
+    this.verificationCache = verificationCache;
   }
 
   public Tag buildTag(RevTag revTag, RevWalk revWalk) {
@@ -56,7 +63,7 @@ class GitTagConverter {
     try {
       RevCommit revCommit = revWalk.parseCommit(revTag.getObject().getId());
       tag = new Tag(revTag.getTagName(), revCommit.getId().name(), revTag.getTaggerIdent().getWhen().getTime());
-      GitUtil.getTagSignature(revTag, gpg, revWalk).ifPresent(tag::addSignature);
+      GitUtil.getTagSignature(revTag, gpg, revWalk, verificationCache).ifPresent(tag::addSignature);
     } catch (IOException ex) {
       LOG.error("could not get commit for tag", ex);
     }
@@ -74,7 +81,7 @@ class GitTagConverter {
         RevObject revObject = revWalk.parseAny(ref.getObjectId());
         if (revObject.getType() == Constants.OBJ_TAG) {
           RevTag revTag = (RevTag) revObject;
-          GitUtil.getTagSignature(revTag, gpg, revWalk)
+          GitUtil.getTagSignature(revTag, gpg, revWalk, verificationCache)
             .ifPresent(tag::addSignature);
         }
       }
@@ -41,12 +41,14 @@ import org.eclipse.jgit.treewalk.TreeWalk;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import sonia.scm.repository.api.MirrorCommandResult.LfsUpdateResult;
+import sonia.scm.store.Blob;
 import sonia.scm.store.BlobStore;
 import sonia.scm.web.lfs.LfsBlobStoreFactory;
 
 import javax.inject.Inject;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
@@ -169,12 +171,11 @@ class LfsLoader {
 
     private void storeLfsBlob(AnyLongObjectId oid, Path tempFilePath) throws IOException {
       LOG.trace("temporary lfs file: {}", tempFilePath);
-      Files.copy(
-        tempFilePath,
-        lfsBlobStore
-          .create(oid.name())
-          .getOutputStream()
-      );
+      Blob blob = lfsBlobStore.create(oid.name());
+      try (OutputStream output = blob.getOutputStream()) {
+        Files.copy(tempFilePath, output);
+      }
+      blob.commit();
     }
   }
 
@@ -52,7 +52,7 @@ public class SimpleGitWorkingCopyFactory extends SimpleWorkingCopyFactory<Reposi
     return new GitWorkingCopyReclaimer(context).reclaim(target, initialBranch);
   }
 
-  String createScmTransportProtocolUri(File bareRepository) {
+  static String createScmTransportProtocolUri(File bareRepository) {
     if (SystemUtil.isWindows()) {
       return ScmTransportProtocol.NAME + ":///" + bareRepository.getAbsolutePath().replaceAll("\\\\", "/");
     } else {
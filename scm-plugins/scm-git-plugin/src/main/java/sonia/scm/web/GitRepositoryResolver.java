@@ -37,7 +37,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import sonia.scm.repository.GitConfig;
 import sonia.scm.repository.GitRepositoryHandler;
-import sonia.scm.repository.GitUtil;
+import sonia.scm.repository.GitRepositoryPool;
 import sonia.scm.repository.RepositoryProvider;
 
 import javax.servlet.http.HttpServletRequest;
@@ -59,10 +59,11 @@ public class GitRepositoryResolver implements RepositoryResolver<HttpServletRequ
   //~--- constructors ---------------------------------------------------------
 
   @Inject
-  public GitRepositoryResolver(GitRepositoryHandler handler, RepositoryProvider repositoryProvider)
+  public GitRepositoryResolver(GitRepositoryHandler handler, RepositoryProvider repositoryProvider, GitRepositoryPool pool)
   {
     this.handler = handler;
     this.repositoryProvider = repositoryProvider;
+    this.pool = pool;
   }
 
   //~--- methods --------------------------------------------------------------
@@ -100,7 +101,7 @@ public class GitRepositoryResolver implements RepositoryResolver<HttpServletRequ
 
         logger.debug("try to open git repository at {}", gitdir);
 
-        return GitUtil.open(gitdir);
+        return pool.open(gitdir);
       }
       else
       {
@@ -123,4 +124,5 @@ public class GitRepositoryResolver implements RepositoryResolver<HttpServletRequ
 
   private final GitRepositoryHandler handler;
   private final RepositoryProvider repositoryProvider;
+  private final GitRepositoryPool pool;
 }
@@ -64,6 +64,7 @@ public class LfsBlobStoreFactory {
     return blobStoreFactory
         .withName(GIT_LFS_STORE_NAME)
         .forRepository(repository)
+        .contentAddressed()
         .build();
   }
 }
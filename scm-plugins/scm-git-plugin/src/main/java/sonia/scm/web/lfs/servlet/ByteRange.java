@@ -0,0 +1,120 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.web.lfs.servlet;
+
+import com.google.common.base.Strings;
+
+import java.util.Locale;
+
+/**
+ * A single byte range of a http range request (see RFC 7233). Requests with multiple ranges or
+ * with syntactically invalid ranges are treated like requests without range, which is allowed by
+ * the specification.
+ */
+final class ByteRange {
+
+  private static final String UNIT = "bytes=";
+
+  private static final ByteRange UNSATISFIABLE = new ByteRange(-1, 0);
+
+  private final long start;
+  private final long length;
+
+  private ByteRange(long start, long length) {
+    this.start = start;
+    this.length = length;
+  }
+
+  /**
+   * Parses the value of a range header for content of the given size.
+   *
+   * @return the requested range or {@code null}, if the complete content should be sent
+   */
+  static ByteRange parse(String header, long size) {
+    if (Strings.isNullOrEmpty(header) || !header.toLowerCase(Locale.ENGLISH).startsWith(UNIT)) {
+      return null;
+    }
+    String spec = header.substring(UNIT.length()).trim();
+    int separator = spec.indexOf('-');
+    if (separator < 0 || spec.indexOf(',') >= 0) {
+      return null;
+    }
+    try {
+      if (separator == 0) {
+        return suffix(Long.parseLong(spec.substring(1)), size);
+      }
+      long first = Long.parseLong(spec.substring(0, separator));
+      String lastSpec = spec.substring(separator + 1);
+      long last = lastSpec.isEmpty() ? Long.MAX_VALUE : Long.parseLong(lastSpec);
+      return range(first, last, size);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private static ByteRange suffix(long suffixLength, long size) {
+    if (suffixLength < 0) {
+      return null;
+    }
+    if (suffixLength == 0 || size == 0) {
+      return UNSATISFIABLE;
+    }
+    long start = Math.max(0, size - suffixLength);
+    return new ByteRange(start, size - start);
+  }
+
+  private static ByteRange range(long first, long last, long size) {
+    if (first < 0 || last < first) {
+      return null;
+    }
+    if (first >= size) {
+      return UNSATISFIABLE;
+    }
+    long end = Math.min(last, size - 1);
+    return new ByteRange(first, end - first + 1);
+  }
+
+  boolean isSatisfiable() {
+    return start >= 0;
+  }
+
+  long getStart() {
+    return start;
+  }
+
+  long getLength() {
+    return length;
+  }
+
+  /**
+   * Returns the value for the content range header of the response.
+   */
+  String toContentRange(long size) {
+    if (isSatisfiable()) {
+      return "bytes " + start + "-" + (start + length - 1) + "/" + size;
+    }
+    return "bytes */" + size;
+  }
+}
@@ -54,6 +54,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.nio.channels.Channels;
 import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -76,6 +77,12 @@ public class ScmFileTransferServlet extends HttpServlet {
 
   private static final long serialVersionUID = 1L;
 
+  private static final String HDR_ACCEPT_RANGES = "Accept-Ranges";
+  private static final String HDR_CONTENT_RANGE = "Content-Range";
+  private static final String HDR_ETAG = "ETag";
+  private static final String HDR_IF_RANGE = "If-Range";
+  private static final String HDR_RANGE = "Range";
+
   /**
    * Gson is used because the implementation was based on the jgit implementation. However the {@link LfsProtocolServlet} (which we do use in
    * {@link ScmLfsProtocolServlet}) also uses Gson, which currently ties us to Gson anyway.
@@ -162,7 +169,8 @@ public class ScmFileTransferServlet extends HttpServlet {
    * Provides a blob to download.
    * <p>
    * Actual implementation is based on <code>org.eclipse.jgit.lfs.server.fs.ObjectDownloadListener</code> and adjusted
-   * to non-async as we're currently on servlet-2.5.
+   * to non-async as we're currently on servlet-2.5. Single byte ranges are supported, so that interrupted
+   * downloads can be resumed.
    *
    * @param request  servlet request
    * @param response servlet response
@@ -185,7 +193,7 @@ public class ScmFileTransferServlet extends HttpServlet {
       if (isBlobPresent(savedBlob)) {
 
         LOG.trace("----- Object {}: providing {} bytes", objectIdName, savedBlob.getSize());
-        writeBlobIntoResponse(savedBlob, response);
+        writeBlobIntoResponse(savedBlob, request, response);
       } else {
 
         sendErrorAndLog(response, HttpStatus.SC_NOT_FOUND, MessageFormat.format(LfsServerText.get().objectNotFound, objectIdName));
@@ -255,20 +263,56 @@ public class ScmFileTransferServlet extends HttpServlet {
     return savedBlob != null && savedBlob.getSize() >= 0;
   }
 
-  private void writeBlobIntoResponse(Blob savedBlob, HttpServletResponse response) throws IOException {
+  private void writeBlobIntoResponse(Blob savedBlob, HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+    long size = savedBlob.getSize();
+    String etag = "\"" + savedBlob.getId() + "\"";
+    response.setHeader(HDR_ACCEPT_RANGES, "bytes");
+    response.setHeader(HDR_ETAG, etag);
+
+    ByteRange range = getRequestedRange(request, etag, size);
+    if (range == null) {
+      writeBlobIntoResponse(savedBlob, response, 0, size);
+    } else if (range.isSatisfiable()) {
+      LOG.trace("----- providing range {}", range.toContentRange(size));
+      response.setStatus(HttpStatus.SC_PARTIAL_CONTENT);
+      response.setHeader(HDR_CONTENT_RANGE, range.toContentRange(size));
+      writeBlobIntoResponse(savedBlob, response, range.getStart(), range.getLength());
+    } else {
+      response.setHeader(HDR_CONTENT_RANGE, range.toContentRange(size));
+      sendError(response, HttpStatus.SC_REQUESTED_RANGE_NOT_SATISFIABLE, "requested range not satisfiable: " + request.getHeader(HDR_RANGE));
+    }
+  }
+
+  /**
+   * Returns the requested range or {@code null}, if the whole blob has to be sent. The range is ignored if the
+   * <code>If-Range</code> header does not match the entity tag of the blob. Because blobs are content addressed,
+   * the oid is used as strong entity tag and dates in the <code>If-Range</code> header will never match.
+   */
+  private ByteRange getRequestedRange(HttpServletRequest request, String etag, long size) {
+    String ifRange = request.getHeader(HDR_IF_RANGE);
+    if (ifRange != null && !ifRange.trim().equals(etag)) {
+      LOG.trace("----- ignoring range, because if-range header {} does not match {}", ifRange, etag);
+      return null;
+    }
+    return ByteRange.parse(request.getHeader(HDR_RANGE), size);
+  }
+
+  private void writeBlobIntoResponse(Blob savedBlob, HttpServletResponse response, long position, long length) throws IOException {
 
-    try (ServletOutputStream responseOutputStream = response.getOutputStream();
-         InputStream savedBlobInputStream = savedBlob.getInputStream()) {
+    response.addHeader(HttpSupport.HDR_CONTENT_LENGTH, String.valueOf(length));
+    response.setContentType(Constants.HDR_APPLICATION_OCTET_STREAM);
 
-      response.addHeader(HttpSupport.HDR_CONTENT_LENGTH, String.valueOf(savedBlob.getSize()));
-      response.setContentType(Constants.HDR_APPLICATION_OCTET_STREAM);
+    try (ServletOutputStream responseOutputStream = response.getOutputStream()) {
 
-      IOUtil.copy(savedBlobInputStream, responseOutputStream);
+      long transferred = savedBlob.transferTo(position, length, Channels.newChannel(responseOutputStream));
+      if (transferred < length) {
+        throw new IOException("blob " + savedBlob.getId() + " is shorter than expected");
+      }
     } catch (IOException ex) {
 
       sendErrorAndLog(response, HttpStatus.SC_INTERNAL_SERVER_ERROR, ex);
     }
-
   }
 
   private void readBlobFromResponse(HttpServletRequest request, HttpServletResponse response, AnyLongObjectId objectId) throws IOException {
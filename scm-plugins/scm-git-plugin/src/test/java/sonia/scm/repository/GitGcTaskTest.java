@@ -25,9 +25,12 @@
 package sonia.scm.repository;
 
 import com.google.common.collect.Lists;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.eclipse.jgit.api.GarbageCollectCommand;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.internal.storage.dfs.DfsRepositoryDescription;
+import org.eclipse.jgit.internal.storage.dfs.InMemoryRepository;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -39,7 +42,9 @@ import java.io.IOException;
 import java.util.List;
 import java.util.Properties;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -64,6 +69,12 @@ public class GitGcTaskTest
   @Mock
   private Git git;
 
+  private final GitPushActivity pushActivity = new GitPushActivity();
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private double load = 0.0;
+
   private GitGcTask task;
   
   /**
@@ -75,10 +86,8 @@ public class GitGcTaskTest
   public void setUp() throws GitAPIException
   {
     when(git.gc()).thenReturn(gcc);
-    when(gcc.getStatistics()).thenReturn(new Properties());
-    when(gcc.call()).thenReturn(new Properties());
     when(manager.getHandler(GitRepositoryHandler.TYPE_NAME)).thenReturn(handler);
-    task = new GitGcTask(manager){
+    task = new GitGcTask(manager, pushActivity, meterRegistry, () -> load, 0.7, 2){
       
       @Override
       protected Git open(File file) throws IOException
@@ -97,6 +106,10 @@ public class GitGcTaskTest
   @Test
   public void testRun() throws GitAPIException
   {
+    when(gcc.getStatistics()).thenReturn(statistics(10000, 1200000));
+    when(gcc.call()).thenReturn(statistics(0, 200000));
+    when(git.getRepository()).thenReturn(new InMemoryRepository(new DfsRepositoryDescription("gc")));
+
     // prepare repositories for task
     Repository unhealthy = mock(Repository.class);
     when(unhealthy.getType()).thenReturn("git");
@@ -106,7 +119,7 @@ public class GitGcTaskTest
     when(unhealthy.isValid()).thenReturn(Boolean.FALSE);
     
     List<Repository> repositories = Lists.newArrayList(
-        RepositoryTestData.create42Puzzle("git"),
+        puzzle42(),
         RepositoryTestData.createHeartOfGold("hg"),
         unhealthy,
         invalid
@@ -121,4 +134,78 @@ public class GitGcTaskTest
     verify(gcc).call();
   }
 
+  @Test
+  public void shouldSkipRepositoryWithoutNeedForGc() throws GitAPIException
+  {
+    when(gcc.getStatistics()).thenReturn(statistics(10, 1000));
+    when(manager.getAll()).thenReturn(Lists.newArrayList(puzzle42()));
+
+    task.run();
+
+    verify(gcc, never()).call();
+  }
+
+  @Test
+  public void shouldCollectFrequentlyPushedRepository() throws GitAPIException
+  {
+    Repository repository = puzzle42();
+    for (int i = 0; i < 100; i++) {
+      pushActivity.onEvent(new PostReceiveRepositoryHookEvent(new RepositoryHookEvent(null, repository, RepositoryHookType.POST_RECEIVE)));
+    }
+    when(gcc.getStatistics()).thenReturn(statistics(10, 1000));
+    when(gcc.call()).thenReturn(statistics(0, 1000));
+    when(git.getRepository()).thenReturn(new InMemoryRepository(new DfsRepositoryDescription("gc")));
+    when(manager.getAll()).thenReturn(Lists.newArrayList(repository));
+
+    task.run();
+
+    verify(gcc).call();
+    assertThat(pushActivity.getPushCount(repository.getId())).isZero();
+  }
+
+  @Test
+  public void shouldPostponeGcOnHighLoad() throws GitAPIException
+  {
+    load = 2.0;
+    when(gcc.getStatistics()).thenReturn(statistics(10000, 1000));
+    when(manager.getAll()).thenReturn(Lists.newArrayList(puzzle42()));
+
+    task.run();
+
+    verify(gcc, never()).call();
+    assertThat(meterRegistry.get("scm.git.gc.postponed").counter().count()).isEqualTo(1.0);
+  }
+
+  @Test
+  public void shouldRecordReclaimedBytes() throws GitAPIException
+  {
+    when(gcc.getStatistics()).thenReturn(statistics(10000, 1200000));
+    when(gcc.call()).thenReturn(statistics(0, 200000));
+    when(git.getRepository()).thenReturn(new InMemoryRepository(new DfsRepositoryDescription("gc")));
+    when(manager.getAll()).thenReturn(Lists.newArrayList(puzzle42()));
+
+    task.run();
+
+    assertThat(meterRegistry.get("scm.git.gc.reclaimed").summary().totalAmount()).isEqualTo(1000000.0);
+    assertThat(meterRegistry.get("scm.git.gc.duration").timer().count()).isOne();
+  }
+
+  private Repository puzzle42()
+  {
+    Repository repository = RepositoryTestData.create42Puzzle("git");
+    repository.setId("42");
+    return repository;
+  }
+
+  private Properties statistics(long looseObjects, long size)
+  {
+    Properties properties = new Properties();
+    properties.put("numberOfLooseObjects", looseObjects);
+    properties.put("numberOfPackFiles", 1L);
+    properties.put("numberOfPackedObjects", 100L);
+    properties.put("numberOfBitmaps", 1L);
+    properties.put("sizeOfLooseObjects", 0L);
+    properties.put("sizeOfPackedObjects", size);
+    return properties;
+  }
 }
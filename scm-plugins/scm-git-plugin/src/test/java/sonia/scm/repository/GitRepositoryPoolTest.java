@@ -0,0 +1,134 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import sonia.scm.HandlerEventType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class GitRepositoryPoolTest {
+
+  @Mock
+  private GitRepositoryHandler handler;
+
+  private GitRepositoryPool pool;
+
+  private File directory;
+
+  @BeforeEach
+  void setUpPool(@TempDir Path temp) throws GitAPIException {
+    directory = temp.resolve("repo").toFile();
+    Git.init().setBare(true).setDirectory(directory).call().close();
+    pool = new GitRepositoryPool(handler, new SimpleMeterRegistry(), 2, 60);
+  }
+
+  @Test
+  void shouldReuseHandle() throws IOException {
+    org.eclipse.jgit.lib.Repository first = pool.open(directory);
+    first.close();
+    org.eclipse.jgit.lib.Repository second = pool.open(directory);
+    second.close();
+
+    assertThat(second).isSameAs(first);
+    assertThat(pool.size()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldNotPoolWorkingCopies(@TempDir Path temp) throws GitAPIException, IOException {
+    File workdir = temp.toFile();
+    Git.init().setDirectory(workdir).call().close();
+
+    try (org.eclipse.jgit.lib.Repository repository = pool.open(workdir)) {
+      assertThat(repository.isBare()).isFalse();
+    }
+    assertThat(pool.size()).isZero();
+  }
+
+  @Test
+  void shouldKeepHandleUsableAfterInvalidation() throws IOException {
+    org.eclipse.jgit.lib.Repository repository = pool.open(directory);
+
+    pool.invalidate(directory);
+
+    assertThat(repository.getRefDatabase().getRefs()).isEmpty();
+    repository.close();
+    assertThat(pool.size()).isZero();
+    try (org.eclipse.jgit.lib.Repository reopened = pool.open(directory)) {
+      assertThat(reopened).isNotSameAs(repository);
+    }
+  }
+
+  @Test
+  void shouldInvalidateOnDelete() throws IOException {
+    Repository repository = RepositoryTestData.createHeartOfGold("git");
+    repository.setId("hog");
+    when(handler.getDirectory("hog")).thenReturn(directory);
+    pool.open(directory).close();
+
+    pool.onEvent(new RepositoryEvent(HandlerEventType.BEFORE_DELETE, repository));
+
+    assertThat(pool.size()).isZero();
+  }
+
+  @Test
+  void shouldNotResolveDirectoryAfterDelete() throws IOException {
+    Repository repository = RepositoryTestData.createHeartOfGold("git");
+    repository.setId("hog");
+    pool.open(directory).close();
+
+    pool.onEvent(new RepositoryEvent(HandlerEventType.DELETE, repository));
+
+    verify(handler, never()).getDirectory(anyString());
+  }
+
+  @Test
+  void shouldEvictLeastRecentlyUsedHandles(@TempDir Path temp) throws GitAPIException, IOException {
+    for (int i = 0; i < 5; i++) {
+      File other = temp.resolve("repo-" + i).toFile();
+      Git.init().setBare(true).setDirectory(other).call().close();
+      pool.open(other).close();
+    }
+
+    assertThat(pool.size()).isLessThanOrEqualTo(2);
+  }
+}
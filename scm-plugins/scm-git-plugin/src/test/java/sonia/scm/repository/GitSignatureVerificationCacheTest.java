@@ -0,0 +1,104 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.repository;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import sonia.scm.cache.MapCacheManager;
+import sonia.scm.security.PublicKey;
+import sonia.scm.security.PublicKeyCreatedEvent;
+import sonia.scm.security.PublicKeyDeletedEvent;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class GitSignatureVerificationCacheTest {
+
+  private static final ObjectId COMMIT = ObjectId.fromString("3f76a12f08a6ba0dc988c68b7f0b2cd190efc3c4");
+  private static final byte[] DATA = "data".getBytes();
+  private static final byte[] SIGNATURE = "signature".getBytes();
+
+  @Mock
+  private PublicKey publicKey;
+
+  private GitSignatureVerificationCache cache;
+
+  @BeforeEach
+  void setUp() {
+    cache = new GitSignatureVerificationCache(new MapCacheManager());
+    when(publicKey.verify(any(byte[].class), any(byte[].class))).thenReturn(true);
+  }
+
+  @Test
+  void shouldVerifySignatureOnlyOnce() {
+    assertThat(cache.verify(COMMIT, "key", publicKey, () -> DATA, SIGNATURE)).isTrue();
+    assertThat(cache.verify(COMMIT, "key", publicKey, () -> DATA, SIGNATURE)).isTrue();
+
+    verify(publicKey, times(1)).verify(DATA, SIGNATURE);
+  }
+
+  @Test
+  void shouldVerifyAgainAfterKeyWasDeleted() {
+    when(publicKey.getId()).thenReturn("key");
+
+    cache.verify(COMMIT, "key", publicKey, () -> DATA, SIGNATURE);
+    cache.onEvent(new PublicKeyDeletedEvent(publicKey));
+    cache.verify(COMMIT, "key", publicKey, () -> DATA, SIGNATURE);
+
+    verify(publicKey, times(2)).verify(DATA, SIGNATURE);
+  }
+
+  @Test
+  void shouldVerifyAgainAfterKeyWithSubkeyWasCreated() {
+    when(publicKey.getId()).thenReturn("master");
+    when(publicKey.getSubkeys()).thenReturn(Collections.singleton("sub"));
+
+    cache.verify(COMMIT, "sub", publicKey, () -> DATA, SIGNATURE);
+    cache.onEvent(new PublicKeyCreatedEvent(publicKey));
+    cache.verify(COMMIT, "sub", publicKey, () -> DATA, SIGNATURE);
+
+    verify(publicKey, times(2)).verify(DATA, SIGNATURE);
+  }
+
+  @Test
+  void shouldNotCacheIfDisabled() {
+    GitSignatureVerificationCache disabled = GitSignatureVerificationCache.disabled();
+
+    disabled.verify(COMMIT, "key", publicKey, () -> DATA, SIGNATURE);
+    disabled.verify(COMMIT, "key", publicKey, () -> DATA, SIGNATURE);
+
+    verify(publicKey, times(2)).verify(DATA, SIGNATURE);
+  }
+}
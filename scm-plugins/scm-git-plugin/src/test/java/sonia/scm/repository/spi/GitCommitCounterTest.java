@@ -0,0 +1,96 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.repository.spi;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.Before;
+import org.junit.Test;
+import sonia.scm.HandlerEventType;
+import sonia.scm.cache.MapCacheManager;
+import sonia.scm.repository.RepositoryEvent;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GitCommitCounterTest extends AbstractGitCommandTestBase {
+
+  private static final String MASTER = "refs/heads/master";
+  private static final String MASTER_HEAD = "fcd0ef1831e4002ac43ea539f4094334c79ea9ec";
+  private static final String MASTER_ANCESTOR = "592d797cd36432e591416e8b2b98154f4f163411";
+  private static final String TEST_BRANCH_HEAD = "3f76a12f08a6ba0dc988c68b7f0b2cd190efc3c4";
+
+  private GitCommitCounter counter;
+
+  @Before
+  public void createCounter() {
+    repository.setId("hog");
+    counter = new GitCommitCounter(new MapCacheManager());
+  }
+
+  @Test
+  public void shouldReturnStoredCount() throws IOException {
+    counter.put(key(MASTER_HEAD), null, 4);
+
+    assertThat(counter.get(createContext().open(), key(MASTER_HEAD), null)).contains(4);
+  }
+
+  @Test
+  public void shouldCountIncrementallyFromPreviousHead() throws IOException {
+    counter.put(key(MASTER_ANCESTOR), MASTER, 10);
+
+    assertThat(counter.get(createContext().open(), key(MASTER_HEAD), MASTER)).contains(12);
+  }
+
+  @Test
+  public void shouldNotCountIncrementallyIfPreviousHeadIsNoAncestor() throws IOException {
+    counter.put(key(TEST_BRANCH_HEAD), MASTER, 3);
+
+    assertThat(counter.get(createContext().open(), key(MASTER_HEAD), MASTER)).isEmpty();
+  }
+
+  @Test
+  public void shouldNotCountIncrementallyForFilteredLogs() throws IOException {
+    counter.put(key(MASTER_ANCESTOR), MASTER, 2);
+
+    GitCommitCounter.CountKey key = new GitCommitCounter.CountKey(
+      repository.getId(), ObjectId.fromString(MASTER_HEAD), null, null, "a.txt"
+    );
+    assertThat(counter.get(createContext().open(), key, MASTER)).isEmpty();
+  }
+
+  @Test
+  public void shouldRemoveCountsOfDeletedRepository() throws IOException {
+    counter.put(key(MASTER_HEAD), MASTER, 4);
+
+    counter.onEvent(new RepositoryEvent(HandlerEventType.DELETE, repository));
+
+    assertThat(counter.get(createContext().open(), key(MASTER_HEAD), null)).isEmpty();
+  }
+
+  private GitCommitCounter.CountKey key(String commitId) {
+    return new GitCommitCounter.CountKey(repository.getId(), ObjectId.fromString(commitId), null, null, null);
+  }
+}
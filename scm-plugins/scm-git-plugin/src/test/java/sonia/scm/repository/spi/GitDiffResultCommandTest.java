@@ -24,18 +24,34 @@
 
 package sonia.scm.repository.spi;
 
+import org.eclipse.jgit.attributes.Attribute;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.TreeFormatter;
 import org.junit.Test;
+import sonia.scm.cache.Cache;
+import sonia.scm.cache.MapCacheManager;
 import sonia.scm.repository.api.DiffFile;
 import sonia.scm.repository.api.DiffResult;
+import sonia.scm.repository.api.DiffResultCommandBuilder;
 import sonia.scm.repository.api.Hunk;
 
 import java.io.IOException;
 import java.util.Iterator;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class GitDiffResultCommandTest extends AbstractGitCommandTestBase {
 
+  private final MapCacheManager cacheManager = new MapCacheManager();
+
   @Test
   public void shouldReturnOldAndNewRevision() throws IOException {
     DiffResult diffResult = createDiffResult("3f76a12f08a6ba0dc988c68b7f0b2cd190efc3c4");
@@ -162,12 +178,88 @@ public class GitDiffResultCommandTest extends AbstractGitCommandTestBase {
     assertThat(diffResult.getOffset()).isZero();
   }
 
+  @Test
+  public void shouldServeFurtherPagesFromCache() throws IOException {
+    createDiffResult("3f76a12f08a6ba0dc988c68b7f0b2cd190efc3c4", 0, 1);
+
+    Cache<Object, Object> cache = cacheManager.getCache(DiffResultCommandBuilder.CACHE_NAME);
+    assertThat(cache.size()).isEqualTo(1);
+
+    DiffResult diffResult = createDiffResult("3f76a12f08a6ba0dc988c68b7f0b2cd190efc3c4", 1, 1);
+    Iterator<DiffFile> iterator = diffResult.iterator();
+
+    DiffFile b = iterator.next();
+    assertThat(b.getOldPath()).isEqualTo("b.txt");
+    assertThat(b.getNewPath()).isEqualTo("/dev/null");
+    assertThat(b.getOldRevision()).isEqualTo("592d797cd36432e591416e8b2b98154f4f163411");
+    assertThat(b.iterator().hasNext()).isTrue();
+    assertThat(iterator.hasNext()).isFalse();
+
+    assertThat(cache.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldCacheDiffsForDifferentPathsSeparately() throws IOException {
+    createDiffResult("3f76a12f08a6ba0dc988c68b7f0b2cd190efc3c4");
+
+    DiffResultCommandRequest request = new DiffResultCommandRequest();
+    request.setRevision("3f76a12f08a6ba0dc988c68b7f0b2cd190efc3c4");
+    request.setPath("a.txt");
+    DiffResult diffResult = new GitDiffResultCommand(createContext(), cacheManager).getDiffResult(request);
+
+    assertThat(diffResult).extracting(DiffFile::getNewPath).containsExactly("a.txt");
+    assertThat(cacheManager.getCache(DiffResultCommandBuilder.CACHE_NAME).size()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldKeepDiffAttributeOfCachedEntries() throws IOException {
+    DiffResultCommandRequest request = new DiffResultCommandRequest();
+    request.setRevision(commitFileWithoutDiff());
+
+    DiffEntryList entries = DiffEntryList.from(Differ.diff(createContext().open(), request));
+
+    DiffEntry entry = entries.getEntries(0, null).get(0);
+    assertThat(entry.getNewPath()).isEqualTo("data.bin");
+    assertThat(entry.getDiffAttribute()).isEqualTo(new Attribute("diff", Attribute.State.UNSET));
+  }
+
+  private String commitFileWithoutDiff() throws IOException {
+    Repository repository = createContext().open();
+    try (ObjectInserter inserter = repository.newObjectInserter()) {
+      ObjectId attributes = inserter.insert(Constants.OBJ_BLOB, "*.bin -diff\n".getBytes(UTF_8));
+      ObjectId parent = commit(inserter, null, tree(inserter, attributes, "one\n"));
+      ObjectId child = commit(inserter, parent, tree(inserter, attributes, "two\n"));
+      inserter.flush();
+      return child.name();
+    }
+  }
+
+  private ObjectId tree(ObjectInserter inserter, ObjectId attributes, String content) throws IOException {
+    TreeFormatter tree = new TreeFormatter();
+    tree.append(Constants.DOT_GIT_ATTRIBUTES, FileMode.REGULAR_FILE, attributes);
+    tree.append("data.bin", FileMode.REGULAR_FILE, inserter.insert(Constants.OBJ_BLOB, content.getBytes(UTF_8)));
+    return inserter.insert(tree);
+  }
+
+  private ObjectId commit(ObjectInserter inserter, ObjectId parent, ObjectId tree) throws IOException {
+    PersonIdent author = new PersonIdent("Trillian McMillan", "trillian@hitchhiker.com");
+    CommitBuilder commit = new CommitBuilder();
+    commit.setTreeId(tree);
+    if (parent != null) {
+      commit.setParentId(parent);
+    }
+    commit.setAuthor(author);
+    commit.setCommitter(author);
+    commit.setMessage("binary data");
+    return inserter.insert(commit);
+  }
+
   private DiffResult createDiffResult(String s) throws IOException {
     return createDiffResult(s, null, null);
   }
 
   private DiffResult createDiffResult(String s, Integer offset, Integer limit) throws IOException {
-    GitDiffResultCommand gitDiffResultCommand = new GitDiffResultCommand(createContext());
+    GitDiffResultCommand gitDiffResultCommand = new GitDiffResultCommand(createContext(), cacheManager);
     DiffResultCommandRequest diffCommandRequest = new DiffResultCommandRequest();
     diffCommandRequest.setRevision(s);
     diffCommandRequest.setOffset(offset);
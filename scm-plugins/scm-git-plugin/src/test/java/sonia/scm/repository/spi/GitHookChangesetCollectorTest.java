@@ -42,6 +42,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.util.Arrays.asList;
 import static org.eclipse.jgit.lib.ObjectId.fromString;
@@ -109,6 +110,31 @@ public class GitHookChangesetCollectorTest extends AbstractGitCommandTestBase {
     assertThat(collector.getRemovedChangesets()).isEmpty();
   }
 
+  @Test
+  public void shouldAddBranchesOfFurtherRefsToAddedChangesets() throws IOException, GitAPIException {
+    new Git(createContext().open()).branchCreate().setStartPoint("mergeable").setName("second").call();
+    receiveCommands.add(
+      new ReceiveCommand(
+        zeroId(),
+        fromString("91b99de908fcd04772798a31c308a64aea1a5523"),
+        "refs/heads/mergeable")
+    );
+    receiveCommands.add(
+      new ReceiveCommand(
+        zeroId(),
+        fromString("91b99de908fcd04772798a31c308a64aea1a5523"),
+        "refs/heads/second")
+    );
+    mockNewCommits("91b99de908fcd04772798a31c308a64aea1a5523");
+
+    collector = GitHookChangesetCollector.collectChangesets(converterFactory, receiveCommands, rpack);
+
+    assertThat(collector.getAddedChangesets())
+      .singleElement()
+      .extracting(Changeset::getBranches)
+      .isEqualTo(singletonList("second"));
+  }
+
   @Test
   public void shouldFindAddedChangesetsFromNewBranchesOnce() throws IOException, GitAPIException {
     new Git(createContext().open()).branchCreate().setStartPoint("mergeable").setName("second").call();
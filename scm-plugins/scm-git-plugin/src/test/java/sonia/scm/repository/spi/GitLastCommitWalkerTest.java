@@ -0,0 +1,111 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.repository.spi;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GitLastCommitWalkerTest extends AbstractGitCommandTestBase {
+
+  @Test
+  public void shouldFindSameCommitsAsWalkPerPath() throws IOException {
+    Repository repository = createContext().open();
+    ObjectId head = repository.resolve("master");
+    List<String> paths = listFiles(repository, head);
+
+    Map<String, ObjectId> commits = new HashMap<>();
+    try (GitLastCommitWalker walker = new GitLastCommitWalker(repository, head, paths)) {
+      assertThat(walker.walk((path, commit) -> commits.put(path, commit.getId()), Long.MAX_VALUE)).isTrue();
+    }
+
+    assertThat(commits).hasSize(paths.size());
+    for (String path : paths) {
+      assertThat(commits.get(path)).as(path).isEqualTo(walkPerPath(repository, head, path));
+    }
+  }
+
+  @Test
+  public void shouldContinueWalkInChunks() throws IOException {
+    Repository repository = createContext().open();
+    ObjectId head = repository.resolve("master");
+    List<String> paths = listFiles(repository, head);
+
+    Map<String, ObjectId> commits = new HashMap<>();
+    try (GitLastCommitWalker walker = new GitLastCommitWalker(repository, head, paths)) {
+      while (!walker.walk((path, commit) -> commits.put(path, commit.getId()), -1)) {
+        assertThat(walker.isFinished()).isFalse();
+      }
+    }
+
+    assertThat(commits).hasSize(paths.size());
+  }
+
+  @Test
+  public void shouldIgnoreUnknownPaths() throws IOException {
+    Repository repository = createContext().open();
+    ObjectId head = repository.resolve("master");
+
+    try (GitLastCommitWalker walker = new GitLastCommitWalker(repository, head, List.of("no/such/file"))) {
+      assertThat(walker.isFinished()).isTrue();
+      assertThat(walker.walk((path, commit) -> {}, Long.MAX_VALUE)).isTrue();
+    }
+  }
+
+  private List<String> listFiles(Repository repository, ObjectId revision) throws IOException {
+    List<String> paths = new ArrayList<>();
+    try (RevWalk walk = new RevWalk(repository); TreeWalk treeWalk = new TreeWalk(repository)) {
+      treeWalk.setRecursive(true);
+      treeWalk.addTree(walk.parseCommit(revision).getTree());
+      while (treeWalk.next()) {
+        paths.add(treeWalk.getPathString());
+      }
+    }
+    return paths;
+  }
+
+  private ObjectId walkPerPath(Repository repository, ObjectId revision, String path) throws IOException {
+    try (RevWalk walk = new RevWalk(repository)) {
+      walk.setTreeFilter(AndTreeFilter.create(TreeFilter.ANY_DIFF, PathFilter.create(path)));
+      walk.markStart(walk.parseCommit(revision));
+      RevCommit commit = walk.next();
+      return commit.getId();
+    }
+  }
+}
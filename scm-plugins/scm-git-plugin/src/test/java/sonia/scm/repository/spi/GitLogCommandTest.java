@@ -31,6 +31,7 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
+import sonia.scm.cache.MapCacheManager;
 import sonia.scm.repository.Changeset;
 import sonia.scm.repository.ChangesetPagingResult;
 import sonia.scm.repository.GitRepositoryConfig;
@@ -312,6 +313,22 @@ public class GitLogCommandTest extends AbstractGitCommandTestBase
       .isEqualTo(new Person("Sebastian Sdorra", "s.sdorra@ostfalia.de"));
   }
 
+  @Test
+  public void shouldReturnTotalForPagedRequestWithStoredCount() {
+    GitCommitCounter counter = new GitCommitCounter(new MapCacheManager());
+    LogCommandRequest request = new LogCommandRequest();
+    request.setPagingStart(1);
+    request.setPagingLimit(1);
+
+    ChangesetPagingResult first = createCommand(counter).getChangesets(request);
+    ChangesetPagingResult second = createCommand(counter).getChangesets(request);
+
+    assertEquals(4, first.getTotal());
+    assertEquals(4, second.getTotal());
+    assertEquals("86a6645eceefe8b9a247db5eb16e3d89a7e6e6d1", second.getChangesets().get(0).getId());
+    assertEquals(1, second.getChangesets().size());
+  }
+
   private void setRepositoryHeadReference(String s) throws IOException {
     Files.write(s, repositoryHeadReferenceFile(), defaultCharset());
   }
@@ -324,6 +341,10 @@ public class GitLogCommandTest extends AbstractGitCommandTestBase
     return new GitLogCommand(createContext(), GitTestHelper.createConverterFactory());
   }
 
+  private GitLogCommand createCommand(GitCommitCounter counter) {
+    return new GitLogCommand(createContext(), GitTestHelper.createConverterFactory(), counter);
+  }
+
   private GitLogCommand createCommandWithContextSpy() {
     return new GitLogCommand(Mockito.spy(createContext()), GitTestHelper.createConverterFactory());
   }
@@ -101,6 +101,18 @@ public class GitMergeCommandTest extends AbstractGitCommandTestBase {
     assertThat(mergeable).isFalse();
   }
 
+  @Test
+  public void shouldDetectFastForwardAsMergeable() {
+    GitMergeCommand command = createCommand();
+    MergeCommandRequest request = new MergeCommandRequest();
+    request.setBranchToMerge("squash");
+    request.setTargetBranch("master");
+
+    boolean mergeable = command.dryRun(request).isMergeable();
+
+    assertThat(mergeable).isTrue();
+  }
+
   @Test
   public void shouldMergeMergeableBranches() throws IOException, GitAPIException {
     GitMergeCommand command = createCommand();
@@ -228,6 +240,64 @@ public class GitMergeCommandTest extends AbstractGitCommandTestBase {
     Assertions.assertThrows(UnexpectedMergeResultException.class, () -> command.merge(request));
   }
 
+  @Test
+  public void shouldMergeWithoutWorkingCopy() throws IOException, GitAPIException {
+    GitMergeCommand command = createCommand(true, git -> {
+      throw new AssertionError("merge should not need a working copy");
+    });
+    MergeCommandRequest request = new MergeCommandRequest();
+    request.setTargetBranch("master");
+    request.setBranchToMerge("mergeable");
+    request.setMergeStrategy(MergeStrategy.MERGE_COMMIT);
+    request.setAuthor(new Person("Dirk Gently", "dirk@holistic.det"));
+
+    MergeCommandResult mergeCommandResult = command.merge(request);
+
+    assertThat(mergeCommandResult.isSuccess()).isTrue();
+
+    Repository repository = createContext().open();
+    RevCommit mergeCommit = new Git(repository).log().add(repository.resolve("master")).setMaxCount(1).call().iterator().next();
+    assertThat(mergeCommit.name()).isEqualTo(mergeCommandResult.getNewHeadRevision());
+    assertThat(mergeCommit.getParentCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldDetectConflictsWithoutWorkingCopy() {
+    GitMergeCommand command = createCommand(true, git -> {
+      throw new AssertionError("merge should not need a working copy");
+    });
+    MergeCommandRequest request = new MergeCommandRequest();
+    request.setBranchToMerge("test-branch");
+    request.setTargetBranch("master");
+    request.setMergeStrategy(MergeStrategy.SQUASH);
+
+    MergeCommandResult mergeCommandResult = command.merge(request);
+
+    assertThat(mergeCommandResult.isSuccess()).isFalse();
+    assertThat(mergeCommandResult.getFilesWithConflict()).containsExactly("a.txt");
+  }
+
+  @Test
+  public void shouldMergeInWorkingCopyIfInCoreMergeIsDisabled() throws IOException, GitAPIException {
+    GitMergeCommand command = createCommand(false, git -> {
+    });
+    MergeCommandRequest request = new MergeCommandRequest();
+    request.setTargetBranch("master");
+    request.setBranchToMerge("mergeable");
+    request.setMergeStrategy(MergeStrategy.MERGE_COMMIT);
+    request.setAuthor(new Person("Dirk Gently", "dirk@holistic.det"));
+    request.setMessageTemplate("simple");
+
+    MergeCommandResult mergeCommandResult = command.merge(request);
+
+    assertThat(mergeCommandResult.isSuccess()).isTrue();
+
+    Repository repository = createContext().open();
+    RevCommit mergeCommit = new Git(repository).log().add(repository.resolve("master")).setMaxCount(1).call().iterator().next();
+    assertThat(mergeCommit.getParentCount()).isEqualTo(2);
+    assertThat(mergeCommit.getFullMessage()).isEqualTo("simple");
+  }
+
   @Test
   public void shouldTakeAuthorFromSubjectIfNotSet() throws IOException, GitAPIException {
     SimplePrincipalCollection principals = new SimplePrincipalCollection();
@@ -512,12 +582,16 @@ public class GitMergeCommandTest extends AbstractGitCommandTestBase {
   }
 
   private GitMergeCommand createCommand() {
-    return createCommand(git -> {
+    return createCommand(true, git -> {
     });
   }
 
   private GitMergeCommand createCommand(Consumer<Git> interceptor) {
-    return new GitMergeCommand(createContext(), new SimpleGitWorkingCopyFactory(new NoneCachingWorkingCopyPool(new WorkdirProvider(repositoryLocationResolver)), new SimpleMeterRegistry())) {
+    return createCommand(false, interceptor);
+  }
+
+  private GitMergeCommand createCommand(boolean inCoreMerge, Consumer<Git> interceptor) {
+    return new GitMergeCommand(createContext(), new SimpleGitWorkingCopyFactory(new NoneCachingWorkingCopyPool(new WorkdirProvider(repositoryLocationResolver)), new SimpleMeterRegistry()), inCoreMerge) {
       @Override
       <R, W extends GitCloneWorker<R>> R inClone(Function<Git, W> workerSupplier, GitWorkingCopyFactory workingCopyFactory, String initialBranch) {
         Function<Git, W> interceptedWorkerSupplier = git -> {
@@ -64,6 +64,7 @@ public class LfsBlobStoreFactoryTest {
     verify(blobStoreFactory).getStore(argThat(blobStoreParameters -> {
       assertThat(blobStoreParameters.getName()).isEqualTo("git-lfs");
       assertThat(blobStoreParameters.getRepositoryId()).isEqualTo("the-id");
+      assertThat(blobStoreParameters.isContentAddressed()).isTrue();
       return true;
     }));
 
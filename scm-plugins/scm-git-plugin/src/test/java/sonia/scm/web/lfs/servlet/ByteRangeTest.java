@@ -0,0 +1,99 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.web.lfs.servlet;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ByteRangeTest {
+
+  @Test
+  void shouldParseRange() {
+    ByteRange range = ByteRange.parse("bytes=10-19", 100);
+
+    assertThat(range.isSatisfiable()).isTrue();
+    assertThat(range.getStart()).isEqualTo(10);
+    assertThat(range.getLength()).isEqualTo(10);
+    assertThat(range.toContentRange(100)).isEqualTo("bytes 10-19/100");
+  }
+
+  @Test
+  void shouldParseOpenRange() {
+    ByteRange range = ByteRange.parse("bytes=90-", 100);
+
+    assertThat(range.getStart()).isEqualTo(90);
+    assertThat(range.getLength()).isEqualTo(10);
+  }
+
+  @Test
+  void shouldParseSuffixRange() {
+    ByteRange range = ByteRange.parse("bytes=-30", 100);
+
+    assertThat(range.getStart()).isEqualTo(70);
+    assertThat(range.getLength()).isEqualTo(30);
+  }
+
+  @Test
+  void shouldLimitRangeToSize() {
+    ByteRange range = ByteRange.parse("bytes=50-500", 100);
+
+    assertThat(range.toContentRange(100)).isEqualTo("bytes 50-99/100");
+  }
+
+  @Test
+  void shouldLimitSuffixRangeToSize() {
+    ByteRange range = ByteRange.parse("bytes=-500", 100);
+
+    assertThat(range.toContentRange(100)).isEqualTo("bytes 0-99/100");
+  }
+
+  @Test
+  void shouldDetectUnsatisfiableRange() {
+    ByteRange range = ByteRange.parse("bytes=100-", 100);
+
+    assertThat(range.isSatisfiable()).isFalse();
+    assertThat(range.toContentRange(100)).isEqualTo("bytes */100");
+  }
+
+  @Test
+  void shouldDetectUnsatisfiableSuffixRange() {
+    assertThat(ByteRange.parse("bytes=-0", 100).isSatisfiable()).isFalse();
+  }
+
+  @Test
+  void shouldIgnoreMissingOrInvalidRanges() {
+    assertThat(ByteRange.parse(null, 100)).isNull();
+    assertThat(ByteRange.parse("items=1-2", 100)).isNull();
+    assertThat(ByteRange.parse("bytes=20-10", 100)).isNull();
+    assertThat(ByteRange.parse("bytes=a-b", 100)).isNull();
+    assertThat(ByteRange.parse("bytes=10", 100)).isNull();
+  }
+
+  @Test
+  void shouldIgnoreMultipleRanges() {
+    assertThat(ByteRange.parse("bytes=0-10,20-30", 100)).isNull();
+  }
+}
@@ -24,18 +24,112 @@
     
 package sonia.scm.web.lfs.servlet;
 
+import org.junit.Before;
 import org.junit.Test;
+import sonia.scm.store.Blob;
+import sonia.scm.store.BlobStore;
+import sonia.scm.store.InMemoryBlobStore;
+import sonia.scm.web.CapturingServletOutputStream;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * Created by omilke on 16.05.2017.
  */
 public class ScmFileTransferServletTest {
 
+  private static final String OBJECT_ID = "8fcebeb5698230685f92028e560f8f1683ebc15ec82a620ffad5c12a3c19bdec";
+
+  private final HttpServletRequest request = mock(HttpServletRequest.class);
+  private final HttpServletResponse response = mock(HttpServletResponse.class);
+  private final CapturingServletOutputStream outputStream = new CapturingServletOutputStream();
+
+  private ScmFileTransferServlet servlet;
+
+  @Before
+  public void setUpServlet() throws IOException {
+    BlobStore blobStore = new InMemoryBlobStore();
+    Blob blob = blobStore.create(OBJECT_ID);
+    try (OutputStream output = blob.getOutputStream()) {
+      output.write("hello lfs world".getBytes());
+    }
+    servlet = new ScmFileTransferServlet(blobStore);
+
+    when(request.getPathInfo()).thenReturn("/" + OBJECT_ID);
+    when(response.getOutputStream()).thenReturn(outputStream);
+    when(response.getWriter()).thenReturn(new PrintWriter(new StringWriter()));
+  }
+
+  @Test
+  public void shouldDownloadCompleteBlob() throws Exception {
+    servlet.doGet(request, response);
+
+    assertThat(outputStream.toString(), is("hello lfs world"));
+    verify(response).addHeader("Content-Length", "15");
+    verify(response).setHeader("Accept-Ranges", "bytes");
+    verify(response).setHeader("ETag", "\"" + OBJECT_ID + "\"");
+    verify(response, never()).setStatus(206);
+  }
+
+  @Test
+  public void shouldDownloadRequestedRange() throws Exception {
+    when(request.getHeader("Range")).thenReturn("bytes=6-8");
+
+    servlet.doGet(request, response);
+
+    assertThat(outputStream.toString(), is("lfs"));
+    verify(response).setStatus(206);
+    verify(response).setHeader("Content-Range", "bytes 6-8/15");
+    verify(response).addHeader("Content-Length", "3");
+  }
+
+  @Test
+  public void shouldDownloadRangeIfEntityTagMatches() throws Exception {
+    when(request.getHeader("Range")).thenReturn("bytes=10-");
+    when(request.getHeader("If-Range")).thenReturn("\"" + OBJECT_ID + "\"");
+
+    servlet.doGet(request, response);
+
+    assertThat(outputStream.toString(), is("world"));
+    verify(response).setStatus(206);
+  }
+
+  @Test
+  public void shouldDownloadCompleteBlobIfEntityTagDoesNotMatch() throws Exception {
+    when(request.getHeader("Range")).thenReturn("bytes=10-");
+    when(request.getHeader("If-Range")).thenReturn("\"other\"");
+
+    servlet.doGet(request, response);
+
+    assertThat(outputStream.toString(), is("hello lfs world"));
+    verify(response, never()).setStatus(206);
+  }
+
+  @Test
+  public void shouldRejectUnsatisfiableRange() throws Exception {
+    when(request.getHeader("Range")).thenReturn("bytes=15-");
+
+    servlet.doGet(request, response);
+
+    assertThat(outputStream.toString(), is(""));
+    verify(response).setStatus(416);
+    verify(response).setHeader("Content-Range", "bytes */15");
+  }
+
   @Test
   public void hasObjectId() throws Exception {
 
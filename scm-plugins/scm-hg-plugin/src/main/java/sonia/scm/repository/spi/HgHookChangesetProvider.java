@@ -66,9 +66,10 @@ public class HgHookChangesetProvider implements HookChangesetProvider {
         HgConfig config = configResolver.resolve(scmRepository);
         HgLogChangesetCommand cmd = HgLogChangesetCommand.on(repository, config);
 
-        response = new HookChangesetResponse(
-          cmd.rev(startRev.concat(":").concat(HgUtil.REVISION_TIP)).execute()
-        );
+        HookChangesetCollection changesets = new HookChangesetCollection();
+        cmd.rev(startRev.concat(":").concat(HgUtil.REVISION_TIP)).execute(changesets::add);
+
+        response = new HookChangesetResponse(changesets);
       } catch (Exception ex) {
         LOG.error("could not retrieve changesets", ex);
       } finally {
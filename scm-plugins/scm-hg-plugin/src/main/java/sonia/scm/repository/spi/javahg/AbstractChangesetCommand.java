@@ -42,6 +42,7 @@ import sonia.scm.repository.Person;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 //~--- JDK imports ------------------------------------------------------------
 
@@ -152,6 +153,21 @@ public abstract class AbstractChangesetCommand extends AbstractCommand
   {
     List<Changeset> changesets = Lists.newArrayList();
 
+    readFromStream(in, changesets::add);
+
+    return changesets;
+  }
+
+  /**
+   * Reads the changesets from the stream and passes them one by one to the
+   * consumer, without keeping them in memory.
+   *
+   *
+   * @param in
+   * @param consumer
+   */
+  protected void readFromStream(HgInputStream in, Consumer<Changeset> consumer)
+  {
     try
     {
       boolean found = in.find(CHANGESET_PATTERN);
@@ -165,7 +181,7 @@ public abstract class AbstractChangesetCommand extends AbstractCommand
 
           if (cset != null)
           {
-            changesets.add(cset);
+            consumer.accept(cset);
           }
         }
 
@@ -178,8 +194,6 @@ public abstract class AbstractChangesetCommand extends AbstractCommand
     {
       throw new RuntimeIOException(e);
     }
-
-    return changesets;
   }
 
   /**
@@ -36,6 +36,7 @@ import sonia.scm.repository.Modification;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * @author Sebastian Sdorra
@@ -65,6 +66,13 @@ public class HgLogChangesetCommand extends AbstractChangesetCommand {
     return readListFromStream(getHgInputStream(files, CHANGESET_EAGER_STYLE_PATH));
   }
 
+  /**
+   * Passes the changesets one by one to the given consumer, while they are read from the output of hg.
+   */
+  public void execute(Consumer<Changeset> consumer, String... files) {
+    readFromStream(getHgInputStream(files, CHANGESET_EAGER_STYLE_PATH), consumer);
+  }
+
   public Collection<Modification> extractModifications(String... files) {
     HgInputStream hgInputStream = getHgInputStream(files, CHANGESET_EAGER_STYLE_PATH);
     try {
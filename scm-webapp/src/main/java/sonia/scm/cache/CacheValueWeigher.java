@@ -0,0 +1,115 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.cache;
+
+import com.google.common.cache.Weigher;
+import sonia.scm.repository.BlameLine;
+import sonia.scm.repository.BlameResult;
+import sonia.scm.repository.BrowserResult;
+import sonia.scm.repository.Changeset;
+import sonia.scm.repository.ChangesetPagingResult;
+import sonia.scm.repository.FileObject;
+import sonia.scm.repository.Person;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Estimates the memory consumption of cache values in bytes. The estimation considers the size of the strings and
+ * the number of objects of the common results of the repository api, for which the size varies a lot (a single
+ * {@link BrowserResult} of a recursive request could be larger than thousands of branch lists). All other values
+ * are weighted with a fixed size.
+ */
+class CacheValueWeigher implements Weigher<Object, Object> {
+
+  static final int OBJECT_OVERHEAD = 16;
+  static final int REFERENCE_SIZE = 8;
+  static final int DEFAULT_WEIGHT = 1024;
+
+  @Override
+  public int weigh(Object key, Object value) {
+    return (int) Math.min(Integer.MAX_VALUE, estimate(value));
+  }
+
+  long estimate(Object value) {
+    if (value == null) {
+      return 0;
+    } else if (value instanceof String) {
+      return estimate((String) value);
+    } else if (value instanceof BrowserResult) {
+      BrowserResult result = (BrowserResult) value;
+      return OBJECT_OVERHEAD + estimate(result.getRevision()) + estimate(result.getRequestedRevision()) + estimate(result.getFile());
+    } else if (value instanceof FileObject) {
+      return estimate((FileObject) value);
+    } else if (value instanceof ChangesetPagingResult) {
+      ChangesetPagingResult result = (ChangesetPagingResult) value;
+      return OBJECT_OVERHEAD + estimate(result.getBranchName()) + estimate(result.getChangesets());
+    } else if (value instanceof Changeset) {
+      return estimate((Changeset) value);
+    } else if (value instanceof BlameResult) {
+      return OBJECT_OVERHEAD + estimate(((BlameResult) value).getBlameLines());
+    } else if (value instanceof BlameLine) {
+      BlameLine line = (BlameLine) value;
+      return 3L * OBJECT_OVERHEAD + estimate(line.getRevision()) + estimate(line.getAuthor())
+        + estimate(line.getDescription()) + estimate(line.getCode());
+    } else if (value instanceof Person) {
+      Person person = (Person) value;
+      return OBJECT_OVERHEAD + estimate(person.getName()) + estimate(person.getMail());
+    } else if (value instanceof Collection) {
+      long size = OBJECT_OVERHEAD;
+      for (Object element : (Collection<?>) value) {
+        size += REFERENCE_SIZE + estimate(element);
+      }
+      return size;
+    }
+    return DEFAULT_WEIGHT;
+  }
+
+  private long estimate(String value) {
+    // compact strings need one byte per latin-1 character
+    return value == null ? 0 : 2L * OBJECT_OVERHEAD + value.length();
+  }
+
+  private long estimate(FileObject file) {
+    long size = 3L * OBJECT_OVERHEAD + estimate(file.getName()) + estimate(file.getPath())
+      + estimate(file.getDescription().orElse(null));
+    if (file.getChildren() != null) {
+      for (FileObject child : file.getChildren()) {
+        size += REFERENCE_SIZE + estimate(child);
+      }
+    }
+    return size;
+  }
+
+  private long estimate(Changeset changeset) {
+    long size = 8L * OBJECT_OVERHEAD + estimate(changeset.getId()) + estimate(changeset.getAuthor())
+      + estimate(changeset.getDescription()) + estimate(changeset.getBranches())
+      + estimate(changeset.getParents()) + estimate(changeset.getTags()) + estimate(changeset.getSignatures());
+    for (Map.Entry<String, String> property : changeset.getProperties().entrySet()) {
+      size += OBJECT_OVERHEAD + estimate(property.getKey()) + estimate(property.getValue());
+    }
+    return size;
+  }
+}
@@ -29,9 +29,10 @@ import com.google.common.cache.CacheStats;
 import com.google.common.collect.Sets;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import sonia.scm.repository.RepositoryCacheKeyPredicate;
 
 import java.util.Collection;
-import java.util.Map.Entry;
+import java.util.Map;
 import java.util.Set;
 
 public class GuavaCache<K, V> implements Cache<K, V> {
@@ -41,10 +42,16 @@ public class GuavaCache<K, V> implements Cache<K, V> {
   private final com.google.common.cache.Cache<K, V> cache;
   private final CopyStrategy copyStrategy;
   private final String name;
+  private final RepositoryKeyIndex<K> repositoryKeyIndex;
 
   GuavaCache(com.google.common.cache.Cache<K, V> cache, CopyStrategy copyStrategy, String name) {
+    this(cache, copyStrategy, name, null);
+  }
+
+  GuavaCache(com.google.common.cache.Cache<K, V> cache, CopyStrategy copyStrategy, String name, RepositoryKeyIndex<K> repositoryKeyIndex) {
     this.cache = cache;
     this.name = name;
+    this.repositoryKeyIndex = repositoryKeyIndex;
 
     if (copyStrategy != null) {
       this.copyStrategy = copyStrategy;
@@ -76,8 +83,16 @@ public class GuavaCache<K, V> implements Cache<K, V> {
   public V put(K key, V value) {
     V previous = cache.getIfPresent(key);
 
+    if (repositoryKeyIndex != null) {
+      repositoryKeyIndex.add(key);
+    }
+
     cache.put(key, copyStrategy.copyOnWrite(value));
 
+    if (repositoryKeyIndex != null) {
+      repositoryKeyIndex.confirm(key);
+    }
+
     return previous;
   }
 
@@ -93,13 +108,23 @@ public class GuavaCache<K, V> implements Cache<K, V> {
   @Override
   @SuppressWarnings("java:S4738") // we have to use guava predicate for compatibility
   public Iterable<V> removeAll(Predicate<K> filter) {
+    if (repositoryKeyIndex != null && filter instanceof RepositoryCacheKeyPredicate) {
+      String repositoryId = ((RepositoryCacheKeyPredicate<?>) filter).getRepositoryId();
+      return removeAll(repositoryKeyIndex.remove(repositoryId), filter);
+    }
+    return removeAll(cache.asMap().keySet(), filter);
+  }
+
+  private Iterable<V> removeAll(Iterable<K> candidates, Predicate<K> filter) {
     Set<V> removedValues = Sets.newHashSet();
     Set<K> keysToRemove = Sets.newHashSet();
 
-    for (Entry<K, V> e : cache.asMap().entrySet()) {
-      if (filter.apply(e.getKey())) {
-        keysToRemove.add(e.getKey());
-        removedValues.add(e.getValue());
+    Map<K, V> entries = cache.asMap();
+    for (K key : candidates) {
+      V value = entries.get(key);
+      if (value != null && filter.apply(key)) {
+        keysToRemove.add(key);
+        removedValues.add(value);
       }
     }
 
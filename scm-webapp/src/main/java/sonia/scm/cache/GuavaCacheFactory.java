@@ -40,10 +40,12 @@ public class GuavaCacheFactory {
   }
 
   <K, V> GuavaCache<K, V> create(GuavaCacheConfiguration configuration, String name) {
-    com.google.common.cache.Cache<K, V> cache = GuavaCaches.create(configuration, name);
+    RepositoryKeyIndex<K> repositoryKeyIndex = new RepositoryKeyIndex<>();
+    com.google.common.cache.Cache<K, V> cache = GuavaCaches.create(configuration, name, repositoryKeyIndex);
+    repositoryKeyIndex.bind(cache);
 
     new GuavaCacheMetrics(cache, name, Collections.emptySet()).bindTo(meterRegistry);
 
-    return new GuavaCache<>(cache, configuration.getCopyStrategy(), name);
+    return new GuavaCache<>(cache, configuration.getCopyStrategy(), name, repositoryKeyIndex);
   }
 }
@@ -25,6 +25,7 @@
 package sonia.scm.cache;
 
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,6 +40,11 @@ public final class GuavaCaches {
 
   public static <K, V> com.google.common.cache.Cache<K, V> create(
     GuavaCacheConfiguration configuration, String name) {
+    return create(configuration, name, null);
+  }
+
+  static <K, V> com.google.common.cache.Cache<K, V> create(
+    GuavaCacheConfiguration configuration, String name, RemovalListener<Object, Object> removalListener) {
     CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder();
 
     // Collect guava cache statistics
@@ -67,7 +73,9 @@ public final class GuavaCaches {
     }
 
     if (configuration.getMaximumWeight() != null) {
+      // the weight is the estimated size of the values in bytes
       builder.maximumWeight(configuration.getMaximumWeight());
+      builder = builder.weigher(new CacheValueWeigher());
     }
 
     if (isEnabled(configuration.getRecordStats())) {
@@ -86,6 +94,10 @@ public final class GuavaCaches {
       builder.weakKeys();
     }
 
+    if (removalListener != null) {
+      builder = builder.removalListener(removalListener);
+    }
+
     if (LOG.isTraceEnabled()) {
       LOG.trace("create new cache {} from builder: {}", name, builder);
     }
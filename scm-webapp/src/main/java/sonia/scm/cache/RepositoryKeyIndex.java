@@ -0,0 +1,107 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.cache;
+
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import sonia.scm.repository.RepositoryCacheKey;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index from repository ids to the keys of a cache, which implement {@link RepositoryCacheKey}. The index allows
+ * removing all entries of a repository without scanning all keys of the cache. Entries which are evicted or
+ * expired are removed from the index by the {@link RemovalListener}.
+ *
+ * @param <K> type of the keys
+ */
+class RepositoryKeyIndex<K> implements RemovalListener<Object, Object> {
+
+  private final Map<String, Set<K>> keysByRepository = new ConcurrentHashMap<>();
+  private Map<K, ?> entries;
+
+  void bind(com.google.common.cache.Cache<K, ?> cache) {
+    this.entries = cache.asMap();
+  }
+
+  /**
+   * Has to be called <b>before</b> the entry is put into the cache. If the entry is evicted right away, the
+   * {@link RemovalListener} finds no entry for the key and removes it from the index again.
+   */
+  void add(K key) {
+    if (key instanceof RepositoryCacheKey) {
+      keysByRepository.compute(((RepositoryCacheKey) key).getRepositoryId(), (repositoryId, keys) -> {
+        Set<K> result = keys != null ? keys : new HashSet<>();
+        result.add(key);
+        return result;
+      });
+    }
+  }
+
+  /**
+   * Has to be called <b>after</b> the entry was put into the cache. A concurrent removal of a previous entry with the
+   * same key could have removed the key from the index between {@link #add(Object)} and the put, so the key is
+   * added again, if the cache still contains the entry.
+   */
+  void confirm(K key) {
+    if (key instanceof RepositoryCacheKey) {
+      keysByRepository.compute(((RepositoryCacheKey) key).getRepositoryId(), (repositoryId, keys) -> {
+        if (entries != null && !entries.containsKey(key)) {
+          return keys;
+        }
+        Set<K> result = keys != null ? keys : new HashSet<>();
+        result.add(key);
+        return result;
+      });
+    }
+  }
+
+  /**
+   * Removes and returns all keys of the given repository.
+   */
+  Set<K> remove(String repositoryId) {
+    Set<K> keys = keysByRepository.remove(repositoryId);
+    return keys != null ? keys : Collections.emptySet();
+  }
+
+  @Override
+  public void onRemoval(RemovalNotification<Object, Object> notification) {
+    Object key = notification.getKey();
+    if (notification.getCause() != RemovalCause.REPLACED && key instanceof RepositoryCacheKey) {
+      // the check for the entry runs in the same lock as add, so that a concurrent put of the same key is not lost
+      keysByRepository.computeIfPresent(((RepositoryCacheKey) key).getRepositoryId(), (repositoryId, keys) -> {
+        if (entries == null || !entries.containsKey(key)) {
+          keys.remove(key);
+        }
+        return keys.isEmpty() ? null : keys;
+      });
+    }
+  }
+}
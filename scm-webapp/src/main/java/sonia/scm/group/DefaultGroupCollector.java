@@ -56,7 +56,7 @@ public class DefaultGroupCollector implements GroupCollector {
   @VisibleForTesting
   static final String CACHE_NAME = "sonia.cache.externalGroups";
 
-  private final GroupDAO groupDAO;
+  private final GroupMembershipIndex membershipIndex;
   private final Cache<String, Set<String>> cache;
   private final Set<GroupResolver> groupResolvers;
 
@@ -64,7 +64,7 @@ public class DefaultGroupCollector implements GroupCollector {
 
   @Inject
   public DefaultGroupCollector(GroupDAO groupDAO, CacheManager cacheManager, Set<GroupResolver> groupResolvers, ConfigurationStoreFactory configurationStoreFactory) {
-    this.groupDAO = groupDAO;
+    this.membershipIndex = new GroupMembershipIndex(groupDAO);
     this.cache = cacheManager.getCache(CACHE_NAME);
     this.groupResolvers = groupResolvers;
     this.store = configurationStoreFactory.withType(UserGroupCache.class).withName("user-group-cache").build();
@@ -119,8 +119,26 @@ public class DefaultGroupCollector implements GroupCollector {
     }
   }
 
+  @Subscribe(async = false)
+  public void updateMembershipIndex(GroupEvent event) {
+    HandlerEventType eventType = event.getEventType();
+    if (!eventType.isPost()) {
+      return;
+    }
+    Group group = event.getItem();
+    if (eventType == HandlerEventType.DELETE) {
+      membershipIndex.remove(group.getName());
+    } else {
+      Group oldGroup = event.getOldItem();
+      if (oldGroup != null && !oldGroup.getName().equals(group.getName())) {
+        membershipIndex.remove(oldGroup.getName());
+      }
+      membershipIndex.put(group);
+    }
+  }
+
   private Stream<String> computeInternalGroups(String principal) {
-    return groupDAO.getAll().stream().filter(group -> group.isMember(principal)).map(Group::getName);
+    return membershipIndex.getGroups(principal).stream();
   }
 
   private void appendInternalGroups(String principal, ImmutableSet.Builder<String> builder) {
@@ -34,6 +34,7 @@ import org.slf4j.LoggerFactory;
 import sonia.scm.HandlerEventType;
 import sonia.scm.ManagerDaoAdapter;
 import sonia.scm.NotFoundException;
+import sonia.scm.PageResult;
 import sonia.scm.SCMContextProvider;
 import sonia.scm.auditlog.Auditor;
 import sonia.scm.search.SearchRequest;
@@ -191,6 +192,23 @@ public class DefaultGroupManager extends AbstractGroupManager {
     return groups;
   }
 
+  /**
+   * Selects the requested page without cloning all readable groups.
+   */
+  @Override
+  public PageResult<Group> getPage(Predicate<Group> filter, Comparator<Group> comparator, int pageNumber, int pageSize) {
+    PermissionActionCheck<Group> check = GroupPermissions.read();
+    boolean readAll = GroupPermissions.read("*").isPermitted();
+    return PageResult.createPage(
+      groupDAO.getAll(),
+      group -> filter.test(group) && (readAll || check.isPermitted(group)),
+      comparator,
+      pageNumber,
+      pageSize,
+      Group::clone
+    );
+  }
+
   @Override
   public Collection<Group> getAll(Comparator<Group> comparator, int start,
                                   int limit) {
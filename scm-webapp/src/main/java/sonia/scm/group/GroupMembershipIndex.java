@@ -0,0 +1,133 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.group;
+
+import com.google.common.collect.ImmutableSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reverse index from members to the names of their internal groups. The index is built lazily from the
+ * {@link GroupDAO} and is afterwards kept in sync by applying only the changed memberships of a group.
+ * Modifications check the initialized flag with the same monitor which is held during the build, so a modification
+ * which arrives during the build waits for it and is applied to the built index afterwards.
+ */
+class GroupMembershipIndex {
+
+  private static final Logger LOG = LoggerFactory.getLogger(GroupMembershipIndex.class);
+
+  private final GroupDAO groupDAO;
+
+  private final Map<String, Set<String>> groupsByMember = new ConcurrentHashMap<>();
+  private final Map<String, Set<String>> membersByGroup = new HashMap<>();
+
+  private volatile boolean initialized = false;
+
+  GroupMembershipIndex(GroupDAO groupDAO) {
+    this.groupDAO = groupDAO;
+  }
+
+  Set<String> getGroups(String member) {
+    if (!initialized) {
+      initialize();
+    }
+    return groupsByMember.getOrDefault(member, Collections.emptySet());
+  }
+
+  synchronized void put(Group group) {
+    if (!initialized) {
+      // the index will be built from the dao on first access, the dao already contains the modification
+      return;
+    }
+    String name = group.getName();
+    Set<String> newMembers = ImmutableSet.copyOf(group.getMembers());
+    Set<String> oldMembers = membersByGroup.getOrDefault(name, Collections.emptySet());
+
+    for (String member : oldMembers) {
+      if (!newMembers.contains(member)) {
+        removeGroup(member, name);
+      }
+    }
+    for (String member : newMembers) {
+      if (!oldMembers.contains(member)) {
+        addGroup(member, name);
+      }
+    }
+
+    if (newMembers.isEmpty()) {
+      membersByGroup.remove(name);
+    } else {
+      membersByGroup.put(name, newMembers);
+    }
+  }
+
+  synchronized void remove(String groupName) {
+    if (!initialized) {
+      return;
+    }
+    Set<String> members = membersByGroup.remove(groupName);
+    if (members != null) {
+      members.forEach(member -> removeGroup(member, groupName));
+    }
+  }
+
+  private synchronized void initialize() {
+    if (!initialized) {
+      LOG.debug("build group membership index");
+      for (Group group : groupDAO.getAll()) {
+        Set<String> members = ImmutableSet.copyOf(group.getMembers());
+        if (!members.isEmpty()) {
+          membersByGroup.put(group.getName(), members);
+          members.forEach(member -> addGroup(member, group.getName()));
+        }
+      }
+      initialized = true;
+    }
+  }
+
+  private void addGroup(String member, String groupName) {
+    groupsByMember.compute(member, (key, groups) -> {
+      if (groups == null) {
+        return ImmutableSet.of(groupName);
+      }
+      return ImmutableSet.<String>builder().addAll(groups).add(groupName).build();
+    });
+  }
+
+  private void removeGroup(String member, String groupName) {
+    groupsByMember.computeIfPresent(member, (key, groups) -> {
+      ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+      groups.stream().filter(group -> !group.equals(groupName)).forEach(builder::add);
+      Set<String> remaining = builder.build();
+      return remaining.isEmpty() ? null : remaining;
+    });
+  }
+}
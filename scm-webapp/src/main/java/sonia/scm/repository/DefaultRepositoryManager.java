@@ -24,6 +24,7 @@
 
 package sonia.scm.repository;
 
+import com.github.sdorra.ssp.PermissionActionCheck;
 import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
 import com.google.inject.Inject;
@@ -35,6 +36,7 @@ import sonia.scm.HandlerEventType;
 import sonia.scm.ManagerDaoAdapter;
 import sonia.scm.NoChangesMadeException;
 import sonia.scm.NotFoundException;
+import sonia.scm.PageResult;
 import sonia.scm.SCMContextProvider;
 import sonia.scm.Type;
 import sonia.scm.auditlog.Auditor;
@@ -375,6 +377,26 @@ public class DefaultRepositoryManager extends AbstractRepositoryManager {
     return repositories;
   }
 
+  /**
+   * Selects the requested page without cloning and post processing all readable repositories.
+   * The permission of every single repository is only checked, if the user has no global read permission.
+   */
+  @Override
+  public PageResult<Repository> getPage(Predicate<Repository> filter, Comparator<Repository> comparator, int pageNumber, int pageSize) {
+    PermissionActionCheck<Repository> check = RepositoryPermissions.read();
+    boolean readAll = RepositoryPermissions.read("*").isPermitted();
+    return PageResult.createPage(
+      repositoryDAO.getAll(),
+      repository -> handlerMap.containsKey(repository.getType())
+        && filter.test(repository)
+        && (readAll || check.isPermitted(repository)),
+      comparator,
+      pageNumber,
+      pageSize,
+      this::postProcess
+    );
+  }
+
   @Override
   public Collection<Repository> getAll() {
     return getAll(repository -> true, null);
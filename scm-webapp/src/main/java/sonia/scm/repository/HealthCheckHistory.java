@@ -0,0 +1,103 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.repository;
+
+import com.github.legman.Subscribe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sonia.scm.HandlerEventType;
+import sonia.scm.store.ConfigurationStore;
+import sonia.scm.store.ConfigurationStoreFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.Closeable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which repositories were healthy at their last light check, together with the last modified marker of the
+ * repository at that time. Because the last modified date of a repository changes with every push, a repository with
+ * an unchanged marker does not have to be checked again after a restart.
+ */
+@Singleton
+class HealthCheckHistory implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(HealthCheckHistory.class);
+
+  private final ConfigurationStore<HealthCheckMarkers> store;
+  private final Map<String, Long> healthyMarkers = new ConcurrentHashMap<>();
+
+  private volatile boolean dirty = false;
+
+  @Inject
+  HealthCheckHistory(ConfigurationStoreFactory storeFactory) {
+    this.store = storeFactory.withType(HealthCheckMarkers.class).withName("repository-health-checks").build();
+    store.getOptional().ifPresent(markers -> healthyMarkers.putAll(markers.getHealthy()));
+  }
+
+  boolean isUnchanged(Repository repository) {
+    Long marker = marker(repository);
+    return marker != null && marker.equals(healthyMarkers.get(repository.getId()));
+  }
+
+  void record(Repository repository, HealthCheckResult result) {
+    Long marker = marker(repository);
+    if (result.isHealthy() && marker != null) {
+      healthyMarkers.put(repository.getId(), marker);
+    } else {
+      healthyMarkers.remove(repository.getId());
+    }
+    dirty = true;
+  }
+
+  synchronized void store() {
+    if (dirty) {
+      dirty = false;
+      LOG.debug("store health check markers of {} repositories", healthyMarkers.size());
+      store.set(new HealthCheckMarkers(healthyMarkers));
+    }
+  }
+
+  @Subscribe(async = false)
+  public void onEvent(RepositoryEvent event) {
+    if (event.getEventType() == HandlerEventType.DELETE && healthyMarkers.remove(event.getItem().getId()) != null) {
+      dirty = true;
+    }
+  }
+
+  @Override
+  public void close() {
+    store();
+  }
+
+  private Long marker(Repository repository) {
+    Long lastModified = repository.getLastModified();
+    if (lastModified != null) {
+      return lastModified;
+    }
+    return repository.getCreationDate();
+  }
+}
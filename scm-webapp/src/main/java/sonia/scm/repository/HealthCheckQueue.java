@@ -0,0 +1,95 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Runs health checks for many repositories on an executor. The checks are started in the order of the given list,
+ * but there are never more checks of one repository type running than the limit of the type allows.
+ */
+class HealthCheckQueue {
+
+  private static final Logger LOG = LoggerFactory.getLogger(HealthCheckQueue.class);
+
+  private final Executor executor;
+  private final ToIntFunction<String> concurrencyLimit;
+
+  HealthCheckQueue(Executor executor, ToIntFunction<String> concurrencyLimit) {
+    this.executor = executor;
+    this.concurrencyLimit = concurrencyLimit;
+  }
+
+  /**
+   * Checks every repository with the given check and waits until all checks are finished.
+   */
+  void run(List<Repository> repositories, Consumer<Repository> check) throws InterruptedException {
+    Map<String, Queue<Repository>> queues = new LinkedHashMap<>();
+    for (Repository repository : repositories) {
+      queues.computeIfAbsent(repository.getType(), type -> new ArrayDeque<>()).add(repository);
+    }
+
+    CountDownLatch latch = new CountDownLatch(repositories.size());
+    Map<String, Integer> started = new HashMap<>();
+    for (Repository repository : repositories) {
+      String type = repository.getType();
+      if (started.merge(type, 1, Integer::sum) <= Math.max(1, concurrencyLimit.applyAsInt(type))) {
+        startNext(queues.get(type), check, latch);
+      }
+    }
+    latch.await();
+  }
+
+  private void startNext(Queue<Repository> queue, Consumer<Repository> check, CountDownLatch latch) {
+    Repository repository;
+    synchronized (queue) {
+      repository = queue.poll();
+    }
+    if (repository != null) {
+      executor.execute(() -> {
+        try {
+          check.accept(repository);
+        } catch (RuntimeException ex) {
+          LOG.error("health check of repository {} failed", repository, ex);
+        } finally {
+          latch.countDown();
+          startNext(queue, check, latch);
+        }
+      });
+    }
+  }
+}
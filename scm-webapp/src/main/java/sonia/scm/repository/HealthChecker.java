@@ -24,8 +24,10 @@
 
 package sonia.scm.repository;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.subject.Subject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import sonia.scm.NotFoundException;
@@ -39,8 +41,11 @@ import sonia.scm.repository.api.RepositoryServiceFactory;
 
 import javax.inject.Singleton;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -54,6 +59,9 @@ final class HealthChecker {
   private static final Logger logger =
     LoggerFactory.getLogger(HealthChecker.class);
 
+  private static final String THREADS_PROPERTY = "scm.healthCheck.threads";
+  private static final String CONCURRENCY_PROPERTY_PREFIX = "scm.healthCheck.concurrency.";
+
   private final Set<HealthCheck> checks;
 
   private final RepositoryManager repositoryManager;
@@ -66,6 +74,8 @@ final class HealthChecker {
 
   private final ScmConfiguration scmConfiguration;
   private final NotificationSender notificationSender;
+  private final HealthCheckHistory history;
+  private final int threads;
 
   @Inject
   HealthChecker(Set<HealthCheck> checks,
@@ -73,7 +83,10 @@ final class HealthChecker {
                 RepositoryServiceFactory repositoryServiceFactory,
                 RepositoryPostProcessor repositoryPostProcessor,
                 ScmConfiguration scmConfiguration,
-                NotificationSender notificationSender) {
+                NotificationSender notificationSender,
+                HealthCheckHistory history) {
+    this.history = history;
+    this.threads = Integer.getInteger(THREADS_PROPERTY, Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
     this.checks = checks;
     this.repositoryManager = repositoryManager;
     this.repositoryServiceFactory = repositoryServiceFactory;
@@ -119,22 +132,62 @@ final class HealthChecker {
     return repository;
   }
 
+  /**
+   * Runs the light checks of all repositories in parallel. Repositories which were healthy at their last check and
+   * which have not been modified since then are skipped. The most recently modified repositories are checked first.
+   */
   void lightCheckAll() {
     logger.debug("check health of all repositories");
 
+    List<Repository> repositories = new ArrayList<>();
     for (Repository repository : repositoryManager.getAll()) {
-      if (RepositoryPermissions.healthCheck().isPermitted(repository)) {
-        try {
-          lightCheck(repository);
-        } catch (NotFoundException ex) {
-          logger.error("health check ends with exception", ex);
-        }
-      } else {
+      if (!RepositoryPermissions.healthCheck().isPermitted(repository)) {
         logger.debug(
           "no permissions to execute health check for repository {}",
           repository);
+      } else if (history.isUnchanged(repository)) {
+        logger.debug("skip health check for unchanged repository {}", repository);
+      } else {
+        repositories.add(repository);
       }
     }
+    repositories.sort(Comparator.comparingLong(HealthChecker::lastModified).reversed());
+
+    Subject subject = SecurityUtils.getSubject();
+    ExecutorService executor = Executors.newFixedThreadPool(
+      threads, new ThreadFactoryBuilder().setNameFormat("HealthCheck-%d").setDaemon(true).build()
+    );
+    try {
+      new HealthCheckQueue(executor, this::concurrencyLimit)
+        .run(repositories, repository -> subject.associateWith(() -> lightCheckAllEntry(repository)).run());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      executor.shutdown();
+      history.store();
+    }
+  }
+
+  private void lightCheckAllEntry(Repository repository) {
+    try {
+      lightCheck(repository);
+    } catch (NotFoundException ex) {
+      logger.error("health check ends with exception", ex);
+    }
+  }
+
+  private int concurrencyLimit(String type) {
+    return Integer.getInteger(CONCURRENCY_PROPERTY_PREFIX + type, threads);
+  }
+
+  private static long lastModified(Repository repository) {
+    if (repository.getLastModified() != null) {
+      return repository.getLastModified();
+    }
+    if (repository.getCreationDate() != null) {
+      return repository.getCreationDate();
+    }
+    return 0;
   }
 
   private void doLightCheck(Repository repository) {
@@ -149,6 +202,7 @@ final class HealthChecker {
       }
 
       storeResult(repository, result);
+      history.record(repository, result);
     });
   }
 
@@ -174,6 +228,7 @@ final class HealthChecker {
 
         notifyCurrentUser(repository, result);
         storeResult(repository, result);
+        history.record(repository, result);
       })
     );
   }
@@ -78,7 +78,7 @@ public class RepositoryIndexer implements Indexer<Repository> {
           .batch(createDeleteTask(repository));
       } else {
         searchEngine.forType(Repository.class)
-          .update(createStoreTask(repository));
+          .update(repository.getId(), createStoreTask(repository));
       }
     }
   }
@@ -29,9 +29,9 @@ import sonia.scm.event.ScmEventBus;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.google.common.collect.ImmutableList.copyOf;
 import static java.util.Collections.emptyList;
@@ -41,7 +41,7 @@ class RepositoryPostProcessor {
 
   private final ScmEventBus eventBus;
 
-  private final Map<String, List<HealthCheckFailure>> checkResults = new HashMap<>();
+  private final Map<String, List<HealthCheckFailure>> checkResults = new ConcurrentHashMap<>();
 
   @Inject
   RepositoryPostProcessor(ScmEventBus eventBus) {
@@ -69,6 +69,10 @@ final class CronExpression {
     return nextExecution;
   }
 
+  Optional<ZonedDateTime> calculateNextRunAfter(ZonedDateTime time) {
+    return executionTime.nextExecution(time);
+  }
+
   private ExecutionTime createExecutionTime(String expression) {
     CronDefinition cronDefinition = CronDefinitionBuilder.instanceDefinitionFor(CronType.QUARTZ);
     CronParser parser = new CronParser(cronDefinition);
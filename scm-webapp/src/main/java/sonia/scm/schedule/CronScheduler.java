@@ -24,37 +24,59 @@
 
 package sonia.scm.schedule;
 
+import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import sonia.scm.metrics.Metrics;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Schedules cron tasks with a single dispatcher thread. The dispatcher waits until the next run of a task and hands
+ * the execution over to a pool of workers. After the execution, the next run of the task is scheduled.
+ */
 @Singleton
 public class CronScheduler implements Scheduler {
 
   private static final Logger LOG = LoggerFactory.getLogger(CronScheduler.class);
 
-  private final ScheduledExecutorService executorService;
+  private static final String WORKERS_PROPERTY = "scm.cron.workers";
+
+  private final ScheduledExecutorService dispatcher;
+  private final ExecutorService workers;
   private final CronTaskFactory taskFactory;
   private final CronThreadFactory threadFactory;
 
+  private final Timer lateness;
+  private final Counter missed;
+
   @Inject
   public CronScheduler(CronTaskFactory taskFactory, MeterRegistry registry) {
     this.taskFactory = taskFactory;
     this.threadFactory = new CronThreadFactory();
-    this.executorService = createExecutor(registry);
+    this.dispatcher = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    this.workers = createWorkers(registry);
+    this.lateness = Timer.builder("scm.cron.lateness")
+      .description("Delay between the planned and the actual start of a cron task")
+      .register(registry);
+    this.missed = Counter.builder("scm.cron.missed")
+      .description("Executions of cron tasks, which have missed at least one run")
+      .register(registry);
   }
 
-  private ScheduledExecutorService createExecutor(MeterRegistry registry) {
-    ScheduledExecutorService executor = Executors.newScheduledThreadPool(2, threadFactory);
-    Metrics.executor(registry, executor, "Cron", "scheduled");
+  private ExecutorService createWorkers(MeterRegistry registry) {
+    ExecutorService executor = Executors.newFixedThreadPool(Integer.getInteger(WORKERS_PROPERTY, 4), threadFactory);
+    Metrics.executor(registry, executor, "Cron", "fixed");
     return executor;
   }
 
@@ -71,18 +93,55 @@ public class CronScheduler implements Scheduler {
   private CronTask schedule(CronTask task) {
     if (task.hasNextRun()) {
       LOG.debug("schedule task {}", task);
-      Future<?> future = executorService.scheduleAtFixedRate(task, 0L, 1L, TimeUnit.SECONDS);
-      task.setFuture(future);
+      scheduleNextRun(task);
     } else {
       LOG.debug("skip scheduling, because task {} has no next run", task);
     }
     return task;
   }
 
+  private void scheduleNextRun(CronTask task) {
+    task.getNextRun().ifPresent(nextRun -> {
+      long delay = Math.max(0L, Duration.between(ZonedDateTime.now(), nextRun).toMillis());
+      try {
+        task.setFuture(dispatcher.schedule(() -> dispatch(task, nextRun), delay, TimeUnit.MILLISECONDS));
+      } catch (RejectedExecutionException ex) {
+        LOG.debug("could not schedule task {}, because the scheduler is closed", task);
+      }
+    });
+  }
+
+  private void dispatch(CronTask task, ZonedDateTime plannedRun) {
+    try {
+      workers.execute(() -> execute(task, plannedRun));
+    } catch (RejectedExecutionException ex) {
+      LOG.debug("could not execute task {}, because the scheduler is closed", task);
+    }
+  }
+
+  private void execute(CronTask task, ZonedDateTime plannedRun) {
+    Duration delay = Duration.between(plannedRun, ZonedDateTime.now());
+    if (!delay.isNegative()) {
+      lateness.record(delay);
+    }
+    try {
+      task.run();
+    } catch (Exception ex) {
+      LOG.warn("execution of task {} failed", task, ex);
+    }
+    if (task.hasMissedRun()) {
+      missed.increment();
+    }
+    if (task.hasNextRun() && !task.isCancelled()) {
+      scheduleNextRun(task);
+    }
+  }
+
   @Override
   public void close() {
-    LOG.debug("shutdown underlying executor service");
+    LOG.debug("shutdown underlying executor services");
     threadFactory.close();
-    executorService.shutdown();
+    dispatcher.shutdown();
+    workers.shutdown();
   }
 }
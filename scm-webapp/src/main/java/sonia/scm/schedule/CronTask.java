@@ -40,8 +40,10 @@ class CronTask implements Task, Runnable {
   private final CronExpression expression;
   private final Runnable runnable;
 
-  private ZonedDateTime nextRun;
+  private volatile ZonedDateTime nextRun;
+  private volatile boolean missedRun = false;
   private Future<?> future;
+  private boolean cancelled = false;
 
   CronTask(String name, CronExpression expression, Runnable runnable) {
     this.name = name;
@@ -50,32 +52,69 @@ class CronTask implements Task, Runnable {
     this.nextRun = expression.calculateNextRun().orElse(null);
   }
 
-  void setFuture(Future<?> future) {
+  synchronized void setFuture(Future<?> future) {
     this.future = future;
+    if (cancelled) {
+      future.cancel(false);
+    }
   }
 
   @Override
   public synchronized void run() {
     if (hasNextRun() && expression.shouldRun(nextRun)) {
       LOG.debug("execute task {}, because of matching expression {}", name, expression);
-      runnable.run();
-      Optional<ZonedDateTime> next = expression.calculateNextRun();
-      if (next.isPresent()) {
-        nextRun = next.get();
-      } else {
-        LOG.debug("cancel task {}, because expression {} has no next execution", name, expression);
-        nextRun = null;
-        cancel();
+      ZonedDateTime plannedRun = nextRun;
+      try {
+        runnable.run();
+      } finally {
+        // advance even if the runnable has failed, otherwise the task would be scheduled again immediately
+        advance(plannedRun);
       }
     } else {
       LOG.trace("skip execution of task {}, because expression {} does not match", name, expression);
     }
   }
 
+  private void advance(ZonedDateTime plannedRun) {
+    Optional<ZonedDateTime> next = expression.calculateNextRun();
+    missedRun = next.isPresent() && hasRunBetween(plannedRun, next.get());
+    if (missedRun) {
+      LOG.debug("task {} has missed at least one run, because its execution was late or took too long", name);
+    }
+    if (next.isPresent()) {
+      nextRun = next.get();
+    } else {
+      LOG.debug("cancel task {}, because expression {} has no next execution", name, expression);
+      nextRun = null;
+      cancel();
+    }
+  }
+
+  private boolean hasRunBetween(ZonedDateTime plannedRun, ZonedDateTime next) {
+    return expression.calculateNextRunAfter(plannedRun)
+      .map(run -> run.isBefore(next))
+      .orElse(false);
+  }
+
   boolean hasNextRun() {
     return nextRun != null;
   }
 
+  Optional<ZonedDateTime> getNextRun() {
+    return Optional.ofNullable(nextRun);
+  }
+
+  /**
+   * Returns {@code true}, if the last execution has skipped at least one run of the expression.
+   */
+  boolean hasMissedRun() {
+    return missedRun;
+  }
+
+  synchronized boolean isCancelled() {
+    return cancelled;
+  }
+
   @VisibleForTesting
   String getName() {
     return name;
@@ -89,7 +128,10 @@ class CronTask implements Task, Runnable {
   @Override
   public synchronized void cancel() {
     LOG.debug("cancel task {} with expression {}", name, expression);
-    future.cancel(false);
+    cancelled = true;
+    if (future != null) {
+      future.cancel(false);
+    }
   }
 
   @Override
@@ -29,7 +29,11 @@ import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import sonia.scm.SCMContextProvider;
 import sonia.scm.plugin.PluginLoader;
 
@@ -40,6 +44,7 @@ import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Closeable;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -47,15 +52,22 @@ import java.nio.file.Paths;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Singleton
-public class IndexManager {
+public class IndexManager implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(IndexManager.class);
 
   private final Path directory;
   private final AnalyzerFactory analyzerFactory;
   private final IndexXml indexXml;
 
+  private final Map<Path, ManagedSearcher> searchers = new ConcurrentHashMap<>();
+  private final Set<Path> staleSearchers = ConcurrentHashMap.newKeySet();
+
   @Inject
   public IndexManager(SCMContextProvider context, PluginLoader pluginLoader, AnalyzerFactory analyzerFactory) {
     directory = context.resolve(Paths.get("index"));
@@ -90,6 +102,67 @@ public class IndexManager {
     return new NoOpIndexReader();
   }
 
+  /**
+   * Acquires a searcher for the given index. The searchers are shared between searches and are only reopened after
+   * changes have been committed to the index (see {@link #refreshSearcher(IndexParams)}). The returned reference must
+   * be closed after the search.
+   */
+  public SearcherReference openForSearch(LuceneSearchableType type, String indexName) throws IOException {
+    Path path = resolveIndexDirectory(type, indexName);
+    ManagedSearcher managed = managedSearcher(path);
+    if (managed == null) {
+      return SearcherReference.unmanaged(new NoOpIndexReader());
+    }
+    if (staleSearchers.remove(path)) {
+      LOG.trace("refresh searcher of index {}", path);
+      managed.manager.maybeRefreshBlocking();
+    }
+    IndexSearcher searcher = managed.manager.acquire();
+    return new SearcherReference(searcher, () -> managed.manager.release(searcher));
+  }
+
+  /**
+   * Marks the searcher of the given index as stale, the searcher is reopened before the next search.
+   */
+  public void refreshSearcher(IndexParams indexParams) {
+    staleSearchers.add(resolveIndexDirectory(indexParams));
+  }
+
+  private ManagedSearcher managedSearcher(Path path) throws IOException {
+    ManagedSearcher managed = searchers.get(path);
+    if (managed != null) {
+      return managed;
+    }
+    synchronized (searchers) {
+      managed = searchers.get(path);
+      if (managed == null) {
+        FSDirectory fsDirectory = FSDirectory.open(path);
+        if (!DirectoryReader.indexExists(fsDirectory)) {
+          fsDirectory.close();
+          return null;
+        }
+        LOG.debug("open searcher for index {}", path);
+        managed = new ManagedSearcher(fsDirectory, new SearcherManager(fsDirectory, null));
+        searchers.put(path, managed);
+      }
+      return managed;
+    }
+  }
+
+  @Override
+  public void close() {
+    synchronized (searchers) {
+      for (Map.Entry<Path, ManagedSearcher> e : searchers.entrySet()) {
+        try {
+          e.getValue().close();
+        } catch (IOException ex) {
+          LOG.warn("failed to close searcher of index {}", e.getKey(), ex);
+        }
+      }
+      searchers.clear();
+    }
+  }
+
   public IndexWriter openForWrite(IndexParams indexParams) {
     IndexWriterConfig config = new IndexWriterConfig(analyzerFactory.create(indexParams.getSearchableType()));
     config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
@@ -131,6 +204,26 @@ public class IndexManager {
     JAXB.marshal(indexXml, path.toFile());
   }
 
+  private static class ManagedSearcher implements Closeable {
+
+    private final FSDirectory directory;
+    private final SearcherManager manager;
+
+    private ManagedSearcher(FSDirectory directory, SearcherManager manager) {
+      this.directory = directory;
+      this.manager = manager;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        manager.close();
+      } finally {
+        directory.close();
+      }
+    }
+  }
+
   @Data
   @XmlRootElement(name = "indices")
   @XmlAccessorType(XmlAccessType.FIELD)
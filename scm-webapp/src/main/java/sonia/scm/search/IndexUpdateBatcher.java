@@ -0,0 +1,192 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.search;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Collects index updates for a short time and submits them as one {@link LuceneBatchIndexTask} per index. Pending
+ * updates of the same item are replaced by newer ones. A batch is submitted once the delay since its first update has
+ * passed or it has reached its maximum size.
+ * <p>
+ * The delay and the maximum size can be configured with the system properties {@code scm.search.batch.delayMillis}
+ * (default 250) and {@code scm.search.batch.maxSize} (default 500).
+ */
+@Singleton
+public class IndexUpdateBatcher implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(IndexUpdateBatcher.class);
+
+  static final String METRIC_PENDING = "scm.search.batch.pending";
+  static final String METRIC_SIZE = "scm.search.batch.size";
+
+  private static final long DEFAULT_DELAY_MILLIS = 250;
+  private static final int DEFAULT_MAX_SIZE = 500;
+
+  private final ScheduledExecutorService scheduler;
+  private final long delayMillis;
+  private final int maxSize;
+  private final DistributionSummary batchSize;
+
+  private final Map<BatchKey, Batch> batches = new LinkedHashMap<>();
+
+  @Inject
+  public IndexUpdateBatcher(MeterRegistry meterRegistry) {
+    this(
+      meterRegistry,
+      Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat("IndexUpdateBatcher-%d").setDaemon(true).build()
+      ),
+      Long.getLong("scm.search.batch.delayMillis", DEFAULT_DELAY_MILLIS),
+      Integer.getInteger("scm.search.batch.maxSize", DEFAULT_MAX_SIZE)
+    );
+  }
+
+  @VisibleForTesting
+  IndexUpdateBatcher(MeterRegistry meterRegistry, ScheduledExecutorService scheduler, long delayMillis, int maxSize) {
+    this.scheduler = scheduler;
+    this.delayMillis = delayMillis;
+    this.maxSize = maxSize;
+    this.batchSize = DistributionSummary.builder(METRIC_SIZE)
+      .description("Number of index updates which are applied together")
+      .register(meterRegistry);
+    Gauge.builder(METRIC_PENDING, this, IndexUpdateBatcher::getPendingCount)
+      .description("Number of index updates waiting for their batch to be submitted")
+      .register(meterRegistry);
+  }
+
+  /**
+   * Adds an update to the batch of the given index. Updates with an id replace pending updates with the same id.
+   *
+   * @param params index which is updated
+   * @param id id of the updated item or {@code null}, if the update should not replace other updates
+   * @param task update
+   * @param submitter submits the batch to the work queue
+   */
+  synchronized void add(IndexParams params, @Nullable String id, SerializableIndexTask<?> task, Consumer<LuceneBatchIndexTask> submitter) {
+    BatchKey key = new BatchKey(params.getSearchableType().getName(), params.getIndex());
+    Batch batch = batches.computeIfAbsent(key, k -> new Batch(params, submitter));
+    batch.add(id, task);
+    if (batch.size() >= maxSize) {
+      submit(key);
+    } else if (batch.scheduled == null) {
+      batch.scheduled = scheduler.schedule(() -> submit(key), delayMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Submits all pending batches immediately. This has to be called before other index tasks are submitted, to keep
+   * the order of the updates.
+   */
+  synchronized void flush() {
+    for (BatchKey key : new ArrayList<>(batches.keySet())) {
+      submit(key);
+    }
+  }
+
+  synchronized int getPendingCount() {
+    int count = 0;
+    for (Batch batch : batches.values()) {
+      count += batch.size();
+    }
+    return count;
+  }
+
+  private synchronized void submit(BatchKey key) {
+    Batch batch = batches.remove(key);
+    if (batch != null) {
+      if (batch.scheduled != null) {
+        batch.scheduled.cancel(false);
+      }
+      LOG.debug("submit {} updates for index {}", batch.size(), key);
+      batchSize.record(batch.size());
+      batch.submitter.accept(new LuceneBatchIndexTask(batch.params, new ArrayList<>(batch.tasks.values())));
+    }
+  }
+
+  @Override
+  public void close() {
+    flush();
+    scheduler.shutdown();
+  }
+
+  private static class Batch {
+
+    private final IndexParams params;
+    private final Consumer<LuceneBatchIndexTask> submitter;
+    private final Map<Object, SerializableIndexTask<?>> tasks = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduled;
+
+    private Batch(IndexParams params, Consumer<LuceneBatchIndexTask> submitter) {
+      this.params = params;
+      this.submitter = submitter;
+    }
+
+    void add(@Nullable String id, SerializableIndexTask<?> task) {
+      // updates without id get a key of their own, updates of the same item are moved to the end
+      Object key = id != null ? id : new Object();
+      tasks.remove(key);
+      tasks.put(key, task);
+    }
+
+    int size() {
+      return tasks.size();
+    }
+  }
+
+  @EqualsAndHashCode
+  @AllArgsConstructor
+  private static class BatchKey {
+    String type;
+    String index;
+
+    @Override
+    public String toString() {
+      return type + "/" + index;
+    }
+  }
+}
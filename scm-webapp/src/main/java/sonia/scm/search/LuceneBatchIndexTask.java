@@ -0,0 +1,94 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.search;
+
+import com.google.inject.Injector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sonia.scm.work.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies multiple {@link SerializableIndexTask}s in a single writer session, so that all of them are committed
+ * together. A failing task is logged and skipped, so that it does not discard the other tasks of the batch.
+ */
+public final class LuceneBatchIndexTask extends LuceneIndexTask implements Task {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LuceneBatchIndexTask.class);
+
+  private final ArrayList<SerializableIndexTask<?>> tasks;
+
+  LuceneBatchIndexTask(IndexParams params, List<SerializableIndexTask<?>> tasks) {
+    super(params);
+    this.tasks = new ArrayList<>(tasks);
+  }
+
+  int size() {
+    return tasks.size();
+  }
+
+  @Override
+  public IndexTask<?> task(Injector injector) {
+    tasks.forEach(injector::injectMembers);
+    return new BatchIndexTask(tasks);
+  }
+
+  private static class BatchIndexTask implements IndexTask<Object> {
+
+    private final List<SerializableIndexTask<?>> tasks;
+    private final List<SerializableIndexTask<?>> updated = new ArrayList<>();
+
+    private BatchIndexTask(List<SerializableIndexTask<?>> tasks) {
+      this.tasks = tasks;
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void update(Index<Object> index) {
+      for (SerializableIndexTask task : tasks) {
+        try {
+          task.update(index);
+          updated.add(task);
+        } catch (Exception e) {
+          LOG.error("failed to update index with task {} of batch, continuing with next task", task, e);
+        }
+      }
+    }
+
+    @Override
+    public void afterUpdate() {
+      // tasks which failed to update are skipped, like a single task whose update throws
+      for (SerializableIndexTask<?> task : updated) {
+        try {
+          task.afterUpdate();
+        } catch (Exception e) {
+          LOG.error("failed to run after update of task {} of batch, continuing with next task", task, e);
+        }
+      }
+    }
+  }
+}
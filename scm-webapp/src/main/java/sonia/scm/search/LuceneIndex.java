@@ -28,10 +28,12 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.util.BytesRef;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -55,9 +57,13 @@ class LuceneIndex<T> implements Index<T>, AutoCloseable {
   private final SharableIndexWriter writer;
 
   LuceneIndex(IndexParams params, Supplier<IndexWriter> writerFactory) {
+    this(params, writerFactory, () -> {});
+  }
+
+  LuceneIndex(IndexParams params, Supplier<IndexWriter> writerFactory, Runnable commitListener) {
     this.details = params;
     this.searchableType = params.getSearchableType();
-    this.writer = new SharableIndexWriter(writerFactory);
+    this.writer = new SharableIndexWriter(writerFactory, commitListener);
     this.open();
   }
 
@@ -92,6 +98,9 @@ class LuceneIndex<T> implements Index<T>, AutoCloseable {
       if (!Strings.isNullOrEmpty(permission)) {
         field(document, PERMISSION, permission);
       }
+      // doc values are added for documents without permission too, so that the PermissionAwareCollector can
+      // distinguish them from documents which were indexed before doc values were introduced
+      document.add(new SortedDocValuesField(PERMISSION, new BytesRef(Strings.nullToEmpty(permission))));
 
       writer.updateDocument(idTerm(id), document);
     } catch (IOException e) {
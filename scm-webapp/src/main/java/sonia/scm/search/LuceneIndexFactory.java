@@ -53,7 +53,8 @@ public class LuceneIndexFactory {
       }
       return new LuceneIndex<>(
         indexParams,
-        () -> indexManager.openForWrite(indexParams)
+        () -> indexManager.openForWrite(indexParams),
+        () -> indexManager.refreshSearcher(indexParams)
       );
     });
   }
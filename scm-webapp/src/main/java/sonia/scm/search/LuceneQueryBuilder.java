@@ -28,7 +28,6 @@ import com.google.common.base.Strings;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
-import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.queryparser.flexible.core.QueryNodeException;
 import org.apache.lucene.queryparser.flexible.standard.StandardQueryParser;
@@ -57,19 +56,25 @@ public class LuceneQueryBuilder<T> extends QueryBuilder<T> {
   private final LuceneSearchableType searchableType;
   private final String indexName;
   private final Analyzer analyzer;
+  private final SearchMetrics metrics;
 
   LuceneQueryBuilder(IndexManager opener, String indexName, LuceneSearchableType searchableType, Analyzer analyzer) {
+    this(opener, indexName, searchableType, analyzer, null);
+  }
+
+  LuceneQueryBuilder(IndexManager opener, String indexName, LuceneSearchableType searchableType, Analyzer analyzer, SearchMetrics metrics) {
     this.opener = opener;
     this.indexName = indexName;
     this.searchableType = searchableType;
     this.analyzer = analyzer;
+    this.metrics = metrics;
   }
 
   @Override
   protected QueryCountResult count(QueryParams queryParams) {
     TotalHitCountCollector totalHitCountCollector = new TotalHitCountCollector();
     return search(
-      queryParams, totalHitCountCollector,
+      "count", queryParams, totalHitCountCollector,
       (searcher, query) -> new QueryCountResult(searchableType.getType(), totalHitCountCollector.getTotalHits())
     );
   }
@@ -77,13 +82,13 @@ public class LuceneQueryBuilder<T> extends QueryBuilder<T> {
   @Override
   protected QueryResult execute(QueryParams queryParams) {
     TopScoreDocCollector topScoreCollector = createTopScoreCollector(queryParams);
-    return search(queryParams, topScoreCollector, (searcher, query) -> {
+    return search("execute", queryParams, topScoreCollector, (searcher, query) -> {
       QueryResultFactory resultFactory = new QueryResultFactory(analyzer, searcher, searchableType, query);
       return resultFactory.create(getTopDocs(queryParams, topScoreCollector));
     });
   }
 
-  private <R> R search(QueryParams queryParams, Collector collector, ResultBuilder<R> resultBuilder) {
+  private <R> R search(String operation, QueryParams queryParams, Collector collector, ResultBuilder<R> resultBuilder) {
     String queryString = Strings.nullToEmpty(queryParams.getQueryString());
 
     Query parsedQuery = createQuery(searchableType, queryParams, queryString);
@@ -91,16 +96,21 @@ public class LuceneQueryBuilder<T> extends QueryBuilder<T> {
     if (LOG.isDebugEnabled()) {
       LOG.debug("execute lucene query: {}", query);
     }
-    try (IndexReader reader = opener.openForRead(searchableType, indexName)) {
-      IndexSearcher searcher = new IndexSearcher(reader);
+    SearchMetrics.Sample sample = metrics != null ? metrics.start() : null;
+    try (SearcherReference reference = opener.openForSearch(searchableType, indexName)) {
+      IndexSearcher searcher = reference.getSearcher();
 
-      searcher.search(query, new PermissionAwareCollector(reader, collector));
+      searcher.search(query, new PermissionAwareCollector(reference.getReader(), collector));
 
       return resultBuilder.create(searcher, parsedQuery);
     } catch (IOException e) {
       throw new SearchEngineException("failed to search index", e);
     } catch (InvalidTokenOffsetsException e) {
       throw new SearchEngineException("failed to highlight results", e);
+    } finally {
+      if (sample != null) {
+        metrics.stop(sample, searchableType, operation);
+      }
     }
   }
 
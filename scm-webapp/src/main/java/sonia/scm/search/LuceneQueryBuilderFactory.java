@@ -24,17 +24,21 @@
 
 package sonia.scm.search;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 import javax.inject.Inject;
 
 public class LuceneQueryBuilderFactory {
 
   private final IndexManager indexManager;
   private final AnalyzerFactory analyzerFactory;
+  private final SearchMetrics metrics;
 
   @Inject
-  public LuceneQueryBuilderFactory(IndexManager indexManager, AnalyzerFactory analyzerFactory) {
+  public LuceneQueryBuilderFactory(IndexManager indexManager, AnalyzerFactory analyzerFactory, MeterRegistry meterRegistry) {
     this.indexManager = indexManager;
     this.analyzerFactory = analyzerFactory;
+    this.metrics = new SearchMetrics(meterRegistry);
   }
 
   public <T> LuceneQueryBuilder<T> create(IndexParams indexParams) {
@@ -42,7 +46,8 @@ public class LuceneQueryBuilderFactory {
       indexManager,
       indexParams.getIndex(),
       indexParams.getSearchableType(),
-      analyzerFactory.create(indexParams.getSearchableType())
+      analyzerFactory.create(indexParams.getSearchableType()),
+      metrics
     );
   }
 
@@ -31,6 +31,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import sonia.scm.work.CentralWorkQueue;
 import sonia.scm.work.CentralWorkQueue.Enqueue;
+import sonia.scm.work.CentralWorkQueue.Priority;
 import sonia.scm.work.Task;
 
 import javax.inject.Inject;
@@ -49,13 +50,19 @@ public class LuceneSearchEngine implements SearchEngine {
   private final SearchableTypeResolver resolver;
   private final LuceneQueryBuilderFactory queryBuilderFactory;
   private final CentralWorkQueue centralWorkQueue;
+  private final IndexUpdateBatcher batcher;
 
-  @Inject
   public LuceneSearchEngine(IndexManager indexManager, SearchableTypeResolver resolver, LuceneQueryBuilderFactory queryBuilderFactory, CentralWorkQueue centralWorkQueue) {
+    this(indexManager, resolver, queryBuilderFactory, centralWorkQueue, null);
+  }
+
+  @Inject
+  public LuceneSearchEngine(IndexManager indexManager, SearchableTypeResolver resolver, LuceneQueryBuilderFactory queryBuilderFactory, CentralWorkQueue centralWorkQueue, IndexUpdateBatcher batcher) {
     this.indexManager = indexManager;
     this.resolver = resolver;
     this.queryBuilderFactory = queryBuilderFactory;
     this.centralWorkQueue = centralWorkQueue;
+    this.batcher = batcher;
   }
 
   @Override
@@ -82,7 +89,17 @@ public class LuceneSearchEngine implements SearchEngine {
   }
 
   private void enqueue(LuceneSearchableType searchableType, String index, List<String> resources, Task task) {
+    if (batcher != null) {
+      // pending batched updates have to be submitted first, to keep the order of the updates
+      batcher.flush();
+    }
+    submit(searchableType, index, resources, task);
+  }
+
+  private void submit(LuceneSearchableType searchableType, String index, List<String> resources, Task task) {
     Enqueue enqueuer = centralWorkQueue.append();
+    // indexing runs in the background, so tasks a user is waiting for should overtake it
+    enqueuer.priority(Priority.LOW);
 
     String resourceName = Joiner.on('-').join(searchableType.getName(), index, "index");
     if (resources.isEmpty()) {
@@ -183,13 +200,26 @@ public class LuceneSearchEngine implements SearchEngine {
 
     @Override
     public void update(SerializableIndexTask<T> task) {
-      enqueue(new LuceneSimpleIndexTask(params(), task));
+      update(null, task);
+    }
+
+    @Override
+    public void update(String id, SerializableIndexTask<T> task) {
+      if (batcher != null && resources.isEmpty()) {
+        batcher.add(params(), id, task, this::submit);
+      } else {
+        enqueue(new LuceneSimpleIndexTask(params(), task));
+      }
     }
 
     private void enqueue(Task task) {
       LuceneSearchEngine.this.enqueue(searchableType, index, resources, task);
     }
 
+    private void submit(LuceneBatchIndexTask task) {
+      LuceneSearchEngine.this.submit(searchableType, index, resources, task);
+    }
+
     @Override
     public QueryBuilder<T> search() {
       searchableType.getPermission().ifPresent(
@@ -28,32 +28,49 @@ import com.google.common.base.Strings;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedDocValues;
 import org.apache.lucene.search.Collector;
 import org.apache.lucene.search.LeafCollector;
 import org.apache.lucene.search.Scorable;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.subject.Subject;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
+/**
+ * Collector which skips documents, the current subject is not permitted to see. The permissions are read from the
+ * doc values of the permission field and every distinct permission is checked only once per query. Documents which
+ * were indexed before the doc values were introduced fall back to the stored permission field.
+ */
 public class PermissionAwareCollector implements Collector {
 
-  private static final String FIELD_PERMISSION = "_permission";
+  private static final String FIELD_PERMISSION = FieldNames.PERMISSION;
   private static final Set<String> FIELDS = Collections.singleton(FIELD_PERMISSION);
 
+  private static final byte UNKNOWN = 0;
+  private static final byte PERMITTED = 1;
+  private static final byte DENIED = 2;
+
   private final IndexReader reader;
   private final Collector delegate;
+  private final Subject subject;
+  private final Map<String, Boolean> decisions = new HashMap<>();
 
   public PermissionAwareCollector(IndexReader reader, Collector delegate) {
     this.reader = reader;
     this.delegate = delegate;
+    this.subject = SecurityUtils.getSubject();
   }
 
   @Override
   public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
-    return new PermissionAwareLeafCollector(delegate.getLeafCollector(context), context.docBase);
+    SortedDocValues permissions = context.reader().getSortedDocValues(FIELD_PERMISSION);
+    return new PermissionAwareLeafCollector(delegate.getLeafCollector(context), context.docBase, permissions);
   }
 
   @Override
@@ -61,14 +78,25 @@ public class PermissionAwareCollector implements Collector {
     return delegate.scoreMode();
   }
 
+  private boolean isPermitted(String permission) {
+    if (Strings.isNullOrEmpty(permission)) {
+      return true;
+    }
+    return decisions.computeIfAbsent(permission, subject::isPermitted);
+  }
+
   private class PermissionAwareLeafCollector implements LeafCollector {
 
     private final LeafCollector delegate;
     private final int docBase;
+    private final SortedDocValues permissions;
+    private final byte[] decisionsByOrd;
 
-    private PermissionAwareLeafCollector(LeafCollector delegate, int docBase) {
+    private PermissionAwareLeafCollector(LeafCollector delegate, int docBase, SortedDocValues permissions) {
       this.delegate = delegate;
       this.docBase = docBase;
+      this.permissions = permissions;
+      this.decisionsByOrd = permissions != null ? new byte[permissions.getValueCount()] : new byte[0];
     }
 
     @Override
@@ -78,11 +106,22 @@ public class PermissionAwareCollector implements Collector {
 
     @Override
     public void collect(int doc) throws IOException {
-      Document document = reader.document(docBase + doc, FIELDS);
-      String permission = document.get(FIELD_PERMISSION);
-      if (Strings.isNullOrEmpty(permission) || SecurityUtils.getSubject().isPermitted(permission)) {
+      if (isPermitted(doc)) {
         this.delegate.collect(doc);
       }
     }
+
+    private boolean isPermitted(int doc) throws IOException {
+      if (permissions != null && permissions.advanceExact(doc)) {
+        int ord = permissions.ordValue();
+        if (decisionsByOrd[ord] == UNKNOWN) {
+          String permission = permissions.lookupOrd(ord).utf8ToString();
+          decisionsByOrd[ord] = PermissionAwareCollector.this.isPermitted(permission) ? PERMITTED : DENIED;
+        }
+        return decisionsByOrd[ord] == PERMITTED;
+      }
+      Document document = reader.document(docBase + doc, FIELDS);
+      return PermissionAwareCollector.this.isPermitted(document.get(FIELD_PERMISSION));
+    }
   }
 }
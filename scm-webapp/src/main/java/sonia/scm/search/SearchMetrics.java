@@ -0,0 +1,93 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.search;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records duration and allocated memory of lucene queries.
+ */
+class SearchMetrics {
+
+  static final String METRIC_DURATION = "scm.search.query.duration";
+  static final String METRIC_ALLOCATION = "scm.search.query.allocation";
+
+  private final MeterRegistry registry;
+
+  SearchMetrics(MeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  Sample start() {
+    return new Sample(System.nanoTime(), allocatedBytes());
+  }
+
+  void stop(Sample sample, LuceneSearchableType searchableType, String operation) {
+    Timer.builder(METRIC_DURATION)
+      .description("Duration of search queries")
+      .tags("type", searchableType.getName(), "operation", operation)
+      .register(registry)
+      .record(System.nanoTime() - sample.startedAt, TimeUnit.NANOSECONDS);
+
+    long allocated = allocatedBytes();
+    if (sample.allocatedAtStart >= 0 && allocated >= 0) {
+      DistributionSummary.builder(METRIC_ALLOCATION)
+        .description("Memory allocated by search queries")
+        .baseUnit("bytes")
+        .tags("type", searchableType.getName(), "operation", operation)
+        .register(registry)
+        .record(allocated - sample.allocatedAtStart);
+    }
+  }
+
+  @SuppressWarnings("java:S1191") // the hotspot extension is the only way to get allocations per thread
+  private static long allocatedBytes() {
+    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean hotspotBean = (com.sun.management.ThreadMXBean) threadMXBean;
+      if (hotspotBean.isThreadAllocatedMemorySupported() && hotspotBean.isThreadAllocatedMemoryEnabled()) {
+        return hotspotBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+    }
+    return -1;
+  }
+
+  static class Sample {
+
+    private final long startedAt;
+    private final long allocatedAtStart;
+
+    private Sample(long startedAt, long allocatedAtStart) {
+      this.startedAt = startedAt;
+      this.allocatedAtStart = allocatedAtStart;
+    }
+  }
+}
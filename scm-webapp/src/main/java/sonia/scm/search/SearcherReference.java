@@ -0,0 +1,67 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.search;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.IndexSearcher;
+
+import java.io.IOException;
+
+/**
+ * An {@link IndexSearcher} acquired from the {@link IndexManager}. The searcher must be released by closing the
+ * reference after the search.
+ */
+class SearcherReference implements AutoCloseable {
+
+  private final IndexSearcher searcher;
+  private final Release release;
+
+  SearcherReference(IndexSearcher searcher, Release release) {
+    this.searcher = searcher;
+    this.release = release;
+  }
+
+  static SearcherReference unmanaged(IndexReader reader) {
+    return new SearcherReference(new IndexSearcher(reader), reader::close);
+  }
+
+  IndexSearcher getSearcher() {
+    return searcher;
+  }
+
+  IndexReader getReader() {
+    return searcher.getIndexReader();
+  }
+
+  @Override
+  public void close() throws IOException {
+    release.release();
+  }
+
+  @FunctionalInterface
+  interface Release {
+    void release() throws IOException;
+  }
+}
@@ -40,24 +40,23 @@ import org.apache.shiro.subject.PrincipalCollection;
 import org.apache.shiro.subject.Subject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import sonia.scm.HandlerEventType;
 import sonia.scm.cache.Cache;
 import sonia.scm.cache.CacheManager;
 import sonia.scm.group.GroupCollector;
 import sonia.scm.group.GroupPermissions;
 import sonia.scm.plugin.Extension;
-import sonia.scm.repository.Namespace;
 import sonia.scm.repository.NamespaceDao;
-import sonia.scm.repository.Repository;
+import sonia.scm.repository.NamespaceEvent;
 import sonia.scm.repository.RepositoryDAO;
+import sonia.scm.repository.RepositoryEvent;
 import sonia.scm.repository.RepositoryPermission;
 import sonia.scm.user.User;
 import sonia.scm.user.UserPermissions;
 
 import java.util.Collection;
-import java.util.Optional;
 import java.util.Set;
 
-import static java.util.Collections.emptySet;
 import static java.util.Collections.unmodifiableCollection;
 
 @Singleton
@@ -73,8 +72,7 @@ public class DefaultAuthorizationCollector implements AuthorizationCollector {
   /** authorization cache */
   private final Cache<CacheKey, AuthorizationInfo> cache;
 
-  private final RepositoryDAO repositoryDAO;
-  private final NamespaceDao namespaceDao;
+  private final RepositoryPermissionIndex permissionIndex;
   private final SecuritySystem securitySystem;
   private final RepositoryPermissionProvider repositoryPermissionProvider;
   private final GroupCollector groupCollector;
@@ -84,11 +82,10 @@ public class DefaultAuthorizationCollector implements AuthorizationCollector {
                                        RepositoryDAO repositoryDAO, SecuritySystem securitySystem, RepositoryPermissionProvider repositoryPermissionProvider, GroupCollector groupCollector, NamespaceDao namespaceDao)
   {
     this.cache = cacheManager.getCache(CACHE_NAME);
-    this.repositoryDAO = repositoryDAO;
+    this.permissionIndex = new RepositoryPermissionIndex(repositoryDAO, namespaceDao);
     this.securitySystem = securitySystem;
     this.repositoryPermissionProvider = repositoryPermissionProvider;
     this.groupCollector = groupCollector;
-    this.namespaceDao = namespaceDao;
   }
 
   @VisibleForTesting
@@ -153,83 +150,17 @@ public class DefaultAuthorizationCollector implements AuthorizationCollector {
     }
   }
 
-  private void collectNamespacePermissions(Builder<String> builder, User user, Set<String> groups) {
-    for (Namespace namespace : namespaceDao.allWithPermissions()) {
-      collectNamespacePermissions(builder, namespace, user, groups);
-    }
-  }
-
-  private void collectNamespacePermissions(Builder<String> builder, Namespace namespace, User user, Set<String> groups) {
-    for (RepositoryPermission permission : namespace.getPermissions()) {
-      if (isUserPermitted(user, groups, permission)) {
-        addNamespacePermission(builder, namespace, user, permission);
-      }
-    }
-  }
-
-  private void addNamespacePermission(Builder<String> builder, Namespace namespace, User user, RepositoryPermission permission) {
-    Collection<String> verbs = getVerbs(permission);
-    if (!verbs.isEmpty())
-    {
-      String perm = "namespace:" + String.join(",", verbs) + ":" + namespace.getId();
-      if (logger.isTraceEnabled())
-      {
-        logger.trace("add namespace permission {} for user {} at namespace {}",
-          perm, user.getName(), namespace.getNamespace());
-      }
-
-      builder.add(perm);
-    }
-  }
-
-  private void collectRepositoryPermissions(Builder<String> builder, User user,
-    Set<String> groups)
-  {
-    for (Repository repository : repositoryDAO.getAll())
-    {
-      collectRepositoryPermissions(builder, repository, user, groups);
-    }
-  }
-
-  private void collectRepositoryPermissions(Builder<String> builder,
-    Repository repository, User user, Set<String> groups)
-  {
-    Optional<Namespace> namespace = namespaceDao.get(repository.getNamespace());
-
-    boolean hasPermission = false;
-    for (RepositoryPermission permission : repository.getPermissions())
-    {
-      hasPermission = isUserPermitted(user, groups, permission);
-      if (hasPermission) {
-        addRepositoryPermission(builder, repository, user, permission);
-      }
-    }
-    for (RepositoryPermission permission : namespace.map(Namespace::getPermissions).orElse(emptySet()))
-    {
-      hasPermission = isUserPermitted(user, groups, permission);
-      if (hasPermission) {
-        addRepositoryPermission(builder, repository, user, permission);
-      }
-    }
-
-    if (!hasPermission && logger.isTraceEnabled())
-    {
-      logger.trace("no permission for user {} defined at repository {}", user.getName(), repository);
-    }
-  }
+  private void collectRepositoryPermissions(Builder<String> builder, User user, Set<String> groups) {
+    for (RepositoryPermissionIndex.Grant grant : permissionIndex.collect(user.getName(), groups)) {
+      Collection<String> verbs = getVerbs(grant.getPermission());
+      if (!verbs.isEmpty()) {
+        String perm = grant.getType() + ":" + String.join(",", verbs) + ":" + grant.getId();
+        if (logger.isTraceEnabled()) {
+          logger.trace("add {} permission {} for user {} at {}", grant.getType(), perm, user.getName(), grant.getName());
+        }
 
-  private void addRepositoryPermission(Builder<String> builder, Repository repository, User user, RepositoryPermission permission) {
-    Collection<String> verbs = getVerbs(permission);
-    if (!verbs.isEmpty())
-    {
-      String perm = "repository:" + String.join(",", verbs) + ":" + repository.getId();
-      if (logger.isTraceEnabled())
-      {
-        logger.trace("add repository permission {} for user {} at repository {}",
-          perm, user.getName(), repository.getName());
+        builder.add(perm);
       }
-
-      builder.add(perm);
     }
   }
 
@@ -251,7 +182,6 @@ public class DefaultAuthorizationCollector implements AuthorizationCollector {
 
     collectGlobalPermissions(builder, user, groups);
     collectRepositoryPermissions(builder, user, groups);
-    collectNamespacePermissions(builder, user, groups);
     builder.add(canReadOwnUser(user));
     if (!Authentications.isSubjectAnonymous(user.getName())) {
       builder.add(getUserAutocompletePermission());
@@ -302,6 +232,29 @@ public class DefaultAuthorizationCollector implements AuthorizationCollector {
     //J+
   }
 
+  @Subscribe(async = false)
+  public void updateIndex(RepositoryEvent event) {
+    if (event.getEventType().isPost()) {
+      boolean changed;
+      if (event.getEventType() == HandlerEventType.DELETE) {
+        changed = permissionIndex.remove(event.getItem().getId());
+      } else {
+        changed = permissionIndex.update(event.getItem());
+      }
+      if (changed) {
+        // the cache could have been refilled from the outdated index in the meantime
+        invalidateCache();
+      }
+    }
+  }
+
+  @Subscribe(async = false)
+  public void updateIndex(NamespaceEvent event) {
+    if (event.getEventType().isPost() && permissionIndex.update(event.getItem())) {
+      invalidateCache();
+    }
+  }
+
   @Subscribe(async = false)
   public void invalidateCache(AuthorizationChangedEvent event) {
     if (event.isEveryUserAffected()) {
@@ -0,0 +1,351 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.security;
+
+import com.google.common.collect.ImmutableSet;
+import sonia.scm.repository.Namespace;
+import sonia.scm.repository.NamespaceDao;
+import sonia.scm.repository.Repository;
+import sonia.scm.repository.RepositoryDAO;
+import sonia.scm.repository.RepositoryPermission;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Inverted index from users and groups to the repositories and namespaces on which they have permissions.
+ * The index is built lazily from the {@link RepositoryDAO} and the {@link NamespaceDao} and is updated
+ * incrementally afterwards, so that collecting the permissions of a single user does not require a scan over
+ * all repositories.
+ *
+ * @since 2.46.0
+ */
+class RepositoryPermissionIndex {
+
+  private final RepositoryDAO repositoryDAO;
+  private final NamespaceDao namespaceDao;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private final Map<String, IndexedRepository> repositories = new HashMap<>();
+  private final Map<String, Set<String>> repositoriesByNamespace = new HashMap<>();
+  private final Map<String, Set<RepositoryPermission>> namespaces = new HashMap<>();
+
+  private final Map<String, Set<String>> userRepositories = new HashMap<>();
+  private final Map<String, Set<String>> groupRepositories = new HashMap<>();
+  private final Map<String, Set<String>> userNamespaces = new HashMap<>();
+  private final Map<String, Set<String>> groupNamespaces = new HashMap<>();
+
+  private volatile boolean initialized = false;
+
+  RepositoryPermissionIndex(RepositoryDAO repositoryDAO, NamespaceDao namespaceDao) {
+    this.repositoryDAO = repositoryDAO;
+    this.namespaceDao = namespaceDao;
+  }
+
+  /**
+   * Returns all repository and namespace permissions which are assigned to the given user or to one of the
+   * given groups. Permissions of a namespace are returned for the namespace itself and for every repository
+   * within this namespace.
+   *
+   * @param username name of the user
+   * @param groups   names of the groups of the user
+   * @return matching grants
+   */
+  Collection<Grant> collect(String username, Set<String> groups) {
+    ensureInitialized();
+    return read(() -> {
+      Set<String> repositoryIds = new HashSet<>();
+      Set<String> namespaceNames = new HashSet<>();
+      addAll(repositoryIds, userRepositories.get(username));
+      addAll(namespaceNames, userNamespaces.get(username));
+      for (String group : groups) {
+        addAll(repositoryIds, groupRepositories.get(group));
+        addAll(namespaceNames, groupNamespaces.get(group));
+      }
+
+      List<Grant> grants = new ArrayList<>();
+      for (String id : repositoryIds) {
+        IndexedRepository repository = repositories.get(id);
+        for (RepositoryPermission permission : repository.permissions) {
+          if (isPermitted(username, groups, permission)) {
+            grants.add(Grant.repository(repository.id, repository.name, permission));
+          }
+        }
+      }
+      for (String namespace : namespaceNames) {
+        for (RepositoryPermission permission : namespaces.get(namespace)) {
+          if (isPermitted(username, groups, permission)) {
+            grants.add(Grant.namespace(namespace, permission));
+            for (String id : repositoriesByNamespace.getOrDefault(namespace, Collections.emptySet())) {
+              grants.add(Grant.repository(id, repositories.get(id).name, permission));
+            }
+          }
+        }
+      }
+      return grants;
+    });
+  }
+
+  /**
+   * Adds or replaces the given repository in the index.
+   *
+   * @param repository created or modified repository
+   * @return {@code true} if the permissions or the namespace of the repository have changed
+   */
+  boolean update(Repository repository) {
+    IndexedRepository indexed = new IndexedRepository(repository);
+    return modify(() -> {
+      IndexedRepository previous = repositories.get(indexed.id);
+      if (indexed.isAuthorizationEqual(previous)) {
+        repositories.put(indexed.id, indexed);
+        return false;
+      }
+      if (previous != null) {
+        unindex(previous, !previous.namespace.equals(indexed.namespace));
+      }
+      index(indexed);
+      return true;
+    });
+  }
+
+  /**
+   * Removes the repository with the given id from the index.
+   *
+   * @param repositoryId id of the deleted repository
+   * @return {@code true} if the repository was part of the index
+   */
+  boolean remove(String repositoryId) {
+    return modify(() -> {
+      IndexedRepository previous = repositories.get(repositoryId);
+      if (previous == null) {
+        return false;
+      }
+      unindex(previous, true);
+      return true;
+    });
+  }
+
+  /**
+   * Replaces the permissions of the given namespace in the index.
+   *
+   * @param namespace modified namespace
+   * @return {@code true} if the permissions of the namespace have changed
+   */
+  boolean update(Namespace namespace) {
+    Set<RepositoryPermission> permissions = ImmutableSet.copyOf(namespace.getPermissions());
+    return modify(() -> {
+      if (permissions.equals(namespaces.getOrDefault(namespace.getNamespace(), Collections.emptySet()))) {
+        return false;
+      }
+      unindexNamespace(namespace.getNamespace());
+      indexNamespace(namespace.getNamespace(), permissions);
+      return true;
+    });
+  }
+
+  private void ensureInitialized() {
+    if (!initialized) {
+      lock.writeLock().lock();
+      try {
+        if (!initialized) {
+          for (Repository repository : repositoryDAO.getAll()) {
+            index(new IndexedRepository(repository));
+          }
+          for (Namespace namespace : namespaceDao.allWithPermissions()) {
+            indexNamespace(namespace.getNamespace(), ImmutableSet.copyOf(namespace.getPermissions()));
+          }
+          initialized = true;
+        }
+      } finally {
+        lock.writeLock().unlock();
+      }
+    }
+  }
+
+  private void index(IndexedRepository repository) {
+    repositories.put(repository.id, repository);
+    repositoriesByNamespace.computeIfAbsent(repository.namespace, ns -> new HashSet<>()).add(repository.id);
+    for (RepositoryPermission permission : repository.permissions) {
+      principalIndex(permission, userRepositories, groupRepositories)
+        .computeIfAbsent(permission.getName(), name -> new HashSet<>())
+        .add(repository.id);
+    }
+  }
+
+  private void unindex(IndexedRepository repository, boolean cleanupNamespace) {
+    repositories.remove(repository.id);
+    removeFrom(repositoriesByNamespace, repository.namespace, repository.id);
+    for (RepositoryPermission permission : repository.permissions) {
+      removeFrom(principalIndex(permission, userRepositories, groupRepositories), permission.getName(), repository.id);
+    }
+    // namespaces without repositories are removed from the store, see DefaultNamespaceManager
+    if (cleanupNamespace && !repositoriesByNamespace.containsKey(repository.namespace)) {
+      unindexNamespace(repository.namespace);
+    }
+  }
+
+  private void indexNamespace(String namespace, Set<RepositoryPermission> permissions) {
+    if (permissions.isEmpty()) {
+      return;
+    }
+    namespaces.put(namespace, permissions);
+    for (RepositoryPermission permission : permissions) {
+      principalIndex(permission, userNamespaces, groupNamespaces)
+        .computeIfAbsent(permission.getName(), name -> new HashSet<>())
+        .add(namespace);
+    }
+  }
+
+  private void unindexNamespace(String namespace) {
+    Set<RepositoryPermission> permissions = namespaces.remove(namespace);
+    if (permissions != null) {
+      for (RepositoryPermission permission : permissions) {
+        removeFrom(principalIndex(permission, userNamespaces, groupNamespaces), permission.getName(), namespace);
+      }
+    }
+  }
+
+  private Map<String, Set<String>> principalIndex(RepositoryPermission permission, Map<String, Set<String>> users, Map<String, Set<String>> groups) {
+    return permission.isGroupPermission() ? groups : users;
+  }
+
+  private void removeFrom(Map<String, Set<String>> index, String key, String value) {
+    Set<String> values = index.get(key);
+    if (values != null) {
+      values.remove(value);
+      if (values.isEmpty()) {
+        index.remove(key);
+      }
+    }
+  }
+
+  private void addAll(Set<String> target, Set<String> source) {
+    if (source != null) {
+      target.addAll(source);
+    }
+  }
+
+  private boolean isPermitted(String username, Set<String> groups, RepositoryPermission permission) {
+    return (permission.isGroupPermission() && groups.contains(permission.getName()))
+      || (!permission.isGroupPermission() && username.equals(permission.getName()));
+  }
+
+  private <T> T read(Supplier<T> supplier) {
+    lock.readLock().lock();
+    try {
+      return supplier.get();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Applies the modification to the index. As long as the index is not built, the modification is skipped,
+   * because the build reads it from the daos. The flag is checked with the write lock held, so a modification which
+   * arrives during the build waits for it and is applied to the built index afterwards.
+   */
+  private boolean modify(Supplier<Boolean> modification) {
+    lock.writeLock().lock();
+    try {
+      if (!initialized) {
+        return true;
+      }
+      return modification.get();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private static class IndexedRepository {
+
+    private final String id;
+    private final String name;
+    private final String namespace;
+    private final Set<RepositoryPermission> permissions;
+
+    private IndexedRepository(Repository repository) {
+      this.id = repository.getId();
+      this.name = repository.getName();
+      this.namespace = repository.getNamespace();
+      this.permissions = ImmutableSet.copyOf(repository.getPermissions());
+    }
+
+    private boolean isAuthorizationEqual(IndexedRepository other) {
+      return other != null && namespace.equals(other.namespace) && permissions.equals(other.permissions);
+    }
+  }
+
+  /**
+   * A permission which is assigned to a repository or a namespace.
+   */
+  static final class Grant {
+
+    private final String type;
+    private final String id;
+    private final String name;
+    private final RepositoryPermission permission;
+
+    private Grant(String type, String id, String name, RepositoryPermission permission) {
+      this.type = type;
+      this.id = id;
+      this.name = name;
+      this.permission = permission;
+    }
+
+    static Grant repository(String id, String name, RepositoryPermission permission) {
+      return new Grant("repository", id, name, permission);
+    }
+
+    static Grant namespace(String namespace, RepositoryPermission permission) {
+      return new Grant("namespace", namespace, namespace, permission);
+    }
+
+    String getType() {
+      return type;
+    }
+
+    String getId() {
+      return id;
+    }
+
+    String getName() {
+      return name;
+    }
+
+    RepositoryPermission getPermission() {
+      return permission;
+    }
+  }
+}
@@ -36,6 +36,7 @@ import sonia.scm.EagerSingleton;
 import sonia.scm.HandlerEventType;
 import sonia.scm.ManagerDaoAdapter;
 import sonia.scm.NotFoundException;
+import sonia.scm.PageResult;
 import sonia.scm.SCMContextProvider;
 import sonia.scm.auditlog.Auditor;
 import sonia.scm.search.SearchRequest;
@@ -197,6 +198,23 @@ public class DefaultUserManager extends AbstractUserManager {
     return users;
   }
 
+  /**
+   * Selects the requested page without cloning all readable users.
+   */
+  @Override
+  public PageResult<User> getPage(Predicate<User> filter, Comparator<User> comparator, int pageNumber, int pageSize) {
+    PermissionActionCheck<User> check = UserPermissions.read();
+    boolean readAll = UserPermissions.read("*").isPermitted();
+    return PageResult.createPage(
+      userDAO.getAll(),
+      user -> filter.test(user) && (readAll || check.isPermitted(user)),
+      comparator,
+      pageNumber,
+      pageSize,
+      User::clone
+    );
+  }
+
   @Override
   public Collection<User> getAll(Comparator<User> comaparator, int start, int limit) {
     final PermissionActionCheck<User> check = UserPermissions.read();
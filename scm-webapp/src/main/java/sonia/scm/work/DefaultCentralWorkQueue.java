@@ -29,6 +29,7 @@ import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.apache.shiro.SecurityUtils;
 import org.apache.shiro.subject.PrincipalCollection;
 import org.slf4j.Logger;
@@ -39,13 +40,16 @@ import sonia.scm.web.security.DefaultAdministrationContext;
 import javax.annotation.Nullable;
 import javax.inject.Singleton;
 import java.io.Closeable;
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.IntSupplier;
@@ -53,10 +57,13 @@ import java.util.function.IntSupplier;
 @Singleton
 public class DefaultCentralWorkQueue implements CentralWorkQueue, Closeable {
 
+  @VisibleForTesting
+  static final String METRIC_QUEUE = "cwq.task.queue.duration";
+
   private static final Logger LOG = LoggerFactory.getLogger(DefaultCentralWorkQueue.class);
 
-  private final List<UnitOfWork> queue = new ArrayList<>();
-  private final List<Resource> lockedResources = new ArrayList<>();
+  private final LockTable lockTable = new LockTable();
+  private final Map<Resource, Queue<QueuedWork>> blockedWork = new HashMap<>();
   private final AtomicInteger size = new AtomicInteger();
   private final AtomicLong order = new AtomicLong();
 
@@ -81,8 +88,13 @@ public class DefaultCentralWorkQueue implements CentralWorkQueue, Closeable {
   }
 
   private static ExecutorService createExecutorService(MeterRegistry registry, int threadCount) {
-    ExecutorService executorService = Executors.newFixedThreadPool(
+    // runnable tasks with a higher priority overtake the others, if all threads are busy
+    ExecutorService executorService = new ThreadPoolExecutor(
       threadCount,
+      threadCount,
+      0L,
+      TimeUnit.MILLISECONDS,
+      new PriorityBlockingQueue<>(),
       new ThreadFactoryBuilder()
         .setNameFormat("CentralWorkQueue-%d")
         .build()
@@ -104,71 +116,100 @@ public class DefaultCentralWorkQueue implements CentralWorkQueue, Closeable {
   @Override
   public void close() {
     executor.shutdown();
+    persistence.close();
   }
 
   private void loadFromDisk() {
     for (UnitOfWork unitOfWork : persistence.loadAll()) {
       unitOfWork.restore(order.incrementAndGet());
-      append(unitOfWork);
+      appendAndRun(unitOfWork, Priority.NORMAL);
     }
-    run();
   }
 
-  private synchronized void append(UnitOfWork unitOfWork) {
+  private void appendAndRun(UnitOfWork unitOfWork, Priority priority) {
     persistence.store(unitOfWork);
     int queueSize = size.incrementAndGet();
-    queue.add(unitOfWork);
     LOG.debug("add task {} to queue, queue size is now {}", unitOfWork, queueSize);
+    schedule(new QueuedWork(unitOfWork, priority));
   }
 
-  private synchronized void run() {
-    Iterator<UnitOfWork> iterator = queue.iterator();
-    while (iterator.hasNext()) {
-      UnitOfWork unitOfWork = iterator.next();
-      if (isRunnable(unitOfWork)) {
-        run(unitOfWork);
-        iterator.remove();
-      } else {
-        unitOfWork.blocked();
-      }
+  private synchronized void schedule(QueuedWork work) {
+    Resource blocker = lockTable.findBlocker(work.unitOfWork.getLocks());
+    if (blocker == null) {
+      run(work);
+    } else {
+      LOG.trace("skip {}, because it is blocked by {}", work.unitOfWork, blocker);
+      work.unitOfWork.blocked();
+      blockedWork.computeIfAbsent(blocker, resource -> new PriorityQueue<>()).add(work);
     }
   }
 
-  private void run(UnitOfWork unitOfWork) {
-    lockedResources.addAll(unitOfWork.getLocks());
-    unitOfWork.init(injector, this::finalizeWork, meterRegistry);
-    LOG.trace("pass task {} to executor", unitOfWork);
-    executor.execute(unitOfWork);
+  private void run(QueuedWork work) {
+    lockTable.lock(work.unitOfWork.getLocks());
+    work.unitOfWork.init(injector, this::finalizeWork, meterRegistry);
+    LOG.trace("pass task {} to executor", work.unitOfWork);
+    executor.execute(work);
   }
 
-  private synchronized void finalizeWork(UnitOfWork unitOfWork) {
-    for (Resource lock : unitOfWork.getLocks()) {
-      lockedResources.remove(lock);
-    }
+  private void finalizeWork(UnitOfWork unitOfWork) {
     persistence.remove(unitOfWork);
 
-    int queueSize = size.decrementAndGet();
-    LOG.debug("finish task, queue size is now {}", queueSize);
+    synchronized (this) {
+      lockTable.unlock(unitOfWork.getLocks());
 
-    run();
+      // only tasks which are waiting for one of the released locks could have become runnable
+      Queue<QueuedWork> unblocked = new PriorityQueue<>();
+      for (Resource lock : unitOfWork.getLocks()) {
+        Queue<QueuedWork> waiting = blockedWork.remove(lock);
+        if (waiting != null) {
+          unblocked.addAll(waiting);
+        }
+      }
+      while (!unblocked.isEmpty()) {
+        schedule(unblocked.poll());
+      }
+
+      int queueSize = size.decrementAndGet();
+      LOG.debug("finish task, queue size is now {}", queueSize);
+    }
   }
 
-  private boolean isRunnable(UnitOfWork unitOfWork) {
-    for (Resource resource : unitOfWork.getLocks()) {
-      for (Resource lock : lockedResources) {
-        if (resource.isBlockedBy(lock)) {
-          LOG.trace("skip {}, because resource {} is locked by {}", unitOfWork, resource, lock);
-          return false;
-        }
+  private class QueuedWork implements Runnable, Comparable<QueuedWork> {
+
+    private final UnitOfWork unitOfWork;
+    private final Priority priority;
+    private final long queuedAt = System.nanoTime();
+
+    private QueuedWork(UnitOfWork unitOfWork, Priority priority) {
+      this.unitOfWork = unitOfWork;
+      this.priority = priority;
+    }
+
+    @Override
+    public void run() {
+      Timer.builder(METRIC_QUEUE)
+        .description("Central work queue duration from enqueue to execution by priority")
+        .tags("priority", priority.name())
+        .register(meterRegistry)
+        .record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+      unitOfWork.run();
+    }
+
+    @Override
+    public int compareTo(QueuedWork other) {
+      int result = priority.compareTo(other.priority);
+      if (result == 0) {
+        result = unitOfWork.compareTo(other.unitOfWork);
       }
+      return result;
     }
-    return true;
   }
 
   private class DefaultEnqueue implements Enqueue {
 
     private final Set<Resource> locks = new HashSet<>();
     private boolean runAsAdmin = false;
+    private Priority priority = Priority.NORMAL;
 
     @Override
     public Enqueue locks(String resourceType) {
@@ -182,6 +223,12 @@ public class DefaultCentralWorkQueue implements CentralWorkQueue, Closeable {
       return this;
     }
 
+    @Override
+    public Enqueue priority(Priority priority) {
+      this.priority = priority;
+      return this;
+    }
+
     @Override
     public Enqueue runAsAdmin() {
       this.runAsAdmin = true;
@@ -190,12 +237,12 @@ public class DefaultCentralWorkQueue implements CentralWorkQueue, Closeable {
 
     @Override
     public void enqueue(Task task) {
-      appendAndRun(new SimpleUnitOfWork(order.incrementAndGet(), principal(), locks, task));
+      appendAndRun(new SimpleUnitOfWork(order.incrementAndGet(), principal(), locks, task), priority);
     }
 
     @Override
     public void enqueue(Class<? extends Runnable> task) {
-      appendAndRun(new InjectingUnitOfWork(order.incrementAndGet(), principal(), locks, task));
+      appendAndRun(new InjectingUnitOfWork(order.incrementAndGet(), principal(), locks, task), priority);
     }
 
     private PrincipalCollection principal() {
@@ -204,10 +251,5 @@ public class DefaultCentralWorkQueue implements CentralWorkQueue, Closeable {
       }
       return SecurityUtils.getSubject().getPrincipals();
     }
-
-    private synchronized void appendAndRun(UnitOfWork unitOfWork) {
-      append(unitOfWork);
-      run();
-    }
   }
 }
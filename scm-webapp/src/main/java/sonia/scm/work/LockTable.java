@@ -0,0 +1,98 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.work;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Table of the resources, which are locked by running tasks. The locks are indexed by the name of the resource,
+ * so that the check for a blocking lock does not depend on the number of locked resources.
+ */
+final class LockTable {
+
+  private final Map<String, Multiset<Resource>> locksByName = new HashMap<>();
+
+  /**
+   * Returns a locked resource which blocks one of the given resources or {@code null},
+   * if none of the given resources is blocked.
+   */
+  @Nullable
+  Resource findBlocker(Set<Resource> resources) {
+    for (Resource resource : resources) {
+      Resource blocker = findBlocker(resource);
+      if (blocker != null) {
+        return blocker;
+      }
+    }
+    return null;
+  }
+
+  private Resource findBlocker(Resource resource) {
+    Multiset<Resource> locks = locksByName.get(resource.getName());
+    if (locks == null) {
+      return null;
+    }
+    if (resource.getId() == null) {
+      // the whole type is blocked by every lock of the type
+      return locks.iterator().next();
+    }
+    Resource typeLock = new Resource(resource.getName());
+    if (locks.contains(typeLock)) {
+      return typeLock;
+    }
+    if (locks.contains(resource)) {
+      return resource;
+    }
+    return null;
+  }
+
+  void lock(Set<Resource> resources) {
+    for (Resource resource : resources) {
+      locksByName.computeIfAbsent(resource.getName(), name -> HashMultiset.create()).add(resource);
+    }
+  }
+
+  void unlock(Set<Resource> resources) {
+    for (Resource resource : resources) {
+      Multiset<Resource> locks = locksByName.get(resource.getName());
+      if (locks != null) {
+        locks.remove(resource);
+        if (locks.isEmpty()) {
+          locksByName.remove(resource.getName());
+        }
+      }
+    }
+  }
+
+  boolean isEmpty() {
+    return locksByName.isEmpty();
+  }
+}
@@ -29,54 +29,99 @@ import com.google.inject.Inject;
 import org.apache.commons.io.input.ClassLoaderObjectInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import sonia.scm.SCMContextProvider;
 import sonia.scm.plugin.PluginLoader;
 import sonia.scm.store.Blob;
 import sonia.scm.store.BlobStore;
 import sonia.scm.store.BlobStoreFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+/**
+ * Persists units of work in a {@link SegmentLog}, so that tasks survive a restart. Units are kept in the log until
+ * they are removed, restored units which are stored again supersede their previous record.
+ * Units of older versions, which were stored as one blob per unit, are moved to the log on {@link #loadAll()}.
+ */
 class Persistence {
 
+  /**
+   * Set this system property to <code>true</code> to force every write of the central work queue to the disk.
+   */
+  static final String FSYNC_PROPERTY = "scm.centralWorkQueue.fsync";
+
   private static final Logger LOG = LoggerFactory.getLogger(Persistence.class);
   private static final String STORE_NAME = "central-work-queue";
 
   private final ClassLoader classLoader;
   private final BlobStore store;
+  private final SegmentLog log;
 
   @Inject
-  public Persistence(PluginLoader pluginLoader, BlobStoreFactory storeFactory) {
-    this(pluginLoader.getUberClassLoader(), storeFactory.withName(STORE_NAME).build());
+  public Persistence(PluginLoader pluginLoader, BlobStoreFactory storeFactory, SCMContextProvider contextProvider) {
+    this(
+      pluginLoader.getUberClassLoader(),
+      storeFactory.withName(STORE_NAME).build(),
+      new SegmentLog(
+        contextProvider.resolve(Paths.get("var", STORE_NAME)),
+        Boolean.getBoolean(FSYNC_PROPERTY)
+      )
+    );
   }
 
   @VisibleForTesting
-  Persistence(ClassLoader classLoader, BlobStore store) {
+  Persistence(ClassLoader classLoader, BlobStore store, SegmentLog log) {
     this.classLoader = classLoader;
     this.store = store;
+    this.log = log;
   }
 
   Collection<UnitOfWork> loadAll() {
+    List<UnitOfWork> chunks = new ArrayList<>();
+    for (Map.Entry<Long, byte[]> e : log.recover().entrySet()) {
+      Optional<UnitOfWork> unitOfWork = load(new ByteArrayInputStream(e.getValue()));
+      if (unitOfWork.isPresent()) {
+        unitOfWork.get().assignStorageId(String.valueOf(e.getKey()));
+        chunks.add(unitOfWork.get());
+      } else {
+        log.remove(e.getKey());
+      }
+    }
+    chunks.addAll(migrateBlobs());
+    Collections.sort(chunks);
+    return chunks;
+  }
+
+  private List<UnitOfWork> migrateBlobs() {
     List<UnitOfWork> chunks = new ArrayList<>();
     for (Blob blob : store.getAll()) {
-      load(blob).ifPresent(chunkOfWork -> {
-        chunkOfWork.assignStorageId(null);
-        chunks.add(chunkOfWork);
-      });
+      try (InputStream input = blob.getInputStream()) {
+        load(input).ifPresent(chunkOfWork -> {
+          store(chunkOfWork);
+          chunks.add(chunkOfWork);
+        });
+      } catch (IOException ex) {
+        LOG.error("failed to read task from blob {}", blob.getId(), ex);
+      }
       store.remove(blob);
     }
-    Collections.sort(chunks);
     return chunks;
   }
 
-  private Optional<UnitOfWork> load(Blob blob) {
-    try (ObjectInputStream stream = new ClassLoaderObjectInputStream(classLoader, blob.getInputStream())) {
+  private Optional<UnitOfWork> load(InputStream input) {
+    try (ObjectInputStream stream = new ClassLoaderObjectInputStream(classLoader, input)) {
       Object o = stream.readObject();
       if (o instanceof UnitOfWork) {
         return Optional.of((UnitOfWork) o);
@@ -90,19 +135,34 @@ class Persistence {
   }
 
   void store(UnitOfWork unitOfWork) {
-    Blob blob = store.create();
-    try (ObjectOutputStream outputStream = new ObjectOutputStream(blob.getOutputStream())) {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    try (ObjectOutputStream outputStream = new ObjectOutputStream(buffer)) {
       outputStream.writeObject(unitOfWork);
-      blob.commit();
-
-      unitOfWork.assignStorageId(blob.getId());
     } catch (IOException ex) {
       throw new NonPersistableTaskException("Failed to persist task", ex);
     }
+
+    long id = unitOfWork.getStorageId().map(Long::parseLong).orElseGet(log::nextId);
+    try {
+      log.append(id, buffer.toByteArray());
+    } catch (UncheckedIOException ex) {
+      throw new NonPersistableTaskException("Failed to persist task", ex);
+    }
+    unitOfWork.assignStorageId(String.valueOf(id));
   }
 
   void remove(UnitOfWork unitOfWork) {
-    unitOfWork.getStorageId().ifPresent(store::remove);
+    unitOfWork.getStorageId().ifPresent(id -> {
+      try {
+        log.remove(Long.parseLong(id));
+      } catch (UncheckedIOException ex) {
+        LOG.error("failed to remove task {} from store, the task will be executed again after restart", unitOfWork, ex);
+      }
+    });
+  }
+
+  void close() {
+    log.close();
   }
 
 }
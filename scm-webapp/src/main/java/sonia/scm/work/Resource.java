@@ -32,6 +32,9 @@ import java.io.Serializable;
 @EqualsAndHashCode
 final class Resource implements Serializable {
 
+  // computed value of the class before the accessors were added, to restore persisted tasks
+  private static final long serialVersionUID = -7248368429307802699L;
+
   private final String name;
   @Nullable
   private final String id;
@@ -46,6 +49,15 @@ final class Resource implements Serializable {
     this.id = id;
   }
 
+  String getName() {
+    return name;
+  }
+
+  @Nullable
+  String getId() {
+    return id;
+  }
+
   boolean isBlockedBy(Resource resource) {
     if (name.equals(resource.name)) {
       if (id != null && resource.id != null) {
@@ -0,0 +1,485 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.work;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Append only log of serialized units of work. Records are appended to the active segment file, the segment is sealed
+ * and a new one is started as soon as it exceeds the segment size. Concurrent appends are collected into a batch and
+ * written with a single write by one of the waiting threads (group commit). A sealed segment is deleted as soon as
+ * it and all older segments contain no live record anymore. If there are too many segments, the live records of the
+ * oldest segment are copied to the active segment, so that a single long living record could not pin the whole log.
+ *
+ * Each record is protected by a checksum, a torn record at the end of a segment (e.g. after a crash) ends the
+ * recovery of the segment.
+ */
+class SegmentLog {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SegmentLog.class);
+
+  private static final Pattern SEGMENT_PATTERN = Pattern.compile("segment-([0-9]+)\\.log");
+
+  private static final byte TYPE_STORE = 1;
+  private static final byte TYPE_REMOVE = 2;
+
+  // type + id + length
+  private static final int HEADER_SIZE = 1 + 8 + 4;
+  private static final int CHECKSUM_SIZE = 4;
+
+  static final long DEFAULT_SEGMENT_SIZE = 4L * 1024 * 1024;
+  static final int DEFAULT_MAX_SEGMENTS = 8;
+
+  private final Path directory;
+  private final long segmentSize;
+  private final int maxSegments;
+  private final boolean fsync;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition committed = lock.newCondition();
+  private Batch pending = new Batch();
+  private boolean committing = false;
+
+  private final AtomicLong nextId = new AtomicLong(1);
+
+  // the following fields are only accessed by the thread which is committing
+  private final Map<Long, Long> segmentOfId = new HashMap<>();
+  private final NavigableMap<Long, Integer> liveRecordsOfSegment = new TreeMap<>();
+  private long activeSegment = 1;
+  private long activeSegmentSize = 0;
+  private FileChannel channel;
+
+  SegmentLog(Path directory, boolean fsync) {
+    this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_MAX_SEGMENTS, fsync);
+  }
+
+  @VisibleForTesting
+  SegmentLog(Path directory, long segmentSize, int maxSegments, boolean fsync) {
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    this.maxSegments = maxSegments;
+    this.fsync = fsync;
+  }
+
+  /**
+   * Reads all segments and returns the payloads of the live records ordered by their id. Appends after the recovery
+   * are written to a new segment. The method must not be called concurrently with appends or removes.
+   *
+   * @return live payloads by id
+   */
+  Map<Long, byte[]> recover() {
+    lock.lock();
+    try {
+      closeChannel();
+      segmentOfId.clear();
+      liveRecordsOfSegment.clear();
+
+      Map<Long, byte[]> payloads = new TreeMap<>();
+      long maxId = 0;
+      for (long segment : listSegments()) {
+        liveRecordsOfSegment.put(segment, 0);
+        maxId = Math.max(maxId, readSegment(segment, payloads));
+      }
+      nextId.set(maxId + 1);
+
+      activeSegment = liveRecordsOfSegment.isEmpty() ? 1 : liveRecordsOfSegment.lastKey() + 1;
+      activeSegmentSize = 0;
+      liveRecordsOfSegment.put(activeSegment, 0);
+      deleteDeadSegments();
+
+      return new LinkedHashMap<>(payloads);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns a new id which was never used by this log before.
+   */
+  long nextId() {
+    return nextId.getAndIncrement();
+  }
+
+  /**
+   * Appends the payload for the given id. A record with the same id supersedes all previous records of the id.
+   * The method returns after the record was written to the segment file.
+   */
+  void append(long id, byte[] payload) {
+    write(new Record(TYPE_STORE, id, payload));
+  }
+
+  /**
+   * Marks the record with the given id as removed.
+   * The method returns after the removal was written to the segment file.
+   */
+  void remove(long id) {
+    write(new Record(TYPE_REMOVE, id, new byte[0]));
+  }
+
+  /**
+   * Closes the active segment file. A later write opens the file again.
+   */
+  void close() {
+    lock.lock();
+    try {
+      while (committing) {
+        committed.awaitUninterruptibly();
+      }
+      closeChannel();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void write(Record record) {
+    lock.lock();
+    try {
+      Batch batch = pending;
+      batch.records.add(record);
+      while (!batch.done) {
+        if (committing) {
+          committed.awaitUninterruptibly();
+        } else {
+          commit();
+        }
+      }
+      if (batch.failure != null) {
+        throw new UncheckedIOException("failed to write batch to central work queue log", batch.failure);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void commit() {
+    Batch batch = pending;
+    pending = new Batch();
+    committing = true;
+    lock.unlock();
+    try {
+      writeBatch(batch);
+    } catch (IOException ex) {
+      batch.failure = ex;
+      abandonActiveSegment();
+    } catch (RuntimeException ex) {
+      batch.failure = new IOException("unexpected failure during write", ex);
+      abandonActiveSegment();
+    } finally {
+      lock.lock();
+      batch.done = true;
+      committing = false;
+      committed.signalAll();
+    }
+  }
+
+  private void writeBatch(Batch batch) throws IOException {
+    LOG.trace("write batch of {} records to segment {}", batch.records.size(), activeSegment);
+    FileChannel segmentChannel = channel();
+    ByteBuffer buffer = encode(batch.records);
+    while (buffer.hasRemaining()) {
+      segmentChannel.write(buffer);
+    }
+    if (fsync) {
+      segmentChannel.force(false);
+    }
+    activeSegmentSize += buffer.limit();
+
+    for (Record record : batch.records) {
+      apply(record, activeSegment);
+    }
+
+    if (activeSegmentSize >= segmentSize) {
+      try {
+        rollover();
+      } catch (IOException ex) {
+        // the batch itself is written, so we must not fail it
+        LOG.warn("failed to relocate records of oldest segment", ex);
+        abandonActiveSegment();
+      }
+    }
+    deleteDeadSegments();
+  }
+
+  /**
+   * The active segment could end with a partially written record, which would hide every record appended after it.
+   * So we continue with a new segment.
+   */
+  private void abandonActiveSegment() {
+    LOG.warn("abandon segment {} after failed write", activeSegment);
+    closeChannel();
+    activeSegment++;
+    activeSegmentSize = 0;
+    liveRecordsOfSegment.put(activeSegment, 0);
+  }
+
+  private void rollover() throws IOException {
+    closeChannel();
+    activeSegment++;
+    activeSegmentSize = 0;
+    liveRecordsOfSegment.put(activeSegment, 0);
+    LOG.debug("start new segment {}", activeSegment);
+
+    if (liveRecordsOfSegment.size() > maxSegments) {
+      relocateOldestSegment();
+    }
+  }
+
+  private void relocateOldestSegment() throws IOException {
+    long oldest = liveRecordsOfSegment.firstKey();
+    LOG.debug("relocate {} live records of segment {}", liveRecordsOfSegment.get(oldest), oldest);
+
+    Map<Long, byte[]> payloads = new TreeMap<>();
+    try (DataInputStream input = openSegment(oldest)) {
+      long limit = Files.size(segmentPath(oldest));
+      Record record;
+      while ((record = readRecord(input, oldest, limit)) != null) {
+        if (record.type == TYPE_STORE && Long.valueOf(oldest).equals(segmentOfId.get(record.id))) {
+          payloads.put(record.id, record.payload);
+        }
+      }
+    }
+
+    List<Record> records = new ArrayList<>();
+    payloads.forEach((id, payload) -> records.add(new Record(TYPE_STORE, id, payload)));
+    ByteBuffer buffer = encode(records);
+    FileChannel segmentChannel = channel();
+    while (buffer.hasRemaining()) {
+      segmentChannel.write(buffer);
+    }
+    if (fsync) {
+      segmentChannel.force(false);
+    }
+    activeSegmentSize += buffer.limit();
+    for (Record record : records) {
+      apply(record, activeSegment);
+    }
+  }
+
+  private void apply(Record record, long segment) {
+    Long previous;
+    if (record.type == TYPE_STORE) {
+      previous = segmentOfId.put(record.id, segment);
+      liveRecordsOfSegment.merge(segment, 1, Integer::sum);
+    } else {
+      previous = segmentOfId.remove(record.id);
+    }
+    if (previous != null) {
+      liveRecordsOfSegment.computeIfPresent(previous, (s, count) -> count - 1);
+    }
+  }
+
+  /**
+   * Deletes segments without live records, but only from the oldest on: a dead segment could still contain the
+   * removal of a record which is stored in an older segment.
+   */
+  private void deleteDeadSegments() {
+    while (!liveRecordsOfSegment.isEmpty()) {
+      Map.Entry<Long, Integer> oldest = liveRecordsOfSegment.firstEntry();
+      if (oldest.getKey() == activeSegment || oldest.getValue() > 0) {
+        break;
+      }
+      Path file = segmentPath(oldest.getKey());
+      try {
+        Files.deleteIfExists(file);
+        LOG.debug("deleted segment {}", file);
+      } catch (IOException ex) {
+        LOG.warn("failed to delete segment {}", file, ex);
+        break;
+      }
+      liveRecordsOfSegment.remove(oldest.getKey());
+    }
+  }
+
+  private long readSegment(long segment, Map<Long, byte[]> payloads) {
+    long maxId = 0;
+    try (DataInputStream input = openSegment(segment)) {
+      long limit = Files.size(segmentPath(segment));
+      Record record;
+      while ((record = readRecord(input, segment, limit)) != null) {
+        maxId = Math.max(maxId, record.id);
+        apply(record, segment);
+        if (record.type == TYPE_STORE) {
+          payloads.put(record.id, record.payload);
+        } else {
+          payloads.remove(record.id);
+        }
+      }
+    } catch (IOException ex) {
+      LOG.error("failed to read segment {}, skipping the rest of the segment", segment, ex);
+    }
+    return maxId;
+  }
+
+  private Record readRecord(DataInputStream input, long segment, long limit) throws IOException {
+    try {
+      byte type = input.readByte();
+      long id = input.readLong();
+      int length = input.readInt();
+      if ((type != TYPE_STORE && type != TYPE_REMOVE) || length < 0 || length > limit) {
+        LOG.warn("found invalid record header in segment {}, skipping the rest of the segment", segment);
+        return null;
+      }
+      byte[] payload = new byte[length];
+      input.readFully(payload);
+      int checksum = input.readInt();
+      if (checksum != checksum(type, id, payload)) {
+        LOG.warn("found record with invalid checksum in segment {}, skipping the rest of the segment", segment);
+        return null;
+      }
+      return new Record(type, id, payload);
+    } catch (EOFException ex) {
+      // end of segment or incomplete record from a crash during write
+      return null;
+    }
+  }
+
+  private ByteBuffer encode(List<Record> records) {
+    int size = 0;
+    for (Record record : records) {
+      size += HEADER_SIZE + record.payload.length + CHECKSUM_SIZE;
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    for (Record record : records) {
+      buffer.put(record.type);
+      buffer.putLong(record.id);
+      buffer.putInt(record.payload.length);
+      buffer.put(record.payload);
+      buffer.putInt(checksum(record.type, record.id, record.payload));
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  private int checksum(byte type, long id, byte[] payload) {
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    header.put(type);
+    header.putLong(id);
+    header.putInt(payload.length);
+    header.flip();
+
+    CRC32 crc = new CRC32();
+    crc.update(header);
+    crc.update(payload);
+    return (int) crc.getValue();
+  }
+
+  private List<Long> listSegments() {
+    List<Long> segments = new ArrayList<>();
+    if (!Files.isDirectory(directory)) {
+      return segments;
+    }
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+      for (Path path : stream) {
+        Matcher matcher = SEGMENT_PATTERN.matcher(path.getFileName().toString());
+        if (matcher.matches()) {
+          segments.add(Long.parseLong(matcher.group(1)));
+        }
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException("failed to list segments of " + directory, ex);
+    }
+    segments.sort(Long::compare);
+    return segments;
+  }
+
+  private DataInputStream openSegment(long segment) throws IOException {
+    InputStream input = Files.newInputStream(segmentPath(segment));
+    return new DataInputStream(new BufferedInputStream(input));
+  }
+
+  private FileChannel channel() throws IOException {
+    if (channel == null) {
+      Files.createDirectories(directory);
+      channel = FileChannel.open(
+        segmentPath(activeSegment), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND
+      );
+    }
+    return channel;
+  }
+
+  private void closeChannel() {
+    if (channel != null) {
+      try {
+        channel.close();
+      } catch (IOException ex) {
+        LOG.warn("failed to close segment {}", activeSegment, ex);
+      }
+      channel = null;
+    }
+  }
+
+  private Path segmentPath(long segment) {
+    return directory.resolve("segment-" + segment + ".log");
+  }
+
+  private static class Batch {
+
+    private final List<Record> records = new ArrayList<>();
+    private boolean done = false;
+    private IOException failure;
+
+  }
+
+  private static class Record {
+
+    private final byte type;
+    private final long id;
+    private final byte[] payload;
+
+    private Record(byte type, long id, byte[] payload) {
+      this.type = type;
+      this.id = id;
+      this.payload = payload;
+    }
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.cache;
+
+import org.junit.jupiter.api.Test;
+import sonia.scm.repository.BlameLine;
+import sonia.scm.repository.BlameResult;
+import sonia.scm.repository.BrowserResult;
+import sonia.scm.repository.Changeset;
+import sonia.scm.repository.ChangesetPagingResult;
+import sonia.scm.repository.FileObject;
+import sonia.scm.repository.Person;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheValueWeigherTest {
+
+  private final CacheValueWeigher weigher = new CacheValueWeigher();
+
+  @Test
+  void shouldWeighLargeBrowserResultHigherThanSmallOne() {
+    BrowserResult small = new BrowserResult("42", createDirectory(1));
+    BrowserResult large = new BrowserResult("42", createDirectory(1000));
+
+    assertThat(weigher.weigh("key", large)).isGreaterThan(100 * weigher.weigh("key", small));
+  }
+
+  @Test
+  void shouldWeighStringsByLength() {
+    String large = String.join("", Collections.nCopies(1000, "x"));
+
+    assertThat(weigher.weigh("key", large) - weigher.weigh("key", "")).isEqualTo(1000);
+  }
+
+  @Test
+  void shouldWeighChangesets() {
+    Changeset changeset = new Changeset("42", 1L, new Person("Trillian", "trillian@hitchhiker.com"), "initial commit");
+    List<Changeset> changesets = Collections.nCopies(100, changeset);
+
+    int single = weigher.weigh("key", new ChangesetPagingResult(1, Collections.singletonList(changeset)));
+    int hundred = weigher.weigh("key", new ChangesetPagingResult(100, changesets));
+
+    assertThat(hundred).isGreaterThan(50 * single);
+  }
+
+  @Test
+  void shouldWeighBlameResultWithCode() {
+    BlameLine line = new BlameLine(1, "42", 1L, new Person("Trillian"), "initial commit", "# Heart of Gold");
+
+    assertThat(weigher.weigh("key", new BlameResult(Collections.singletonList(line))))
+      .isGreaterThan("# Heart of Gold".length() + "initial commit".length());
+  }
+
+  @Test
+  void shouldUseDefaultWeightForOtherValues() {
+    assertThat(weigher.weigh("key", new Object())).isEqualTo(CacheValueWeigher.DEFAULT_WEIGHT);
+  }
+
+  private FileObject createDirectory(int numberOfFiles) {
+    List<FileObject> children = new ArrayList<>();
+    for (int i = 0; i < numberOfFiles; i++) {
+      FileObject file = new FileObject();
+      file.setName("file-" + i + ".txt");
+      file.setPath("src/file-" + i + ".txt");
+      children.add(file);
+    }
+    FileObject directory = new FileObject();
+    directory.setName("src");
+    directory.setPath("src");
+    directory.setDirectory(true);
+    directory.setChildren(children);
+    return directory;
+  }
+}
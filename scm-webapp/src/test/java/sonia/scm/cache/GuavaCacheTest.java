@@ -24,10 +24,121 @@
 
 package sonia.scm.cache;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import sonia.scm.repository.RepositoryCacheKey;
+import sonia.scm.repository.RepositoryCacheKeyPredicate;
+
+import java.util.Collections;
+import java.util.Objects;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
 public class GuavaCacheTest extends CacheTestBase {
 
   @Override
   protected CacheManager createCacheManager() {
     return CacheTestUtil.createDefaultGuavaCacheManager();
   }
+
+  @Test
+  public void shouldRemoveAllEntriesOfRepository() {
+    GuavaCache<RepositoryKey, String> cache = CacheTestUtil.createDefaultGuavaCacheManager().getCache("repository");
+    cache.put(new RepositoryKey("hog", "main"), "a");
+    cache.put(new RepositoryKey("hog", "develop"), "b");
+    cache.put(new RepositoryKey("puzzle", "main"), "c");
+
+    Iterable<String> removed = cache.removeAll(new RepositoryCacheKeyPredicate<>("hog"));
+
+    assertThat(removed, containsInAnyOrder("a", "b"));
+    assertNull(cache.get(new RepositoryKey("hog", "main")));
+    assertNull(cache.get(new RepositoryKey("hog", "develop")));
+    assertNotNull(cache.get(new RepositoryKey("puzzle", "main")));
+  }
+
+  @Test
+  public void shouldRemoveEntriesOfRepositoryPutAfterRemoval() {
+    GuavaCache<RepositoryKey, String> cache = CacheTestUtil.createDefaultGuavaCacheManager().getCache("repository");
+    cache.put(new RepositoryKey("hog", "main"), "a");
+    cache.removeAll(new RepositoryCacheKeyPredicate<>("hog"));
+    cache.put(new RepositoryKey("hog", "main"), "b");
+    cache.put(new RepositoryKey("hog", "main"), "c");
+
+    Iterable<String> removed = cache.removeAll(new RepositoryCacheKeyPredicate<>("hog"));
+
+    assertThat(removed, containsInAnyOrder("c"));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void shouldRemoveEntriesOfRepositoryAfterClear() {
+    GuavaCache<RepositoryKey, String> cache = CacheTestUtil.createDefaultGuavaCacheManager().getCache("repository");
+    cache.put(new RepositoryKey("hog", "main"), "a");
+    cache.clear();
+    cache.put(new RepositoryKey("hog", "develop"), "b");
+
+    Iterable<String> removed = cache.removeAll(new RepositoryCacheKeyPredicate<>("hog"));
+
+    assertThat(removed, containsInAnyOrder("b"));
+  }
+
+  @Test
+  public void shouldLimitCacheByEstimatedSizeOfValues() {
+    GuavaCacheConfiguration configuration = new GuavaCacheConfiguration();
+    configuration.setMaximumWeight(4096L);
+    configuration.setConcurrencyLevel(1);
+    GuavaCacheManager cacheManager = new GuavaCacheManager(
+      new GuavaCacheManagerConfiguration(configuration, Collections.emptyList()),
+      new GuavaCacheFactory(new SimpleMeterRegistry())
+    );
+    GuavaCache<String, String> cache = cacheManager.getCache("weighted");
+
+    for (int i = 0; i < 100; i++) {
+      cache.put("small-" + i, "x");
+    }
+    assertEquals(100, cache.size());
+
+    cache.put("large", String.join("", Collections.nCopies(3000, "x")));
+
+    assertTrue(cache.contains("large"));
+    assertTrue(cache.size() <= 33);
+  }
+
+  private static class RepositoryKey implements RepositoryCacheKey {
+
+    private final String repositoryId;
+    private final String branch;
+
+    private RepositoryKey(String repositoryId, String branch) {
+      this.repositoryId = repositoryId;
+      this.branch = branch;
+    }
+
+    @Override
+    public String getRepositoryId() {
+      return repositoryId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      RepositoryKey that = (RepositoryKey) o;
+      return repositoryId.equals(that.repositoryId) && branch.equals(that.branch);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(repositoryId, branch);
+    }
+  }
 }
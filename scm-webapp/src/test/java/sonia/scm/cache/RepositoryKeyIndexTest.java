@@ -0,0 +1,88 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.junit.jupiter.api.Test;
+import sonia.scm.repository.RepositoryCacheKey;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RepositoryKeyIndexTest {
+
+  private final RepositoryKeyIndex<Object> index = new RepositoryKeyIndex<>();
+
+  @Test
+  void shouldNotKeepKeyOfEntryWhichIsEvictedRightAway() {
+    Cache<Object, Object> cache = CacheBuilder.newBuilder()
+      .maximumWeight(10)
+      .weigher((key, value) -> 100)
+      .removalListener(index)
+      .build();
+    index.bind(cache);
+
+    put(cache, new Key("hog"), "heavy");
+
+    assertThat(cache.size()).isZero();
+    assertThat(index.remove("hog")).isEmpty();
+  }
+
+  @Test
+  void shouldKeepKeyIfPreviousEntryIsRemovedDuringPut() {
+    Cache<Object, Object> cache = CacheBuilder.newBuilder().removalListener(index).build();
+    index.bind(cache);
+    Key key = new Key("hog");
+    put(cache, key, "a");
+
+    index.add(key);
+    // concurrent removal of the previous entry, before the new entry is put
+    cache.invalidate(key);
+    cache.put(key, "b");
+    index.confirm(key);
+
+    assertThat(index.remove("hog")).containsExactly(key);
+  }
+
+  private void put(Cache<Object, Object> cache, Key key, String value) {
+    index.add(key);
+    cache.put(key, value);
+    index.confirm(key);
+  }
+
+  private static class Key implements RepositoryCacheKey {
+
+    private final String repositoryId;
+
+    private Key(String repositoryId) {
+      this.repositoryId = repositoryId;
+    }
+
+    @Override
+    public String getRepositoryId() {
+      return repositoryId;
+    }
+  }
+}
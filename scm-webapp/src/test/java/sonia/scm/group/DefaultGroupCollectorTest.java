@@ -48,6 +48,7 @@ import java.util.Optional;
 import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
@@ -216,6 +217,73 @@ class DefaultGroupCollectorTest {
       assertThat(groupNames).containsOnly("_authenticated", "heartOfGold", "fjordsOfAfrican", "awesome", "incredible");
     }
 
+    @Test
+    void shouldReadGroupsFromDaoOnlyOnce() {
+      collector.collect("trillian");
+      collector.collect("dent");
+
+      verify(groupDAO, times(1)).getAll();
+    }
+
+    @Test
+    void shouldAddGroupOnCreation() {
+      collector.collect("trillian");
+
+      collector.updateMembershipIndex(new GroupEvent(HandlerEventType.CREATE, new Group("xml", "earth", "trillian")));
+
+      assertThat(collector.collect("trillian")).containsOnly("_authenticated", "heartOfGold", "fjordsOfAfrican", "earth");
+    }
+
+    @Test
+    void shouldUpdateMembersOnModification() {
+      collector.collect("trillian");
+
+      Group before = new Group("xml", "g42", "dent", "prefect");
+      Group after = new Group("xml", "g42", "dent", "trillian");
+      collector.updateMembershipIndex(new GroupModificationEvent(HandlerEventType.MODIFY, after, before));
+
+      assertThat(collector.collect("trillian")).containsOnly("_authenticated", "heartOfGold", "fjordsOfAfrican", "g42");
+      assertThat(collector.collect("prefect")).containsOnly("_authenticated");
+      assertThat(collector.collect("dent")).containsOnly("_authenticated", "g42", "fjordsOfAfrican");
+    }
+
+    @Test
+    void shouldApplyModificationWhichArrivesDuringBuild() throws InterruptedException {
+      List<Group> groups = groupDAO.getAll();
+      Thread modifier = new Thread(() -> collector.updateMembershipIndex(
+        new GroupEvent(HandlerEventType.CREATE, new Group("xml", "earth", "trillian"))
+      ));
+      when(groupDAO.getAll()).thenAnswer(invocation -> {
+        // the modification must wait until the build has finished
+        modifier.start();
+        await().until(() -> modifier.getState() == Thread.State.BLOCKED);
+        return groups;
+      });
+
+      assertThat(collector.collect("dent")).containsOnly("_authenticated", "g42", "fjordsOfAfrican");
+      modifier.join();
+
+      assertThat(collector.collect("trillian")).containsOnly("_authenticated", "heartOfGold", "fjordsOfAfrican", "earth");
+    }
+
+    @Test
+    void shouldRemoveGroupOnDeletion() {
+      collector.collect("trillian");
+
+      collector.updateMembershipIndex(new GroupEvent(HandlerEventType.DELETE, new Group("xml", "heartOfGold", "trillian")));
+
+      assertThat(collector.collect("trillian")).containsOnly("_authenticated", "fjordsOfAfrican");
+    }
+
+    @Test
+    void shouldIgnorePreEvents() {
+      collector.collect("trillian");
+
+      collector.updateMembershipIndex(new GroupEvent(HandlerEventType.BEFORE_DELETE, new Group("xml", "heartOfGold", "trillian")));
+
+      assertThat(collector.collect("trillian")).containsOnly("_authenticated", "heartOfGold", "fjordsOfAfrican");
+    }
+
     @Test
     void shouldGetScmGroupsForLastLoginWhenNothingCached() {
       Set<String> cachedGroups = collector.fromLastLoginPlusInternal("trillian");
@@ -42,6 +42,7 @@ import sonia.scm.search.SerializableIndexTask;
 import java.util.Arrays;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -118,7 +119,7 @@ class GroupIndexerTest {
 
     indexer.handleEvent(event);
 
-    verify(searchEngine.forType(Group.class)).update(captor.capture());
+    verify(searchEngine.forType(Group.class)).update(eq(astronauts.getId()), captor.capture());
     captor.getValue().update(index);
     verify(index.delete()).byId(Id.of(Group.class, astronauts));
   }
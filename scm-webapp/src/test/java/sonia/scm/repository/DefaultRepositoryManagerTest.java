@@ -46,6 +46,7 @@ import sonia.scm.Manager;
 import sonia.scm.ManagerTestBase;
 import sonia.scm.NoChangesMadeException;
 import sonia.scm.NotFoundException;
+import sonia.scm.PageResult;
 import sonia.scm.SCMContext;
 import sonia.scm.ScmConstraintViolationException;
 import sonia.scm.TempSCMContextProvider;
@@ -59,6 +60,7 @@ import sonia.scm.security.KeyGenerator;
 import sonia.scm.store.ConfigurationStoreFactory;
 
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -66,6 +68,7 @@ import java.util.Set;
 import java.util.Stack;
 
 import static java.util.Collections.emptySet;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.hasProperty;
 import static org.hamcrest.Matchers.is;
@@ -280,6 +283,42 @@ public class DefaultRepositoryManagerTest extends ManagerTestBase<Repository> {
     );
   }
 
+  @Test
+  @SubjectAware(username = "dent")
+  public void testGetPageWithPermissionsForTwoOfThreeRepos() {
+    KeyGenerator keyGenerator = mock(KeyGenerator.class);
+    Stack<String> keys = new Stack<>();
+    keys.push("rateotu");
+    keys.push("p42");
+    keys.push("hof");
+    when(keyGenerator.createKey()).then(invocation -> keys.pop());
+
+    RepositoryManager repositoryManager = createRepositoryManager(keyGenerator);
+    repositoryManager.create(RepositoryTestData.createHeartOfGold());
+    repositoryManager.create(RepositoryTestData.create42Puzzle());
+    repositoryManager.create(RepositoryTestData.createRestaurantAtTheEndOfTheUniverse());
+
+    PageResult<Repository> page = repositoryManager.getPage(repository -> true, Comparator.comparing(Repository::getName), 0, 1);
+
+    assertEquals(2, page.getOverallCount());
+    assertThat(page.getEntities(), contains(hasProperty("id", is("p42"))));
+    verify(postProcessor).postProcess(argThat(repository -> repository.getId().equals("p42")));
+    verify(postProcessor, never()).postProcess(argThat(repository -> repository.getId().equals("hof")));
+  }
+
+  @Test
+  public void testGetPageSortedDescending() {
+    Repository heartOfGold = createTestRepository();
+    Repository happyVerticalPeopleTransporter = createSecondTestRepository();
+
+    PageResult<Repository> firstPage = manager.getPage(repository -> true, Comparator.comparing(Repository::getName).reversed(), 0, 1);
+    PageResult<Repository> secondPage = manager.getPage(repository -> true, Comparator.comparing(Repository::getName).reversed(), 1, 1);
+
+    assertEquals(2, firstPage.getOverallCount());
+    assertThat(firstPage.getEntities(), contains(hasProperty("id", is(happyVerticalPeopleTransporter.getId()))));
+    assertThat(secondPage.getEntities(), contains(hasProperty("id", is(heartOfGold.getId()))));
+  }
+
   @Test
   public void testEvents() {
     RepositoryManager repoManager = createManager();
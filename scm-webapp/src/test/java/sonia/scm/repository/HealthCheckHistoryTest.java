@@ -0,0 +1,84 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sonia.scm.HandlerEventType;
+import sonia.scm.store.InMemoryConfigurationStoreFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HealthCheckHistoryTest {
+
+  private final InMemoryConfigurationStoreFactory storeFactory = new InMemoryConfigurationStoreFactory();
+
+  private Repository repository;
+
+  @BeforeEach
+  void setUpRepository() {
+    repository = RepositoryTestData.createHeartOfGold();
+    repository.setId("hog");
+    repository.setLastModified(42L);
+  }
+
+  @Test
+  void shouldReturnUnchangedAfterRestart() {
+    HealthCheckHistory history = new HealthCheckHistory(storeFactory);
+    history.record(repository, HealthCheckResult.healthy());
+    history.close();
+
+    assertThat(new HealthCheckHistory(storeFactory).isUnchanged(repository)).isTrue();
+  }
+
+  @Test
+  void shouldReturnChangedForModifiedRepository() {
+    HealthCheckHistory history = new HealthCheckHistory(storeFactory);
+    history.record(repository, HealthCheckResult.healthy());
+
+    repository.setLastModified(43L);
+
+    assertThat(history.isUnchanged(repository)).isFalse();
+  }
+
+  @Test
+  void shouldReturnChangedForUnhealthyRepository() {
+    HealthCheckHistory history = new HealthCheckHistory(storeFactory);
+    history.record(repository, HealthCheckResult.healthy());
+    history.record(repository, HealthCheckResult.unhealthy(new HealthCheckFailure("1", "failed", "failed")));
+
+    assertThat(history.isUnchanged(repository)).isFalse();
+  }
+
+  @Test
+  void shouldRemoveMarkerOfDeletedRepository() {
+    HealthCheckHistory history = new HealthCheckHistory(storeFactory);
+    history.record(repository, HealthCheckResult.healthy());
+
+    history.onEvent(new RepositoryEvent(HandlerEventType.DELETE, repository));
+
+    assertThat(history.isUnchanged(repository)).isFalse();
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HealthCheckQueueTest {
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+  @AfterEach
+  void shutdownExecutor() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void shouldCheckRepositoriesInGivenOrder() throws InterruptedException {
+    List<Repository> checked = new ArrayList<>();
+    List<Repository> repositories = List.of(repository("a", "git"), repository("b", "hg"), repository("c", "git"));
+
+    new HealthCheckQueue(Runnable::run, type -> 1).run(repositories, checked::add);
+
+    assertThat(checked).extracting("id").containsExactly("a", "b", "c");
+  }
+
+  @Test
+  void shouldLimitConcurrentChecksPerType() throws InterruptedException {
+    List<Repository> repositories = List.of(
+      repository("a", "git"), repository("b", "git"), repository("c", "git"), repository("d", "git"),
+      repository("e", "svn")
+    );
+    List<Repository> checked = Collections.synchronizedList(new ArrayList<>());
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+
+    new HealthCheckQueue(executor, type -> 2).run(repositories, repository -> {
+      if ("git".equals(repository.getType())) {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        sleep();
+        running.decrementAndGet();
+      }
+      checked.add(repository);
+    });
+
+    assertThat(checked).hasSize(5);
+    assertThat(maxRunning.get()).isLessThanOrEqualTo(2);
+  }
+
+  @Test
+  void shouldContinueAfterFailedCheck() throws InterruptedException {
+    List<Repository> checked = new ArrayList<>();
+    List<Repository> repositories = List.of(repository("a", "git"), repository("b", "git"));
+
+    new HealthCheckQueue(Runnable::run, type -> 1).run(repositories, repository -> {
+      checked.add(repository);
+      throw new IllegalStateException("failed");
+    });
+
+    assertThat(checked).extracting("id").containsExactly("a", "b");
+  }
+
+  private void sleep() {
+    try {
+      Thread.sleep(20);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private Repository repository(String id, String type) {
+    return new Repository(id, type, "space", id);
+  }
+}
@@ -44,6 +44,7 @@ import sonia.scm.repository.api.RepositoryService;
 import sonia.scm.repository.api.RepositoryServiceFactory;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 
 import static com.google.common.collect.ImmutableSet.of;
@@ -51,6 +52,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
@@ -84,6 +86,8 @@ class HealthCheckerTest {
   private ScmConfiguration scmConfiguration;
   @Mock
   private NotificationSender notificationSender;
+  @Mock
+  private HealthCheckHistory history;
 
   @Mock
   private Subject subject;
@@ -92,7 +96,7 @@ class HealthCheckerTest {
 
   @BeforeEach
   void initializeChecker() {
-    this.checker = new HealthChecker(of(healthCheck1, healthCheck2), repositoryManager, repositoryServiceFactory, postProcessor, scmConfiguration, notificationSender);
+    this.checker = new HealthChecker(of(healthCheck1, healthCheck2), repositoryManager, repositoryServiceFactory, postProcessor, scmConfiguration, notificationSender, history);
   }
 
   @BeforeEach
@@ -281,6 +285,55 @@ class HealthCheckerTest {
     }
   }
 
+  @Nested
+  class ForAllRepositories {
+
+    private final Repository puzzle = RepositoryTestData.create42Puzzle();
+    private final Repository restaurant = RepositoryTestData.createRestaurantAtTheEndOfTheUniverse();
+
+    @BeforeEach
+    void setUpRepositories() {
+      puzzle.setId("puzzle");
+      restaurant.setId("restaurant");
+      when(repositoryManager.getAll()).thenReturn(List.of(puzzle, restaurant));
+      when(subject.isPermitted(anyString())).thenReturn(true);
+      lenient().when(subject.associateWith(any(Runnable.class))).thenAnswer(invocation -> {
+        Runnable runnable = invocation.getArgument(0);
+        return (Runnable) () -> {
+          ThreadContext.bind(subject);
+          try {
+            runnable.run();
+          } finally {
+            ThreadContext.unbindSubject();
+          }
+        };
+      });
+      lenient().when(healthCheck1.check(any())).thenReturn(HealthCheckResult.healthy());
+      lenient().when(healthCheck2.check(any())).thenReturn(HealthCheckResult.healthy());
+    }
+
+    @Test
+    void shouldCheckAllRepositories() {
+      checker.lightCheckAll();
+
+      verify(healthCheck1).check(puzzle);
+      verify(healthCheck1).check(restaurant);
+      verify(history).record(puzzle, HealthCheckResult.healthy());
+      verify(history).record(restaurant, HealthCheckResult.healthy());
+      verify(history).store();
+    }
+
+    @Test
+    void shouldSkipUnchangedRepositories() {
+      when(history.isUnchanged(puzzle)).thenReturn(true);
+
+      checker.lightCheckAll();
+
+      verify(healthCheck1, never()).check(puzzle);
+      verify(healthCheck1).check(restaurant);
+    }
+  }
+
   @Nested
   class WithoutPermission {
 
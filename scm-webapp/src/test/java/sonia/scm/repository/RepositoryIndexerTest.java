@@ -42,6 +42,7 @@ import sonia.scm.search.SerializableIndexTask;
 import java.util.Arrays;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -144,7 +145,7 @@ class RepositoryIndexerTest {
 
     indexer.handleEvent(event);
 
-    verify(searchEngine.forType(Repository.class)).update(captor.capture());
+    verify(searchEngine.forType(Repository.class)).update(eq(heartOfGold.getId()), captor.capture());
     captor.getValue().update(index);
     verify(index).store(idFor(heartOfGold), RepositoryPermissions.read(heartOfGold).asShiroString(), heartOfGold);
   }
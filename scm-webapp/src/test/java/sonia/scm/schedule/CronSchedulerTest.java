@@ -31,8 +31,12 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.ZonedDateTime;
+import java.util.Optional;
 import java.util.concurrent.Future;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
@@ -53,9 +57,16 @@ class CronSchedulerTest {
     lenient().when(taskFactory.create(anyString(), any(Class.class))).thenReturn(task);
   }
 
+  @Mock
+  private CronExpression expression;
+
+  @Mock
+  private Runnable runnable;
+
   @Test
   void shouldScheduleWithClass() {
     when(task.hasNextRun()).thenReturn(true);
+    when(task.getNextRun()).thenReturn(Optional.of(ZonedDateTime.now().plusHours(1)));
     try (CronScheduler scheduler = new CronScheduler(taskFactory, new SimpleMeterRegistry())) {
       scheduler.schedule("vep", TestingRunnable.class);
       verify(task).setFuture(any(Future.class));
@@ -65,6 +76,7 @@ class CronSchedulerTest {
   @Test
   void shouldScheduleWithRunnable() {
     when(task.hasNextRun()).thenReturn(true);
+    when(task.getNextRun()).thenReturn(Optional.of(ZonedDateTime.now().plusHours(1)));
     try (CronScheduler scheduler = new CronScheduler(taskFactory, new SimpleMeterRegistry())) {
       scheduler.schedule("vep", new TestingRunnable());
       verify(task).setFuture(any(Future.class));
@@ -79,6 +91,76 @@ class CronSchedulerTest {
     }
   }
 
+  @Test
+  void shouldExecuteTaskAtNextRun() {
+    ZonedDateTime nextRun = ZonedDateTime.now().plusNanos(50_000_000L);
+    when(expression.calculateNextRun()).thenReturn(Optional.of(nextRun), Optional.empty());
+    when(expression.shouldRun(nextRun)).thenReturn(true);
+    CronTask cronTask = new CronTask("one", expression, runnable);
+    when(taskFactory.create("vep", runnable)).thenReturn(cronTask);
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    try (CronScheduler scheduler = new CronScheduler(taskFactory, registry)) {
+      scheduler.schedule("vep", runnable);
+
+      verify(runnable, timeout(5000)).run();
+      await().until(() -> registry.get("scm.cron.lateness").timer().count() == 1);
+      assertThat(cronTask.hasNextRun()).isFalse();
+    }
+  }
+
+  @Test
+  void shouldScheduleNextRunAfterExecution() {
+    ZonedDateTime firstRun = ZonedDateTime.now().plusNanos(10_000_000L);
+    ZonedDateTime secondRun = firstRun.plusNanos(10_000_000L);
+    when(expression.calculateNextRun()).thenReturn(Optional.of(firstRun), Optional.of(secondRun), Optional.empty());
+    when(expression.shouldRun(any())).thenReturn(true);
+    CronTask cronTask = new CronTask("one", expression, runnable);
+    when(taskFactory.create("vep", runnable)).thenReturn(cronTask);
+
+    try (CronScheduler scheduler = new CronScheduler(taskFactory, new SimpleMeterRegistry())) {
+      scheduler.schedule("vep", runnable);
+
+      verify(runnable, timeout(5000).times(2)).run();
+    }
+  }
+
+  @Test
+  void shouldScheduleNextRunAfterFailedExecution() {
+    ZonedDateTime firstRun = ZonedDateTime.now().plusNanos(10_000_000L);
+    ZonedDateTime secondRun = firstRun.plusHours(1);
+    when(expression.calculateNextRun()).thenReturn(Optional.of(firstRun), Optional.of(secondRun));
+    when(expression.shouldRun(firstRun)).thenReturn(true);
+    doThrow(new IllegalStateException("failed")).when(runnable).run();
+    CronTask cronTask = new CronTask("one", expression, runnable);
+    when(taskFactory.create("vep", runnable)).thenReturn(cronTask);
+
+    try (CronScheduler scheduler = new CronScheduler(taskFactory, new SimpleMeterRegistry())) {
+      scheduler.schedule("vep", runnable);
+
+      verify(runnable, timeout(5000)).run();
+      await().until(() -> cronTask.getNextRun().equals(Optional.of(secondRun)));
+      verify(runnable, after(200).times(1)).run();
+    }
+  }
+
+  @Test
+  void shouldCountMissedRuns() {
+    ZonedDateTime firstRun = ZonedDateTime.now().plusNanos(10_000_000L);
+    when(expression.calculateNextRun()).thenReturn(Optional.of(firstRun), Optional.of(firstRun.plusHours(1)));
+    when(expression.shouldRun(firstRun)).thenReturn(true);
+    when(expression.calculateNextRunAfter(firstRun)).thenReturn(Optional.of(firstRun.plusMinutes(1)));
+    CronTask cronTask = new CronTask("one", expression, runnable);
+    when(taskFactory.create("vep", runnable)).thenReturn(cronTask);
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    try (CronScheduler scheduler = new CronScheduler(taskFactory, registry)) {
+      scheduler.schedule("vep", runnable);
+
+      await().until(() -> registry.get("scm.cron.missed").counter().count() == 1.0);
+    }
+  }
+
   private static class TestingRunnable implements Runnable {
 
     @Override
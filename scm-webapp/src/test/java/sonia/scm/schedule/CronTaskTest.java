@@ -104,10 +104,61 @@ class CronTaskTest {
     verify(runnable).run();
   }
 
+  @Test
+  void shouldAdvanceNextRunIfRunnableFails() {
+    ZonedDateTime time = ZonedDateTime.now();
+    when(expression.calculateNextRun()).thenReturn(Optional.of(time), Optional.of(time.plusHours(1)));
+    when(expression.shouldRun(time)).thenReturn(true);
+    doThrow(new IllegalStateException("failed")).when(runnable).run();
+
+    CronTask task = task();
+
+    assertThrows(IllegalStateException.class, task::run);
+    assertThat(task.getNextRun()).contains(time.plusHours(1));
+  }
+
   @Test
   void shouldNotRun() {
     task().run();
 
     verify(runnable, never()).run();
   }
+
+  @Test
+  void shouldDetectMissedRun() {
+    ZonedDateTime time = ZonedDateTime.now();
+    when(expression.calculateNextRun()).thenReturn(Optional.of(time), Optional.of(time.plusHours(1)));
+    when(expression.calculateNextRunAfter(time)).thenReturn(Optional.of(time.plusMinutes(1)));
+    when(expression.shouldRun(time)).thenReturn(true);
+
+    CronTask task = task();
+    task.run();
+
+    assertThat(task.hasMissedRun()).isTrue();
+  }
+
+  @Test
+  void shouldNotDetectMissedRunIfNextRunIsTheFollowingOne() {
+    ZonedDateTime time = ZonedDateTime.now();
+    when(expression.calculateNextRun()).thenReturn(Optional.of(time), Optional.of(time.plusHours(1)));
+    when(expression.calculateNextRunAfter(time)).thenReturn(Optional.of(time.plusHours(1)));
+    when(expression.shouldRun(time)).thenReturn(true);
+
+    CronTask task = task();
+    task.run();
+
+    assertThat(task.hasMissedRun()).isFalse();
+  }
+
+  @Test
+  void shouldCancelFutureWhichIsSetAfterCancel() {
+    when(expression.calculateNextRun()).thenReturn(Optional.of(ZonedDateTime.now()));
+
+    CronTask task = task();
+    task.cancel();
+    task.setFuture(future);
+
+    verify(future).cancel(false);
+    assertThat(task.isCancelled()).isTrue();
+  }
 }
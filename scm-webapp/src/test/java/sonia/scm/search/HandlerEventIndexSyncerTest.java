@@ -78,7 +78,7 @@ class HandlerEventIndexSyncerTest {
 
     new HandlerEventIndexSyncer<>(searchEngine, indexer).handleEvent(event);
 
-    verify(searchEngine.forType(Repository.class)).update(store);
+    verify(searchEngine.forType(Repository.class)).update(puzzle.getId(), store);
   }
 
   @Test
@@ -91,7 +91,7 @@ class HandlerEventIndexSyncerTest {
     RepositoryEvent event = new RepositoryEvent(HandlerEventType.DELETE, puzzle);
     new HandlerEventIndexSyncer<>(searchEngine, indexer).handleEvent(event);
 
-    verify(searchEngine.forType(Repository.class)).update(delete);
+    verify(searchEngine.forType(Repository.class)).update(puzzle.getId(), delete);
   }
 
 }
@@ -30,6 +30,7 @@ import org.apache.lucene.document.Field;
 import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.search.IndexSearcher;
 import org.assertj.core.api.AssertionsForClassTypes;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -181,6 +182,44 @@ class IndexManagerTest {
     }
   }
 
+  @Test
+  void shouldReuseSearcherUntilRefresh() throws IOException {
+    try (IndexWriter writer = open(Songs.class, "idx-for-search")) {
+      addDoc(writer, "Dent");
+    }
+
+    IndexSearcher first;
+    try (SearcherReference reference = indexManager.openForSearch(searchableType, "idx-for-search")) {
+      first = reference.getSearcher();
+      assertThat(reference.getReader().numDocs()).isOne();
+    }
+
+    try (IndexWriter writer = open(Songs.class, "idx-for-search")) {
+      addDoc(writer, "Trillian");
+    }
+
+    try (SearcherReference reference = indexManager.openForSearch(searchableType, "idx-for-search")) {
+      AssertionsForClassTypes.assertThat(reference.getSearcher()).isSameAs(first);
+    }
+
+    indexManager.refreshSearcher(new IndexParams("idx-for-search", searchableType));
+
+    try (SearcherReference reference = indexManager.openForSearch(searchableType, "idx-for-search")) {
+      AssertionsForClassTypes.assertThat(reference.getSearcher()).isNotSameAs(first);
+      assertThat(reference.getReader().numDocs()).isEqualTo(2);
+    }
+
+    indexManager.close();
+  }
+
+  @Test
+  void shouldOpenNoOpSearcherForMissingIndex() throws IOException {
+    open(Songs.class, "idx-for-search");
+    try (SearcherReference reference = indexManager.openForSearch(searchableType, "idx-for-search")) {
+      AssertionsForClassTypes.assertThat(reference.getReader()).isInstanceOf(NoOpIndexReader.class);
+    }
+  }
+
   private void addDoc(IndexWriter writer, String name) throws IOException {
     Document doc = new Document();
     doc.add(new TextField("hitchhiker", name, Field.Store.YES));
@@ -0,0 +1,138 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.search;
+
+import com.google.inject.Injector;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class IndexUpdateBatcherTest {
+
+  @Mock
+  private ScheduledExecutorService scheduler;
+
+  @Mock
+  private ScheduledFuture<?> scheduledFuture;
+
+  @Mock
+  private LuceneSearchableType searchableType;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final List<LuceneBatchIndexTask> submitted = new ArrayList<>();
+  private final List<String> applied = new ArrayList<>();
+
+  private IndexUpdateBatcher batcher;
+
+  @BeforeEach
+  void setUp() {
+    lenient().when(searchableType.getName()).thenReturn("repository");
+    lenient().doReturn(scheduledFuture).when(scheduler).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    batcher = new IndexUpdateBatcher(meterRegistry, scheduler, 250, 3);
+  }
+
+  @Test
+  void shouldReplacePendingUpdatesOfSameItem() {
+    add("default", "a", "a1");
+    add("default", "b", "b1");
+    add("default", "a", "a2");
+    add("default", null, "x");
+
+    assertThat(meterRegistry.get(IndexUpdateBatcher.METRIC_PENDING).gauge().value()).isEqualTo(3);
+
+    batcher.flush();
+
+    assertThat(submitted).hasSize(1);
+    apply(submitted.get(0));
+    assertThat(applied).containsExactly("b1", "a2", "x");
+    assertThat(meterRegistry.get(IndexUpdateBatcher.METRIC_PENDING).gauge().value()).isZero();
+    assertThat(meterRegistry.get(IndexUpdateBatcher.METRIC_SIZE).summary().totalAmount()).isEqualTo(3);
+  }
+
+  @Test
+  void shouldSubmitBatchWhenMaxSizeIsReached() {
+    add("default", "a", "a");
+    add("default", "b", "b");
+    assertThat(submitted).isEmpty();
+
+    add("default", "c", "c");
+
+    assertThat(submitted).hasSize(1);
+    assertThat(submitted.get(0).size()).isEqualTo(3);
+  }
+
+  @Test
+  void shouldSubmitBatchAfterDelay() {
+    add("default", "a", "a");
+    add("default", "b", "b");
+
+    ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+    verify(scheduler, times(1)).schedule(captor.capture(), anyLong(), any(TimeUnit.class));
+    assertThat(submitted).isEmpty();
+
+    captor.getValue().run();
+
+    assertThat(submitted).hasSize(1);
+    assertThat(submitted.get(0).size()).isEqualTo(2);
+  }
+
+  @Test
+  void shouldCollectBatchesPerIndex() {
+    add("default", "a", "a");
+    add("other", "a", "a");
+
+    batcher.flush();
+
+    assertThat(submitted).hasSize(2);
+  }
+
+  private void add(String index, String id, String name) {
+    batcher.add(new IndexParams(index, searchableType), id, i -> applied.add(name), submitted::add);
+  }
+
+  private void apply(LuceneBatchIndexTask task) {
+    task.task(mock(Injector.class)).update(null);
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.search;
+
+import com.google.inject.Injector;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+@ExtendWith(MockitoExtension.class)
+class LuceneBatchIndexTaskTest {
+
+  @Mock
+  private LuceneSearchableType searchableType;
+
+  private final List<String> updated = new ArrayList<>();
+  private final List<String> afterUpdated = new ArrayList<>();
+
+  @Test
+  void shouldApplyOtherTasksIfOneFailsToUpdate() {
+    IndexTask<?> task = batch(new RecordingTask("a", false, false), new RecordingTask("b", true, false), new RecordingTask("c", false, false));
+
+    task.update(null);
+    task.afterUpdate();
+
+    assertThat(updated).containsExactly("a", "c");
+    assertThat(afterUpdated).containsExactly("a", "c");
+  }
+
+  @Test
+  void shouldRunOtherAfterUpdatesIfOneFails() {
+    IndexTask<?> task = batch(new RecordingTask("a", false, false), new RecordingTask("b", false, true), new RecordingTask("c", false, false));
+
+    task.update(null);
+    task.afterUpdate();
+
+    assertThat(updated).containsExactly("a", "b", "c");
+    assertThat(afterUpdated).containsExactly("a", "c");
+  }
+
+  private IndexTask<?> batch(SerializableIndexTask<?>... tasks) {
+    LuceneBatchIndexTask batch = new LuceneBatchIndexTask(new IndexParams("default", searchableType), Arrays.asList(tasks));
+    return batch.task(mock(Injector.class));
+  }
+
+  private class RecordingTask implements SerializableIndexTask<Object> {
+
+    private final String name;
+    private final boolean failUpdate;
+    private final boolean failAfterUpdate;
+
+    private RecordingTask(String name, boolean failUpdate, boolean failAfterUpdate) {
+      this.name = name;
+      this.failUpdate = failUpdate;
+      this.failAfterUpdate = failAfterUpdate;
+    }
+
+    @Override
+    public void update(Index<Object> index) {
+      if (failUpdate) {
+        throw new IllegalStateException("failed to update " + name);
+      }
+      updated.add(name);
+    }
+
+    @Override
+    public void afterUpdate() {
+      if (failAfterUpdate) {
+        throw new IllegalStateException("failed after update of " + name);
+      }
+      afterUpdated.add(name);
+    }
+  }
+}
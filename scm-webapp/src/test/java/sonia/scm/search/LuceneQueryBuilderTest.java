@@ -34,14 +34,17 @@ import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.IntPoint;
 import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.StoredField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.store.ByteBuffersDirectory;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
 import org.github.sdorra.jse.ShiroExtension;
 import org.github.sdorra.jse.SubjectAware;
 import org.junit.jupiter.api.BeforeEach;
@@ -272,6 +275,32 @@ class LuceneQueryBuilderTest {
     assertThat(hits).isOne();
   }
 
+  @Test
+  void shouldReturnOnlyPermittedHitsFromDocValues() throws IOException {
+    try (IndexWriter writer = writer()) {
+      writer.addDocument(permissionDocWithDocValues("Awesome content one", "abc"));
+      writer.addDocument(permissionDocWithDocValues("Awesome content two", "cde"));
+      writer.addDocument(permissionDocWithDocValues("Awesome content three", ""));
+      writer.addDocument(permissionDoc("Awesome content four", "fgh"));
+    }
+
+    QueryResult result = query(Simple.class, "content:awesome");
+    assertThat(result.getTotalHits()).isEqualTo(2);
+    assertThat(result.getHits()).hasSize(2);
+  }
+
+  @Test
+  void shouldCountOnlyPermittedHitsFromDocValues() throws IOException {
+    try (IndexWriter writer = writer()) {
+      writer.addDocument(permissionDocWithDocValues("Awesome content one", "abc"));
+      writer.addDocument(permissionDocWithDocValues("Awesome content two", "cde"));
+      writer.addDocument(permissionDocWithDocValues("Awesome content three", "cde"));
+    }
+
+    long hits = count(Simple.class, "content:awesome");
+    assertThat(hits).isOne();
+  }
+
   @Test
   void shouldFilterByRepository() throws IOException {
     try (IndexWriter writer = writer()) {
@@ -574,7 +603,7 @@ class LuceneQueryBuilderTest {
     try (DirectoryReader reader = DirectoryReader.open(directory)) {
       SearchableTypeResolver resolver = new SearchableTypeResolver(type);
       LuceneSearchableType searchableType = resolver.resolve(type);
-      lenient().when(opener.openForRead(searchableType, "default")).thenReturn(reader);
+      lenient().when(opener.openForSearch(searchableType, "default")).thenReturn(new SearcherReference(new IndexSearcher(reader), () -> {}));
       LuceneQueryBuilder<T> builder = new LuceneQueryBuilder<T>(
         opener, "default", searchableType, new AnalyzerFactory().create(searchableType)
       );
@@ -598,7 +627,7 @@ class LuceneQueryBuilderTest {
       SearchableTypeResolver resolver = new SearchableTypeResolver(type);
       LuceneSearchableType searchableType = resolver.resolve(type);
 
-      lenient().when(opener.openForRead(searchableType, "default")).thenReturn(reader);
+      lenient().when(opener.openForSearch(searchableType, "default")).thenReturn(new SearcherReference(new IndexSearcher(reader), () -> {}));
       LuceneQueryBuilder<T> builder = new LuceneQueryBuilder<>(
         opener, "default", searchableType, new AnalyzerFactory().create(searchableType)
       );
@@ -626,6 +655,16 @@ class LuceneQueryBuilderTest {
     return document;
   }
 
+  private Document permissionDocWithDocValues(String content, String permission) {
+    Document document = new Document();
+    document.add(new TextField("content", content, Field.Store.YES));
+    if (!permission.isEmpty()) {
+      document.add(new StringField(FieldNames.PERMISSION, permission, Field.Store.YES));
+    }
+    document.add(new SortedDocValuesField(FieldNames.PERMISSION, new BytesRef(permission)));
+    return document;
+  }
+
   private Document repositoryDoc(String content, String repository) {
     Document document = new Document();
     document.add(new TextField("content", content, Field.Store.YES));
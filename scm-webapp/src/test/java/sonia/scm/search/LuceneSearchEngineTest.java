@@ -230,6 +230,15 @@ class LuceneSearchEngineTest {
       verifyTaskSubmitted(LuceneInjectingIndexTask.class);
     }
 
+    @Test
+    void shouldSubmitWithLowPriority() {
+      mockType();
+
+      searchEngine.forType(Repository.class).update(DummyIndexTask.class);
+
+      verify(enqueue).priority(CentralWorkQueue.Priority.LOW);
+    }
+
     @Test
     void shouldLockTypeAndDefaultIndex() {
       mockType();
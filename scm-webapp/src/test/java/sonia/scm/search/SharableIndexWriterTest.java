@@ -121,6 +121,20 @@ class SharableIndexWriterTest {
     verify(underlyingWriter, never()).close();
   }
 
+  @Test
+  void shouldNotifyCommitListenerOnCommitAndClose() throws IOException {
+    Runnable commitListener = mock(Runnable.class);
+    SharableIndexWriter writer = new SharableIndexWriter(() -> underlyingWriter, commitListener);
+    writer.open();
+    writer.open();
+
+    writer.close();
+    verify(commitListener).run();
+
+    writer.close();
+    verify(commitListener, times(2)).run();
+  }
+
   @Test
   void shouldCloseIfUsageCounterIsZero() throws IOException {
     SharableIndexWriter writer = new SharableIndexWriter(() -> underlyingWriter);
@@ -57,7 +57,6 @@ import sonia.scm.user.UserTestData;
 import static com.google.common.collect.Lists.newArrayList;
 import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
-import static java.util.Optional.of;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.nullValue;
@@ -239,8 +238,6 @@ public class DefaultAuthorizationCollectorTest {
     puzzleNamespace.setPermissions(newArrayList(new RepositoryPermission(group, asList("read", "pull", "push"), true)));
 
     when(repositoryDAO.getAll()).thenReturn(newArrayList(heartOfGold, puzzle42));
-    when(namespaceDao.get(heartOfGold.getNamespace())).thenReturn(of(heartOfGoldNamespace));
-    when(namespaceDao.get(puzzle42.getNamespace())).thenReturn(of(puzzleNamespace));
     when(namespaceDao.allWithPermissions()).thenReturn(asList(heartOfGoldNamespace, puzzleNamespace));
 
     // execute and assert
@@ -0,0 +1,197 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import sonia.scm.repository.Namespace;
+import sonia.scm.repository.NamespaceDao;
+import sonia.scm.repository.Repository;
+import sonia.scm.repository.RepositoryDAO;
+import sonia.scm.repository.RepositoryPermission;
+import sonia.scm.repository.RepositoryTestData;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RepositoryPermissionIndexTest {
+
+  @Mock
+  private RepositoryDAO repositoryDAO;
+
+  @Mock
+  private NamespaceDao namespaceDao;
+
+  private RepositoryPermissionIndex index;
+
+  private final List<Repository> repositories = new ArrayList<>();
+
+  private Repository heartOfGold;
+  private Repository puzzle42;
+
+  @BeforeEach
+  void setUpIndex() {
+    heartOfGold = RepositoryTestData.createHeartOfGold();
+    heartOfGold.setId("hog");
+    heartOfGold.setPermissions(List.of(new RepositoryPermission("trillian", List.of("read"), false)));
+
+    puzzle42 = RepositoryTestData.create42Puzzle();
+    puzzle42.setId("42");
+    puzzle42.setPermissions(List.of(new RepositoryPermission("crew", List.of("read", "push"), true)));
+
+    repositories.add(heartOfGold);
+    repositories.add(puzzle42);
+    when(repositoryDAO.getAll()).thenReturn(repositories);
+    index = new RepositoryPermissionIndex(repositoryDAO, namespaceDao);
+  }
+
+  @Test
+  void shouldCollectUserAndGroupPermissions() {
+    assertThat(collect("trillian", emptySet())).containsOnly("repository:hog:read");
+    assertThat(collect("trillian", singleton("crew"))).containsOnly("repository:hog:read", "repository:42:read,push");
+    assertThat(collect("dent", emptySet())).isEmpty();
+  }
+
+  @Test
+  void shouldNotMixUpUsersAndGroups() {
+    assertThat(collect("crew", singleton("trillian"))).isEmpty();
+  }
+
+  @Test
+  void shouldCollectNamespacePermissionsForEachRepository() {
+    Namespace namespace = new Namespace(puzzle42.getNamespace());
+    namespace.setPermissions(List.of(new RepositoryPermission("dent", List.of("pull"), false)));
+    when(namespaceDao.allWithPermissions()).thenReturn(List.of(namespace));
+
+    assertThat(collect("dent", emptySet())).containsOnly(
+      "namespace:" + puzzle42.getNamespace() + ":pull",
+      "repository:hog:pull",
+      "repository:42:pull"
+    );
+  }
+
+  @Test
+  void shouldUpdateModifiedRepository() {
+    collect("trillian", emptySet());
+
+    Repository modified = heartOfGold.clone();
+    modified.setPermissions(List.of(new RepositoryPermission("dent", List.of("write"), false)));
+
+    assertThat(index.update(modified)).isTrue();
+    assertThat(collect("trillian", emptySet())).isEmpty();
+    assertThat(collect("dent", emptySet())).containsOnly("repository:hog:write");
+  }
+
+  @Test
+  void shouldNotReportChangeForUnrelatedModification() {
+    collect("trillian", emptySet());
+
+    Repository modified = heartOfGold.clone();
+    modified.setDescription("Improbable");
+
+    assertThat(index.update(modified)).isFalse();
+  }
+
+  @Test
+  void shouldApplyModificationWhichArrivesDuringBuild() throws InterruptedException {
+    Repository modified = heartOfGold.clone();
+    modified.setPermissions(List.of(new RepositoryPermission("dent", List.of("write"), false)));
+
+    AtomicBoolean changed = new AtomicBoolean();
+    Thread modifier = new Thread(() -> changed.set(index.update(modified)));
+    when(repositoryDAO.getAll()).thenAnswer(invocation -> {
+      // the modification must wait until the build has finished
+      modifier.start();
+      await().until(() -> modifier.getState() == Thread.State.WAITING);
+      return repositories;
+    });
+
+    assertThat(collect("trillian", emptySet())).containsOnly("repository:hog:read");
+    modifier.join();
+
+    assertThat(changed).isTrue();
+    assertThat(collect("trillian", emptySet())).isEmpty();
+    assertThat(collect("dent", emptySet())).containsOnly("repository:hog:write");
+  }
+
+  @Test
+  void shouldRemoveDeletedRepository() {
+    collect("trillian", emptySet());
+
+    assertThat(index.remove("hog")).isTrue();
+    assertThat(collect("trillian", emptySet())).isEmpty();
+    assertThat(index.remove("hog")).isFalse();
+  }
+
+  @Test
+  void shouldUpdateNamespace() {
+    collect("trillian", emptySet());
+
+    Namespace namespace = new Namespace(heartOfGold.getNamespace());
+    namespace.setPermissions(List.of(new RepositoryPermission("crew", List.of("pull"), true)));
+
+    assertThat(index.update(namespace)).isTrue();
+    assertThat(collect("zaphod", singleton("crew"))).contains("repository:hog:pull", "repository:42:read,push");
+    assertThat(index.update(namespace)).isFalse();
+  }
+
+  @Test
+  void shouldRemoveNamespacePermissionsWithLastRepository() {
+    Namespace namespace = new Namespace("space");
+    namespace.setPermissions(List.of(new RepositoryPermission("dent", List.of("pull"), false)));
+    Repository repository = RepositoryTestData.createRestaurantAtTheEndOfTheUniverse();
+    repository.setId("restaurant");
+    repository.setNamespace("space");
+    repositories.clear();
+    repositories.add(repository);
+    when(namespaceDao.allWithPermissions()).thenReturn(List.of(namespace));
+    collect("dent", emptySet());
+
+    index.remove("restaurant");
+
+    assertThat(collect("dent", emptySet())).isEmpty();
+  }
+
+  private Collection<String> collect(String username, Set<String> groups) {
+    return index.collect(username, groups)
+      .stream()
+      .map(grant -> grant.getType() + ":" + grant.getId() + ":" + String.join(",", grant.getPermission().getVerbs()))
+      .collect(Collectors.toList());
+  }
+}
@@ -42,6 +42,7 @@ import sonia.scm.search.SerializableIndexTask;
 import java.util.Arrays;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -122,7 +123,7 @@ class UserIndexerTest {
 
     indexer.handleEvent(event);
 
-    verify(searchEngine.forType(User.class)).update(captor.capture());
+    verify(searchEngine.forType(User.class)).update(eq(trillian.getId()), captor.capture());
     captor.getValue().update(index);
     verify(index.delete()).byId(Id.of(User.class, trillian));
   }
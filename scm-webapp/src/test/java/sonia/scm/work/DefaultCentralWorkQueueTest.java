@@ -50,6 +50,9 @@ import sonia.scm.security.Authentications;
 import javax.annotation.Nonnull;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -246,6 +249,15 @@ class DefaultCentralWorkQueueTest {
       assertThat(blockCount).isPositive();
     }
 
+    @Test
+    void shouldCaptureQueueDurationByPriority() {
+      queue.append().priority(CentralWorkQueue.Priority.LOW).enqueue(new Increase());
+      await().atMost(TIMEOUT, TimeUnit.SECONDS).until(() -> queue.getSize() == 0);
+
+      Timer timer = meterRegistry.get(DefaultCentralWorkQueue.METRIC_QUEUE).tag("priority", "LOW").timer();
+      assertThat(timer.count()).isEqualTo(1);
+    }
+
     @Nonnull
     private Repository repository(String id) {
       Repository one = new Repository();
@@ -290,6 +302,59 @@ class DefaultCentralWorkQueueTest {
     assertThat(ctx.value).isEqualTo("Hello");
   }
 
+  @Test
+  void shouldRunTasksWithHigherPriorityFirst() {
+    DefaultCentralWorkQueue queue = new DefaultCentralWorkQueue(
+      Guice.createInjector(new SecurityModule()), persistence, new SimpleMeterRegistry(), () -> 1
+    );
+    try {
+      CountDownLatch latch = new CountDownLatch(1);
+      List<String> executed = new CopyOnWriteArrayList<>();
+
+      queue.append().enqueue(waitFor(latch));
+      queue.append().priority(CentralWorkQueue.Priority.LOW).enqueue(() -> executed.add("low"));
+      queue.append().enqueue(() -> executed.add("normal"));
+      queue.append().priority(CentralWorkQueue.Priority.HIGH).enqueue(() -> executed.add("high"));
+      latch.countDown();
+
+      await().atMost(TIMEOUT, TimeUnit.SECONDS).until(() -> queue.getSize() == 0);
+      assertThat(executed).containsExactly("high", "normal", "low");
+    } finally {
+      queue.close();
+    }
+  }
+
+  @Test
+  void shouldRunBlockedTasksWithHigherPriorityFirst() {
+    DefaultCentralWorkQueue queue = new DefaultCentralWorkQueue(
+      Guice.createInjector(new SecurityModule()), persistence, new SimpleMeterRegistry(), () -> 4
+    );
+    try {
+      CountDownLatch latch = new CountDownLatch(1);
+      List<String> executed = new CopyOnWriteArrayList<>();
+
+      queue.append().locks("index").enqueue(waitFor(latch));
+      queue.append().locks("index", "one").priority(CentralWorkQueue.Priority.LOW).enqueue(() -> executed.add("low"));
+      queue.append().locks("index", "one").priority(CentralWorkQueue.Priority.HIGH).enqueue(() -> executed.add("high"));
+      latch.countDown();
+
+      await().atMost(TIMEOUT, TimeUnit.SECONDS).until(() -> queue.getSize() == 0);
+      assertThat(executed).containsExactly("high", "low");
+    } finally {
+      queue.close();
+    }
+  }
+
+  private Task waitFor(CountDownLatch latch) {
+    return () -> {
+      try {
+        latch.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    };
+  }
+
   @Test
   void shouldLoadFromPersistence() {
     Context context = new Context();
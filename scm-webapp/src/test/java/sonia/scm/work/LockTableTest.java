@@ -0,0 +1,88 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.work;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LockTableTest {
+
+  private final LockTable lockTable = new LockTable();
+
+  @Test
+  void shouldNotBlockWithoutLocks() {
+    assertThat(lockTable.findBlocker(Set.of(res("a"), res("b", "c")))).isNull();
+  }
+
+  @Test
+  void shouldBeBlockedBySameResource() {
+    lockTable.lock(Set.of(res("a", "b")));
+
+    assertThat(lockTable.findBlocker(Set.of(res("a", "b")))).isEqualTo(res("a", "b"));
+    assertThat(lockTable.findBlocker(Set.of(res("a", "c")))).isNull();
+    assertThat(lockTable.findBlocker(Set.of(res("b", "b")))).isNull();
+  }
+
+  @Test
+  void shouldBlockWholeTypeBySpecificResource() {
+    lockTable.lock(Set.of(res("a", "b")));
+
+    assertThat(lockTable.findBlocker(Set.of(res("a")))).isEqualTo(res("a", "b"));
+  }
+
+  @Test
+  void shouldBlockSpecificResourceByWholeType() {
+    lockTable.lock(Set.of(res("a")));
+
+    assertThat(lockTable.findBlocker(Set.of(res("a", "b")))).isEqualTo(res("a"));
+  }
+
+  @Test
+  void shouldFindBlockerForAnyOfTheResources() {
+    lockTable.lock(Set.of(res("b", "c")));
+
+    assertThat(lockTable.findBlocker(Set.of(res("a"), res("b", "c")))).isEqualTo(res("b", "c"));
+  }
+
+  @Test
+  void shouldReleaseLocks() {
+    lockTable.lock(Set.of(res("a"), res("b", "c")));
+    lockTable.unlock(Set.of(res("a"), res("b", "c")));
+
+    assertThat(lockTable.findBlocker(Set.of(res("a"), res("b")))).isNull();
+    assertThat(lockTable.isEmpty()).isTrue();
+  }
+
+  private Resource res(String name) {
+    return new Resource(name);
+  }
+
+  private Resource res(String name, String id) {
+    return new Resource(name, id);
+  }
+}
@@ -31,8 +31,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import sonia.scm.SCMContextProvider;
 import sonia.scm.plugin.PluginLoader;
 import sonia.scm.store.Blob;
 import sonia.scm.store.InMemoryBlobStore;
@@ -40,6 +42,9 @@ import sonia.scm.store.InMemoryBlobStoreFactory;
 
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
 import java.util.Collections;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -57,12 +62,16 @@ class PersistenceTest {
     @Mock
     private PluginLoader pluginLoader;
 
+    @Mock
+    private SCMContextProvider contextProvider;
+
     private Persistence persistence;
 
     @BeforeEach
-    void setUp() {
+    void setUp(@TempDir Path directory) {
       when(pluginLoader.getUberClassLoader()).thenReturn(PersistenceTest.class.getClassLoader());
-      persistence = new Persistence(pluginLoader, new InMemoryBlobStoreFactory());
+      when(contextProvider.resolve(Paths.get("var", "central-work-queue"))).thenReturn(directory);
+      persistence = new Persistence(pluginLoader, new InMemoryBlobStoreFactory(), contextProvider);
     }
 
     @Test
@@ -100,13 +109,31 @@ class PersistenceTest {
     }
 
     @Test
-    void shouldRemoveAfterLoad() {
+    void shouldKeepLoadedUntilRemoved() {
       store(1, 2);
 
+      Collection<UnitOfWork> loaded = persistence.loadAll();
+      assertThat(loaded).hasSize(2);
       assertThat(persistence.loadAll()).hasSize(2);
+
+      loaded.forEach(persistence::remove);
       assertThat(persistence.loadAll()).isEmpty();
     }
 
+    @Test
+    void shouldSupersedeRestoredUnitOfWork() {
+      store(1);
+
+      UnitOfWork loaded = persistence.loadAll().iterator().next();
+      loaded.restore(42L);
+      persistence.store(loaded);
+
+      Collection<UnitOfWork> reloaded = persistence.loadAll();
+      assertThat(reloaded).hasSize(1);
+      assertThat(reloaded.iterator().next().getOrder()).isEqualTo(42L);
+      assertThat(reloaded.iterator().next().getStorageId()).isEqualTo(loaded.getStorageId());
+    }
+
     @Test
     void shouldFailIfNotSerializable() {
       store(1);
@@ -140,22 +167,50 @@ class PersistenceTest {
 
   }
 
-  @Test
-  void shouldNotFailForNonChunkOfWorkItems() throws IOException {
-    InMemoryBlobStore blobStore = new InMemoryBlobStore();
+  @Nested
+  class WithBlobs {
 
-    Persistence persistence = new Persistence(PersistenceTest.class.getClassLoader(), blobStore);
-    persistence.store(new SimpleUnitOfWork(
-      1L, principal, Collections.emptySet(), new MyTask())
-    );
+    private InMemoryBlobStore blobStore;
+    private Persistence persistence;
 
-    Blob blob = blobStore.create();
-    try (ObjectOutputStream stream = new ObjectOutputStream(blob.getOutputStream())) {
-      stream.writeObject(new MyTask());
-      blob.commit();
+    @BeforeEach
+    void setUp(@TempDir Path directory) {
+      blobStore = new InMemoryBlobStore();
+      persistence = new Persistence(
+        PersistenceTest.class.getClassLoader(), blobStore, new SegmentLog(directory, false)
+      );
     }
 
-    assertThat(persistence.loadAll()).hasSize(1);
+    @Test
+    void shouldNotFailForNonChunkOfWorkItems() throws IOException {
+      persistence.store(new SimpleUnitOfWork(
+        1L, principal, Collections.emptySet(), new MyTask())
+      );
+
+      write(new MyTask());
+
+      assertThat(persistence.loadAll()).hasSize(1);
+    }
+
+    @Test
+    void shouldMigrateBlobs() throws IOException {
+      SimpleUnitOfWork work = new SimpleUnitOfWork(
+        1L, principal, Collections.singleton(new Resource("a")), new MyTask()
+      );
+      write(work);
+
+      assertThat(persistence.loadAll()).containsExactly(work);
+      assertThat(blobStore.getAll()).isEmpty();
+      assertThat(persistence.loadAll()).containsExactly(work);
+    }
+
+    private void write(Object object) throws IOException {
+      Blob blob = blobStore.create();
+      try (ObjectOutputStream stream = new ObjectOutputStream(blob.getOutputStream())) {
+        stream.writeObject(object);
+        blob.commit();
+      }
+    }
   }
 
   @EqualsAndHashCode
@@ -0,0 +1,237 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020-present Cloudogu GmbH and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sonia.scm.work;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SegmentLogTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void shouldRecoverAppended() {
+    SegmentLog log = new SegmentLog(directory, false);
+    log.append(log.nextId(), bytes("one"));
+    log.append(log.nextId(), bytes("two"));
+    log.close();
+
+    Map<Long, byte[]> recovered = new SegmentLog(directory, false).recover();
+    assertThat(recovered).containsOnlyKeys(1L, 2L);
+    assertThat(recovered.get(1L)).isEqualTo(bytes("one"));
+    assertThat(recovered.get(2L)).isEqualTo(bytes("two"));
+  }
+
+  @Test
+  void shouldNotRecoverRemoved() {
+    SegmentLog log = new SegmentLog(directory, false);
+    log.append(1L, bytes("one"));
+    log.append(2L, bytes("two"));
+    log.remove(1L);
+
+    assertThat(new SegmentLog(directory, false).recover()).containsOnlyKeys(2L);
+  }
+
+  @Test
+  void shouldRecoverLatestRecordOfId() {
+    SegmentLog log = new SegmentLog(directory, false);
+    log.append(1L, bytes("one"));
+    log.append(1L, bytes("uno"));
+
+    assertThat(new SegmentLog(directory, false).recover().get(1L)).isEqualTo(bytes("uno"));
+  }
+
+  @Test
+  void shouldContinueIdsAfterRecover() {
+    SegmentLog log = new SegmentLog(directory, false);
+    log.append(41L, bytes("one"));
+    log.remove(41L);
+
+    SegmentLog recovered = new SegmentLog(directory, false);
+    recovered.recover();
+    assertThat(recovered.nextId()).isEqualTo(42L);
+  }
+
+  @Test
+  void shouldIgnoreTornRecordAtTheEnd() throws IOException {
+    SegmentLog log = new SegmentLog(directory, false);
+    log.append(1L, bytes("one"));
+    log.append(2L, bytes("two"));
+    log.close();
+
+    Path segment = segments().get(0);
+    byte[] content = Files.readAllBytes(segment);
+    Files.write(segment, Arrays.copyOf(content, content.length - 3));
+
+    assertThat(new SegmentLog(directory, false).recover()).containsOnlyKeys(1L);
+  }
+
+  @Test
+  void shouldIgnoreRecordWithInvalidChecksum() throws IOException {
+    SegmentLog log = new SegmentLog(directory, false);
+    log.append(1L, bytes("one"));
+    log.append(2L, bytes("two"));
+    log.close();
+
+    Path segment = segments().get(0);
+    byte[] content = Files.readAllBytes(segment);
+    // flip a byte of the payload of the second record
+    content[content.length - 5] ^= 0xFF;
+    Files.write(segment, content);
+
+    assertThat(new SegmentLog(directory, false).recover()).containsOnlyKeys(1L);
+  }
+
+  @Test
+  void shouldAppendToNewSegmentAfterRecover() throws IOException {
+    SegmentLog log = new SegmentLog(directory, false);
+    log.append(1L, bytes("one"));
+    log.close();
+    Files.write(segments().get(0), new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+
+    SegmentLog recovered = new SegmentLog(directory, false);
+    recovered.recover();
+    recovered.append(1L, bytes("uno"));
+    recovered.append(2L, bytes("two"));
+
+    Map<Long, byte[]> records = new SegmentLog(directory, false).recover();
+    assertThat(records).containsOnlyKeys(1L, 2L);
+    assertThat(records.get(1L)).isEqualTo(bytes("uno"));
+  }
+
+  @Test
+  void shouldDeleteSegmentsWithoutLiveRecords() throws IOException {
+    SegmentLog log = new SegmentLog(directory, 1, 100, false);
+    log.append(1L, bytes("one"));
+    log.append(2L, bytes("two"));
+    assertThat(segments()).hasSize(2);
+
+    log.remove(1L);
+    log.remove(2L);
+
+    assertThat(segments()).isEmpty();
+    assertThat(new SegmentLog(directory, false).recover()).isEmpty();
+  }
+
+  @Test
+  void shouldKeepDeadSegmentWhileOlderSegmentIsAlive() throws IOException {
+    SegmentLog log = new SegmentLog(directory, 1, 100, false);
+    log.append(1L, bytes("one"));
+    log.append(2L, bytes("two"));
+    log.remove(2L);
+
+    // the first segment is still alive, the removal of two in the third segment must not get lost
+    assertThat(new SegmentLog(directory, false).recover()).containsOnlyKeys(1L);
+  }
+
+  @Test
+  void shouldCompactSegmentsOnRecoverAndStore() throws IOException {
+    SegmentLog log = new SegmentLog(directory, 1, 100, false);
+    log.append(1L, bytes("one"));
+    log.append(2L, bytes("two"));
+    log.close();
+
+    SegmentLog recovered = new SegmentLog(directory, 1024, 100, false);
+    Map<Long, byte[]> records = recovered.recover();
+    records.forEach(recovered::append);
+
+    assertThat(segments()).hasSize(1);
+    assertThat(new SegmentLog(directory, false).recover()).containsOnlyKeys(1L, 2L);
+  }
+
+  @Test
+  void shouldRelocateLiveRecordsOfOldestSegment() throws IOException {
+    SegmentLog log = new SegmentLog(directory, 1, 3, false);
+    log.append(1L, bytes("one"));
+    for (long id = 2; id < 10; id++) {
+      log.append(id, bytes("two"));
+      log.remove(id);
+    }
+
+    assertThat(segments().size()).isLessThanOrEqualTo(3);
+    Map<Long, byte[]> records = new SegmentLog(directory, false).recover();
+    assertThat(records).containsOnlyKeys(1L);
+    assertThat(records.get(1L)).isEqualTo(bytes("one"));
+  }
+
+  @Test
+  void shouldAppendConcurrently() throws Exception {
+    SegmentLog log = new SegmentLog(directory, 512, 4, false);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 200; i++) {
+        futures.add(executor.submit(() -> {
+          long id = log.nextId();
+          log.append(id, bytes("task-" + id));
+          if (id % 2 == 0) {
+            log.remove(id);
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    Map<Long, byte[]> records = new SegmentLog(directory, false).recover();
+    assertThat(records).hasSize(100);
+    records.forEach((id, payload) -> {
+      assertThat(id % 2).isEqualTo(1L);
+      assertThat(payload).isEqualTo(bytes("task-" + id));
+    });
+  }
+
+  private List<Path> segments() throws IOException {
+    try (Stream<Path> stream = Files.list(directory)) {
+      return stream.sorted().collect(Collectors.toList());
+    }
+  }
+
+  private byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+
+}